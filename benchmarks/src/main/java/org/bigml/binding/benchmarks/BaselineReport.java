@@ -0,0 +1,147 @@
+package org.bigml.binding.benchmarks;
+
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+/**
+ * Compares the results of two runs of the benchmarks, written by JMH with
+ * -rf json, and reports the benchmarks that got slower.
+ *
+ * Usage:
+ *
+ *  java -cp target/benchmarks.jar \
+ *      org.bigml.binding.benchmarks.BaselineReport \
+ *      baseline.json current.json [threshold]
+ *
+ * The threshold is the change, in percent, above which a benchmark is
+ * reported as a regression (10 by default). A change is only a regression
+ * when it is also larger than the error of both measures. The exit code is
+ * 1 when there are regressions, so that the report can fail a build.
+ */
+public class BaselineReport {
+
+    public static final double DEFAULT_THRESHOLD = 10.0;
+
+    /**
+     * The score of a benchmark in a run
+     */
+    static class Score {
+        final String mode;
+        final double score;
+        final double error;
+
+        Score(JSONObject result) {
+            JSONObject metric = (JSONObject) result.get("primaryMetric");
+            this.mode = (String) result.get("mode");
+            this.score = number(metric.get("score"));
+            this.error = number(metric.get("scoreError"));
+        }
+
+        private static double number(Object value) {
+            // JMH writes NaN as a string when there are too few iterations
+            return value instanceof Number ? ((Number) value).doubleValue()
+                    : 0.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if( args.length < 2 ) {
+            System.err.println("Usage: BaselineReport baseline.json "
+                    + "current.json [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2])
+                : DEFAULT_THRESHOLD;
+
+        Map<String, Score> baseline = read(args[0]);
+        Map<String, Score> current = read(args[1]);
+
+        int compared = 0;
+        int regressions = 0;
+        System.out.println(String.format("%-90s %14s %14s %9s",
+                "Benchmark", "Baseline", "Current", "Change"));
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score after = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if( before == null ) {
+                System.out.println(String.format("%-90s %14s %14.3f %9s",
+                        entry.getKey(), "-", after.score, "new"));
+                continue;
+            }
+
+            compared++;
+            double change = before.score == 0.0 ? 0.0
+                    : (after.score - before.score) / before.score * 100.0;
+            // in throughput modes higher is better, in time modes lower is
+            double slowdown = "thrpt".equals(after.mode) ? -change : change;
+            boolean regression = slowdown > threshold
+                    && Math.abs(after.score - before.score)
+                            > Math.max(before.error, after.error);
+            if( regression ) {
+                regressions++;
+            }
+            System.out.println(String.format("%-90s %14.3f %14.3f %+8.1f%%%s",
+                    entry.getKey(), before.score, after.score, change,
+                    regression ? "  REGRESSION" : ""));
+        }
+        for (String key : baseline.keySet()) {
+            if( !current.containsKey(key) ) {
+                System.out.println(String.format("%-90s %14.3f %14s %9s",
+                        key, baseline.get(key).score, "-", "missing"));
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format(
+                "%d benchmarks compared, %d slower than %.1f%%",
+                compared, regressions, threshold));
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Reads the scores of a JMH result file, keyed by the benchmark name
+     * and its parameters
+     */
+    static Map<String, Score> read(String fileName) throws Exception {
+        Reader reader = new FileReader(fileName);
+        try {
+            JSONArray results = (JSONArray) new JSONParser().parse(reader);
+            Map<String, Score> scores = new TreeMap<String, Score>();
+            for (Object result : results) {
+                JSONObject benchmark = (JSONObject) result;
+                scores.put(key(benchmark), new Score(benchmark));
+            }
+            return scores;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String key(JSONObject result) {
+        String name = (String) result.get("benchmark");
+        name = name.substring(name.lastIndexOf('.',
+                name.lastIndexOf('.') - 1) + 1);
+
+        JSONObject params = (JSONObject) result.get("params");
+        if( params == null || params.isEmpty() ) {
+            return name;
+        }
+        StringBuilder key = new StringBuilder(name).append('{');
+        boolean first = true;
+        for (Object param : new TreeMap<Object, Object>(params).entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) param;
+            if( !first ) {
+                key.append(',');
+            }
+            key.append(entry.getKey()).append('=').append(entry.getValue());
+            first = false;
+        }
+        return key.append('}').toString();
+    }
+}
@@ -0,0 +1,66 @@
+package org.bigml.binding.benchmarks;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.bigml.binding.utils.CacheManager;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The reads of resources from the cache, which parse a whole JSON file on
+ * every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheManagerBenchmark {
+
+    private static final String RESOURCE = "model/000000000000000000000001";
+
+    // iris is data/iris_model.json, the rest are the depths of synthetic
+    // complete trees
+    @Param({ "iris", "10", "14" })
+    public String model;
+
+    @Param({ "false", "true" })
+    public boolean compress;
+
+    private CacheManager cacheManager;
+
+    @Setup
+    public void setUp() throws Exception {
+        String storage = Files.createTempDirectory("bigml-benchmarks")
+                .toString();
+        cacheManager = new CacheManager(storage, compress, 0);
+
+        JSONObject resource = "iris".equals(model) ? Fixtures.irisModel()
+                : Fixtures.treeModel(RESOURCE, Integer.parseInt(model),
+                        false, 1, null);
+        cacheManager.put(RESOURCE, null, resource);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        cacheManager.cleanCache();
+    }
+
+    @Benchmark
+    public JSONObject get() {
+        return cacheManager.get(RESOURCE, null);
+    }
+}
@@ -0,0 +1,91 @@
+package org.bigml.binding.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bigml.binding.BigMLClient;
+import org.bigml.binding.mock.MockApiServer;
+import org.bigml.binding.utils.BulkResult;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The requests of the client to a local MockApiServer, with a given
+ * latency and share of throttled responses: the listings, and the creation
+ * of many resources at the same time, which go through the retries and the
+ * concurrency limits of the client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+
+    private static final int MODELS = 100;
+    private static final int BATCH = 20;
+
+    // the latency of the responses, in ms
+    @Param({ "0", "20" })
+    public int latency;
+
+    // the share of the requests answered with HTTP 429
+    @Param({ "0.0", "0.05" })
+    public double throttleRate;
+
+    private MockApiServer server;
+    private BigMLClient api;
+    private List<JSONObject> argsList;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new MockApiServer();
+        server.setSeed(1);
+        server.setLatency(latency, latency);
+        server.setThrottleRate(throttleRate);
+        server.setRetryAfter(0);
+        for (int i = 0; i < MODELS; i++) {
+            JSONObject model = new JSONObject();
+            model.put("resource", String.format("model/%024x", i + 1));
+            model.put("name", "model " + i);
+            server.put(model);
+        }
+        server.start();
+        api = new BigMLClient(server.getUrl(), "benchmarks", "key", null);
+
+        argsList = new ArrayList<JSONObject>();
+        for (int i = 0; i < BATCH; i++) {
+            JSONObject args = new JSONObject();
+            args.put("name", "project " + i);
+            argsList.add(args);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public JSONObject list() {
+        return api.listModels(";limit=" + MODELS);
+    }
+
+    @Benchmark
+    public BulkResult createBatch() {
+        return api.createBatch("project", argsList);
+    }
+}
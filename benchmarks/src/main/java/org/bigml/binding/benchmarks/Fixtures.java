@@ -0,0 +1,780 @@
+package org.bigml.binding.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.bigml.binding.BigMLClient;
+import org.bigml.binding.LocalAnomaly;
+import org.bigml.binding.LocalCluster;
+import org.bigml.binding.LocalDeepnet;
+import org.bigml.binding.LocalEnsemble;
+import org.bigml.binding.LocalLogisticRegression;
+import org.bigml.binding.LocalTopicModel;
+import org.bigml.binding.utils.CacheManager;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+
+/**
+ * Builds the local models and the input data used by the benchmarks.
+ *
+ * The iris model is read from the data directory of the bindings, set with
+ * the bigml.benchmarks.data system property (../data by default). The rest
+ * of the models are synthetic: they share the four numeric fields and the
+ * categorical objective of iris, and their size is given by the benchmark
+ * parameters. All of them are built from a fixed seed, so that two runs of
+ * the benchmarks measure the same models.
+ */
+public final class Fixtures {
+
+    public static final String DATA_DIR = System.getProperty(
+            "bigml.benchmarks.data", "../data");
+
+    public static final String[] FIELD_IDS = {
+            "000000", "000001", "000002", "000003" };
+    public static final String[] FIELD_NAMES = {
+            "sepal length", "sepal width", "petal length", "petal width" };
+    public static final String OBJECTIVE_ID = "000004";
+    public static final String[] CLASSES = {
+            "Iris-setosa", "Iris-versicolor", "Iris-virginica" };
+
+    private static final double[] MINIMUM = { 4.3, 2.0, 1.0, 0.1 };
+    private static final double[] MAXIMUM = { 7.9, 4.4, 6.9, 2.5 };
+    private static final long SEED = 42;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns the iris model in data/iris_model.json
+     */
+    public static JSONObject irisModel() throws Exception {
+        String json = Utils.readFile(DATA_DIR + File.separator
+                + "iris_model.json");
+        return (JSONObject) JSONValue.parse(json);
+    }
+
+    /**
+     * Returns random iris inputs keyed by field name
+     *
+     * @param size
+     *            the number of inputs
+     * @param missingRate
+     *            the probability of leaving a field out of an input
+     */
+    public static JSONObject[] inputs(int size, double missingRate) {
+        Random random = new Random(SEED);
+        JSONObject[] inputs = new JSONObject[size];
+        for (int i = 0; i < size; i++) {
+            JSONObject input = new JSONObject();
+            for (int f = 0; f < FIELD_NAMES.length; f++) {
+                if( random.nextDouble() >= missingRate ) {
+                    double value = MINIMUM[f] + random.nextDouble()
+                            * (MAXIMUM[f] - MINIMUM[f]);
+                    input.put(FIELD_NAMES[f], Math.round(value * 10) / 10.0);
+                }
+            }
+            inputs[i] = input;
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns random inputs where the values are strings, as read from a
+     * CSV file, so that they need to be cast
+     */
+    public static JSONObject[] textInputs(int size) {
+        JSONObject[] inputs = inputs(size, 0.0);
+        for (JSONObject input : inputs) {
+            for (String name : FIELD_NAMES) {
+                input.put(name, String.valueOf(input.get(name)));
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns a copy of an input, as predictions may change their input
+     */
+    public static JSONObject copy(JSONObject input) {
+        JSONObject copy = new JSONObject();
+        copy.putAll(input);
+        return copy;
+    }
+
+    // ------------------------------------------------------------------
+    // Trees and ensembles
+    // ------------------------------------------------------------------
+
+    /**
+     * Returns a synthetic decision tree model with a complete tree
+     *
+     * @param id
+     *            the id of the model
+     * @param depth
+     *            the depth of the tree. It has 2^depth leaves
+     * @param randomize
+     *            if true, the fields of the splits are chosen at random as
+     *            in a random decision forest. Otherwise they are used in turn
+     * @param seed
+     *            the seed of the thresholds and the leaves
+     * @param objectiveClass
+     *            the class of a boosted tree, or null for a classification
+     *            tree
+     */
+    public static JSONObject treeModel(String id, int depth,
+            boolean randomize, long seed, String objectiveClass) {
+        Random random = new Random(seed);
+        boolean boosted = objectiveClass != null;
+
+        JSONObject fields = fields();
+        int[] nodeId = { 0 };
+        JSONObject root = node(random, depth, randomize, boosted,
+                MINIMUM.clone(), MAXIMUM.clone(), 1 << Math.min(depth, 20),
+                null, nodeId);
+
+        JSONObject training = new JSONObject();
+        training.put("categories", root.get("objective_summary") != null ?
+                ((JSONObject) root.get("objective_summary")).get("categories")
+                : categories(1 << Math.min(depth, 20)));
+        JSONObject distribution = new JSONObject();
+        distribution.put("training", training);
+
+        JSONObject model = new JSONObject();
+        model.put("fields", fields);
+        model.put("root", root);
+        model.put("distribution", distribution);
+        model.put("kind", "mtree");
+
+        JSONObject object = new JSONObject();
+        object.put("resource", id);
+        object.put("status", finished());
+        object.put("objective_field", OBJECTIVE_ID);
+        object.put("objective_fields", objectiveFields());
+        object.put("input_fields", inputFields());
+        object.put("dataset_field_types", fieldTypes());
+        object.put("locale", "en_US");
+        object.put("randomize", randomize);
+        object.put("model", model);
+        if( boosted ) {
+            JSONObject boosting = new JSONObject();
+            boosting.put("objective_class", objectiveClass);
+            boosting.put("weight", 0.1);
+            boosting.put("lambda", 1);
+            object.put("boosted_ensemble", true);
+            object.put("boosting", boosting);
+        }
+
+        JSONObject resource = new JSONObject();
+        resource.put("code", 200);
+        resource.put("resource", id);
+        resource.put("object", object);
+        return parse(resource);
+    }
+
+    /**
+     * Returns a synthetic ensemble, whose models are stored in a cache so
+     * that the local ensemble is built offline. The local ensemble reads
+     * all of them when it's built, so the cache is deleted afterwards.
+     *
+     * @param kind
+     *            bagging, random_decision_forest or boosting
+     * @param numberOfModels
+     *            the number of models, or iterations for boosting
+     * @param depth
+     *            the depth of the trees
+     */
+    public static LocalEnsemble ensemble(String kind, int numberOfModels,
+            int depth) throws Exception {
+        boolean boosting = "boosting".equals(kind);
+        boolean randomize = "random_decision_forest".equals(kind);
+
+        String storage = Files.createTempDirectory("bigml-benchmarks")
+                .toString();
+        CacheManager cacheManager = new CacheManager(storage);
+
+        JSONArray models = new JSONArray();
+        long seed = SEED;
+        for (int i = 0; i < numberOfModels; i++) {
+            String[] classes = boosting ? CLASSES : new String[] { null };
+            for (String objectiveClass : classes) {
+                String id = String.format("model/%024x", seed);
+                cacheManager.put(id, null, treeModel(id, depth, randomize,
+                        seed, objectiveClass));
+                models.add(id);
+                seed++;
+            }
+        }
+
+        JSONObject info = new JSONObject();
+        info.put("fields", fields());
+
+        JSONObject ensemble = new JSONObject();
+        ensemble.put("resource", "ensemble/000000000000000000000001");
+        ensemble.put("status", finished());
+        ensemble.put("type", boosting ? 1 : 0);
+        ensemble.put("objective_field", OBJECTIVE_ID);
+        ensemble.put("models", models);
+        ensemble.put("ensemble", info);
+        if( boosting ) {
+            JSONObject boostingInfo = new JSONObject();
+            boostingInfo.put("iterations", numberOfModels);
+            ensemble.put("boosting", boostingInfo);
+
+            JSONArray offsets = new JSONArray();
+            for (String objectiveClass : CLASSES) {
+                JSONArray offset = new JSONArray();
+                offset.add(objectiveClass);
+                offset.add(0.0);
+                offsets.add(offset);
+            }
+            ensemble.put("initial_offsets", offsets);
+        }
+
+        try {
+            BigMLClient client = new BigMLClient("benchmarks", "key", storage);
+            return new LocalEnsemble(client, parse(ensemble));
+        } finally {
+            cacheManager.cleanCache();
+            new File(storage).delete();
+        }
+    }
+
+    private static JSONObject node(Random random, int depth,
+            boolean randomize, boolean boosted, double[] minimum,
+            double[] maximum, long count, JSONObject predicate, int[] nodeId) {
+        JSONObject node = new JSONObject();
+        node.put("id", nodeId[0]++);
+        node.put("count", count);
+        node.put("predicate", predicate != null ? predicate : Boolean.TRUE);
+
+        if( boosted ) {
+            double gSum = (random.nextDouble() - 0.5) * count;
+            double hSum = 0.25 * count;
+            node.put("g_sum", gSum);
+            node.put("h_sum", hSum);
+            node.put("output", -gSum / (hSum + 1));
+        } else {
+            JSONObject summary = new JSONObject();
+            JSONArray categories = categories(count, random);
+            summary.put("categories", categories);
+            node.put("objective_summary", summary);
+            node.put("output", ((JSONArray) categories.get(0)).get(0));
+            node.put("confidence", 0.5 + 0.5 * random.nextDouble());
+        }
+
+        if( depth > 0 ) {
+            int field = randomize ? random.nextInt(FIELD_IDS.length)
+                    : depth % FIELD_IDS.length;
+            double threshold = minimum[field] + (0.25 + 0.5 * random.nextDouble())
+                    * (maximum[field] - minimum[field]);
+            threshold = Math.round(threshold * 100) / 100.0;
+
+            double[] leftMaximum = maximum.clone();
+            leftMaximum[field] = threshold;
+            double[] rightMinimum = minimum.clone();
+            rightMinimum[field] = threshold;
+
+            JSONArray children = new JSONArray();
+            children.add(node(random, depth - 1, randomize, boosted,
+                    minimum, leftMaximum, Math.max(1, count / 2),
+                    predicate("<=", FIELD_IDS[field], threshold), nodeId));
+            children.add(node(random, depth - 1, randomize, boosted,
+                    rightMinimum, maximum, Math.max(1, count - count / 2),
+                    predicate(">", FIELD_IDS[field], threshold), nodeId));
+            node.put("children", children);
+        }
+        return node;
+    }
+
+    private static JSONObject predicate(String operator, String field,
+            double value) {
+        JSONObject predicate = new JSONObject();
+        predicate.put("operator", operator);
+        predicate.put("field", field);
+        predicate.put("value", value);
+        return predicate;
+    }
+
+    private static JSONArray categories(long count) {
+        return categories(count, new Random(SEED));
+    }
+
+    /**
+     * Returns a distribution of the classes, sorted by decreasing count
+     */
+    private static JSONArray categories(long count, Random random) {
+        int first = random.nextInt(CLASSES.length);
+        long remaining = count;
+        JSONArray categories = new JSONArray();
+        for (int i = 0; i < CLASSES.length && remaining > 0; i++) {
+            long classCount = i == CLASSES.length - 1 ? remaining
+                    : Math.max(1, remaining * (2 + i) / 4);
+            JSONArray category = new JSONArray();
+            category.add(CLASSES[(first + i) % CLASSES.length]);
+            category.add(classCount);
+            categories.add(category);
+            remaining -= classCount;
+        }
+        return categories;
+    }
+
+    // ------------------------------------------------------------------
+    // Other models
+    // ------------------------------------------------------------------
+
+    /**
+     * Returns a synthetic cluster with random centroids
+     *
+     * @param k
+     *            the number of centroids
+     */
+    public static LocalCluster cluster(int k) throws Exception {
+        Random random = new Random(SEED);
+        JSONObject fields = fields();
+        fields.remove(OBJECTIVE_ID);
+
+        JSONArray centroids = new JSONArray();
+        for (int i = 0; i < k; i++) {
+            JSONObject center = new JSONObject();
+            for (int f = 0; f < FIELD_IDS.length; f++) {
+                center.put(FIELD_IDS[f], MINIMUM[f] + random.nextDouble()
+                        * (MAXIMUM[f] - MINIMUM[f]));
+            }
+            JSONObject centroid = new JSONObject();
+            centroid.put("id", String.format("%06x", i));
+            centroid.put("name", "Cluster " + i);
+            centroid.put("count", 150 / k + 1);
+            centroid.put("center", center);
+            centroid.put("distance", distance(150 / k + 1));
+            centroids.add(centroid);
+        }
+
+        JSONObject global = new JSONObject();
+        global.put("center", new JSONObject());
+        global.put("count", 150);
+        global.put("distance", distance(150));
+
+        JSONObject clusters = new JSONObject();
+        clusters.put("fields", fields);
+        clusters.put("clusters", centroids);
+        clusters.put("global", global);
+        clusters.put("total_ss", 100.0);
+        clusters.put("within_ss", 20.0);
+        clusters.put("between_ss", 80.0);
+        clusters.put("ratio_ss", 0.8);
+
+        JSONObject scales = new JSONObject();
+        for (String fieldId : FIELD_IDS) {
+            scales.put(fieldId, 1.0);
+        }
+
+        JSONObject cluster = new JSONObject();
+        cluster.put("resource", "cluster/000000000000000000000001");
+        cluster.put("status", finished());
+        cluster.put("clusters", clusters);
+        cluster.put("k", k);
+        cluster.put("scales", scales);
+        cluster.put("summary_fields", new JSONArray());
+        cluster.put("input_fields", inputFields());
+        return new LocalCluster(parse(cluster));
+    }
+
+    private static JSONObject distance(long population) {
+        JSONObject distance = new JSONObject();
+        distance.put("population", population);
+        distance.put("sum_squares", 1.0);
+        distance.put("mean", 0.5);
+        distance.put("median", 0.5);
+        distance.put("minimum", 0.0);
+        distance.put("maximum", 1.0);
+        distance.put("standard_deviation", 0.1);
+        distance.put("variance", 0.01);
+        return distance;
+    }
+
+    /**
+     * Returns a synthetic anomaly detector with complete isolation trees
+     *
+     * @param numberOfTrees
+     *            the number of trees of the forest
+     * @param depth
+     *            the depth of the trees
+     */
+    public static LocalAnomaly anomaly(int numberOfTrees, int depth)
+            throws Exception {
+        Random random = new Random(SEED);
+        JSONObject fields = fields();
+        fields.remove(OBJECTIVE_ID);
+
+        JSONArray trees = new JSONArray();
+        for (int i = 0; i < numberOfTrees; i++) {
+            JSONObject tree = new JSONObject();
+            tree.put("root", anomalyNode(random, depth, MINIMUM.clone(),
+                    MAXIMUM.clone(), null));
+            trees.add(tree);
+        }
+
+        JSONObject model = new JSONObject();
+        model.put("fields", fields);
+        model.put("trees", trees);
+        model.put("top_anomalies", new JSONArray());
+        model.put("mean_depth", (double) depth);
+
+        JSONObject anomaly = new JSONObject();
+        anomaly.put("resource", "anomaly/000000000000000000000001");
+        anomaly.put("status", finished());
+        anomaly.put("sample_size", 1L << Math.min(depth, 20));
+        anomaly.put("input_fields", inputFields());
+        anomaly.put("model", model);
+        return new LocalAnomaly(parse(anomaly));
+    }
+
+    private static JSONObject anomalyNode(Random random, int depth,
+            double[] minimum, double[] maximum, JSONObject predicate) {
+        JSONObject node = new JSONObject();
+        if( predicate == null ) {
+            node.put("predicates", Boolean.TRUE);
+        } else {
+            JSONArray predicates = new JSONArray();
+            predicates.add(predicate);
+            node.put("predicates", predicates);
+        }
+
+        if( depth > 0 ) {
+            int field = random.nextInt(FIELD_IDS.length);
+            double threshold = minimum[field] + random.nextDouble()
+                    * (maximum[field] - minimum[field]);
+
+            double[] leftMaximum = maximum.clone();
+            leftMaximum[field] = threshold;
+            double[] rightMinimum = minimum.clone();
+            rightMinimum[field] = threshold;
+
+            JSONArray children = new JSONArray();
+            children.add(anomalyNode(random, depth - 1, minimum, leftMaximum,
+                    anomalyPredicate("<", FIELD_IDS[field], threshold)));
+            children.add(anomalyNode(random, depth - 1, rightMinimum, maximum,
+                    anomalyPredicate(">=", FIELD_IDS[field], threshold)));
+            node.put("children", children);
+        }
+        return node;
+    }
+
+    private static JSONObject anomalyPredicate(String operator, String field,
+            double value) {
+        JSONObject predicate = new JSONObject();
+        predicate.put("op", operator);
+        predicate.put("field", field);
+        predicate.put("value", value);
+        return predicate;
+    }
+
+    /**
+     * Returns a synthetic logistic regression with random coefficients
+     */
+    public static LocalLogisticRegression logisticRegression()
+            throws Exception {
+        Random random = new Random(SEED);
+
+        JSONArray coefficients = new JSONArray();
+        for (String objectiveClass : CLASSES) {
+            JSONArray classCoefficients = new JSONArray();
+            for (int f = 0; f <= FIELD_IDS.length; f++) {
+                JSONArray fieldCoefficients = new JSONArray();
+                fieldCoefficients.add(random.nextGaussian());
+                if( f < FIELD_IDS.length ) {
+                    fieldCoefficients.add(random.nextGaussian());
+                }
+                classCoefficients.add(fieldCoefficients);
+            }
+            JSONArray coefficient = new JSONArray();
+            coefficient.add(objectiveClass);
+            coefficient.add(classCoefficients);
+            coefficients.add(coefficient);
+        }
+
+        JSONObject info = new JSONObject();
+        info.put("fields", fields());
+        info.put("coefficients", coefficients);
+        info.put("bias", true);
+        info.put("normalize", false);
+        info.put("balance_fields", false);
+        info.put("missing_numerics", true);
+        info.put("field_codings", new JSONObject());
+
+        JSONObject logistic = new JSONObject();
+        logistic.put("resource", "logisticregression/000000000000000000000001");
+        logistic.put("status", finished());
+        logistic.put("objective_field", OBJECTIVE_ID);
+        logistic.put("objective_fields", objectiveFields());
+        logistic.put("input_fields", inputFields());
+        logistic.put("dataset_field_types", fieldTypes());
+        logistic.put("logistic_regression", info);
+        return new LocalLogisticRegression(parse(logistic));
+    }
+
+    /**
+     * Returns a synthetic deepnet: a fully connected network with random
+     * weights
+     *
+     * @param hiddenLayers
+     *            the number of hidden layers
+     * @param width
+     *            the number of nodes of the hidden layers
+     */
+    public static LocalDeepnet deepnet(int hiddenLayers, int width)
+            throws Exception {
+        Random random = new Random(SEED);
+
+        JSONArray preprocess = new JSONArray();
+        for (int f = 0; f < FIELD_IDS.length; f++) {
+            JSONObject standardize = new JSONObject();
+            standardize.put("mean", (MINIMUM[f] + MAXIMUM[f]) / 2);
+            standardize.put("stdev", (MAXIMUM[f] - MINIMUM[f]) / 4);
+            preprocess.add(standardize);
+        }
+
+        JSONArray layers = new JSONArray();
+        int inputs = FIELD_IDS.length;
+        for (int i = 0; i <= hiddenLayers; i++) {
+            boolean output = i == hiddenLayers;
+            int outputs = output ? CLASSES.length : width;
+            layers.add(denseLayer(random, inputs, outputs,
+                    output ? "softmax" : "relu"));
+            inputs = outputs;
+        }
+
+        JSONObject network = new JSONObject();
+        network.put("layers", layers);
+        network.put("preprocess", preprocess);
+        network.put("output_exposition", new JSONObject());
+        network.put("trees", null);
+
+        JSONObject info = new JSONObject();
+        info.put("fields", fields());
+        info.put("network", network);
+        info.put("missing_numerics", false);
+
+        JSONObject deepnet = new JSONObject();
+        deepnet.put("resource", "deepnet/000000000000000000000001");
+        deepnet.put("status", finished());
+        deepnet.put("objective_field", OBJECTIVE_ID);
+        deepnet.put("objective_fields", objectiveFields());
+        deepnet.put("input_fields", inputFields());
+        deepnet.put("deepnet", info);
+        return new LocalDeepnet(parse(deepnet));
+    }
+
+    private static JSONObject denseLayer(Random random, int inputs,
+            int outputs, String activation) {
+        JSONArray weights = new JSONArray();
+        JSONArray offset = new JSONArray();
+        for (int o = 0; o < outputs; o++) {
+            JSONArray row = new JSONArray();
+            for (int i = 0; i < inputs; i++) {
+                row.add(random.nextGaussian() / Math.sqrt(inputs));
+            }
+            weights.add(row);
+            offset.add(0.0);
+        }
+        JSONObject layer = new JSONObject();
+        layer.put("weights", weights);
+        layer.put("offset", offset);
+        layer.put("activation_function", activation);
+        layer.put("mean", null);
+        layer.put("stdev", null);
+        return layer;
+    }
+
+    /**
+     * Returns a synthetic topic model over a vocabulary of made up terms
+     *
+     * @param topics
+     *            the number of topics
+     * @param terms
+     *            the number of terms
+     */
+    public static LocalTopicModel topicModel(int topics, int terms)
+            throws Exception {
+        Random random = new Random(SEED);
+
+        JSONArray termset = new JSONArray();
+        JSONArray assignments = new JSONArray();
+        for (int t = 0; t < terms; t++) {
+            termset.add(term(t));
+            JSONArray counts = new JSONArray();
+            for (int k = 0; k < topics; k++) {
+                counts.add(random.nextInt(100));
+            }
+            assignments.add(counts);
+        }
+
+        JSONArray topicList = new JSONArray();
+        for (int k = 0; k < topics; k++) {
+            JSONObject topic = new JSONObject();
+            topic.put("id", String.format("%06x", k));
+            topic.put("name", "Topic " + k);
+            topicList.add(topic);
+        }
+
+        JSONObject text = new JSONObject();
+        text.put("name", "text");
+        text.put("optype", "text");
+        text.put("column_number", 0);
+        text.put("term_analysis", new JSONObject());
+        JSONObject fields = new JSONObject();
+        fields.put("000000", text);
+
+        JSONObject info = new JSONObject();
+        info.put("fields", fields);
+        info.put("topics", topicList);
+        info.put("termset", termset);
+        info.put("term_topic_assignments", assignments);
+        info.put("language", "none");
+        info.put("hashed_seed", SEED);
+        info.put("case_sensitive", false);
+        info.put("bigrams", false);
+        info.put("alpha", 50.0 / topics);
+        info.put("beta", 0.1);
+
+        JSONObject topicModel = new JSONObject();
+        topicModel.put("resource", "topicmodel/000000000000000000000001");
+        topicModel.put("status", finished());
+        topicModel.put("topic_model", info);
+        return new LocalTopicModel(parse(topicModel));
+    }
+
+    /**
+     * Returns random documents made of the terms of a synthetic topic model
+     *
+     * @param size
+     *            the number of documents
+     * @param terms
+     *            the number of terms of the topic model
+     * @param length
+     *            the number of words of a document
+     */
+    public static String[] documents(int size, int terms, int length) {
+        Random random = new Random(SEED);
+        String[] documents = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder document = new StringBuilder();
+            for (int w = 0; w < length; w++) {
+                if( w > 0 ) {
+                    document.append(' ');
+                }
+                document.append(term(random.nextInt(terms)));
+            }
+            documents[i] = document.toString();
+        }
+        return documents;
+    }
+
+    /**
+     * Returns a made up term, only made of letters
+     */
+    private static String term(int index) {
+        StringBuilder term = new StringBuilder("t");
+        do {
+            term.append((char) ('a' + index % 26));
+            index /= 26;
+        } while( index > 0 );
+        return term.toString();
+    }
+
+    // ------------------------------------------------------------------
+    // Fields
+    // ------------------------------------------------------------------
+
+    /**
+     * Returns the descriptors of the four numeric fields and the objective
+     */
+    public static JSONObject fields() {
+        JSONObject fields = new JSONObject();
+        for (int f = 0; f < FIELD_IDS.length; f++) {
+            double mean = (MINIMUM[f] + MAXIMUM[f]) / 2;
+            JSONObject summary = new JSONObject();
+            summary.put("missing_count", 0);
+            summary.put("population", 150);
+            summary.put("minimum", MINIMUM[f]);
+            summary.put("maximum", MAXIMUM[f]);
+            summary.put("mean", mean);
+            summary.put("median", mean);
+            summary.put("standard_deviation", (MAXIMUM[f] - MINIMUM[f]) / 4);
+
+            JSONObject field = new JSONObject();
+            field.put("name", FIELD_NAMES[f]);
+            field.put("optype", "numeric");
+            field.put("datatype", "double");
+            field.put("column_number", f);
+            field.put("order", f);
+            field.put("preferred", true);
+            field.put("summary", summary);
+            fields.put(FIELD_IDS[f], field);
+        }
+
+        JSONArray categories = new JSONArray();
+        for (String objectiveClass : CLASSES) {
+            JSONArray category = new JSONArray();
+            category.add(objectiveClass);
+            category.add(50);
+            categories.add(category);
+        }
+        JSONObject summary = new JSONObject();
+        summary.put("missing_count", 0);
+        summary.put("categories", categories);
+
+        JSONObject objective = new JSONObject();
+        objective.put("name", "species");
+        objective.put("optype", "categorical");
+        objective.put("datatype", "string");
+        objective.put("column_number", FIELD_IDS.length);
+        objective.put("order", FIELD_IDS.length);
+        objective.put("preferred", true);
+        objective.put("summary", summary);
+        objective.put("term_analysis", new JSONObject());
+        fields.put(OBJECTIVE_ID, objective);
+        return fields;
+    }
+
+    private static JSONArray inputFields() {
+        JSONArray inputFields = new JSONArray();
+        for (String fieldId : FIELD_IDS) {
+            inputFields.add(fieldId);
+        }
+        return inputFields;
+    }
+
+    private static JSONArray objectiveFields() {
+        JSONArray objectiveFields = new JSONArray();
+        objectiveFields.add(OBJECTIVE_ID);
+        return objectiveFields;
+    }
+
+    private static JSONObject fieldTypes() {
+        JSONObject types = new JSONObject();
+        types.put("numeric", FIELD_IDS.length);
+        types.put("categorical", 1);
+        types.put("text", 0);
+        types.put("total", FIELD_IDS.length + 1);
+        return types;
+    }
+
+    private static JSONObject finished() {
+        JSONObject status = new JSONObject();
+        status.put("code", 5);
+        status.put("message", "The resource has been created");
+        return status;
+    }
+
+    /**
+     * Serializes and parses a resource, so that its numbers have the same
+     * types as the ones read from the API
+     */
+    private static JSONObject parse(JSONObject resource) {
+        return (JSONObject) JSONValue.parse(resource.toJSONString());
+    }
+}
@@ -0,0 +1,93 @@
+package org.bigml.binding.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bigml.binding.LocalPredictiveModel;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The preparation of the input data shared by all the local models: the
+ * filtering of the fields in ModelFields.filterInputData and the casting
+ * of their values in Utils.cast.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InputDataBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    /**
+     * A local model that exposes the filtering of its input data
+     */
+    static class InputFilter extends LocalPredictiveModel {
+        private static final long serialVersionUID = 1L;
+
+        InputFilter(JSONObject model) throws Exception {
+            super(model);
+        }
+
+        JSONObject filter(JSONObject inputData) {
+            return filterInputData(inputData, true);
+        }
+    }
+
+    // the probability of a missing field in an input
+    @Param({ "0.0", "0.2" })
+    public double missingRate;
+
+    private InputFilter filter;
+    private JSONObject fields;
+    private JSONObject[] inputs;
+    private JSONObject[] textInputs;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws Exception {
+        filter = new InputFilter(Fixtures.treeModel(
+                "model/000000000000000000000001", 4, false, 1, null));
+        fields = Fixtures.fields();
+        inputs = Fixtures.inputs(INPUTS, missingRate);
+
+        // the values read from a CSV file are strings, keyed by id once
+        // they have been filtered
+        textInputs = Fixtures.textInputs(INPUTS);
+        for (int i = 0; i < textInputs.length; i++) {
+            JSONObject byId = new JSONObject();
+            for (int f = 0; f < Fixtures.FIELD_NAMES.length; f++) {
+                byId.put(Fixtures.FIELD_IDS[f],
+                        textInputs[i].get(Fixtures.FIELD_NAMES[f]));
+            }
+            textInputs[i] = byId;
+        }
+    }
+
+    @Benchmark
+    public JSONObject filterInputData() {
+        next = (next + 1) % INPUTS;
+        return filter.filter(Fixtures.copy(inputs[next]));
+    }
+
+    @Benchmark
+    public JSONObject cast() {
+        next = (next + 1) % INPUTS;
+        JSONObject input = Fixtures.copy(textInputs[next]);
+        Utils.cast(input, fields);
+        return input;
+    }
+}
@@ -0,0 +1,193 @@
+package org.bigml.binding.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bigml.binding.LocalAnomaly;
+import org.bigml.binding.LocalCluster;
+import org.bigml.binding.LocalDeepnet;
+import org.bigml.binding.LocalLogisticRegression;
+import org.bigml.binding.LocalTopicModel;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Predictions of the local models other than trees: clusters, anomaly
+ * detectors, deepnets, logistic regressions and topic models.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalModelsBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    /**
+     * An operating point that predicts the positive class only when
+     * it's very likely, so that both branches of the decision are used
+     */
+    static JSONObject operatingPoint() {
+        JSONObject operatingPoint = new JSONObject();
+        operatingPoint.put("kind", "probability");
+        operatingPoint.put("threshold", 0.8);
+        operatingPoint.put("positive_class", Fixtures.CLASSES[1]);
+        return operatingPoint;
+    }
+
+    /**
+     * Cycles through a set of random inputs
+     */
+    public abstract static class Inputs {
+        JSONObject[] inputs;
+        int next = 0;
+
+        JSONObject nextInput() {
+            next = (next + 1) % inputs.length;
+            return Fixtures.copy(inputs[next]);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ClusterState extends Inputs {
+
+        @Param({ "8", "64" })
+        public int k;
+
+        LocalCluster cluster;
+
+        @Setup
+        public void setUp() throws Exception {
+            cluster = Fixtures.cluster(k);
+            inputs = Fixtures.inputs(INPUTS, 0.0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AnomalyState extends Inputs {
+
+        @Param({ "128" })
+        public int trees;
+
+        @Param({ "8" })
+        public int depth;
+
+        LocalAnomaly anomaly;
+
+        @Setup
+        public void setUp() throws Exception {
+            anomaly = Fixtures.anomaly(trees, depth);
+            inputs = Fixtures.inputs(INPUTS, 0.0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DeepnetState extends Inputs {
+
+        @Param({ "3" })
+        public int layers;
+
+        @Param({ "64" })
+        public int width;
+
+        LocalDeepnet deepnet;
+        JSONObject operatingPoint;
+
+        @Setup
+        public void setUp() throws Exception {
+            deepnet = Fixtures.deepnet(layers, width);
+            inputs = Fixtures.inputs(INPUTS, 0.0);
+            operatingPoint = operatingPoint();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LogisticState extends Inputs {
+
+        LocalLogisticRegression logistic;
+        JSONObject operatingPoint;
+
+        @Setup
+        public void setUp() throws Exception {
+            logistic = Fixtures.logisticRegression();
+            inputs = Fixtures.inputs(INPUTS, 0.0);
+            operatingPoint = operatingPoint();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TopicModelState {
+
+        @Param({ "16" })
+        public int topics;
+
+        @Param({ "1000" })
+        public int terms;
+
+        // the number of words of a document
+        @Param({ "50" })
+        public int length;
+
+        LocalTopicModel topicModel;
+        String[] documents;
+        int next = 0;
+
+        @Setup
+        public void setUp() throws Exception {
+            topicModel = Fixtures.topicModel(topics, terms);
+            documents = Fixtures.documents(INPUTS, terms, length);
+        }
+
+        String nextDocument() {
+            next = (next + 1) % documents.length;
+            return documents[next];
+        }
+    }
+
+    @Benchmark
+    public Object clusterCentroid(ClusterState state) {
+        return state.cluster.centroid(state.nextInput());
+    }
+
+    @Benchmark
+    public double anomalyScore(AnomalyState state) {
+        return state.anomaly.score(state.nextInput());
+    }
+
+    @Benchmark
+    public Object deepnetPredict(DeepnetState state) throws Exception {
+        return state.deepnet.predict(state.nextInput(), null, null, null);
+    }
+
+    @Benchmark
+    public Object deepnetOperatingPoint(DeepnetState state) throws Exception {
+        return state.deepnet.predict(state.nextInput(), state.operatingPoint,
+                null, null);
+    }
+
+    @Benchmark
+    public Object logisticRegressionPredict(LogisticState state) {
+        return state.logistic.predict(state.nextInput(), null, null, null);
+    }
+
+    @Benchmark
+    public Object logisticRegressionOperatingPoint(LogisticState state) {
+        return state.logistic.predict(state.nextInput(), state.operatingPoint,
+                null, null);
+    }
+
+    @Benchmark
+    public Object topicDistribution(TopicModelState state) throws Exception {
+        return state.topicModel.distributionForText(state.nextDocument());
+    }
+}
@@ -0,0 +1,163 @@
+package org.bigml.binding.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bigml.binding.LocalEnsemble;
+import org.bigml.binding.LocalPredictiveModel;
+import org.bigml.binding.MissingStrategy;
+import org.bigml.binding.PredictionCache;
+import org.bigml.binding.PredictionMethod;
+import org.bigml.binding.localmodel.Prediction;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Predictions of local decision trees and ensembles.
+ *
+ * The inputs are copied before every prediction, because predicting may
+ * change them, so every measure includes the copy of a four fields map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalTreeBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @State(Scope.Benchmark)
+    public static class TreeState {
+
+        // iris is data/iris_model.json, the rest are the depths of synthetic
+        // complete trees
+        @Param({ "iris", "8", "16" })
+        public String tree;
+
+        // the probability of a missing field in an input
+        @Param({ "0.0", "0.2", "0.5" })
+        public double missingRate;
+
+        // whether the tree is compiled to a Java class, which only changes
+        // the predictions with the last prediction strategy
+        @Param({ "false", "true" })
+        public boolean compiled;
+
+        LocalPredictiveModel model;
+        JSONObject[] inputs;
+        int next = 0;
+
+        @Setup
+        public void setUp() throws Exception {
+            JSONObject json = "iris".equals(tree) ? Fixtures.irisModel()
+                    : Fixtures.treeModel("model/000000000000000000000001",
+                            Integer.parseInt(tree), false, 1, null);
+            model = new LocalPredictiveModel(json);
+            if( compiled ) {
+                model.compile();
+            }
+            inputs = Fixtures.inputs(INPUTS, missingRate);
+        }
+
+        JSONObject nextInput() {
+            next = (next + 1) % inputs.length;
+            return Fixtures.copy(inputs[next]);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EnsembleState {
+
+        @Param({ "bagging", "random_decision_forest", "boosting" })
+        public String kind;
+
+        // the number of models, or iterations for boosting
+        @Param({ "10", "100" })
+        public int models;
+
+        @Param({ "8" })
+        public int depth;
+
+        @Param({ "false", "true" })
+        public boolean compiled;
+
+        LocalEnsemble ensemble;
+        JSONObject[] inputs;
+        int next = 0;
+
+        @Setup
+        public void setUp() throws Exception {
+            ensemble = Fixtures.ensemble(kind, models, depth);
+            if( compiled ) {
+                ensemble.compile();
+            }
+            inputs = Fixtures.inputs(INPUTS, 0.0);
+        }
+
+        JSONObject nextInput() {
+            next = (next + 1) % inputs.length;
+            return Fixtures.copy(inputs[next]);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CachedEnsembleState {
+
+        // the entries of the prediction cache. The inputs are cycled, so a
+        // cache smaller than INPUTS always misses
+        @Param({ "256", "4096" })
+        public int cacheEntries;
+
+        LocalEnsemble ensemble;
+        JSONObject[] inputs;
+        int next = 0;
+
+        @Setup
+        public void setUp() throws Exception {
+            ensemble = Fixtures.ensemble("bagging", 100, 8);
+            ensemble.setPredictionCache(new PredictionCache(cacheEntries));
+            inputs = Fixtures.inputs(INPUTS, 0.0);
+        }
+
+        JSONObject nextInput() {
+            next = (next + 1) % inputs.length;
+            return Fixtures.copy(inputs[next]);
+        }
+    }
+
+    @Benchmark
+    public Prediction treeLastPrediction(TreeState state) throws Exception {
+        return state.model.predict(state.nextInput(),
+                MissingStrategy.LAST_PREDICTION);
+    }
+
+    @Benchmark
+    public Prediction treeProportional(TreeState state) throws Exception {
+        return state.model.predict(state.nextInput(),
+                MissingStrategy.PROPORTIONAL);
+    }
+
+    @Benchmark
+    public Object ensemble(EnsembleState state) throws Exception {
+        return state.ensemble.predict(state.nextInput(),
+                PredictionMethod.PLURALITY, null,
+                MissingStrategy.LAST_PREDICTION, null, null, null, null);
+    }
+
+    @Benchmark
+    public Object cachedEnsemble(CachedEnsembleState state) throws Exception {
+        return state.ensemble.predict(state.nextInput(),
+                PredictionMethod.PLURALITY, null,
+                MissingStrategy.LAST_PREDICTION, null, null, null, null);
+    }
+}
@@ -0,0 +1,736 @@
+package org.bigml.binding;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.utils.CacheManager;
+import org.bigml.binding.utils.Instrumentation;
+import org.bigml.binding.utils.JSONStreamReader;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Sends the requests to the BigML API without blocking the calling thread,
+ * for the callers that run on event loops.
+ *
+ * Every method returns at once a CompletableFuture that completes with the
+ * JSONObject the synchronous methods of BigMLClient return: the code of
+ * the response, the resource and its object, and the error, if any. The
+ * requests are sent by a java.net.http.HttpClient, so thousands of them
+ * can be waiting for their responses with only the few threads of the
+ * HTTP client.
+ *
+ * The resources are identified by their ids, and their kind by the name
+ * used in the ids: source, dataset, model...
+ *
+ * The future completes exceptionally when the request can't be sent or
+ * its response can't be read, and with a TimeoutException when the
+ * request isn't answered before its deadline. Cancelling the future, or
+ * its timeout, cancels the exchange of the HTTP client. The HTTP client
+ * only closes the connection of a cancelled exchange since Java 16: on
+ * older versions the response is still received, and then discarded.
+ *
+ * The resources are read from and stored in the cache of the client, as
+ * in the synchronous methods. The cache is read by threads of its own,
+ * and the read counts towards the deadline of the request. The retry
+ * policy and the request coalescer of the client are not used, as they
+ * wait in the calling thread.
+ *
+ * Example usage:
+ *
+ *  AsyncBigMLClient async = api.getAsyncClient();
+ *  async.get("model/5af06df94e17277501000010", null, Duration.ofSeconds(10))
+ *      .thenAccept(callback);
+ */
+public class AsyncBigMLClient {
+
+    private static final String JSON = "application/json; charset=utf-8";
+
+    // reads the cached resources, shared by all the clients so that the
+    // reads neither wait for nor delay the tasks of the common pool
+    private static final ExecutorService CACHE_READS =
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable,
+                            "bigml-cache-read-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final BigMLClient client;
+    private final HttpClient httpClient;
+    private final String bigmlUrl;
+    private final String bigmlAuth;
+
+    /**
+     * Creates an asynchronous client with the settings and the cache of a
+     * client
+     *
+     * @param client
+     *            the synchronous client
+     */
+    public AsyncBigMLClient(final BigMLClient client) {
+        this(client, HttpClient.newHttpClient());
+    }
+
+    /**
+     * Creates an asynchronous client with the settings and the cache of a
+     * client
+     *
+     * @param client
+     *            the synchronous client
+     * @param httpClient
+     *            the HTTP client that sends the requests, e.g. to choose
+     *            its executor, version or SSL context
+     */
+    public AsyncBigMLClient(final BigMLClient client,
+            final HttpClient httpClient) {
+        this.client = client;
+        this.httpClient = httpClient;
+        this.bigmlUrl = client.getBigMLUrl();
+
+        BigMLSettings settings = client.getSettings();
+        String auth = "?username=" + settings.getUsername() + "&api_key="
+                + settings.getApiKey() + "&";
+        if (settings.getProjectId() != null) {
+            auth += "project=" + settings.getProjectId() + "&";
+        }
+        if (settings.getOrganizationId() != null) {
+            auth += "organization=" + settings.getOrganizationId() + "&";
+        }
+        this.bigmlAuth = auth;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Creates a new resource.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param args
+     *            set of parameters for the new resource, including its
+     *            origin resources
+     */
+    public CompletableFuture<JSONObject> create(final String resourceName,
+            final JSONObject args) {
+        return create(resourceName, args, null);
+    }
+
+    /**
+     * Creates a new resource.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param args
+     *            set of parameters for the new resource, including its
+     *            origin resources
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     */
+    public CompletableFuture<JSONObject> create(final String resourceName,
+            final JSONObject args, final Duration timeout) {
+        final AbstractResource resource = client.getResourceByName(resourceName);
+        if (resource == null) {
+            return unknown(resourceName);
+        }
+
+        JSONObject requestObject = new JSONObject();
+        if (args != null) {
+            requestObject.putAll(args);
+        }
+        final String url = bigmlUrl + resourceName;
+        return send(resourceName, "POST", url + bigmlAuth,
+                requestObject.toJSONString(), timeout,
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        Response response = new Response(httpResponse,
+                                AbstractResource.HTTP_CREATED,
+                                "The resource couldn't be created",
+                                AbstractResource.HTTP_BAD_REQUEST,
+                                AbstractResource.HTTP_UNAUTHORIZED,
+                                AbstractResource.HTTP_PAYMENT_REQUIRED,
+                                AbstractResource.HTTP_NOT_FOUND);
+
+                        String resourceId = response.body != null ?
+                                (String) response.body.get("resource") : null;
+                        CacheManager cacheManager = client.getCacheManager();
+                        if (cacheManager != null && resourceId != null
+                                && resource.isResourceReady(response.body)) {
+                            cacheManager.put(resourceId, null, response.body);
+                        }
+
+                        JSONObject result = new JSONObject();
+                        result.put("code", response.code);
+                        result.put("resource", resourceId);
+                        result.put("location", httpResponse.headers()
+                                .firstValue("Location").orElse(url));
+                        result.put("object", response.body);
+                        result.put("error", response.error);
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Retrieves a resource.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g. model/5af06df94e17277501000010
+     */
+    public CompletableFuture<JSONObject> get(final String resourceId) {
+        return get(resourceId, null, null);
+    }
+
+    /**
+     * Retrieves a resource.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g. model/5af06df94e17277501000010
+     * @param queryString
+     *            query for filtering, or null
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     */
+    public CompletableFuture<JSONObject> get(final String resourceId,
+            final String queryString, final Duration timeout) {
+        final String resourceName = resourceName(resourceId);
+        final AbstractResource resource = client.getResourceByName(resourceName);
+        if (resource == null) {
+            return unknown(resourceId);
+        }
+
+        final String url = bigmlUrl + resourceId;
+        final String query = queryString != null ? queryString : "";
+        final Function<HttpResponse<byte[]>, JSONObject> handler =
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        Response response = new Response(httpResponse,
+                                AbstractResource.HTTP_OK,
+                                "The resource couldn't be retrieved",
+                                AbstractResource.HTTP_BAD_REQUEST,
+                                AbstractResource.HTTP_UNAUTHORIZED,
+                                AbstractResource.HTTP_NOT_FOUND);
+
+                        CacheManager cacheManager = client.getCacheManager();
+                        if (cacheManager != null && response.body != null
+                                && resource.isResourceReady(response.body)) {
+                            cacheManager.put(resourceId, queryString,
+                                    response.body);
+                        }
+                        return resourceResult(response.code, resourceId, url,
+                                response.body, response.error);
+                    }
+                };
+
+        final CacheManager cacheManager = client.getCacheManager();
+        if (cacheManager == null) {
+            return send(resourceName, "GET", url + bigmlAuth + query, null,
+                    timeout, handler);
+        }
+
+        // the cache is read in the background, as the entry may be large,
+        // and the deadline and the cancellation of the result cover both
+        // the read and the request sent on a miss
+        final long deadline = timeout != null ?
+                System.nanoTime() + timeout.toNanos() : 0L;
+        final CompletableFuture<JSONObject> result = new CompletableFuture<JSONObject>();
+        final CompletableFuture<JSONObject> read = CompletableFuture.supplyAsync(
+                new Supplier<JSONObject>() {
+            public JSONObject get() {
+                JSONObject cached = null;
+                if (cacheManager.exists(resourceId, queryString)) {
+                    cached = cacheManager.get(resourceId, queryString);
+                }
+                Instrumentation instrumentation = Instrumentation.get();
+                if (instrumentation.isEnabled()) {
+                    instrumentation.increment(cached != null ?
+                            Instrumentation.CACHE_HIT : Instrumentation.CACHE_MISS,
+                            "resource", resourceName);
+                }
+                return cached;
+            }
+        }, CACHE_READS);
+        read.whenComplete(new BiConsumer<JSONObject, Throwable>() {
+            public void accept(JSONObject cached, Throwable error) {
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else if (cached != null) {
+                    result.complete(resourceResult(AbstractResource.HTTP_OK,
+                            resourceId, url, cached, new JSONObject()));
+                } else if (!result.isDone()) {
+                    Duration remaining = null;
+                    if (timeout != null) {
+                        remaining = Duration.ofNanos(Math.max(
+                                deadline - System.nanoTime(), 1L));
+                    }
+                    final CompletableFuture<JSONObject> request = send(
+                            resourceName, "GET", url + bigmlAuth + query,
+                            null, remaining, handler);
+                    request.whenComplete(new BiConsumer<JSONObject, Throwable>() {
+                        public void accept(JSONObject value, Throwable error) {
+                            if (error != null) {
+                                result.completeExceptionally(unwrap(error));
+                            } else {
+                                result.complete(value);
+                            }
+                        }
+                    });
+                    result.whenComplete(new BiConsumer<JSONObject, Throwable>() {
+                        public void accept(JSONObject value, Throwable error) {
+                            if (error != null && !request.isDone()) {
+                                request.cancel(true);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+        if (timeout != null) {
+            result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Lists resources.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param queryString
+     *            query for filtering, or null
+     */
+    public CompletableFuture<JSONObject> list(final String resourceName,
+            final String queryString) {
+        return list(resourceName, queryString, null);
+    }
+
+    /**
+     * Lists resources.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param queryString
+     *            query for filtering, or null
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     */
+    public CompletableFuture<JSONObject> list(final String resourceName,
+            final String queryString, final Duration timeout) {
+        if (client.getResourceByName(resourceName) == null) {
+            return unknown(resourceName);
+        }
+
+        String query = queryString != null ? queryString : "";
+        return send(resourceName, "GET", bigmlUrl + resourceName + bigmlAuth
+                + query, null, timeout,
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        Response response = new Response(httpResponse,
+                                AbstractResource.HTTP_OK,
+                                "The resource couldn't be listed",
+                                AbstractResource.HTTP_BAD_REQUEST,
+                                AbstractResource.HTTP_UNAUTHORIZED,
+                                AbstractResource.HTTP_NOT_FOUND);
+
+                        JSONObject result = new JSONObject();
+                        result.put("code", response.code);
+                        result.put("meta", response.body != null ?
+                                (JSONObject) response.body.get("meta") : null);
+                        result.put("objects", response.body != null ?
+                                (JSONArray) response.body.get("objects") : null);
+                        result.put("error", response.error);
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Updates a resource.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g. model/5af06df94e17277501000010
+     * @param changes
+     *            the changes of the resource
+     */
+    public CompletableFuture<JSONObject> update(final String resourceId,
+            final JSONObject changes) {
+        return update(resourceId, changes, null);
+    }
+
+    /**
+     * Updates a resource.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g. model/5af06df94e17277501000010
+     * @param changes
+     *            the changes of the resource
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     */
+    public CompletableFuture<JSONObject> update(final String resourceId,
+            final JSONObject changes, final Duration timeout) {
+        final String resourceName = resourceName(resourceId);
+        final AbstractResource resource = client.getResourceByName(resourceName);
+        if (resource == null) {
+            return unknown(resourceId);
+        }
+
+        final String url = bigmlUrl + resourceId;
+        return send(resourceName, "PUT", url + bigmlAuth,
+                changes.toJSONString(), timeout,
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        Response response = new Response(httpResponse,
+                                AbstractResource.HTTP_ACCEPTED,
+                                "The resource couldn't be updated",
+                                AbstractResource.HTTP_UNAUTHORIZED,
+                                AbstractResource.HTTP_PAYMENT_REQUIRED,
+                                AbstractResource.HTTP_METHOD_NOT_ALLOWED);
+
+                        CacheManager cacheManager = client.getCacheManager();
+                        if (cacheManager != null && response.body != null
+                                && resource.isResourceReady(response.body)) {
+                            cacheManager.put(resourceId, null, response.body);
+                        }
+                        return resourceResult(response.code, resourceId, url,
+                                response.body, response.error);
+                    }
+                });
+    }
+
+    /**
+     * Deletes a resource.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g. model/5af06df94e17277501000010
+     */
+    public CompletableFuture<JSONObject> delete(final String resourceId) {
+        return delete(resourceId, null);
+    }
+
+    /**
+     * Deletes a resource.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g. model/5af06df94e17277501000010
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     */
+    public CompletableFuture<JSONObject> delete(final String resourceId,
+            final Duration timeout) {
+        String resourceName = resourceName(resourceId);
+        if (client.getResourceByName(resourceName) == null) {
+            return unknown(resourceId);
+        }
+
+        return send(resourceName, "DELETE", bigmlUrl + resourceId + bigmlAuth,
+                null, timeout,
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        Response response = new Response(httpResponse,
+                                AbstractResource.HTTP_NO_CONTENT,
+                                "The resource couldn't be deleted",
+                                AbstractResource.HTTP_BAD_REQUEST,
+                                AbstractResource.HTTP_UNAUTHORIZED,
+                                AbstractResource.HTTP_NOT_FOUND);
+
+                        CacheManager cacheManager = client.getCacheManager();
+                        if (cacheManager != null && response.code ==
+                                AbstractResource.HTTP_NO_CONTENT) {
+                            cacheManager.evict(resourceId, null);
+                        }
+
+                        JSONObject result = new JSONObject();
+                        result.put("code", response.code);
+                        result.put("error", response.error);
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Downloads the file of a resource, like the CSV of a dataset or of a
+     * batch prediction.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g.
+     *            batchprediction/5af06df94e17277501000010
+     * @param fileName
+     *            the name of the file where the content is saved, or null
+     */
+    public CompletableFuture<JSONObject> download(final String resourceId,
+            final String fileName) {
+        return download(resourceId, fileName, null);
+    }
+
+    /**
+     * Downloads the file of a resource, like the CSV of a dataset or of a
+     * batch prediction.
+     *
+     * @param resourceId
+     *            the id of the resource, e.g.
+     *            batchprediction/5af06df94e17277501000010
+     * @param fileName
+     *            the name of the file where the content is saved, or null
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     *
+     * @return the code and error of the response, and the content of the
+     *            file in csv
+     */
+    public CompletableFuture<JSONObject> download(final String resourceId,
+            final String fileName, final Duration timeout) {
+        String resourceName = resourceName(resourceId);
+        if (client.getResourceByName(resourceName) == null) {
+            return unknown(resourceId);
+        }
+
+        return send(resourceName, "GET", bigmlUrl + resourceId
+                + AbstractResource.DOWNLOAD_DIR + bigmlAuth, null, timeout,
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        int code = httpResponse.statusCode();
+                        String csv = "";
+                        JSONObject error = new JSONObject();
+                        if (code == AbstractResource.HTTP_OK) {
+                            csv = new String(httpResponse.body(),
+                                    StandardCharsets.UTF_8);
+                            if (fileName != null) {
+                                write(fileName, csv);
+                            }
+                        } else {
+                            error = new Response(httpResponse,
+                                    AbstractResource.HTTP_OK,
+                                    "The file couldn't be downloaded",
+                                    AbstractResource.HTTP_BAD_REQUEST,
+                                    AbstractResource.HTTP_UNAUTHORIZED,
+                                    AbstractResource.HTTP_NOT_FOUND).error;
+                        }
+
+                        JSONObject result = new JSONObject();
+                        result.put("code", code);
+                        result.put("error", error);
+                        result.put("csv", csv);
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Sends a request and builds the result from its response.
+     *
+     * @param resourceName
+     *            the kind of resource the request is for
+     * @param method
+     *            the HTTP method: GET, POST, PUT or DELETE
+     * @param urlString
+     *            the url of the request, including the authentication
+     * @param json
+     *            the body of the request, for POST and PUT
+     * @param timeout
+     *            the time to wait for the response, or null for no limit
+     * @param handler
+     *            builds the result from the response
+     */
+    private CompletableFuture<JSONObject> send(final String resourceName,
+            final String method, final String urlString, final String json,
+            final Duration timeout,
+            final Function<HttpResponse<byte[]>, JSONObject> handler) {
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(
+                URI.create(urlString));
+        if (json != null) {
+            builder.header("Content-Type", JSON);
+            builder.method(method, HttpRequest.BodyPublishers.ofString(
+                    Utils.unescapeJSONString(json), StandardCharsets.UTF_8));
+        } else {
+            builder.header("GET".equals(method) ? "Accept" : "Content-Type",
+                    JSON);
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        if (timeout != null) {
+            builder.timeout(timeout);
+        }
+
+        final Instrumentation instrumentation = Instrumentation.get();
+        final long start = System.nanoTime();
+        if (instrumentation.isEnabled() && json != null) {
+            instrumentation.record(Instrumentation.HTTP_REQUEST_BYTES,
+                    json.length(), "resource", resourceName, "method", method);
+        }
+
+        final CompletableFuture<HttpResponse<byte[]>> exchange;
+        try {
+            exchange = httpClient.sendAsync(builder.build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            CompletableFuture<JSONObject> failed = new CompletableFuture<JSONObject>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        final CompletableFuture<JSONObject> result = exchange.thenApply(
+                new Function<HttpResponse<byte[]>, JSONObject>() {
+                    public JSONObject apply(HttpResponse<byte[]> httpResponse) {
+                        if (instrumentation.isEnabled()) {
+                            instrumentation.record(
+                                    Instrumentation.HTTP_RESPONSE_BYTES,
+                                    httpResponse.body().length, "resource",
+                                    resourceName, "method", method);
+                            instrumentation.recordTime(
+                                    Instrumentation.HTTP_REQUEST,
+                                    System.nanoTime() - start, "resource",
+                                    resourceName, "method", method, "status",
+                                    String.valueOf(httpResponse.statusCode()));
+                        }
+                        return handler.apply(httpResponse);
+                    }
+                });
+        if (timeout != null) {
+            result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // the exchange is cancelled when the result is cancelled or times
+        // out, which only closes its connection since Java 16
+        result.whenComplete(new BiConsumer<JSONObject, Throwable>() {
+            public void accept(JSONObject value, Throwable error) {
+                if (error != null && !exchange.isDone()) {
+                    exchange.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * The code, body and error of a response, as the synchronous methods
+     * read them
+     */
+    private static class Response {
+
+        int code;
+        JSONObject body = null;
+        JSONObject error;
+
+        /**
+         * @param httpResponse
+         *            the response
+         * @param success
+         *            the code of a successful response
+         * @param message
+         *            the message of the error when the response has none
+         * @param errorCodes
+         *            the codes of the responses with an error in the body
+         */
+        Response(HttpResponse<byte[]> httpResponse, int success,
+                String message, int... errorCodes) {
+            code = httpResponse.statusCode();
+
+            error = new JSONObject();
+            JSONObject status = new JSONObject();
+            status.put("code", AbstractResource.HTTP_INTERNAL_SERVER_ERROR);
+            status.put("message", message);
+            error.put("status", status);
+
+            if (code == success) {
+                if (httpResponse.body().length > 0) {
+                    body = parse(httpResponse.body());
+                }
+                error = new JSONObject();
+                return;
+            }
+            for (int errorCode : errorCodes) {
+                if (code == errorCode) {
+                    error = parse(httpResponse.body());
+                    return;
+                }
+            }
+            code = AbstractResource.errorCode(code, error);
+        }
+
+        private static JSONObject parse(byte[] body) {
+            try {
+                return (JSONObject) JSONStreamReader.read(
+                        new ByteArrayInputStream(body));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+
+    private static JSONObject resourceResult(int code, String resourceId,
+            String location, JSONObject resource, JSONObject error) {
+        JSONObject result = new JSONObject();
+        result.put("code", code);
+        result.put("resource", resourceId);
+        result.put("location", location);
+        result.put("object", resource);
+        result.put("error", error);
+        return result;
+    }
+
+    private static void write(String fileName, String content) {
+        try {
+            BufferedWriter output = new BufferedWriter(new FileWriter(
+                    new File(fileName)));
+            try {
+                output.write(content);
+            } finally {
+                output.close();
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Returns the name of the kind of a resource from its id, including
+     * the ids of public and shared resources
+     */
+    private static String resourceName(String resourceId) {
+        if (resourceId == null) {
+            return null;
+        }
+        String[] parts = resourceId.split("/");
+        return parts.length >= 2 ? parts[parts.length - 2] : null;
+    }
+
+    private static CompletableFuture<JSONObject> unknown(String resource) {
+        CompletableFuture<JSONObject> failed = new CompletableFuture<JSONObject>();
+        failed.completeExceptionally(new IllegalArgumentException(
+                "Unknown resource: " + resource));
+        return failed;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ?
+                error.getCause() : error;
+    }
+}
@@ -0,0 +1,447 @@
+package org.bigml.binding;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scores a CSV file with a local model and writes the results to another
+ * CSV file, without creating any remote resource.
+ *
+ * The input file is streamed and split in chunks of rows that are scored
+ * in parallel. The results are written in the same order as the input
+ * rows. Only a bounded number of chunks is held in memory: reading waits
+ * until the oldest chunk has been written.
+ *
+ * When a checkpoint file is set, the number of rows written is stored in
+ * it after every chunk, and a new run with the same files resumes from
+ * that point. The checkpoint file is removed once the whole input has
+ * been scored.
+ *
+ * Example usage:
+ *
+ *  final LocalEnsemble localEnsemble = new LocalEnsemble(ensemble);
+ *  BatchScorer batchScorer = new BatchScorer(localEnsemble,
+ *      new RowScorer.Scorer() {
+ *          public Object score(JSONObject inputData) throws Exception {
+ *              return localEnsemble.predict(inputData);
+ *          }
+ *      });
+ *  batchScorer.setColumns(Arrays.asList(
+ *      BatchScorer.PREDICTION, BatchScorer.CONFIDENCE));
+ *  batchScorer.score(new File("input.csv"), new File("output.csv"));
+ *
+ * Each row is scored once, by the scorer. To emit the probability of each
+ * class, the scorer adds them to its result under the CLASS_PROBABILITIES
+ * key, either as the list of categories and probabilities returned by
+ * predictProbability or as a map of probabilities by class name. The
+ * scorer of probabilityScorer does so for the classification models:
+ *
+ *  BatchScorer batchScorer = new BatchScorer(localModel,
+ *      BatchScorer.probabilityScorer(localModel, null));
+ *  batchScorer.setColumns(Arrays.asList(BatchScorer.PREDICTION,
+ *      BatchScorer.PROBABILITY, BatchScorer.CLASS_PROBABILITIES));
+ *
+ * The model is shared by the scoring threads, so its predictions must be
+ * safe to run concurrently.
+ */
+public class BatchScorer {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(BatchScorer.class.getName());
+
+    public static final String PREDICTION = "prediction";
+    public static final String CONFIDENCE = "confidence";
+    public static final String PROBABILITY = "probability";
+    // Expanded to one column per class, named after the class
+    public static final String CLASS_PROBABILITIES = "class_probabilities";
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final ModelFields model;
+    private final RowScorer.Scorer scorer;
+
+    private List<String> columns = Arrays.asList(PREDICTION, CONFIDENCE);
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxPendingChunks = 0;
+    private File checkpointFile = null;
+
+    /**
+     * Creates a batch scorer.
+     *
+     * @param model
+     *            the local model whose fields are used to read the rows
+     * @param scorer
+     *            computes the result for each row. The result is expected
+     *            to be a map with the columns to be emitted.
+     */
+    public BatchScorer(ModelFields model, RowScorer.Scorer scorer) {
+        this.model = model;
+        this.scorer = scorer;
+    }
+
+    /**
+     * Returns a scorer for a classification model that computes the
+     * prediction and the probability of each class of a row in a single
+     * pass of the model. The result has the prediction, its probability
+     * and the CLASS_PROBABILITIES. Local models of trees give the
+     * prediction of the tree and its confidence too. For the rest of the
+     * models, the prediction is the most probable class.
+     *
+     * @param model
+     *            the local classification model
+     * @param missingStrategy
+     *            the missing strategy of the predictions, or null
+     */
+    public static RowScorer.Scorer probabilityScorer(
+            final SupervisedModelInterface model,
+            final MissingStrategy missingStrategy) {
+        if( model instanceof LocalPredictiveModel ) {
+            final LocalPredictiveModel localModel = (LocalPredictiveModel) model;
+            return new RowScorer.Scorer() {
+                public Object score(JSONObject inputData) throws Exception {
+                    return localModel.predictWithProbabilities(inputData,
+                            missingStrategy);
+                }
+            };
+        }
+        return new RowScorer.Scorer() {
+            public Object score(JSONObject inputData) throws Exception {
+                JSONArray probabilities = model.predictProbability(inputData,
+                        missingStrategy);
+                JSONObject result = new JSONObject();
+                for (Object item : probabilities) {
+                    Map category = (Map) item;
+                    Object probability = category.get(PROBABILITY);
+                    if( probability instanceof Number && (!result.containsKey(
+                            PROBABILITY) || ((Number) probability).doubleValue()
+                            > ((Number) result.get(PROBABILITY)).doubleValue()) ) {
+                        result.put(PREDICTION, className(category));
+                        result.put(PROBABILITY, probability);
+                    }
+                }
+                result.put(CLASS_PROBABILITIES, probabilities);
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Returns the class of an item of the probabilities of predictProbability,
+     * which is named category or prediction depending on the model
+     */
+    static Object className(Map category) {
+        return category.containsKey("category") ?
+                category.get("category") : category.get(PREDICTION);
+    }
+
+    /**
+     * Sets the columns to be emitted: PREDICTION, CONFIDENCE, PROBABILITY,
+     * CLASS_PROBABILITIES or any other key of the result of the scorer.
+     * The class probabilities are taken from the result of the scorer, and
+     * the cells of the classes it doesn't include are left empty.
+     */
+    public void setColumns(List<String> columns) {
+        if( columns.contains(CLASS_PROBABILITIES) &&
+                !(model instanceof SupervisedModelInterface) ) {
+            throw new IllegalArgumentException(
+                    "Class probabilities are only available for supervised models");
+        }
+        this.columns = new ArrayList<String>(columns);
+    }
+
+    /**
+     * Sets the number of threads that score the chunks
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the number of rows in each chunk
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Sets the maximum number of chunks held in memory. By default, twice
+     * the number of threads.
+     */
+    public void setMaxPendingChunks(int maxPendingChunks) {
+        this.maxPendingChunks = maxPendingChunks;
+    }
+
+    /**
+     * Sets the file where the progress is stored to resume the scoring
+     */
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Scores the rows of the input file and writes the results to the
+     * output file. The first line of the input file must hold the headers.
+     *
+     * @param input
+     *            the CSV file to score
+     * @param output
+     *            the CSV file where the results are written
+     *
+     * @return the number of rows scored in this run
+     */
+    public long score(File input, File output) throws Exception {
+        long[] checkpoint = readCheckpoint();
+        long skipRows = checkpoint[0];
+        boolean resume = skipRows > 0 && output.exists();
+        if( !resume ) {
+            skipRows = 0;
+        }
+
+        int maxPending = maxPendingChunks > 0 ? maxPendingChunks : 2 * threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "bigml-batch-scorer-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        Reader reader = new InputStreamReader(new FileInputStream(input),
+                StandardCharsets.UTF_8);
+        FileOutputStream outputStream = new FileOutputStream(output, resume);
+        try {
+            CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.builder()
+                    .setHeader().setSkipHeaderRecord(true).build());
+            final List<String> headers = parser.getHeaderNames();
+
+            if( resume ) {
+                // Drop anything written after the last checkpoint
+                outputStream.getChannel().truncate(checkpoint[1]);
+                logger.info(String.format("Resuming %s after %d rows",
+                        input, skipRows));
+            }
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    outputStream, StandardCharsets.UTF_8));
+            CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT);
+            if( !resume ) {
+                printer.printRecord(getOutputHeaders());
+            }
+
+            Iterator<CSVRecord> records = parser.iterator();
+            for (long i = 0; i < skipRows && records.hasNext(); i++) {
+                records.next();
+            }
+
+            Deque<Future<List<Object[]>>> pending =
+                    new ArrayDeque<Future<List<Object[]>>>();
+            long rows = skipRows;
+            long start = System.nanoTime();
+            while( records.hasNext() ) {
+                final List<CSVRecord> chunk = new ArrayList<CSVRecord>(chunkSize);
+                while( chunk.size() < chunkSize && records.hasNext() ) {
+                    chunk.add(records.next());
+                }
+
+                // Wait for the oldest chunk before reading more rows
+                if( pending.size() >= maxPending ) {
+                    rows += write(pending.removeFirst(), printer,
+                            outputStream, rows);
+                }
+
+                pending.addLast(executor.submit(new Callable<List<Object[]>>() {
+                    public List<Object[]> call() throws Exception {
+                        return scoreChunk(headers, chunk);
+                    }
+                }));
+            }
+            while( !pending.isEmpty() ) {
+                rows += write(pending.removeFirst(), printer,
+                        outputStream, rows);
+            }
+            printer.close();
+
+            long scored = rows - skipRows;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            logger.info(String.format("Scored %d rows (%.0f rows/s)", scored,
+                    seconds > 0 ? scored / seconds : 0.0));
+
+            if( checkpointFile != null ) {
+                Files.deleteIfExists(checkpointFile.toPath());
+            }
+            return scored;
+        } finally {
+            executor.shutdownNow();
+            reader.close();
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Returns the headers of the output file
+     */
+    public List<String> getOutputHeaders() {
+        List<String> outputHeaders = new ArrayList<String>();
+        for (String column : columns) {
+            if( CLASS_PROBABILITIES.equals(column) ) {
+                outputHeaders.addAll(
+                        ((SupervisedModelInterface) model).getClassNames());
+            } else {
+                outputHeaders.add(column);
+            }
+        }
+        return outputHeaders;
+    }
+
+    /**
+     * Scores a chunk of rows and returns the values of the output columns
+     */
+    private List<Object[]> scoreChunk(List<String> headers,
+            List<CSVRecord> chunk) throws Exception {
+        final List<Object[]> values = new ArrayList<Object[]>(chunk.size());
+        final int size = getOutputHeaders().size();
+
+        RowScorer rowScorer = new RowScorer(model, headers);
+        rowScorer.score(chunk, new RowScorer.Scorer() {
+            public Object score(JSONObject inputData) throws Exception {
+                Object result = scorer.score(inputData);
+
+                Object[] row = new Object[size];
+                int index = 0;
+                for (String column : columns) {
+                    if( CLASS_PROBABILITIES.equals(column) ) {
+                        index = addClassProbabilities(result, row, index);
+                    } else {
+                        row[index++] = result instanceof Map ?
+                                ((Map) result).get(column) : null;
+                    }
+                }
+                values.add(row);
+                return result;
+            }
+        }, null);
+
+        return values;
+    }
+
+    /**
+     * Copies the class probabilities of the result of the scorer to the
+     * columns of the classes
+     */
+    private int addClassProbabilities(Object result, Object[] row,
+            int index) {
+        List<String> classNames =
+                ((SupervisedModelInterface) model).getClassNames();
+        Object probabilities = result instanceof Map ?
+                ((Map) result).get(CLASS_PROBABILITIES) : null;
+
+        if( probabilities instanceof List ) {
+            for (Object probability : (List) probabilities) {
+                Map category = (Map) probability;
+                int position = classNames.indexOf(className(category));
+                if( position >= 0 ) {
+                    row[index + position] = category.get("probability");
+                }
+            }
+        } else if( probabilities instanceof Map ) {
+            Map byClass = (Map) probabilities;
+            for (int i = 0; i < classNames.size(); i++) {
+                row[index + i] = byClass.get(classNames.get(i));
+            }
+        }
+        return index + classNames.size();
+    }
+
+    /**
+     * Writes the results of a chunk once available and stores the
+     * checkpoint
+     */
+    private int write(Future<List<Object[]>> future, CSVPrinter printer,
+            FileOutputStream outputStream, long rows) throws Exception {
+        List<Object[]> values;
+        try {
+            values = future.get();
+        } catch (ExecutionException e) {
+            throw new Exception("Error scoring the CSV", e.getCause());
+        }
+
+        for (Object[] row : values) {
+            printer.printRecord(row);
+        }
+
+        if( checkpointFile != null ) {
+            printer.flush();
+            writeCheckpoint(rows + values.size(),
+                    outputStream.getChannel().position());
+        }
+        return values.size();
+    }
+
+    /**
+     * Returns the rows and the output length stored in the checkpoint
+     */
+    private long[] readCheckpoint() {
+        long[] checkpoint = new long[] {0, 0};
+        if( checkpointFile == null || !checkpointFile.exists() ) {
+            return checkpoint;
+        }
+
+        try {
+            String[] values = new String(Files.readAllBytes(
+                    checkpointFile.toPath()), StandardCharsets.UTF_8)
+                    .trim().split(" ");
+            checkpoint[0] = Long.parseLong(values[0]);
+            checkpoint[1] = Long.parseLong(values[1]);
+        } catch (Exception e) {
+            logger.warn("Ignoring invalid checkpoint " + checkpointFile);
+            checkpoint[0] = 0;
+        }
+        return checkpoint;
+    }
+
+    private void writeCheckpoint(long rows, long length) throws IOException {
+        File tmp = new File(checkpointFile.getPath() + ".tmp");
+        Files.write(tmp.toPath(), (rows + " " + length)
+                .getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), checkpointFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
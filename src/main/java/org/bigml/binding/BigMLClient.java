@@ -1,17 +1,21 @@
 package org.bigml.binding;
 
 import org.bigml.binding.resources.*;
+import org.bigml.binding.utils.AdaptiveRetryPolicy;
+import org.bigml.binding.utils.BulkExecutor;
+import org.bigml.binding.utils.BulkResult;
 import org.bigml.binding.utils.CacheManager;
+import org.bigml.binding.utils.RequestCoalescer;
+import org.bigml.binding.utils.RetryPolicy;
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Properties;
 
 /**
  * Entry point to create, retrieve, list, update, and delete sources,
@@ -49,55 +53,58 @@ public class BigMLClient {
 
     private String bigmlUrl;
     private String bigmlUser;
-    private String bigmlDomain;
     private String bigmlApiKey;
 
     private String projectId;
     private String organizationId;
 
-    private Source source;
-    private Dataset dataset;
-    private Model model;
-    private Prediction prediction;
-    private Evaluation evaluation;
-    private Ensemble ensemble;
-    private Anomaly anomaly;
-    private AnomalyScore anomalyScore;
-    private BatchAnomalyScore batchAnomalyScore;
-    private BatchPrediction batchPrediction;
-    private Cluster cluster;
-    private Centroid centroid;
-    private BatchCentroid batchCentroid;
-    private Project project;
-    private Sample sample;
-    private Correlation correlation;
-    private StatisticalTest statisticalTest;
-    private LogisticRegression logisticRegression;
-    private Script script;
-    private Execution execution;
-    private Library library;
-    private Association association;
-    private AssociationSet associationSet;
-    private TopicModel topicModel;
-    private TopicDistribution topicDistribution;
-    private BatchTopicDistribution batchTopicDistribution;
-    private Configuration configuration;
-    private TimeSeries timeSeries;
-    private Forecast forecast;
-    private Deepnet deepnet;
-    private OptiML optiml;
-    private Fusion fusion;
-    private Pca pca;
-    private Projection projection;
-    private BatchProjection batchProjection;
-    private LinearRegression linearRegression;
-    private ExternalConnector externalConnector;
-
-    private Properties props;
-    private String storage;
+    private volatile Source source;
+    private volatile Dataset dataset;
+    private volatile Model model;
+    private volatile Prediction prediction;
+    private volatile Evaluation evaluation;
+    private volatile Ensemble ensemble;
+    private volatile Anomaly anomaly;
+    private volatile AnomalyScore anomalyScore;
+    private volatile BatchAnomalyScore batchAnomalyScore;
+    private volatile BatchPrediction batchPrediction;
+    private volatile Cluster cluster;
+    private volatile Centroid centroid;
+    private volatile BatchCentroid batchCentroid;
+    private volatile Project project;
+    private volatile Sample sample;
+    private volatile Correlation correlation;
+    private volatile StatisticalTest statisticalTest;
+    private volatile LogisticRegression logisticRegression;
+    private volatile Script script;
+    private volatile Execution execution;
+    private volatile Library library;
+    private volatile Association association;
+    private volatile AssociationSet associationSet;
+    private volatile TopicModel topicModel;
+    private volatile TopicDistribution topicDistribution;
+    private volatile BatchTopicDistribution batchTopicDistribution;
+    private volatile Configuration configuration;
+    private volatile TimeSeries timeSeries;
+    private volatile Forecast forecast;
+    private volatile Deepnet deepnet;
+    private volatile OptiML optiml;
+    private volatile Fusion fusion;
+    private volatile Pca pca;
+    private volatile Projection projection;
+    private volatile BatchProjection batchProjection;
+    private volatile LinearRegression linearRegression;
+    private volatile ExternalConnector externalConnector;
+
+    private BigMLSettings settings;
 
     private CacheManager cacheManager;
 
+    private RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private BulkExecutor bulkExecutor = new BulkExecutor();
+    private volatile RetryPolicy retryPolicy = new AdaptiveRetryPolicy();
+    private AsyncBigMLClient asyncClient;
+
     /**
      * Constructor
      */
@@ -216,15 +223,54 @@ public class BigMLClient {
     }
 
 
-    public static void resetInstance() {
+    /**
+     * Constructor
+     *
+     * @param settings
+     * 			the url, credentials and storage of the client
+     *
+     * @throws AuthenticationException if the settings have no credentials
+     */
+    public BigMLClient(final BigMLSettings settings)
+            throws AuthenticationException {
+        this.init(settings, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param settings
+     * 			the url, credentials and storage of the client
+     * @param cacheManager
+     * 			the cache of the resources, that may be shared with other
+     * 			clients. A new one for the storage of the settings if null
+     *
+     * @throws AuthenticationException if the settings have no credentials
+     */
+    public BigMLClient(final BigMLSettings settings,
+            final CacheManager cacheManager) throws AuthenticationException {
+        this.init(settings, cacheManager);
+    }
+
+
+    public static synchronized void resetInstance() {
         instance = null;
     }
 
-    private String setting(final String setting) {
-      String value = System.getProperty(setting);
-      if (value == null)
-        value = System.getenv(setting);
-      return value;
+    /**
+     * Returns a client built from the default settings, that stores the
+     * resources in STORAGE. It is shared by the local models that need to
+     * retrieve resources and weren't given a client, so that they don't
+     * build a client each.
+     *
+     * @throws AuthenticationException if there are no default credentials
+     */
+    public static synchronized BigMLClient getInstance()
+            throws AuthenticationException {
+        if (instance == null) {
+            instance = new BigMLClient(null, null, STORAGE);
+        }
+        return instance;
     }
 
 
@@ -247,11 +293,8 @@ public class BigMLClient {
     private void init(final String bigmlDomain, final String apiUser,
                       final String apiKey, final String storage)
             throws AuthenticationException {
-        this.bigmlDomain = bigmlDomain;
-        this.storage = storage;
-        initConfiguration();
-        initBigmlSettings(apiUser, apiKey);
-        initResources();
+        init(new BigMLSettings(bigmlDomain, apiUser, apiKey, null, null,
+                storage), null);
     }
 
     /**
@@ -284,134 +327,335 @@ public class BigMLClient {
                       final String apiKey, final String projectId,
                       final String organizationId, final String storage)
             throws AuthenticationException {
-        this.bigmlDomain = bigmlDomain;
-        this.projectId = projectId;
-        this.organizationId = organizationId;
-        this.storage = storage;
-        initConfiguration();
-        initBigmlSettings(apiUser, apiKey);
-        initResources();
-    }
-
-    private void initBigmlSettings(final String apiUser,
-                                   final String apiKey)
-      throws AuthenticationException {
-
-        this.bigmlUser = apiUser != null ? apiUser : this.setting("BIGML_USERNAME");
-        this.bigmlApiKey = apiKey != null ? apiKey : this.setting("BIGML_API_KEY");
-        if (this.bigmlUser == null || this.bigmlUser.equals("")
-                || this.bigmlApiKey == null || this.bigmlApiKey.equals("")) {
-            this.bigmlUser = props.getProperty("BIGML_USERNAME");
-            this.bigmlApiKey = props.getProperty("BIGML_API_KEY");
-            if (this.bigmlUser == null || this.bigmlUser.equals("")
-                    || this.bigmlApiKey == null || this.bigmlApiKey.equals("")) {
-                AuthenticationException ex = new AuthenticationException(
-                        "Missing authentication information.");
-                logger.info(instance.toString(), ex);
-                throw ex;
-            }
+        init(new BigMLSettings(bigmlDomain, apiUser, apiKey, projectId,
+                organizationId, storage), null);
+    }
+
+    private void init(final BigMLSettings settings,
+                      final CacheManager cacheManager)
+            throws AuthenticationException {
+        this.settings = settings;
+        this.bigmlUrl = settings.getUrl();
+        this.bigmlUser = settings.getUsername();
+        this.bigmlApiKey = settings.getApiKey();
+        this.projectId = settings.getProjectId();
+        this.organizationId = settings.getOrganizationId();
+        this.cacheManager = cacheManager != null ? cacheManager :
+                new CacheManager(settings.getStorage());
+
+        if (!settings.hasCredentials()) {
+            AuthenticationException ex = new AuthenticationException(
+                    "Missing authentication information.");
+            logger.info(settings.toString(), ex);
+            throw ex;
         }
+    }
 
+    // The wrappers of the resources are created the first time they are
+    // used. Two threads may create the same wrapper at once, which is
+    // harmless as they hold no state of their own.
+
+    private Source source() {
+        if (source == null) {
+            source = new Source(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return source;
     }
 
-    private void initConfiguration() {
-        try {
-            props = new Properties();
-            FileInputStream fis = new FileInputStream(new File(
-                    "src/main/resources/binding.properties"));
-            props.load(fis);
-            fis.close();
+    private Dataset dataset() {
+        if (dataset == null) {
+            dataset = new Dataset(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return dataset;
+    }
 
-            if( bigmlDomain != null && bigmlDomain.length() > 0 ) {
-                bigmlUrl = (bigmlDomain + (bigmlDomain.endsWith("/") ? "" : "/"));
-            } else {
-                bigmlUrl = props.getProperty("BIGML_URL", BIGML_URL);
-            }
+    private Model model() {
+        if (model == null) {
+            model = new Model(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return model;
+    }
+
+    private Prediction prediction() {
+        if (prediction == null) {
+            prediction = new Prediction(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return prediction;
+    }
+
+    private Evaluation evaluation() {
+        if (evaluation == null) {
+            evaluation = new Evaluation(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return evaluation;
+    }
+
+    private Ensemble ensemble() {
+        if (ensemble == null) {
+            ensemble = new Ensemble(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return ensemble;
+    }
+
+    private Anomaly anomaly() {
+        if (anomaly == null) {
+            anomaly = new Anomaly(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return anomaly;
+    }
+
+    private AnomalyScore anomalyScore() {
+        if (anomalyScore == null) {
+            anomalyScore = new AnomalyScore(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return anomalyScore;
+    }
+
+    private BatchAnomalyScore batchAnomalyScore() {
+        if (batchAnomalyScore == null) {
+            batchAnomalyScore = new BatchAnomalyScore(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return batchAnomalyScore;
+    }
+
+    private BatchPrediction batchPrediction() {
+        if (batchPrediction == null) {
+            batchPrediction = new BatchPrediction(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return batchPrediction;
+    }
+
+    private Cluster cluster() {
+        if (cluster == null) {
+            cluster = new Cluster(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return cluster;
+    }
+
+    private Centroid centroid() {
+        if (centroid == null) {
+            centroid = new Centroid(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return centroid;
+    }
+
+    private BatchCentroid batchCentroid() {
+        if (batchCentroid == null) {
+            batchCentroid = new BatchCentroid(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return batchCentroid;
+    }
+
+    private Project project() {
+        if (project == null) {
+            project = new Project(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return project;
+    }
+
+    private Sample sample() {
+        if (sample == null) {
+            sample = new Sample(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return sample;
+    }
+
+    private Correlation correlation() {
+        if (correlation == null) {
+            correlation = new Correlation(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return correlation;
+    }
+
+    private StatisticalTest statisticalTest() {
+        if (statisticalTest == null) {
+            statisticalTest = new StatisticalTest(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return statisticalTest;
+    }
+
+    private LogisticRegression logisticRegression() {
+        if (logisticRegression == null) {
+            logisticRegression = new LogisticRegression(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return logisticRegression;
+    }
+
+    private Script script() {
+        if (script == null) {
+            script = new Script(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return script;
+    }
+
+    private Execution execution() {
+        if (execution == null) {
+            execution = new Execution(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return execution;
+    }
+
+    private Library library() {
+        if (library == null) {
+            library = new Library(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return library;
+    }
+
+    private Association association() {
+        if (association == null) {
+            association = new Association(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return association;
+    }
+
+    private AssociationSet associationSet() {
+        if (associationSet == null) {
+            associationSet = new AssociationSet(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return associationSet;
+    }
+
+    private TopicModel topicModel() {
+        if (topicModel == null) {
+            topicModel = new TopicModel(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return topicModel;
+    }
+
+    private TopicDistribution topicDistribution() {
+        if (topicDistribution == null) {
+            topicDistribution = new TopicDistribution(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return topicDistribution;
+    }
 
-        } catch (Throwable e) {
-            // logger.error("Error loading configuration", e);
-            bigmlUrl = BIGML_URL;
+    private BatchTopicDistribution batchTopicDistribution() {
+        if (batchTopicDistribution == null) {
+            batchTopicDistribution = new BatchTopicDistribution(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
         }
+        return batchTopicDistribution;
     }
 
-    private void initResources() {
-        // Lets create the storage folder in it was informed
-        this.cacheManager = new CacheManager(storage);
-
-        source = new Source(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        dataset = new Dataset(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        model = new Model(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        prediction = new Prediction(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        evaluation = new Evaluation(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        ensemble = new Ensemble(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        anomaly = new Anomaly(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        anomalyScore = new AnomalyScore(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        batchAnomalyScore = new BatchAnomalyScore(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        batchPrediction = new BatchPrediction(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        cluster = new Cluster(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        centroid = new Centroid(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        batchCentroid = new BatchCentroid(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        project = new Project(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        sample = new Sample(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        correlation = new Correlation(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        statisticalTest = new StatisticalTest(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        logisticRegression = new LogisticRegression(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        script = new Script(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        execution = new Execution(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        library = new Library(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        association = new Association(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        associationSet = new AssociationSet(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        topicModel = new TopicModel(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        topicDistribution = new TopicDistribution(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        batchTopicDistribution = new BatchTopicDistribution(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        configuration = new Configuration(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        timeSeries = new TimeSeries(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        forecast = new Forecast(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        deepnet = new Deepnet(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        optiml = new OptiML(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        fusion = new Fusion(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        pca = new Pca(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        projection = new Projection(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        batchProjection = new BatchProjection(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        linearRegression = new LinearRegression(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
-        externalConnector = new ExternalConnector(this, this.bigmlUser, this.bigmlApiKey,
-        		this.projectId, this.organizationId, cacheManager);
+    private Configuration configuration() {
+        if (configuration == null) {
+            configuration = new Configuration(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return configuration;
+    }
+
+    private TimeSeries timeSeries() {
+        if (timeSeries == null) {
+            timeSeries = new TimeSeries(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return timeSeries;
+    }
+
+    private Forecast forecast() {
+        if (forecast == null) {
+            forecast = new Forecast(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return forecast;
+    }
+
+    private Deepnet deepnet() {
+        if (deepnet == null) {
+            deepnet = new Deepnet(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return deepnet;
+    }
+
+    private OptiML optiml() {
+        if (optiml == null) {
+            optiml = new OptiML(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return optiml;
+    }
+
+    private Fusion fusion() {
+        if (fusion == null) {
+            fusion = new Fusion(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return fusion;
+    }
+
+    private Pca pca() {
+        if (pca == null) {
+            pca = new Pca(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return pca;
+    }
+
+    private Projection projection() {
+        if (projection == null) {
+            projection = new Projection(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return projection;
+    }
+
+    private BatchProjection batchProjection() {
+        if (batchProjection == null) {
+            batchProjection = new BatchProjection(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return batchProjection;
+    }
+
+    private LinearRegression linearRegression() {
+        if (linearRegression == null) {
+            linearRegression = new LinearRegression(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return linearRegression;
+    }
+
+    private ExternalConnector externalConnector() {
+        if (externalConnector == null) {
+            externalConnector = new ExternalConnector(this, bigmlUser, bigmlApiKey, projectId,
+                organizationId, cacheManager);
+        }
+        return externalConnector;
+    }
+
+    /**
+     * Returns the settings of the client
+     */
+    public BigMLSettings getSettings() {
+        return settings;
     }
 
     public String getBigMLUrl() {
@@ -422,6 +666,257 @@ public class BigMLClient {
         return cacheManager;
     }
 
+    /**
+     * Returns the object that deduplicates the concurrent requests for the
+     * same resource. Its counters tell the number of issued and coalesced
+     * requests.
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Returns the client that sends the requests without blocking, with
+     * the settings and the cache of this client. It's created the first
+     * time it's needed.
+     */
+    public synchronized AsyncBigMLClient getAsyncClient() {
+        if (asyncClient == null) {
+            asyncClient = new AsyncBigMLClient(this);
+        }
+        return asyncClient;
+    }
+
+    /**
+     * Iterates over all your resources of a kind, requesting them page by
+     * page and fetching the next page in the background.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param queryString
+     *            query filtering the listing. Optional
+     *
+     * @return an iterator over all the resources matching the query
+     */
+    public ResourceIterator iterateResources(final String resourceName,
+            final String queryString) {
+        return iterateResources(resourceName, queryString,
+                ResourceIterator.DEFAULT_PAGE_SIZE, null);
+    }
+
+    /**
+     * Iterates over all your resources of a kind, requesting them page by
+     * page and fetching the next page in the background.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param queryString
+     *            query filtering the listing. Optional
+     * @param pageSize
+     *            the number of resources requested per page
+     * @param fields
+     *            the fields kept for each resource. All of them if null.
+     *
+     * @return an iterator over all the resources matching the query
+     */
+    public ResourceIterator iterateResources(final String resourceName,
+            final String queryString, final int pageSize,
+            final List<String> fields) {
+        AbstractResource resource = getResourceByName(resourceName);
+        if (resource == null) {
+            throw new IllegalArgumentException(
+                    "Unknown resource name: " + resourceName);
+        }
+        return resource.iterate(queryString, pageSize, fields);
+    }
+
+    /**
+     * Returns the policy that paces and retries the requests to the API,
+     * or null if requests are sent once and right away. Its metrics tell
+     * the requests sent per kind of resource.
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Sets the policy that paces and retries the requests to the API.
+     * By default, an AdaptiveRetryPolicy.
+     *
+     * @param retryPolicy
+     *            the policy, or null to send requests once and right away
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Returns the executor used by the bulk operations. Its concurrency,
+     * retries and backoff can be changed. Its retries are only used when
+     * the client has no retry policy.
+     */
+    public BulkExecutor getBulkExecutor() {
+        return bulkExecutor;
+    }
+
+    /**
+     * Retrieves many resources of any kind, a few at the same time.
+     *
+     * @param resourceIds
+     *            the ids of the resources
+     *
+     * @return the JSONObject of each resource, by id
+     */
+    public BulkResult getAll(final Collection<String> resourceIds) {
+        return bulkExecutor.execute(new ArrayList<String>(resourceIds),
+                new BulkExecutor.Operation() {
+                    public JSONObject run(String resourceId) {
+                        AbstractResource resource = getResourceById(resourceId);
+                        return resource != null ? resource.get(resourceId) : null;
+                    }
+                }, AbstractResource.HTTP_OK, retryPolicy == null);
+    }
+
+    /**
+     * Deletes many resources of any kind, a few at the same time.
+     *
+     * @param resourceIds
+     *            the ids of the resources
+     *
+     * @return the JSONObject of each deletion, by id
+     */
+    public BulkResult deleteAll(final Collection<String> resourceIds) {
+        return bulkExecutor.execute(new ArrayList<String>(resourceIds),
+                new BulkExecutor.Operation() {
+                    public JSONObject run(String resourceId) {
+                        AbstractResource resource = getResourceById(resourceId);
+                        return resource != null ? resource.delete(resourceId) : null;
+                    }
+                }, AbstractResource.HTTP_NO_CONTENT, retryPolicy == null);
+    }
+
+    /**
+     * Creates many resources of a kind, a few at the same time.
+     *
+     * @param resourceName
+     *            the name of the kind of resource: source, dataset, model...
+     * @param argsList
+     *            the set of parameters for each new resource
+     *
+     * @return the JSONObject of each new resource, by its position in the
+     *            list of parameters
+     */
+    public BulkResult createBatch(final String resourceName,
+            final List<JSONObject> argsList) {
+        final AbstractResource resource = getResourceByName(resourceName);
+        if (resource == null) {
+            throw new IllegalArgumentException(
+                    "Unknown resource name: " + resourceName);
+        }
+
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < argsList.size(); i++) {
+            keys.add(String.valueOf(i));
+        }
+        return bulkExecutor.execute(keys, new BulkExecutor.Operation() {
+            public JSONObject run(String key) {
+                return resource.create(argsList.get(Integer.parseInt(key)));
+            }
+        }, AbstractResource.HTTP_CREATED, retryPolicy == null);
+    }
+
+    private AbstractResource getResourceById(String resourceId) {
+        if (resourceId == null || resourceId.indexOf('/') < 0) {
+            return null;
+        }
+        return getResourceByName(
+                resourceId.substring(0, resourceId.indexOf('/')));
+    }
+
+    AbstractResource getResourceByName(String resourceName) {
+        if (resourceName == null) {
+            return null;
+        }
+        switch (resourceName) {
+        case AbstractResource.SOURCE_PATH:
+            return source();
+        case AbstractResource.DATASET_PATH:
+            return dataset();
+        case AbstractResource.MODEL_PATH:
+            return model();
+        case AbstractResource.PREDICTION_PATH:
+            return prediction();
+        case AbstractResource.EVALUATION_PATH:
+            return evaluation();
+        case AbstractResource.ENSEMBLE_PATH:
+            return ensemble();
+        case AbstractResource.ANOMALY_PATH:
+            return anomaly();
+        case AbstractResource.ANOMALYSCORE_PATH:
+            return anomalyScore();
+        case AbstractResource.BATCHANOMALYSCORE_PATH:
+            return batchAnomalyScore();
+        case AbstractResource.BATCH_PREDICTION_PATH:
+            return batchPrediction();
+        case AbstractResource.CLUSTER_PATH:
+            return cluster();
+        case AbstractResource.CENTROID_PATH:
+            return centroid();
+        case AbstractResource.BATCH_CENTROID_PATH:
+            return batchCentroid();
+        case AbstractResource.PROJECT_PATH:
+            return project();
+        case AbstractResource.SAMPLE_PATH:
+            return sample();
+        case AbstractResource.CORRELATION_PATH:
+            return correlation();
+        case AbstractResource.STATISTICALTEST_PATH:
+            return statisticalTest();
+        case AbstractResource.LOGISTICREGRESSION_PATH:
+            return logisticRegression();
+        case AbstractResource.SCRIPT_PATH:
+            return script();
+        case AbstractResource.EXECUTION_PATH:
+            return execution();
+        case AbstractResource.LIBRARY_PATH:
+            return library();
+        case AbstractResource.ASSOCIATION_PATH:
+            return association();
+        case AbstractResource.ASSOCIATIONSET_PATH:
+            return associationSet();
+        case AbstractResource.TOPICMODEL_PATH:
+            return topicModel();
+        case AbstractResource.TOPICDISTRIBUTION_PATH:
+            return topicDistribution();
+        case AbstractResource.BATCH_TOPICDISTRIBUTION_PATH:
+            return batchTopicDistribution();
+        case AbstractResource.CONFIGURATION_PATH:
+            return configuration();
+        case AbstractResource.TIMESERIES_PATH:
+            return timeSeries();
+        case AbstractResource.FORECAST_PATH:
+            return forecast();
+        case AbstractResource.DEEPNET_PATH:
+            return deepnet();
+        case AbstractResource.OPTIML_PATH:
+            return optiml();
+        case AbstractResource.FUSION_PATH:
+            return fusion();
+        case AbstractResource.PCA_PATH:
+            return pca();
+        case AbstractResource.PROJECTION_PATH:
+            return projection();
+        case AbstractResource.BATCH_PROJECTION_PATH:
+            return batchProjection();
+        case AbstractResource.LINEARREGRESSION_PATH:
+            return linearRegression();
+        case AbstractResource.EXTERNALCONNECTOR_PATH:
+            return externalConnector();
+        default:
+            return null;
+        }
+    }
+
     // ################################################################
     // #
     // # Sources
@@ -448,7 +943,7 @@ public class BigMLClient {
      */
     public JSONObject createSource(final String fileName, String name,
             JSONObject sourceParser) {
-        return source.createLocalSource(fileName, name, sourceParser);
+        return source().createLocalSource(fileName, name, sourceParser);
     }
 
     /**
@@ -472,7 +967,7 @@ public class BigMLClient {
      */
     public JSONObject createSource(final String fileName, String name,
             JSONObject sourceParser, JSONObject args) {
-        return source.createLocalSource(fileName, name, sourceParser, args);
+        return source().createLocalSource(fileName, name, sourceParser, args);
     }
 
     /**
@@ -510,7 +1005,7 @@ public class BigMLClient {
      */
     public JSONObject createRemoteSource(final String url,
             final JSONObject sourceParser, final JSONObject args) {
-        return source.createRemoteSource(url, sourceParser, args);
+        return source().createRemoteSource(url, sourceParser, args);
     }
 
     /**
@@ -529,7 +1024,7 @@ public class BigMLClient {
     public JSONObject createSourceFromBatchPrediction(final String batchPredictionId,
             final JSONObject sourceParser) {
 
-        return source.createSourceFromBatchPrediction(batchPredictionId, sourceParser);
+        return source().createSourceFromBatchPrediction(batchPredictionId, sourceParser);
     }
 
     /**
@@ -550,7 +1045,7 @@ public class BigMLClient {
     public JSONObject createSourceFromBatchPrediction(final String batchPredictionId,
             final JSONObject sourceParser, final JSONObject args) {
 
-        return source.createSourceFromBatchPrediction(batchPredictionId, sourceParser, args);
+        return source().createSourceFromBatchPrediction(batchPredictionId, sourceParser, args);
     }
 
     /**
@@ -569,7 +1064,7 @@ public class BigMLClient {
     public JSONObject createSourceFromBatchAnomalyScore(final String batchAnomalyScoreId,
             final JSONObject sourceParser) {
 
-        return source.createSourceFromBatchAnomalyScore(batchAnomalyScoreId, sourceParser);
+        return source().createSourceFromBatchAnomalyScore(batchAnomalyScoreId, sourceParser);
     }
 
     /**
@@ -590,7 +1085,7 @@ public class BigMLClient {
     public JSONObject createSourceFromBatchAnomalyScore(final String batchAnomalyScoreId,
             final JSONObject sourceParser, final JSONObject args) {
 
-        return source.createSourceFromBatchAnomalyScore(batchAnomalyScoreId, sourceParser, args);
+        return source().createSourceFromBatchAnomalyScore(batchAnomalyScoreId, sourceParser, args);
     }
 
     /**
@@ -608,7 +1103,7 @@ public class BigMLClient {
      */
     public JSONObject createInlineSource(final String data,
             final JSONObject sourceParser) {
-        return source.createInlineSource(data, sourceParser);
+        return source().createInlineSource(data, sourceParser);
     }
 
     /**
@@ -626,7 +1121,7 @@ public class BigMLClient {
      */
     public JSONObject createExternalDataSource(
             final JSONObject externalData, final JSONObject args) {
-        return source.createExternalDataSource(externalData, args);
+        return source().createExternalDataSource(externalData, args);
     }
 
     /**
@@ -642,7 +1137,7 @@ public class BigMLClient {
      * @return a JSONObject for the source
      */
     public JSONObject getSource(final String sourceId) {
-        return source.get(sourceId);
+        return source().get(sourceId);
     }
 
     /**
@@ -657,7 +1152,7 @@ public class BigMLClient {
      * @return a JSONObject for the source
      */
     public JSONObject getSource(final JSONObject sourceJSON) {
-        return source.get(sourceJSON);
+        return source().get(sourceJSON);
     }
 
     /**
@@ -670,7 +1165,7 @@ public class BigMLClient {
      * @return true if source is finished
      */
     public boolean sourceIsReady(final String sourceId) {
-        return source.isReady(sourceId);
+        return source().isReady(sourceId);
     }
 
     /**
@@ -682,7 +1177,7 @@ public class BigMLClient {
      * @return true if source is finished
      */
     public boolean sourceIsReady(final JSONObject sourceJSON) {
-        return source.isReady(sourceJSON);
+        return source().isReady(sourceJSON);
     }
 
     /**
@@ -697,7 +1192,7 @@ public class BigMLClient {
      * @return a JSONObject containing all sources matching the query
      */
     public JSONObject listSources(final String queryString) {
-        return source.list(queryString);
+        return source().list(queryString);
     }
 
     /**
@@ -718,7 +1213,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated source
      */
     public JSONObject updateSource(final String sourceId, final String changes) {
-        return source.update(sourceId, changes);
+        return source().update(sourceId, changes);
     }
 
     /**
@@ -739,7 +1234,7 @@ public class BigMLClient {
      */
     public JSONObject updateSource(final JSONObject sourceJSON,
             final JSONObject changes) {
-        return source.update(sourceJSON, changes);
+        return source().update(sourceJSON, changes);
     }
 
     /**
@@ -756,7 +1251,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted source
      */
     public JSONObject deleteSource(final String sourceId) {
-        return source.delete(sourceId);
+        return source().delete(sourceId);
     }
 
     /**
@@ -772,7 +1267,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted source
      */
     public JSONObject deleteSource(final JSONObject sourceJSON) {
-        return source.delete(sourceJSON);
+        return source().delete(sourceJSON);
     }
 
     // ################################################################
@@ -813,7 +1308,7 @@ public class BigMLClient {
      */
     public JSONObject createDataset(final String resourceId, JSONObject args,
             Integer waitTime, Integer retries) {
-        return dataset.create(resourceId, args, waitTime, retries);
+        return dataset().create(resourceId, args, waitTime, retries);
     }
 
     /**
@@ -839,7 +1334,7 @@ public class BigMLClient {
      */
     public JSONObject createDataset(final List datasetsIds, JSONObject args,
             Integer waitTime, Integer retries) {
-        return dataset.create(datasetsIds, args, waitTime, retries);
+        return dataset().create(datasetsIds, args, waitTime, retries);
     }
 
 
@@ -857,7 +1352,7 @@ public class BigMLClient {
      * @return a JSONObject for the dataset
      */
     public JSONObject getDataset(final String datasetId) {
-        return dataset.get(datasetId);
+        return dataset().get(datasetId);
     }
 
     /**
@@ -873,7 +1368,7 @@ public class BigMLClient {
      * @return a JSONObject for the dataset
      */
     public JSONObject getDataset(final JSONObject datasetJSON) {
-        return dataset.get(datasetJSON);
+        return dataset().get(datasetJSON);
     }
 
     /**
@@ -884,7 +1379,7 @@ public class BigMLClient {
      * @return a Map with error counts in dataset
      */
     public Map<String, Long> getErrorCounts(final String datasetId) {
-        return dataset.getErrorCounts(getDataset(datasetId));
+        return dataset().getErrorCounts(getDataset(datasetId));
     }
 
     /**
@@ -895,7 +1390,7 @@ public class BigMLClient {
      * @return a Map with error counts in dataset
      */
     public Map<String, Long> getErrorCounts(final JSONObject datasetJSON) {
-        return dataset.getErrorCounts(datasetJSON);
+        return dataset().getErrorCounts(datasetJSON);
     }
 
     /**
@@ -908,7 +1403,7 @@ public class BigMLClient {
      * @return true if dataset is finished
      */
     public boolean datasetIsReady(final String datasetId) {
-        return dataset.isReady(datasetId);
+        return dataset().isReady(datasetId);
     }
 
     /**
@@ -920,7 +1415,7 @@ public class BigMLClient {
      * @return true if dataset is finished
      */
     public boolean datasetIsReady(final JSONObject datasetJSON) {
-        return dataset.isReady(datasetJSON);
+        return dataset().isReady(datasetJSON);
     }
 
     /**
@@ -935,7 +1430,7 @@ public class BigMLClient {
      * @return a JSONObject containing all datasets matching the query
      */
     public JSONObject listDatasets(final String queryString) {
-        return dataset.list(queryString);
+        return dataset().list(queryString);
     }
 
     /**
@@ -954,7 +1449,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated dataset
      */
     public JSONObject updateDataset(final String datasetId, final String changes) {
-        return dataset.update(datasetId, changes);
+        return dataset().update(datasetId, changes);
     }
 
     /**
@@ -973,7 +1468,7 @@ public class BigMLClient {
      */
     public JSONObject updateDataset(final JSONObject datasetJSON,
             final JSONObject changes) {
-        return dataset.update(datasetJSON, changes);
+        return dataset().update(datasetJSON, changes);
     }
 
     /**
@@ -990,7 +1485,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted dataset
      */
     public JSONObject deleteDataset(final String datasetId) {
-        return dataset.delete(datasetId);
+        return dataset().delete(datasetId);
     }
 
     /**
@@ -1006,7 +1501,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted dataset
      */
     public JSONObject deleteDataset(final JSONObject datasetJSON) {
-        return dataset.delete(datasetJSON);
+        return dataset().delete(datasetJSON);
     }
 
     /**
@@ -1025,7 +1520,7 @@ public class BigMLClient {
      */
     public JSONObject downloadDataset(final String datasetId,
                                       final String filename) {
-        return dataset.downloadDataset(datasetId, filename);
+        return dataset().downloadDataset(datasetId, filename);
     }
 
 
@@ -1059,7 +1554,7 @@ public class BigMLClient {
     public JSONObject createModel(final String resourceId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return model.create(resourceId, args, waitTime, retries);
+        return model().create(resourceId, args, waitTime, retries);
     }
 
     /**
@@ -1085,7 +1580,7 @@ public class BigMLClient {
     public JSONObject createModel(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return model.create(datasetsIds, args, waitTime, retries);
+        return model().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -1124,7 +1619,7 @@ public class BigMLClient {
      */
     public JSONObject getModel(final String modelId, final String apiUser,
             final String apiKey) {
-        return model.get(modelId, apiUser, apiKey);
+        return model().get(modelId, apiUser, apiKey);
     }
 
     /**
@@ -1163,7 +1658,7 @@ public class BigMLClient {
      */
     public JSONObject getPublicModel(final String modelId,
             final String apiUser, final String apiKey) {
-        return model.get("public/" + modelId, apiUser, apiKey);
+        return model().get("public/" + modelId, apiUser, apiKey);
     }
 
     /**
@@ -1198,7 +1693,7 @@ public class BigMLClient {
      */
     public JSONObject getModel(final JSONObject modelJSON,
             final String apiUser, final String apiKey) {
-        return model.get(modelJSON, apiUser, apiKey);
+        return model().get(modelJSON, apiUser, apiKey);
     }
 
     /**
@@ -1241,7 +1736,7 @@ public class BigMLClient {
      */
     public JSONObject getModel(final String modelId, final String queryString,
             final String apiUser, final String apiKey) {
-        return model.get(modelId, queryString, apiUser, apiKey);
+        return model().get(modelId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -1285,7 +1780,7 @@ public class BigMLClient {
      */
     public JSONObject getPublicModel(final String modelId,
             final String queryString, final String apiUser, final String apiKey) {
-        return model.get("public/" + modelId, queryString, apiUser, apiKey);
+        return model().get("public/" + modelId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -1325,7 +1820,7 @@ public class BigMLClient {
      */
     public JSONObject getModel(final JSONObject modelJSON,
             final String queryString, final String apiUser, final String apiKey) {
-        return model.get(modelJSON, queryString, apiUser, apiKey);
+        return model().get(modelJSON, queryString, apiUser, apiKey);
     }
 
     /**
@@ -1338,7 +1833,7 @@ public class BigMLClient {
      * @return true if model is finished
      */
     public boolean modelIsReady(final String modelId) {
-        return model.isReady(modelId);
+        return model().isReady(modelId);
     }
 
     /**
@@ -1350,7 +1845,7 @@ public class BigMLClient {
      * @return true if model is finished
      */
     public boolean modelIsReady(final JSONObject modelJSON) {
-        return model.isReady(modelJSON);
+        return model().isReady(modelJSON);
     }
 
     /**
@@ -1365,7 +1860,7 @@ public class BigMLClient {
      * @return a JSONObject containing all models matching the query
      */
     public JSONObject listModels(final String queryString) {
-        return model.list(queryString);
+        return model().list(queryString);
     }
 
     /**
@@ -1383,7 +1878,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated model
      */
     public JSONObject updateModel(final String modelId, final String changes) {
-        return model.update(modelId, changes);
+        return model().update(modelId, changes);
     }
 
     /**
@@ -1401,7 +1896,7 @@ public class BigMLClient {
      */
     public JSONObject updateModel(final JSONObject modelJSON,
             final JSONObject changes) {
-        return model.update(modelJSON, changes);
+        return model().update(modelJSON, changes);
     }
 
     /**
@@ -1418,7 +1913,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted model
      */
     public JSONObject deleteModel(final String modelId) {
-        return model.delete(modelId);
+        return model().delete(modelId);
     }
 
     /**
@@ -1434,7 +1929,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted model
      */
     public JSONObject deleteModel(final JSONObject modelJSON) {
-        return model.delete(modelJSON);
+        return model().delete(modelJSON);
     }
 
     // ################################################################
@@ -1466,7 +1961,7 @@ public class BigMLClient {
     public JSONObject createAnomaly(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return anomaly.create(datasetId, args, waitTime, retries);
+        return anomaly().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -1492,7 +1987,7 @@ public class BigMLClient {
     public JSONObject createAnomaly(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return anomaly.create(datasetsIds, args, waitTime, retries);
+        return anomaly().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -1531,7 +2026,7 @@ public class BigMLClient {
      */
     public JSONObject getAnomaly(final String anomalyId, final String apiUser,
                                final String apiKey) {
-        return anomaly.get(anomalyId, apiUser, apiKey);
+        return anomaly().get(anomalyId, apiUser, apiKey);
     }
 
     /**
@@ -1570,7 +2065,7 @@ public class BigMLClient {
      */
     public JSONObject getPublicAnomaly(final String anomalyId,
                                      final String apiUser, final String apiKey) {
-        return anomaly.get("public/" + anomalyId, apiUser, apiKey);
+        return anomaly().get("public/" + anomalyId, apiUser, apiKey);
     }
 
     /**
@@ -1605,7 +2100,7 @@ public class BigMLClient {
      */
     public JSONObject getAnomaly(final JSONObject anomalyJSON,
                                final String apiUser, final String apiKey) {
-        return anomaly.get(anomalyJSON, apiUser, apiKey);
+        return anomaly().get(anomalyJSON, apiUser, apiKey);
     }
 
     /**
@@ -1648,7 +2143,7 @@ public class BigMLClient {
      */
     public JSONObject getAnomaly(final String anomalyId, final String queryString,
                                final String apiUser, final String apiKey) {
-        return anomaly.get(anomalyId, queryString, apiUser, apiKey);
+        return anomaly().get(anomalyId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -1692,7 +2187,7 @@ public class BigMLClient {
      */
     public JSONObject getPublicAnomaly(final String anomalyId,
                                      final String queryString, final String apiUser, final String apiKey) {
-        return anomaly.get("public/" + anomalyId, queryString, apiUser, apiKey);
+        return anomaly().get("public/" + anomalyId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -1732,7 +2227,7 @@ public class BigMLClient {
      */
     public JSONObject getAnomaly(final JSONObject anomalyJSON,
                                final String queryString, final String apiUser, final String apiKey) {
-        return anomaly.get(anomalyJSON, queryString, apiUser, apiKey);
+        return anomaly().get(anomalyJSON, queryString, apiUser, apiKey);
     }
 
     /**
@@ -1745,7 +2240,7 @@ public class BigMLClient {
      * @return true if anomaly is finished
      */
     public boolean anomalyIsReady(final String anomalyId) {
-        return anomaly.isReady(anomalyId);
+        return anomaly().isReady(anomalyId);
     }
 
     /**
@@ -1757,7 +2252,7 @@ public class BigMLClient {
      * @return true if anomaly is finished
      */
     public boolean anomalyIsReady(final JSONObject anomalyJSON) {
-        return anomaly.isReady(anomalyJSON);
+        return anomaly().isReady(anomalyJSON);
     }
 
     /**
@@ -1772,7 +2267,7 @@ public class BigMLClient {
      * @return a JSONObject containing all anomalies matching the query
      */
     public JSONObject listAnomalies(final String queryString) {
-        return anomaly.list(queryString);
+        return anomaly().list(queryString);
     }
 
     /**
@@ -1790,7 +2285,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated anomaly
      */
     public JSONObject updateAnomaly(final String anomalyId, final String changes) {
-        return anomaly.update(anomalyId, changes);
+        return anomaly().update(anomalyId, changes);
     }
 
     /**
@@ -1808,7 +2303,7 @@ public class BigMLClient {
      */
     public JSONObject updateAnomaly(final JSONObject anomalyJSON,
                                   final JSONObject changes) {
-        return anomaly.update(anomalyJSON, changes);
+        return anomaly().update(anomalyJSON, changes);
     }
 
     /**
@@ -1825,7 +2320,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted anomaly
      */
     public JSONObject deleteAnomaly(final String anomalyId) {
-        return anomaly.delete(anomalyId);
+        return anomaly().delete(anomalyId);
     }
 
     /**
@@ -1841,7 +2336,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted anomaly
      */
     public JSONObject deleteAnomaly(final JSONObject anomalyJSON) {
-        return anomaly.delete(anomalyJSON);
+        return anomaly().delete(anomalyJSON);
     }
 
 
@@ -1883,7 +2378,7 @@ public class BigMLClient {
     public JSONObject createPrediction(final String modelId,
             JSONObject inputData, Boolean byName, JSONObject args,
             Integer waitTime, Integer retries) {
-        return prediction.create(modelId, inputData, byName, args,
+        return prediction().create(modelId, inputData, byName, args,
                 waitTime, retries);
     }
 
@@ -1916,7 +2411,7 @@ public class BigMLClient {
     public JSONObject createPrediction(final String modelId,
             JSONObject inputData, JSONObject args,
             Integer waitTime, Integer retries) {
-        return prediction.create(modelId, inputData, false, args,
+        return prediction().create(modelId, inputData, false, args,
                 waitTime, retries);
     }
 
@@ -1933,7 +2428,7 @@ public class BigMLClient {
      * @return a JSONObject for the prediction
      */
     public JSONObject getPrediction(final String predictionId) {
-        return prediction.get(predictionId);
+        return prediction().get(predictionId);
     }
 
     /**
@@ -1948,7 +2443,7 @@ public class BigMLClient {
      * @return a JSONObject for the prediction
      */
     public JSONObject getPrediction(final JSONObject predictionJSON) {
-        return prediction.get(predictionJSON);
+        return prediction().get(predictionJSON);
     }
 
     /**
@@ -1961,7 +2456,7 @@ public class BigMLClient {
      * @return true if prediction is finished
      */
     public boolean predictionIsReady(final String predictionId) {
-        return prediction.isReady(predictionId);
+        return prediction().isReady(predictionId);
     }
 
     /**
@@ -1973,7 +2468,7 @@ public class BigMLClient {
      * @return true if prediction is finished
      */
     public boolean predictionIsReady(final JSONObject predictionJSON) {
-        return prediction.isReady(predictionJSON);
+        return prediction().isReady(predictionJSON);
     }
 
     /**
@@ -1989,7 +2484,7 @@ public class BigMLClient {
      * @return a JSONObject containing all predictions matching the query
      */
     public JSONObject listPredictions(final String queryString) {
-        return prediction.list(queryString);
+        return prediction().list(queryString);
     }
 
     /**
@@ -2008,7 +2503,7 @@ public class BigMLClient {
      */
     public JSONObject updatePrediction(final String predictionId,
             final String changes) {
-        return prediction.update(predictionId, changes);
+        return prediction().update(predictionId, changes);
     }
 
     /**
@@ -2026,7 +2521,7 @@ public class BigMLClient {
      */
     public JSONObject updatePrediction(final JSONObject predictionJSON,
             final JSONObject changes) {
-        return prediction.update(predictionJSON, changes);
+        return prediction().update(predictionJSON, changes);
     }
 
     /**
@@ -2042,7 +2537,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted prediction
      */
     public JSONObject deletePrediction(final String predictionId) {
-        return prediction.delete(predictionId);
+        return prediction().delete(predictionId);
     }
 
     /**
@@ -2057,7 +2552,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted prediction
      */
     public JSONObject deletePrediction(final JSONObject predictionJSON) {
-        return prediction.delete(predictionJSON);
+        return prediction().delete(predictionJSON);
     }
 
     // ################################################################
@@ -2094,7 +2589,7 @@ public class BigMLClient {
     public JSONObject createAnomalyScore(final String anomalyId,
             JSONObject inputData, JSONObject args, Integer waitTime,
             Integer retries) {
-        return anomalyScore.create(anomalyId, inputData, false, args,
+        return anomalyScore().create(anomalyId, inputData, false, args,
                 waitTime, retries);
     }
 
@@ -2141,7 +2636,7 @@ public class BigMLClient {
      * @return a JSONObject for the anomaly score
      */
     public JSONObject getAnomalyScore(final String anomalyScoreId) {
-        return anomalyScore.get(anomalyScoreId);
+        return anomalyScore().get(anomalyScoreId);
     }
 
     /**
@@ -2156,7 +2651,7 @@ public class BigMLClient {
      * @return a JSONObject for the anomaly score
      */
     public JSONObject getAnomalyScore(final JSONObject anomalyScoreJSON) {
-        return anomalyScore.get(anomalyScoreJSON);
+        return anomalyScore().get(anomalyScoreJSON);
     }
 
     /**
@@ -2169,7 +2664,7 @@ public class BigMLClient {
      * @return true if anomaly score is finished
      */
     public boolean anomalyScoreIsReady(final String anomalyScoreId) {
-        return anomalyScore.isReady(anomalyScoreId);
+        return anomalyScore().isReady(anomalyScoreId);
     }
 
     /**
@@ -2181,7 +2676,7 @@ public class BigMLClient {
      * @return true if anomaly score is finished
      */
     public boolean anomalyScoreIsReady(final JSONObject anomalyScoreJSON) {
-        return anomalyScore.isReady(anomalyScoreJSON);
+        return anomalyScore().isReady(anomalyScoreJSON);
     }
 
     /**
@@ -2197,7 +2692,7 @@ public class BigMLClient {
      * @return a JSONObject containing all anomaly scores matching the query
      */
     public JSONObject listAnomalyScores(final String queryString) {
-        return anomalyScore.list(queryString);
+        return anomalyScore().list(queryString);
     }
 
     /**
@@ -2216,7 +2711,7 @@ public class BigMLClient {
      */
     public JSONObject updateAnomalyScore(final String anomalyScoreId,
             final String changes) {
-        return anomalyScore.update(anomalyScoreId, changes);
+        return anomalyScore().update(anomalyScoreId, changes);
     }
 
     /**
@@ -2234,7 +2729,7 @@ public class BigMLClient {
      */
     public JSONObject updateAnomalyScore(final JSONObject anomalyScoreJSON,
             final JSONObject changes) {
-        return anomalyScore.update(anomalyScoreJSON, changes);
+        return anomalyScore().update(anomalyScoreJSON, changes);
     }
 
     /**
@@ -2250,7 +2745,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted anomaly score
      */
     public JSONObject deleteAnomalyScore(final String anomalyScoreId) {
-        return anomalyScore.delete(anomalyScoreId);
+        return anomalyScore().delete(anomalyScoreId);
     }
 
     /**
@@ -2265,7 +2760,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted anomaly score
      */
     public JSONObject deleteAnomalyScore(final JSONObject anomalyScoreJSON) {
-        return anomalyScore.delete(anomalyScoreJSON);
+        return anomalyScore().delete(anomalyScoreJSON);
     }
 
     // ################################################################
@@ -2306,7 +2801,7 @@ public class BigMLClient {
             final String datasetId, JSONObject args, Integer waitTime,
             Integer retries) {
 
-        return evaluation.create(modelId, datasetId, args, waitTime, retries);
+        return evaluation().create(modelId, datasetId, args, waitTime, retries);
     }
 
     /**
@@ -2327,7 +2822,7 @@ public class BigMLClient {
      * @return a JSONObject for the evaluation
      */
     public JSONObject getEvaluation(final String evaluationId) {
-        return evaluation.get(evaluationId);
+        return evaluation().get(evaluationId);
     }
 
     /**
@@ -2347,7 +2842,7 @@ public class BigMLClient {
      * @return a JSONObject for the evaluation
      */
     public JSONObject getEvaluation(final JSONObject evaluationJSON) {
-        return evaluation.get(evaluationJSON);
+        return evaluation().get(evaluationJSON);
     }
 
     /**
@@ -2360,7 +2855,7 @@ public class BigMLClient {
      * @return true if evaluation is finished
      */
     public boolean evaluationIsReady(final String evaluationId) {
-        return evaluation.isReady(evaluationId);
+        return evaluation().isReady(evaluationId);
     }
 
     /**
@@ -2372,7 +2867,7 @@ public class BigMLClient {
      * @return true if evaluation is finished
      */
     public boolean evaluationIsReady(final JSONObject evaluationJSON) {
-        return evaluation.isReady(evaluationJSON);
+        return evaluation().isReady(evaluationJSON);
     }
 
     /**
@@ -2388,7 +2883,7 @@ public class BigMLClient {
      * @return a JSONObject containing all evaluations matching the query
      */
     public JSONObject listEvaluations(final String queryString) {
-        return evaluation.list(queryString);
+        return evaluation().list(queryString);
     }
 
     /**
@@ -2407,7 +2902,7 @@ public class BigMLClient {
      */
     public JSONObject updateEvaluation(final String evaluationId,
             final String changes) {
-        return evaluation.update(evaluationId, changes);
+        return evaluation().update(evaluationId, changes);
     }
 
     /**
@@ -2425,7 +2920,7 @@ public class BigMLClient {
      */
     public JSONObject updateEvaluation(final JSONObject evaluationJSON,
             final JSONObject changes) {
-        return evaluation.update(evaluationJSON, changes);
+        return evaluation().update(evaluationJSON, changes);
     }
 
     /**
@@ -2441,7 +2936,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted evaluation
      */
     public JSONObject deleteEvaluation(final String evaluationId) {
-        return evaluation.delete(evaluationId);
+        return evaluation().delete(evaluationId);
     }
 
     /**
@@ -2456,7 +2951,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted evaluation
      */
     public JSONObject deleteEvaluation(final JSONObject evaluationJSON) {
-        return evaluation.delete(evaluationJSON);
+        return evaluation().delete(evaluationJSON);
     }
 
     // ################################################################
@@ -2489,7 +2984,7 @@ public class BigMLClient {
     public JSONObject createEnsemble(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return ensemble.create(datasetId, args, waitTime, retries);
+        return ensemble().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -2515,7 +3010,7 @@ public class BigMLClient {
     public JSONObject createEnsemble(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return ensemble.create(datasetsIds, args, waitTime, retries);
+        return ensemble().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -2537,7 +3032,7 @@ public class BigMLClient {
      * @return a JSONObject for the ensemble
      */
     public JSONObject getEnsemble(final String ensembleId) {
-        return ensemble.get(ensembleId);
+        return ensemble().get(ensembleId);
     }
 
     /**
@@ -2558,7 +3053,7 @@ public class BigMLClient {
      * @return a JSONObject for the ensemble
      */
     public JSONObject getEnsemble(final JSONObject ensembleJSON) {
-        return ensemble.get(ensembleJSON);
+        return ensemble().get(ensembleJSON);
     }
 
     /**
@@ -2571,7 +3066,7 @@ public class BigMLClient {
      * @return true if ensemble is finished
      */
     public boolean ensembleIsReady(final String ensembleId) {
-        return ensemble.isReady(ensembleId);
+        return ensemble().isReady(ensembleId);
     }
 
     /**
@@ -2583,7 +3078,7 @@ public class BigMLClient {
      * @return true if ensemble is finished
      */
     public boolean ensembleIsReady(final JSONObject ensembleJSON) {
-        return ensemble.isReady(ensembleJSON);
+        return ensemble().isReady(ensembleJSON);
     }
 
     /**
@@ -2598,7 +3093,7 @@ public class BigMLClient {
      * @return a JSONObject containing all ensembles matching the query
      */
     public JSONObject listEnsembles(final String queryString) {
-        return ensemble.list(queryString);
+        return ensemble().list(queryString);
     }
 
     /**
@@ -2618,7 +3113,7 @@ public class BigMLClient {
      */
     public JSONObject updateEnsemble(final String ensembleId,
             final String changes) {
-        return ensemble.update(ensembleId, changes);
+        return ensemble().update(ensembleId, changes);
     }
 
     /**
@@ -2637,7 +3132,7 @@ public class BigMLClient {
      */
     public JSONObject updateEnsemble(final JSONObject ensembleJSON,
             final JSONObject changes) {
-        return ensemble.update(ensembleJSON, changes);
+        return ensemble().update(ensembleJSON, changes);
     }
 
     /**
@@ -2654,7 +3149,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted ensemble
      */
     public JSONObject deleteEnsemble(final String ensembleId) {
-        return ensemble.delete(ensembleId);
+        return ensemble().delete(ensembleId);
     }
 
     /**
@@ -2670,7 +3165,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted ensemble
      */
     public JSONObject deleteEnsemble(final JSONObject ensembleJSON) {
-        return ensemble.delete(ensembleJSON);
+        return ensemble().delete(ensembleJSON);
     }
 
     // ################################################################
@@ -2710,7 +3205,7 @@ public class BigMLClient {
     public JSONObject createBatchPrediction(final String modelId,
             final String datasetId, JSONObject args, Integer waitTime,
             Integer retries) {
-        return batchPrediction.create(modelId, datasetId, args,
+        return batchPrediction().create(modelId, datasetId, args,
                 waitTime, retries);
     }
 
@@ -2734,7 +3229,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch prediction
      */
     public JSONObject getBatchPrediction(final String batchPredictionId) {
-        return batchPrediction.get(batchPredictionId);
+        return batchPrediction().get(batchPredictionId);
     }
 
     /**
@@ -2756,7 +3251,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch prediction
      */
     public JSONObject getBatchPrediction(final JSONObject batchPredictionJSON) {
-        return batchPrediction.get(batchPredictionJSON);
+        return batchPrediction().get(batchPredictionJSON);
     }
 
     /**
@@ -2776,7 +3271,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchPrediction(final String batchPredictionId,
             final String filename) {
-        return batchPrediction.downloadBatchPrediction(batchPredictionId,
+        return batchPrediction().downloadBatchPrediction(batchPredictionId,
                 filename);
     }
 
@@ -2796,7 +3291,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchPrediction(
             final JSONObject batchPredictionJSON, final String filename) {
-        return batchPrediction.downloadBatchPrediction(batchPredictionJSON,
+        return batchPrediction().downloadBatchPrediction(batchPredictionJSON,
                 filename);
     }
 
@@ -2810,7 +3305,7 @@ public class BigMLClient {
      * @return true if batch prediction is finished
      */
     public boolean batchPredictionIsReady(final String batchPredictionId) {
-        return batchPrediction.isReady(batchPredictionId);
+        return batchPrediction().isReady(batchPredictionId);
     }
 
     /**
@@ -2822,7 +3317,7 @@ public class BigMLClient {
      * @return true if batch prediction is finished
      */
     public boolean batchPredictionIsReady(final JSONObject batchPredictionJSON) {
-        return batchPrediction.isReady(batchPredictionJSON);
+        return batchPrediction().isReady(batchPredictionJSON);
     }
 
     /**
@@ -2837,7 +3332,7 @@ public class BigMLClient {
      * @return a JSONObject containing all batch predictions matching the query
      */
     public JSONObject listBatchPredictions(final String queryString) {
-        return batchPrediction.list(queryString);
+        return batchPrediction().list(queryString);
     }
 
     /**
@@ -2856,7 +3351,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchPrediction(final String batchPredictionId,
             final String changes) {
-        return batchPrediction.update(batchPredictionId, changes);
+        return batchPrediction().update(batchPredictionId, changes);
     }
 
     /**
@@ -2874,7 +3369,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchPrediction(
             final JSONObject batchpredictionJSON, final JSONObject changes) {
-        return batchPrediction.update(batchpredictionJSON, changes);
+        return batchPrediction().update(batchpredictionJSON, changes);
     }
 
     /**
@@ -2890,7 +3385,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch prediction
      */
     public JSONObject deleteBatchPrediction(final String batchPredictionId) {
-        return batchPrediction.delete(batchPredictionId);
+        return batchPrediction().delete(batchPredictionId);
     }
 
     /**
@@ -2905,7 +3400,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch prediction
      */
     public JSONObject deleteBatchPrediction(final JSONObject batchPredictionJSON) {
-        return batchPrediction.delete(batchPredictionJSON);
+        return batchPrediction().delete(batchPredictionJSON);
     }
 
     // ################################################################
@@ -2943,7 +3438,7 @@ public class BigMLClient {
     public JSONObject createBatchAnomalyScore(final String anomalyId,
             final String datasetId, JSONObject args, Integer waitTime,
             Integer retries) {
-        return batchAnomalyScore.create(anomalyId, datasetId, args,
+        return batchAnomalyScore().create(anomalyId, datasetId, args,
                 waitTime, retries);
     }
 
@@ -2967,7 +3462,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch anomaly score
      */
     public JSONObject getBatchAnomalyScore(final String batchAnomalyScoreId) {
-        return batchAnomalyScore.get(batchAnomalyScoreId);
+        return batchAnomalyScore().get(batchAnomalyScoreId);
     }
 
     /**
@@ -2989,7 +3484,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch anomaly score
      */
     public JSONObject getBatchAnomalyScore(final JSONObject batchAnomalyScoreJSON) {
-        return batchAnomalyScore.get(batchAnomalyScoreJSON);
+        return batchAnomalyScore().get(batchAnomalyScoreJSON);
     }
 
     /**
@@ -3009,7 +3504,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchAnomalyScore(final String batchAnomalyScoreId,
             final String filename) {
-        return batchAnomalyScore.downloadBatchAnomalyScore(batchAnomalyScoreId,
+        return batchAnomalyScore().downloadBatchAnomalyScore(batchAnomalyScoreId,
                 filename);
     }
 
@@ -3029,7 +3524,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchAnomalyScore(
             final JSONObject batchAnomalyScoreJSON, final String filename) {
-        return batchAnomalyScore.downloadBatchAnomalyScore(batchAnomalyScoreJSON,
+        return batchAnomalyScore().downloadBatchAnomalyScore(batchAnomalyScoreJSON,
                 filename);
     }
 
@@ -3043,7 +3538,7 @@ public class BigMLClient {
      * @return true if batch anomaly score is finished
      */
     public boolean batchAnomalyScoreIsReady(final String batchAnomalyScoreId) {
-        return batchAnomalyScore.isReady(batchAnomalyScoreId);
+        return batchAnomalyScore().isReady(batchAnomalyScoreId);
     }
 
     /**
@@ -3055,7 +3550,7 @@ public class BigMLClient {
      * @return true if batch anomaly score is finished
      */
     public boolean batchAnomalyScoreIsReady(final JSONObject batchAnomalyScoreJSON) {
-        return batchAnomalyScore.isReady(batchAnomalyScoreJSON);
+        return batchAnomalyScore().isReady(batchAnomalyScoreJSON);
     }
 
     /**
@@ -3070,7 +3565,7 @@ public class BigMLClient {
      * @return a JSONObject containing all batch anomaly scores matching the query
      */
     public JSONObject listBatchAnomalyScores(final String queryString) {
-        return batchAnomalyScore.list(queryString);
+        return batchAnomalyScore().list(queryString);
     }
 
     /**
@@ -3089,7 +3584,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchAnomalyScore(final String batchAnomalyScoreId,
             final String changes) {
-        return batchAnomalyScore.update(batchAnomalyScoreId, changes);
+        return batchAnomalyScore().update(batchAnomalyScoreId, changes);
     }
 
     /**
@@ -3107,7 +3602,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchAnomalyScore(
             final JSONObject batchAnomalyScoreJSON, final JSONObject changes) {
-        return batchAnomalyScore.update(batchAnomalyScoreJSON, changes);
+        return batchAnomalyScore().update(batchAnomalyScoreJSON, changes);
     }
 
     /**
@@ -3123,7 +3618,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch anomaly score
      */
     public JSONObject deleteBatchAnomalyScore(final String batchAnomalyScoreId) {
-        return batchAnomalyScore.delete(batchAnomalyScoreId);
+        return batchAnomalyScore().delete(batchAnomalyScoreId);
     }
 
     /**
@@ -3138,7 +3633,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch anomaly score
      */
     public JSONObject deleteBatchAnomalyScore(final JSONObject batchAnomalyScoreJSON) {
-        return batchAnomalyScore.delete(batchAnomalyScoreJSON);
+        return batchAnomalyScore().delete(batchAnomalyScoreJSON);
     }
 
     // ################################################################
@@ -3171,7 +3666,7 @@ public class BigMLClient {
     public JSONObject createCluster(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return cluster.create(datasetId, args, waitTime, retries);
+        return cluster().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -3197,7 +3692,7 @@ public class BigMLClient {
     public JSONObject createCluster(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return cluster.create(datasetsIds, args, waitTime, retries);
+        return cluster().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -3219,7 +3714,7 @@ public class BigMLClient {
      * @return a JSONObject for the cluster
      */
     public JSONObject getCluster(final String clusterId) {
-        return cluster.get(clusterId);
+        return cluster().get(clusterId);
     }
 
     /**
@@ -3240,7 +3735,7 @@ public class BigMLClient {
      * @return a JSONObject for the cluster
      */
     public JSONObject getCluster(final JSONObject clusterJSON) {
-        return cluster.get(clusterJSON);
+        return cluster().get(clusterJSON);
     }
 
     /**
@@ -3253,7 +3748,7 @@ public class BigMLClient {
      * @return true if cluster is finished
      */
     public boolean clusterIsReady(final String clusterId) {
-        return cluster.isReady(clusterId);
+        return cluster().isReady(clusterId);
     }
 
     /**
@@ -3265,7 +3760,7 @@ public class BigMLClient {
      * @return true if cluster is finished
      */
     public boolean clusterIsReady(final JSONObject clusterJSON) {
-        return cluster.isReady(clusterJSON);
+        return cluster().isReady(clusterJSON);
     }
 
     /**
@@ -3280,7 +3775,7 @@ public class BigMLClient {
      * @return a JSONObject containing all clusters matching the query
      */
     public JSONObject listClusters(final String queryString) {
-        return cluster.list(queryString);
+        return cluster().list(queryString);
     }
 
     /**
@@ -3299,7 +3794,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated cluster
      */
     public JSONObject updateCluster(final String clusterId, final String changes) {
-        return cluster.update(clusterId, changes);
+        return cluster().update(clusterId, changes);
     }
 
     /**
@@ -3318,7 +3813,7 @@ public class BigMLClient {
      */
     public JSONObject updateCluster(final JSONObject clusterJSON,
             final JSONObject changes) {
-        return cluster.update(clusterJSON, changes);
+        return cluster().update(clusterJSON, changes);
     }
 
     /**
@@ -3335,7 +3830,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted cluster
      */
     public JSONObject deleteCluster(final String clusterId) {
-        return cluster.delete(clusterId);
+        return cluster().delete(clusterId);
     }
 
     /**
@@ -3351,7 +3846,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted cluster
      */
     public JSONObject deleteCluster(final JSONObject clusterJSON) {
-        return cluster.delete(clusterJSON);
+        return cluster().delete(clusterJSON);
     }
 
     // ################################################################
@@ -3386,7 +3881,7 @@ public class BigMLClient {
     public JSONObject createCentroid(final String clusterId,
             JSONObject inputDataJSON, JSONObject args, Integer waitTime,
             Integer retries) {
-        return centroid.create(clusterId, inputDataJSON, args, waitTime,
+        return centroid().create(clusterId, inputDataJSON, args, waitTime,
                 retries);
     }
 
@@ -3409,7 +3904,7 @@ public class BigMLClient {
      * @return a JSONObject for the centroid
      */
     public JSONObject getCentroid(final String centroidId) {
-        return centroid.get(centroidId);
+        return centroid().get(centroidId);
     }
 
     /**
@@ -3430,7 +3925,7 @@ public class BigMLClient {
      * @return a JSONObject for the centroid
      */
     public JSONObject getCentroid(final JSONObject centroidJSON) {
-        return centroid.get(centroidJSON);
+        return centroid().get(centroidJSON);
     }
 
     /**
@@ -3443,7 +3938,7 @@ public class BigMLClient {
      * @return true if centroid is finished
      */
     public boolean centroidIsReady(final String centroidId) {
-        return centroid.isResourceReady(cluster.get(centroidId));
+        return centroid().isResourceReady(cluster().get(centroidId));
     }
 
     /**
@@ -3455,7 +3950,7 @@ public class BigMLClient {
      * @return true if centroid is finished
      */
     public boolean centroidIsReady(final JSONObject centroidJSON) {
-        return centroid.isReady(centroidJSON);
+        return centroid().isReady(centroidJSON);
     }
 
     /**
@@ -3470,7 +3965,7 @@ public class BigMLClient {
      * @return a JSONObject containing all centroids matching the query
      */
     public JSONObject listCentroids(final String queryString) {
-        return centroid.list(queryString);
+        return centroid().list(queryString);
     }
 
     /**
@@ -3490,7 +3985,7 @@ public class BigMLClient {
      */
     public JSONObject updateCentroid(final String centroidId,
             final String changes) {
-        return centroid.update(centroidId, changes);
+        return centroid().update(centroidId, changes);
     }
 
     /**
@@ -3509,7 +4004,7 @@ public class BigMLClient {
      */
     public JSONObject updateCentroid(final JSONObject centroidJSON,
             final JSONObject changes) {
-        return centroid.update(centroidJSON, changes);
+        return centroid().update(centroidJSON, changes);
     }
 
     /**
@@ -3526,7 +4021,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted centroid
      */
     public JSONObject deleteCentroid(final String centroidId) {
-        return centroid.delete(centroidId);
+        return centroid().delete(centroidId);
     }
 
     /**
@@ -3542,7 +4037,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted centroid
      */
     public JSONObject deleteCentroid(final JSONObject centroidJSON) {
-        return centroid.delete(centroidJSON);
+        return centroid().delete(centroidJSON);
     }
 
     // ################################################################
@@ -3578,7 +4073,7 @@ public class BigMLClient {
     public JSONObject createBatchCentroid(final String clusterId,
             final String datasetId, JSONObject args, Integer waitTime,
             Integer retries) {
-        return batchCentroid.create(clusterId, datasetId, args, waitTime,
+        return batchCentroid().create(clusterId, datasetId, args, waitTime,
                 retries);
     }
 
@@ -3600,7 +4095,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch centroid
      */
     public JSONObject getBatchCentroid(final String batchCentroidId) {
-        return batchCentroid.get(batchCentroidId);
+        return batchCentroid().get(batchCentroidId);
     }
 
     /**
@@ -3620,7 +4115,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch centroid
      */
     public JSONObject getBatchCentroid(final JSONObject batchCentroidJSON) {
-        return batchCentroid.get(batchCentroidJSON);
+        return batchCentroid().get(batchCentroidJSON);
     }
 
     /**
@@ -3640,7 +4135,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchCentroid(final String batchCentroidId,
             final String filename) {
-        return batchCentroid.downloadBatchCentroid(batchCentroidId, filename);
+        return batchCentroid().downloadBatchCentroid(batchCentroidId, filename);
     }
 
     /**
@@ -3659,7 +4154,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchCentroid(final JSONObject batchCentroidJSON,
                                             final String filename) {
-        return batchCentroid.downloadBatchCentroid(batchCentroidJSON, filename);
+        return batchCentroid().downloadBatchCentroid(batchCentroidJSON, filename);
     }
 
     /**
@@ -3672,7 +4167,7 @@ public class BigMLClient {
      * @return true if batch centroid is finished
      */
     public boolean batcCentroidIsReady(final String batchCentroidId) {
-        return batchCentroid.isResourceReady(cluster.get(batchCentroidId));
+        return batchCentroid().isResourceReady(cluster().get(batchCentroidId));
     }
 
     /**
@@ -3684,7 +4179,7 @@ public class BigMLClient {
      * @return true if batch centroid is finished
      */
     public boolean batcCentroidIsReady(final JSONObject batchCentroidJSON) {
-        return batchCentroid.isReady(batchCentroidJSON);
+        return batchCentroid().isReady(batchCentroidJSON);
     }
 
     /**
@@ -3699,7 +4194,7 @@ public class BigMLClient {
      * @return a JSONObject containing all batch centroids matching the query
      */
     public JSONObject listBatchCentroids(final String queryString) {
-        return centroid.list(queryString);
+        return centroid().list(queryString);
     }
 
     /**
@@ -3718,7 +4213,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchCentroid(final String batchCentroidId,
             final String changes) {
-        return batchCentroid.update(batchCentroidId, changes);
+        return batchCentroid().update(batchCentroidId, changes);
     }
 
     /**
@@ -3736,7 +4231,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchCentroid(final JSONObject batchCentroidJSON,
             final JSONObject changes) {
-        return batchCentroid.update(batchCentroidJSON, changes);
+        return batchCentroid().update(batchCentroidJSON, changes);
     }
 
     /**
@@ -3752,7 +4247,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch centroid
      */
     public JSONObject deleteBatchCentroid(final String batchCentroidId) {
-        return batchCentroid.delete(batchCentroidId);
+        return batchCentroid().delete(batchCentroidId);
     }
 
     /**
@@ -3767,7 +4262,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch centroid
      */
     public JSONObject deleteBatchCentroid(final JSONObject batchCentroidJSON) {
-        return batchCentroid.delete(batchCentroidJSON);
+        return batchCentroid().delete(batchCentroidJSON);
     }
 
     // ################################################################
@@ -3803,7 +4298,7 @@ public class BigMLClient {
      */
     public JSONObject createSample(final String datasetId, JSONObject args,
                                     Integer waitTime, Integer retries) {
-        return sample.create(datasetId, args, waitTime, retries);
+        return sample().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -3820,7 +4315,7 @@ public class BigMLClient {
      * @return a JSONObject for the sample
      */
     public JSONObject getSample(final String sampleId) {
-        return sample.get(sampleId);
+        return sample().get(sampleId);
     }
 
     /**
@@ -3831,7 +4326,7 @@ public class BigMLClient {
      * @return a Map with error counts in sample
      */
     public Map<String, Long> getErrorCountsInSample(final String sampleId) {
-        return sample.getErrorCounts(getSample(sampleId));
+        return sample().getErrorCounts(getSample(sampleId));
     }
 
     /**
@@ -3842,7 +4337,7 @@ public class BigMLClient {
      * @return a Map with error counts in sample
      */
     public Map<String, Long> getErrorCountsInSample(final JSONObject sampleJSON) {
-        return sample.getErrorCounts(sampleJSON);
+        return sample().getErrorCounts(sampleJSON);
     }
 
     /**
@@ -3858,7 +4353,7 @@ public class BigMLClient {
      * @return a JSONObject for the sample
      */
     public JSONObject getSample(final JSONObject sampleJSON) {
-        return sample.get(sampleJSON);
+        return sample().get(sampleJSON);
     }
 
     /**
@@ -3901,7 +4396,7 @@ public class BigMLClient {
      */
     public JSONObject getSample(final String sampleId, final String queryString,
                                  final String apiUser, final String apiKey) {
-        return sample.get(sampleId, queryString, apiUser, apiKey);
+        return sample().get(sampleId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -3914,7 +4409,7 @@ public class BigMLClient {
      * @return true if sample is finished
      */
     public boolean sampleIsReady(final String sampleId) {
-        return sample.isReady(sampleId);
+        return sample().isReady(sampleId);
     }
 
     /**
@@ -3926,7 +4421,7 @@ public class BigMLClient {
      * @return true if sample is finished
      */
     public boolean sampleIsReady(final JSONObject sampleJSON) {
-        return sample.isReady(sampleJSON);
+        return sample().isReady(sampleJSON);
     }
 
     /**
@@ -3941,7 +4436,7 @@ public class BigMLClient {
      * @return a JSONObject containing all samples matching the query
      */
     public JSONObject listSamples(final String queryString) {
-        return sample.list(queryString);
+        return sample().list(queryString);
     }
 
     /**
@@ -3960,7 +4455,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated sample
      */
     public JSONObject updateSample(final String sampleId, final String changes) {
-        return sample.update(sampleId, changes);
+        return sample().update(sampleId, changes);
     }
 
     /**
@@ -3979,7 +4474,7 @@ public class BigMLClient {
      */
     public JSONObject updateSample(final JSONObject sampleJSON,
                                     final JSONObject changes) {
-        return sample.update(sampleJSON, changes);
+        return sample().update(sampleJSON, changes);
     }
 
     /**
@@ -3996,7 +4491,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted sample
      */
     public JSONObject deleteSample(final String sampleId) {
-        return sample.delete(sampleId);
+        return sample().delete(sampleId);
     }
 
     /**
@@ -4012,7 +4507,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted sample
      */
     public JSONObject deleteSample(final JSONObject sampleJSON) {
-        return sample.delete(sampleJSON);
+        return sample().delete(sampleJSON);
     }
 
     // ################################################################
@@ -4036,7 +4531,7 @@ public class BigMLClient {
      * @return a JSONObject for the new project
      */
     public JSONObject createProject(JSONObject args) {
-        return project.create(args);
+        return project().create(args);
     }
 
     /**
@@ -4053,7 +4548,7 @@ public class BigMLClient {
      * @return a JSONObject for the project
      */
     public JSONObject getProject(final String projectId) {
-        return project.get(projectId);
+        return project().get(projectId);
     }
 
     /**
@@ -4069,7 +4564,7 @@ public class BigMLClient {
      * @return a JSONObject for the project
      */
     public JSONObject getProject(final JSONObject projectJSON) {
-        return project.get(projectJSON);
+        return project().get(projectJSON);
     }
 
     /**
@@ -4112,7 +4607,7 @@ public class BigMLClient {
      */
     public JSONObject getProject(final String projectId, final String queryString,
                                 final String apiUser, final String apiKey) {
-        return project.get(projectId, queryString, apiUser, apiKey);
+        return project().get(projectId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -4125,7 +4620,7 @@ public class BigMLClient {
      * @return true if project is finished
      */
     public boolean projectIsReady(final String projectId) {
-        return project.isReady(projectId);
+        return project().isReady(projectId);
     }
 
     /**
@@ -4137,7 +4632,7 @@ public class BigMLClient {
      * @return true if project is finished
      */
     public boolean projectIsReady(final JSONObject projectJSON) {
-        return project.isReady(projectJSON);
+        return project().isReady(projectJSON);
     }
 
     /**
@@ -4152,7 +4647,7 @@ public class BigMLClient {
      * @return a JSONObject containing all projects matching the query
      */
     public JSONObject listProjects(final String queryString) {
-        return project.list(queryString);
+        return project().list(queryString);
     }
 
     /**
@@ -4171,7 +4666,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated project
      */
     public JSONObject updateProject(final String projectId, final String changes) {
-        return project.update(projectId, changes);
+        return project().update(projectId, changes);
     }
 
     /**
@@ -4190,7 +4685,7 @@ public class BigMLClient {
      */
     public JSONObject updateProject(final JSONObject projectJSON,
                                    final JSONObject changes) {
-        return project.update(projectJSON, changes);
+        return project().update(projectJSON, changes);
     }
 
     /**
@@ -4207,7 +4702,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted project
      */
     public JSONObject deleteProject(final String projectId) {
-        return project.delete(projectId);
+        return project().delete(projectId);
     }
 
     /**
@@ -4223,7 +4718,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted project
      */
     public JSONObject deleteProject(final JSONObject projectJSON) {
-        return project.delete(projectJSON);
+        return project().delete(projectJSON);
     }
 
 
@@ -4257,7 +4752,7 @@ public class BigMLClient {
     public JSONObject createCorrelation(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return correlation.create(datasetId, args, waitTime, retries);
+        return correlation().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -4279,7 +4774,7 @@ public class BigMLClient {
      * @return a JSONObject for the correlation
      */
     public JSONObject getCorrelation(final String correlationId) {
-        return correlation.get(correlationId);
+        return correlation().get(correlationId);
     }
 
     /**
@@ -4300,7 +4795,7 @@ public class BigMLClient {
      * @return a JSONObject for the correlation
      */
     public JSONObject getCorrelation(final JSONObject correlationJSON) {
-        return correlation.get(correlationJSON);
+        return correlation().get(correlationJSON);
     }
 
     /**
@@ -4313,7 +4808,7 @@ public class BigMLClient {
      * @return true if correlation is finished
      */
     public boolean correlationIsReady(final String correlationId) {
-        return correlation.isReady(correlationId);
+        return correlation().isReady(correlationId);
     }
 
     /**
@@ -4325,7 +4820,7 @@ public class BigMLClient {
      * @return true if sorrelation is finished
      */
     public boolean correlationIsReady(final JSONObject correlationJSON) {
-        return correlation.isReady(correlationJSON);
+        return correlation().isReady(correlationJSON);
     }
 
     /**
@@ -4340,7 +4835,7 @@ public class BigMLClient {
      * @return a JSONObject containing all correlations matching the query
      */
     public JSONObject listCorrelations(final String queryString) {
-        return correlation.list(queryString);
+        return correlation().list(queryString);
     }
 
     /**
@@ -4359,7 +4854,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated correlation
      */
     public JSONObject updateCorrelation(final String correlationId, final String changes) {
-        return correlation.update(correlationId, changes);
+        return correlation().update(correlationId, changes);
     }
 
     /**
@@ -4378,7 +4873,7 @@ public class BigMLClient {
      */
     public JSONObject updateCorrelation(final JSONObject correlationJSON,
             final JSONObject changes) {
-        return correlation.update(correlationJSON, changes);
+        return correlation().update(correlationJSON, changes);
     }
 
     /**
@@ -4395,7 +4890,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted correlation
      */
     public JSONObject deleteCorrelation(final String correlationId) {
-        return correlation.delete(correlationId);
+        return correlation().delete(correlationId);
     }
 
     /**
@@ -4411,7 +4906,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted correlation
      */
     public JSONObject deleteCorrelation(final JSONObject correlationJSON) {
-        return correlation.delete(correlationJSON);
+        return correlation().delete(correlationJSON);
     }
 
     // ################################################################
@@ -4444,7 +4939,7 @@ public class BigMLClient {
     public JSONObject createStatisticalTest(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return statisticalTest.create(datasetId, args, waitTime, retries);
+        return statisticalTest().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -4466,7 +4961,7 @@ public class BigMLClient {
      * @return a JSONObject for the statisticaltest
      */
     public JSONObject getStatisticalTest(final String statisticaltestId) {
-        return statisticalTest.get(statisticaltestId);
+        return statisticalTest().get(statisticaltestId);
     }
 
     /**
@@ -4487,7 +4982,7 @@ public class BigMLClient {
      * @return a JSONObject for the statisticaltest
      */
     public JSONObject getStatisticalTest(final JSONObject statisticaltestJSON) {
-        return statisticalTest.get(statisticaltestJSON);
+        return statisticalTest().get(statisticaltestJSON);
     }
 
     /**
@@ -4500,7 +4995,7 @@ public class BigMLClient {
      * @return true if statisticaltest is finished
      */
     public boolean statisticalTestIsReady(final String statisticaltestId) {
-        return statisticalTest.isReady(statisticaltestId);
+        return statisticalTest().isReady(statisticaltestId);
     }
 
     /**
@@ -4512,7 +5007,7 @@ public class BigMLClient {
      * @return true if statisticaltest is finished
      */
     public boolean statisticalTestIsReady(final JSONObject statisticaltestJSON) {
-        return statisticalTest.isReady(statisticaltestJSON);
+        return statisticalTest().isReady(statisticaltestJSON);
     }
 
     /**
@@ -4527,7 +5022,7 @@ public class BigMLClient {
      * @return a JSONObject containing all statistical tests matching the query
      */
     public JSONObject listStatisticalTests(final String queryString) {
-        return statisticalTest.list(queryString);
+        return statisticalTest().list(queryString);
     }
 
     /**
@@ -4546,7 +5041,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated statistical test
      */
     public JSONObject updateStatisticalTest(final String statisticaltestId, final String changes) {
-        return statisticalTest.update(statisticaltestId, changes);
+        return statisticalTest().update(statisticaltestId, changes);
     }
 
     /**
@@ -4565,7 +5060,7 @@ public class BigMLClient {
      */
     public JSONObject updateStatisticalTest(final JSONObject statisticaltestJSON,
             final JSONObject changes) {
-        return statisticalTest.update(statisticaltestJSON, changes);
+        return statisticalTest().update(statisticaltestJSON, changes);
     }
 
     /**
@@ -4582,7 +5077,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted statistical test
      */
     public JSONObject deleteStatisticalTest(final String statisticaltestId) {
-        return statisticalTest.delete(statisticaltestId);
+        return statisticalTest().delete(statisticaltestId);
     }
 
     /**
@@ -4598,7 +5093,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted statistical test
      */
     public JSONObject deleteStatisticalTest(final JSONObject statisticaltestJSON) {
-        return statisticalTest.delete(statisticaltestJSON);
+        return statisticalTest().delete(statisticaltestJSON);
     }
 
 
@@ -4633,7 +5128,7 @@ public class BigMLClient {
     public JSONObject createLogisticRegression(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return logisticRegression.create(datasetId, args, waitTime, retries);
+        return logisticRegression().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -4660,7 +5155,7 @@ public class BigMLClient {
     public JSONObject createLogisticRegression(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return logisticRegression.create(datasetsIds, args, waitTime, retries);
+        return logisticRegression().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -4682,7 +5177,7 @@ public class BigMLClient {
      * @return a JSONObject for the logistic regression
      */
     public JSONObject getLogisticRegression(final String logisticRegressionId) {
-        return logisticRegression.get(logisticRegressionId);
+        return logisticRegression().get(logisticRegressionId);
     }
 
     /**
@@ -4703,7 +5198,7 @@ public class BigMLClient {
      * @return a JSONObject for the logistic regression
      */
     public JSONObject getLogisticRegression(final JSONObject logisticRegressionJSON) {
-        return logisticRegression.get(logisticRegressionJSON);
+        return logisticRegression().get(logisticRegressionJSON);
     }
 
     /**
@@ -4716,7 +5211,7 @@ public class BigMLClient {
      * @return true if logistic regression is finished
      */
     public boolean logisticRegressionIsReady(final String logisticRegressionId) {
-        return logisticRegression.isReady(logisticRegressionId);
+        return logisticRegression().isReady(logisticRegressionId);
     }
 
     /**
@@ -4728,7 +5223,7 @@ public class BigMLClient {
      * @return true if logistic regression is finished
      */
     public boolean logisticRegressionIsReady(final JSONObject logisticRegressionJSON) {
-        return logisticRegression.isReady(logisticRegressionJSON);
+        return logisticRegression().isReady(logisticRegressionJSON);
     }
 
     /**
@@ -4743,7 +5238,7 @@ public class BigMLClient {
      * @return a JSONObject containing all logistic regressions matching the query
      */
     public JSONObject listLogisticRegressions(final String queryString) {
-        return logisticRegression.list(queryString);
+        return logisticRegression().list(queryString);
     }
 
     /**
@@ -4763,7 +5258,7 @@ public class BigMLClient {
      */
     public JSONObject updateLogisticRegression(final String logisticRegressionId,
             final String changes) {
-        return logisticRegression.update(logisticRegressionId, changes);
+        return logisticRegression().update(logisticRegressionId, changes);
     }
 
     /**
@@ -4782,7 +5277,7 @@ public class BigMLClient {
      */
     public JSONObject updateLogisticRegression(final JSONObject logisticRegressionJSON,
             final JSONObject changes) {
-        return logisticRegression.update(logisticRegressionJSON, changes);
+        return logisticRegression().update(logisticRegressionJSON, changes);
     }
 
     /**
@@ -4799,7 +5294,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted logistic regression
      */
     public JSONObject deleteLogisticRegression(final String logisticRegressionId) {
-        return logisticRegression.delete(logisticRegressionId);
+        return logisticRegression().delete(logisticRegressionId);
     }
 
     /**
@@ -4815,7 +5310,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted logistic regression
      */
     public JSONObject deleteLogisticRegression(final JSONObject logisticRegressionJSON) {
-        return logisticRegression.delete(logisticRegressionJSON);
+        return logisticRegression().delete(logisticRegressionJSON);
     }
 
 
@@ -4849,7 +5344,7 @@ public class BigMLClient {
     public JSONObject createLinearRegression(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return linearRegression.create(datasetId, args, waitTime, retries);
+        return linearRegression().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -4876,7 +5371,7 @@ public class BigMLClient {
     public JSONObject createLinearRegression(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return linearRegression.create(datasetsIds, args, waitTime, retries);
+        return linearRegression().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -4898,7 +5393,7 @@ public class BigMLClient {
      * @return a JSONObject for the linear regression
      */
     public JSONObject getLinearRegression(final String linearRegressionId) {
-        return linearRegression.get(linearRegressionId);
+        return linearRegression().get(linearRegressionId);
     }
 
     /**
@@ -4919,7 +5414,7 @@ public class BigMLClient {
      * @return a JSONObject for the linear regression
      */
     public JSONObject getLinearRegression(final JSONObject linearRegressionJSON) {
-        return linearRegression.get(linearRegressionJSON);
+        return linearRegression().get(linearRegressionJSON);
     }
 
     /**
@@ -4932,7 +5427,7 @@ public class BigMLClient {
      * @return true if linear regression is finished
      */
     public boolean linearRegressionIsReady(final String linearRegressionId) {
-        return linearRegression.isReady(linearRegressionId);
+        return linearRegression().isReady(linearRegressionId);
     }
 
     /**
@@ -4944,7 +5439,7 @@ public class BigMLClient {
      * @return true if linear regression is finished
      */
     public boolean linearRegressionIsReady(final JSONObject linearRegressionJSON) {
-        return linearRegression.isReady(linearRegressionJSON);
+        return linearRegression().isReady(linearRegressionJSON);
     }
 
     /**
@@ -4959,7 +5454,7 @@ public class BigMLClient {
      * @return a JSONObject containing all linear regressions matching the query
      */
     public JSONObject listLinearRegressions(final String queryString) {
-        return linearRegression.list(queryString);
+        return linearRegression().list(queryString);
     }
 
     /**
@@ -4979,7 +5474,7 @@ public class BigMLClient {
      */
     public JSONObject updateLinearRegression(final String linearRegressionId,
             final String changes) {
-        return linearRegression.update(linearRegressionId, changes);
+        return linearRegression().update(linearRegressionId, changes);
     }
 
     /**
@@ -4998,7 +5493,7 @@ public class BigMLClient {
      */
     public JSONObject updateLinearRegression(final JSONObject linearRegressionJSON,
             final JSONObject changes) {
-        return linearRegression.update(linearRegressionJSON, changes);
+        return linearRegression().update(linearRegressionJSON, changes);
     }
 
     /**
@@ -5015,7 +5510,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted linear regression
      */
     public JSONObject deleteLinearRegression(final String linearRegressionId) {
-        return linearRegression.delete(linearRegressionId);
+        return linearRegression().delete(linearRegressionId);
     }
 
     /**
@@ -5031,7 +5526,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted linear regression
      */
     public JSONObject deleteLinearRegression(final JSONObject linearRegressionJSON) {
-        return linearRegression.delete(linearRegressionJSON);
+        return linearRegression().delete(linearRegressionJSON);
     }
 
     // ################################################################
@@ -5065,7 +5560,7 @@ public class BigMLClient {
     public JSONObject createScript(final String source, JSONObject args,
         Integer waitTime, Integer retries) {
 
-        return script.create(source, args, waitTime, retries);
+        return script().create(source, args, waitTime, retries);
     }
 
     /**
@@ -5082,7 +5577,7 @@ public class BigMLClient {
      * @return a JSONObject for the script
      */
     public JSONObject getScript(final String scriptId) {
-        return script.get(scriptId);
+        return script().get(scriptId);
     }
 
     /**
@@ -5098,7 +5593,7 @@ public class BigMLClient {
      * @return a JSONObject for the script
      */
     public JSONObject getScript(final JSONObject scriptJSON) {
-        return script.get(scriptJSON);
+        return script().get(scriptJSON);
     }
 
     /**
@@ -5111,7 +5606,7 @@ public class BigMLClient {
      * @return true if script is finished
      */
     public boolean scriptIsReady(final String scriptId) {
-        return script.isReady(scriptId);
+        return script().isReady(scriptId);
     }
 
     /**
@@ -5123,7 +5618,7 @@ public class BigMLClient {
      * @return true if script is finished
      */
     public boolean scriptIsReady(final JSONObject scriptJSON) {
-        return script.isReady(scriptJSON);
+        return script().isReady(scriptJSON);
     }
 
     /**
@@ -5138,7 +5633,7 @@ public class BigMLClient {
      * @return a JSONObject containing all scripts matching the query
      */
     public JSONObject listScripts(final String queryString) {
-        return script.list(queryString);
+        return script().list(queryString);
     }
 
     /**
@@ -5157,7 +5652,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated script
      */
     public JSONObject updateScript(final String scriptId, final String changes) {
-        return script.update(scriptId, changes);
+        return script().update(scriptId, changes);
     }
 
     /**
@@ -5176,7 +5671,7 @@ public class BigMLClient {
      */
     public JSONObject updateScript(final JSONObject scriptJSON,
             final JSONObject changes) {
-        return script.update(scriptJSON, changes);
+        return script().update(scriptJSON, changes);
     }
 
     /**
@@ -5193,7 +5688,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted script
      */
     public JSONObject deleteScript(final String scriptId) {
-        return script.delete(scriptId);
+        return script().delete(scriptId);
     }
 
     /**
@@ -5209,7 +5704,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted script
      */
     public JSONObject deleteScript(final JSONObject scriptJSON) {
-        return script.delete(scriptJSON);
+        return script().delete(scriptJSON);
     }
 
 
@@ -5242,7 +5737,7 @@ public class BigMLClient {
     public JSONObject createExecution(final String script, JSONObject args,
         Integer waitTime, Integer retries) {
 
-        return execution.create(script, args, waitTime, retries);
+        return execution().create(script, args, waitTime, retries);
     }
 
     /**
@@ -5266,7 +5761,7 @@ public class BigMLClient {
      */
     public JSONObject createExecution(List scripts, JSONObject args,
                                       Integer waitTime, Integer retries) {
-        return execution.create(scripts, args, waitTime, retries);
+        return execution().create(scripts, args, waitTime, retries);
     }
 
     /**
@@ -5283,7 +5778,7 @@ public class BigMLClient {
      * @return a JSONObject for the execution
      */
     public JSONObject getExecution(final String executionId) {
-        return execution.get(executionId);
+        return execution().get(executionId);
     }
 
     /**
@@ -5299,7 +5794,7 @@ public class BigMLClient {
      * @return a JSONObject for the execution
      */
     public JSONObject getExecution(final JSONObject executionJSON) {
-        return execution.get(executionJSON);
+        return execution().get(executionJSON);
     }
 
     /**
@@ -5312,7 +5807,7 @@ public class BigMLClient {
      * @return true if execution is finished
      */
     public boolean executionIsReady(final String executionId) {
-        return execution.isReady(executionId);
+        return execution().isReady(executionId);
     }
 
     /**
@@ -5324,7 +5819,7 @@ public class BigMLClient {
      * @return true if execution is finished
      */
     public boolean executionIsReady(final JSONObject executionJSON) {
-        return execution.isReady(executionJSON);
+        return execution().isReady(executionJSON);
     }
 
     /**
@@ -5339,7 +5834,7 @@ public class BigMLClient {
      * @return a JSONObject containing all executions matching the query
      */
     public JSONObject listExecutions(final String queryString) {
-        return execution.list(queryString);
+        return execution().list(queryString);
     }
 
     /**
@@ -5358,7 +5853,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated execution
      */
     public JSONObject updateExecution(final String executionId, final String changes) {
-        return execution.update(executionId, changes);
+        return execution().update(executionId, changes);
     }
 
     /**
@@ -5377,7 +5872,7 @@ public class BigMLClient {
      */
     public JSONObject updateExecution(final JSONObject executionJSON,
             final JSONObject changes) {
-        return execution.update(executionJSON, changes);
+        return execution().update(executionJSON, changes);
     }
 
     /**
@@ -5394,7 +5889,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted execution
      */
     public JSONObject deleteExecution(final String executionId) {
-        return execution.delete(executionId);
+        return execution().delete(executionId);
     }
 
     /**
@@ -5410,7 +5905,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted execution
      */
     public JSONObject deleteExecution(final JSONObject executionJSON) {
-        return execution.delete(executionJSON);
+        return execution().delete(executionJSON);
     }
 
 
@@ -5445,7 +5940,7 @@ public class BigMLClient {
     public JSONObject createLibrary(final String source, JSONObject args,
         Integer waitTime, Integer retries) {
 
-        return library.create(source, args, waitTime, retries);
+        return library().create(source, args, waitTime, retries);
     }
 
     /**
@@ -5462,7 +5957,7 @@ public class BigMLClient {
      * @return a JSONObject for the library
      */
     public JSONObject getLibrary(final String libraryId) {
-        return library.get(libraryId);
+        return library().get(libraryId);
     }
 
     /**
@@ -5478,7 +5973,7 @@ public class BigMLClient {
      * @return a JSONObject for the library
      */
     public JSONObject getLibrary(final JSONObject executionJSON) {
-        return library.get(executionJSON);
+        return library().get(executionJSON);
     }
 
     /**
@@ -5491,7 +5986,7 @@ public class BigMLClient {
      * @return true if library is finished
      */
     public boolean libraryIsReady(final String libraryId) {
-        return library.isReady(libraryId);
+        return library().isReady(libraryId);
     }
 
     /**
@@ -5503,7 +5998,7 @@ public class BigMLClient {
      * @return true if library is finished
      */
     public boolean libraryIsReady(final JSONObject executionJSON) {
-        return library.isReady(executionJSON);
+        return library().isReady(executionJSON);
     }
 
     /**
@@ -5518,7 +6013,7 @@ public class BigMLClient {
      * @return a JSONObject containing all libraries matching the query
      */
     public JSONObject listLibraries(final String queryString) {
-        return library.list(queryString);
+        return library().list(queryString);
     }
 
     /**
@@ -5537,7 +6032,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated library
      */
     public JSONObject updateLibrary(final String libraryId, final String changes) {
-        return library.update(libraryId, changes);
+        return library().update(libraryId, changes);
     }
 
     /**
@@ -5556,7 +6051,7 @@ public class BigMLClient {
      */
     public JSONObject updateLibrary(final JSONObject executionJSON,
             final JSONObject changes) {
-        return library.update(executionJSON, changes);
+        return library().update(executionJSON, changes);
     }
 
     /**
@@ -5573,7 +6068,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted library
      */
     public JSONObject deleteLibrary(final String libraryId) {
-        return library.delete(libraryId);
+        return library().delete(libraryId);
     }
 
     /**
@@ -5588,7 +6083,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted library
      */
     public JSONObject deleteLibrary(final JSONObject libraryJSON) {
-        return library.delete(libraryJSON);
+        return library().delete(libraryJSON);
     }
 
 
@@ -5622,7 +6117,7 @@ public class BigMLClient {
     public JSONObject createAssociation(final String datasetId, JSONObject args,
             Integer waitTime, Integer retries) {
 
-        return association.create(datasetId, args, waitTime, retries);
+        return association().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -5644,7 +6139,7 @@ public class BigMLClient {
      * @return a JSONObject for the association
      */
     public JSONObject getAssociation(final String associationId) {
-        return association.get(associationId);
+        return association().get(associationId);
     }
 
     /**
@@ -5665,7 +6160,7 @@ public class BigMLClient {
      * @return a JSONObject for the association
      */
     public JSONObject getAssociation(final JSONObject associationJSON) {
-        return association.get(associationJSON);
+        return association().get(associationJSON);
     }
 
     /**
@@ -5678,7 +6173,7 @@ public class BigMLClient {
      * @return true if association is finished
      */
     public boolean associationIsReady(final String associationId) {
-        return association.isReady(associationId);
+        return association().isReady(associationId);
     }
 
     /**
@@ -5690,7 +6185,7 @@ public class BigMLClient {
      * @return true if association is finished
      */
     public boolean associationIsReady(final JSONObject associationJSON) {
-        return association.isReady(associationJSON);
+        return association().isReady(associationJSON);
     }
 
     /**
@@ -5705,7 +6200,7 @@ public class BigMLClient {
      * @return a JSONObject containing all associations matching the query
      */
     public JSONObject listAssociations(final String queryString) {
-        return association.list(queryString);
+        return association().list(queryString);
     }
 
     /**
@@ -5724,7 +6219,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated association
      */
     public JSONObject updateAssociation(final String associationId, final String changes) {
-        return association.update(associationId, changes);
+        return association().update(associationId, changes);
     }
 
     /**
@@ -5743,7 +6238,7 @@ public class BigMLClient {
      */
     public JSONObject updateAssociation(final JSONObject associationJSON,
             final JSONObject changes) {
-        return association.update(associationJSON, changes);
+        return association().update(associationJSON, changes);
     }
 
     /**
@@ -5760,7 +6255,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted association
      */
     public JSONObject deleteAssociation(final String associationId) {
-        return association.delete(associationId);
+        return association().delete(associationId);
     }
 
     /**
@@ -5776,7 +6271,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted association
      */
     public JSONObject deleteAssociation(final JSONObject associationJSON) {
-        return association.delete(associationJSON);
+        return association().delete(associationJSON);
     }
 
 
@@ -5814,7 +6309,7 @@ public class BigMLClient {
             JSONObject inputData, JSONObject args,
             Integer waitTime, Integer retries) {
 
-        return associationSet.create(associationId, inputData, args,
+        return associationSet().create(associationId, inputData, args,
                 waitTime, retries);
     }
 
@@ -5837,7 +6332,7 @@ public class BigMLClient {
      * @return a JSONObject for the association set
      */
     public JSONObject getAssociationSet(final String associationSetId) {
-        return associationSet.get(associationSetId);
+        return associationSet().get(associationSetId);
     }
 
     /**
@@ -5858,7 +6353,7 @@ public class BigMLClient {
      * @return a JSONObject for the association set
      */
     public JSONObject getAssociationSet(final JSONObject associationsetJSON) {
-        return associationSet.get(associationsetJSON);
+        return associationSet().get(associationsetJSON);
     }
 
     /**
@@ -5871,7 +6366,7 @@ public class BigMLClient {
      * @return true if association set is finished
      */
     public boolean associationSetIsReady(final String associationSetId) {
-        return associationSet.isReady(associationSetId);
+        return associationSet().isReady(associationSetId);
     }
 
     /**
@@ -5883,7 +6378,7 @@ public class BigMLClient {
      * @return true if association set is finished
      */
     public boolean associationSetIsReady(final JSONObject associationSetJSON) {
-        return associationSet.isReady(associationSetJSON);
+        return associationSet().isReady(associationSetJSON);
     }
 
     /**
@@ -5898,7 +6393,7 @@ public class BigMLClient {
      * @return a JSONObject containing all association sets matching the query
      */
     public JSONObject listAssociationSets(final String queryString) {
-        return associationSet.list(queryString);
+        return associationSet().list(queryString);
     }
 
     /**
@@ -5917,7 +6412,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated association set
      */
     public JSONObject updateAssociationSet(final String associationSetId, final String changes) {
-        return associationSet.update(associationSetId, changes);
+        return associationSet().update(associationSetId, changes);
     }
 
     /**
@@ -5936,7 +6431,7 @@ public class BigMLClient {
      */
     public JSONObject updateAssociationSet(final JSONObject associationSetJSON,
             final JSONObject changes) {
-        return associationSet.update(associationSetJSON, changes);
+        return associationSet().update(associationSetJSON, changes);
     }
 
     /**
@@ -5953,7 +6448,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted association set
      */
     public JSONObject deleteAssociationSet(final String associationSetId) {
-        return associationSet.delete(associationSetId);
+        return associationSet().delete(associationSetId);
     }
 
     /**
@@ -5969,7 +6464,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted association set
      */
     public JSONObject deleteAssociationSet(final JSONObject associationSetJSON) {
-        return associationSet.delete(associationSetJSON);
+        return associationSet().delete(associationSetJSON);
     }
 
     // ################################################################
@@ -6002,7 +6497,7 @@ public class BigMLClient {
     public JSONObject createTopicModel(final String datasetId, JSONObject args,
             Integer waitTime, Integer retries) {
 
-        return topicModel.create(datasetId, args, waitTime, retries);
+        return topicModel().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -6029,7 +6524,7 @@ public class BigMLClient {
     public JSONObject createTopicModel(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return topicModel.create(datasetsIds, args, waitTime, retries);
+        return topicModel().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -6051,7 +6546,7 @@ public class BigMLClient {
      * @return a JSONObject for the topic model
      */
     public JSONObject getTopicModel(final String topicModelId) {
-        return topicModel.get(topicModelId);
+        return topicModel().get(topicModelId);
     }
 
     /**
@@ -6072,7 +6567,7 @@ public class BigMLClient {
      * @return a JSONObject for the topic model
      */
     public JSONObject getTopicModel(final JSONObject topicModelJSON) {
-        return topicModel.get(topicModelJSON);
+        return topicModel().get(topicModelJSON);
     }
 
     /**
@@ -6085,7 +6580,7 @@ public class BigMLClient {
      * @return true if topic model is finished
      */
     public boolean topicModelIsReady(final String topicModelId) {
-        return topicModel.isReady(topicModelId);
+        return topicModel().isReady(topicModelId);
     }
 
     /**
@@ -6097,7 +6592,7 @@ public class BigMLClient {
      * @return true if topic model is finished
      */
     public boolean topicModelIsReady(final JSONObject topicModelJSON) {
-        return topicModel.isReady(topicModelJSON);
+        return topicModel().isReady(topicModelJSON);
     }
 
     /**
@@ -6112,7 +6607,7 @@ public class BigMLClient {
      * @return a JSONObject containing all topic models matching the query
      */
     public JSONObject listTopicModels(final String queryString) {
-        return topicModel.list(queryString);
+        return topicModel().list(queryString);
     }
 
     /**
@@ -6131,7 +6626,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated topic model
      */
     public JSONObject updateTopicModel(final String topicModelId, final String changes) {
-        return topicModel.update(topicModelId, changes);
+        return topicModel().update(topicModelId, changes);
     }
 
     /**
@@ -6150,7 +6645,7 @@ public class BigMLClient {
      */
     public JSONObject updateTopicModel(final JSONObject topicModelJSON,
             final JSONObject changes) {
-        return topicModel.update(topicModelJSON, changes);
+        return topicModel().update(topicModelJSON, changes);
     }
 
     /**
@@ -6167,7 +6662,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted topic model
      */
     public JSONObject deleteTopicModel(final String topicModelId) {
-        return topicModel.delete(topicModelId);
+        return topicModel().delete(topicModelId);
     }
 
     /**
@@ -6183,7 +6678,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted topic model
      */
     public JSONObject deleteTopicModel(final JSONObject topicModelJSON) {
-        return topicModel.delete(topicModelJSON);
+        return topicModel().delete(topicModelJSON);
     }
 
     // ################################################################
@@ -6220,7 +6715,7 @@ public class BigMLClient {
     public JSONObject createTopicDistribution(final String topicModelId,
             JSONObject inputData, JSONObject args,
             Integer waitTime, Integer retries) {
-        return topicDistribution.create(topicModelId, inputData, args,
+        return topicDistribution().create(topicModelId, inputData, args,
                 waitTime, retries);
     }
 
@@ -6237,7 +6732,7 @@ public class BigMLClient {
      * @return a JSONObject for the topic distribution
      */
     public JSONObject getTopicDistribution(final String topicDistributionId) {
-        return topicDistribution.get(topicDistributionId);
+        return topicDistribution().get(topicDistributionId);
     }
 
     /**
@@ -6252,7 +6747,7 @@ public class BigMLClient {
      * @return a JSONObject for the topic distribution
      */
     public JSONObject getTopicDistribution(final JSONObject topicDistributionJSON) {
-        return topicDistribution.get(topicDistributionJSON);
+        return topicDistribution().get(topicDistributionJSON);
     }
 
     /**
@@ -6265,7 +6760,7 @@ public class BigMLClient {
      * @return true if topic distribution is finished
      */
     public boolean topicDistributionIsReady(final String topicDistributionId) {
-        return topicDistribution.isReady(topicDistributionId);
+        return topicDistribution().isReady(topicDistributionId);
     }
 
     /**
@@ -6277,7 +6772,7 @@ public class BigMLClient {
      * @return true if topic distribution is finished
      */
     public boolean topicDistributionIsReady(final JSONObject topicDistributionJSON) {
-        return topicDistribution.isReady(topicDistributionJSON);
+        return topicDistribution().isReady(topicDistributionJSON);
     }
 
     /**
@@ -6293,7 +6788,7 @@ public class BigMLClient {
      * @return a JSONObject containing all topic distributions matching the query
      */
     public JSONObject listTopicDistributions(final String queryString) {
-        return topicDistribution.list(queryString);
+        return topicDistribution().list(queryString);
     }
 
     /**
@@ -6312,7 +6807,7 @@ public class BigMLClient {
      */
     public JSONObject updateTopicDistribution(final String topicDistributionId,
             final String changes) {
-        return topicDistribution.update(topicDistributionId, changes);
+        return topicDistribution().update(topicDistributionId, changes);
     }
 
     /**
@@ -6330,7 +6825,7 @@ public class BigMLClient {
      */
     public JSONObject updateTopicDistribution(final JSONObject topicDistributionJSON,
             final JSONObject changes) {
-        return topicDistribution.update(topicDistributionJSON, changes);
+        return topicDistribution().update(topicDistributionJSON, changes);
     }
 
     /**
@@ -6346,7 +6841,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted topic distribution
      */
     public JSONObject deleteTopicDistribution(final String topicDistributionId) {
-        return topicDistribution.delete(topicDistributionId);
+        return topicDistribution().delete(topicDistributionId);
     }
 
     /**
@@ -6361,7 +6856,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted topic distribution
      */
     public JSONObject deleteTopicDistribution(final JSONObject topicDistributionJSON) {
-        return topicDistribution.delete(topicDistributionJSON);
+        return topicDistribution().delete(topicDistributionJSON);
     }
 
     // ################################################################
@@ -6399,7 +6894,7 @@ public class BigMLClient {
     public JSONObject createBatchTopicDistribution(final String topicModelId,
             final String datasetId, JSONObject args, Integer waitTime,
             Integer retries) {
-        return batchTopicDistribution.create(topicModelId, datasetId, args,
+        return batchTopicDistribution().create(topicModelId, datasetId, args,
                 waitTime, retries);
     }
 
@@ -6423,7 +6918,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch topic distribution
      */
     public JSONObject getBatchTopicDistribution(final String batchTopicDistributionId) {
-        return batchTopicDistribution.get(batchTopicDistributionId);
+        return batchTopicDistribution().get(batchTopicDistributionId);
     }
 
     /**
@@ -6445,7 +6940,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch topic distribution
      */
     public JSONObject getBatchTopicDistribution(final JSONObject batchTopicDistributionJSON) {
-        return batchTopicDistribution.get(batchTopicDistributionJSON);
+        return batchTopicDistribution().get(batchTopicDistributionJSON);
     }
 
     /**
@@ -6465,7 +6960,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchTopicDistribution(final String batchTopicDistributionId,
             final String filename) {
-        return batchTopicDistribution.downloadBatchTopicDistribution(batchTopicDistributionId,
+        return batchTopicDistribution().downloadBatchTopicDistribution(batchTopicDistributionId,
                 filename);
     }
 
@@ -6485,7 +6980,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchTopicDistribution(
             final JSONObject batchTopicDistributionJSON, final String filename) {
-        return batchTopicDistribution.downloadBatchTopicDistribution(batchTopicDistributionJSON,
+        return batchTopicDistribution().downloadBatchTopicDistribution(batchTopicDistributionJSON,
                 filename);
     }
 
@@ -6499,7 +6994,7 @@ public class BigMLClient {
      * @return true if batch topic distribution is finished
      */
     public boolean batchTopicDistributionIsReady(final String batchTopicDistributionId) {
-        return batchTopicDistribution.isReady(batchTopicDistributionId);
+        return batchTopicDistribution().isReady(batchTopicDistributionId);
     }
 
     /**
@@ -6511,7 +7006,7 @@ public class BigMLClient {
      * @return true if batch topic distribution is finished
      */
     public boolean batchTopicDistributionIsReady(final JSONObject batchTopicDistributionJSON) {
-        return batchTopicDistribution.isReady(batchTopicDistributionJSON);
+        return batchTopicDistribution().isReady(batchTopicDistributionJSON);
     }
 
     /**
@@ -6526,7 +7021,7 @@ public class BigMLClient {
      * @return a JSONObject containing all batch topic distributions matching the query
      */
     public JSONObject listBatchTopicDistributions(final String queryString) {
-        return batchTopicDistribution.list(queryString);
+        return batchTopicDistribution().list(queryString);
     }
 
     /**
@@ -6545,7 +7040,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchTopicDistribution(final String batchTopicDistributionId,
             final String changes) {
-        return batchTopicDistribution.update(batchTopicDistributionId, changes);
+        return batchTopicDistribution().update(batchTopicDistributionId, changes);
     }
 
     /**
@@ -6563,7 +7058,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchTopicDistribution(
             final JSONObject batchTopicDistributionJSON, final JSONObject changes) {
-        return batchTopicDistribution.update(batchTopicDistributionJSON, changes);
+        return batchTopicDistribution().update(batchTopicDistributionJSON, changes);
     }
 
     /**
@@ -6579,7 +7074,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch topic distribution
      */
     public JSONObject deleteBatchTopicDistribution(final String batchTopicDistributionId) {
-        return batchTopicDistribution.delete(batchTopicDistributionId);
+        return batchTopicDistribution().delete(batchTopicDistributionId);
     }
 
     /**
@@ -6594,7 +7089,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch topic distribution
      */
     public JSONObject deleteBatchTopicDistribution(final JSONObject batchTopicDistributionJSON) {
-        return batchTopicDistribution.delete(batchTopicDistributionJSON);
+        return batchTopicDistribution().delete(batchTopicDistributionJSON);
     }
 
     // ################################################################
@@ -6618,7 +7113,7 @@ public class BigMLClient {
      * @return a JSONObject for the new configuration
      */
     public JSONObject createConfiguration(JSONObject args) {
-        return configuration.create(args);
+        return configuration().create(args);
     }
 
     /**
@@ -6635,7 +7130,7 @@ public class BigMLClient {
      * @return a JSONObject for the configuration
      */
     public JSONObject getConfiguration(final String configurationId) {
-        return configuration.get(configurationId);
+        return configuration().get(configurationId);
     }
 
     /**
@@ -6651,7 +7146,7 @@ public class BigMLClient {
      * @return a JSONObject for the configuration
      */
     public JSONObject getConfiguration(final JSONObject configurationJSON) {
-        return configuration.get(configurationJSON);
+        return configuration().get(configurationJSON);
     }
 
     /**
@@ -6694,7 +7189,7 @@ public class BigMLClient {
      */
     public JSONObject getConfiguration(final String configurationId, final String queryString,
                                 final String apiUser, final String apiKey) {
-        return configuration.get(configurationId, queryString, apiUser, apiKey);
+        return configuration().get(configurationId, queryString, apiUser, apiKey);
     }
 
     /**
@@ -6707,7 +7202,7 @@ public class BigMLClient {
      * @return true if configuration is finished
      */
     public boolean configurationIsReady(final String configurationId) {
-        return configuration.isReady(configurationId);
+        return configuration().isReady(configurationId);
     }
 
     /**
@@ -6719,7 +7214,7 @@ public class BigMLClient {
      * @return true if configuration is finished
      */
     public boolean configurationIsReady(final JSONObject configurationJSON) {
-        return configuration.isReady(configurationJSON);
+        return configuration().isReady(configurationJSON);
     }
 
     /**
@@ -6734,7 +7229,7 @@ public class BigMLClient {
      * @return a JSONObject containing all configurations matching the query
      */
     public JSONObject listConfigurations(final String queryString) {
-        return configuration.list(queryString);
+        return configuration().list(queryString);
     }
 
     /**
@@ -6753,7 +7248,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated configuration
      */
     public JSONObject updateConfiguration(final String configurationId, final String changes) {
-        return configuration.update(configurationId, changes);
+        return configuration().update(configurationId, changes);
     }
 
     /**
@@ -6772,7 +7267,7 @@ public class BigMLClient {
      */
     public JSONObject updateConfiguration(final JSONObject configurationJSON,
                                    final JSONObject changes) {
-        return configuration.update(configurationJSON, changes);
+        return configuration().update(configurationJSON, changes);
     }
 
     /**
@@ -6789,7 +7284,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted configuration
      */
     public JSONObject deleteConfiguration(final String configurationId) {
-        return configuration.delete(configurationId);
+        return configuration().delete(configurationId);
     }
 
     /**
@@ -6805,7 +7300,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted configuration
      */
     public JSONObject deleteConfiguration(final JSONObject configurationJSON) {
-        return configuration.delete(configurationJSON);
+        return configuration().delete(configurationJSON);
     }
 
 
@@ -6839,7 +7334,7 @@ public class BigMLClient {
     public JSONObject createTimeSeries(final String datasetId, JSONObject args,
             Integer waitTime, Integer retries) {
 
-        return timeSeries.create(datasetId, args, waitTime, retries);
+        return timeSeries().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -6866,7 +7361,7 @@ public class BigMLClient {
     public JSONObject createTimeSeries(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return timeSeries.create(datasetsIds, args, waitTime, retries);
+        return timeSeries().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -6888,7 +7383,7 @@ public class BigMLClient {
      * @return a JSONObject for the timeseries
      */
     public JSONObject getTimeSeries(final String timeSeriesId) {
-        return timeSeries.get(timeSeriesId);
+        return timeSeries().get(timeSeriesId);
     }
 
     /**
@@ -6909,7 +7404,7 @@ public class BigMLClient {
      * @return a JSONObject for the timeseries
      */
     public JSONObject getTimeSeries(final JSONObject timeSeriesJSON) {
-        return timeSeries.get(timeSeriesJSON);
+        return timeSeries().get(timeSeriesJSON);
     }
 
     /**
@@ -6922,7 +7417,7 @@ public class BigMLClient {
      * @return true if timeseries is finished
      */
     public boolean timeSeriesIsReady(final String timeSeriesId) {
-        return timeSeries.isReady(timeSeriesId);
+        return timeSeries().isReady(timeSeriesId);
     }
 
     /**
@@ -6934,7 +7429,7 @@ public class BigMLClient {
      * @return true if timeseries is finished
      */
     public boolean timeSeriesIsReady(final JSONObject timeSeriesJSON) {
-        return timeSeries.isReady(timeSeriesJSON);
+        return timeSeries().isReady(timeSeriesJSON);
     }
 
     /**
@@ -6949,7 +7444,7 @@ public class BigMLClient {
      * @return a JSONObject containing all timeseries matching the query
      */
     public JSONObject listTimeSeries(final String queryString) {
-        return timeSeries.list(queryString);
+        return timeSeries().list(queryString);
     }
 
     /**
@@ -6968,7 +7463,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated timeseries
      */
     public JSONObject updateTimeSeries(final String timeSeriesId, final String changes) {
-        return timeSeries.update(timeSeriesId, changes);
+        return timeSeries().update(timeSeriesId, changes);
     }
 
     /**
@@ -6987,7 +7482,7 @@ public class BigMLClient {
      */
     public JSONObject updateTimeSeries(final JSONObject timeSeriesJSON,
             final JSONObject changes) {
-        return timeSeries.update(timeSeriesJSON, changes);
+        return timeSeries().update(timeSeriesJSON, changes);
     }
 
     /**
@@ -7004,7 +7499,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted timeseries
      */
     public JSONObject deleteTimeSeries(final String timeSeriesId) {
-        return timeSeries.delete(timeSeriesId);
+        return timeSeries().delete(timeSeriesId);
     }
 
     /**
@@ -7020,7 +7515,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted timeseries
      */
     public JSONObject deleteTimeSeries(final JSONObject timeSeriesJSON) {
-        return timeSeries.delete(timeSeriesJSON);
+        return timeSeries().delete(timeSeriesJSON);
     }
 
 
@@ -7058,7 +7553,7 @@ public class BigMLClient {
     public JSONObject createForecast(final String timeSeriesId,
             JSONObject inputData, JSONObject args,
             Integer waitTime, Integer retries) {
-        return forecast.create(timeSeriesId, inputData, args,
+        return forecast().create(timeSeriesId, inputData, args,
                 waitTime, retries);
     }
 
@@ -7075,7 +7570,7 @@ public class BigMLClient {
      * @return a JSONObject for the forecast
      */
     public JSONObject getForecast(final String forecastId) {
-        return forecast.get(forecastId);
+        return forecast().get(forecastId);
     }
 
     /**
@@ -7090,7 +7585,7 @@ public class BigMLClient {
      * @return a JSONObject for the forecast
      */
     public JSONObject getForecast(final JSONObject forecastJSON) {
-        return forecast.get(forecastJSON);
+        return forecast().get(forecastJSON);
     }
 
     /**
@@ -7103,7 +7598,7 @@ public class BigMLClient {
      * @return true if forecast is finished
      */
     public boolean forecastIsReady(final String forecastId) {
-        return forecast.isReady(forecastId);
+        return forecast().isReady(forecastId);
     }
 
     /**
@@ -7114,7 +7609,7 @@ public class BigMLClient {
      * @return true if forecast is finished
      */
     public boolean forecastIsReady(final JSONObject forecastJSON) {
-        return forecast.isReady(forecastJSON);
+        return forecast().isReady(forecastJSON);
     }
 
     /**
@@ -7130,7 +7625,7 @@ public class BigMLClient {
      * @return a JSONObject containing all forecasts matching the query
      */
     public JSONObject listForecasts(final String queryString) {
-        return forecast.list(queryString);
+        return forecast().list(queryString);
     }
 
     /**
@@ -7149,7 +7644,7 @@ public class BigMLClient {
      */
     public JSONObject updateForecast(final String forecastId,
             final String changes) {
-        return forecast.update(forecastId, changes);
+        return forecast().update(forecastId, changes);
     }
 
     /**
@@ -7167,7 +7662,7 @@ public class BigMLClient {
      */
     public JSONObject updateForecast(final JSONObject forecastJSON,
             final JSONObject changes) {
-        return forecast.update(forecastJSON, changes);
+        return forecast().update(forecastJSON, changes);
     }
 
     /**
@@ -7183,7 +7678,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted forecast
      */
     public JSONObject deleteForecast(final String forecastId) {
-        return forecast.delete(forecastId);
+        return forecast().delete(forecastId);
     }
 
     /**
@@ -7198,7 +7693,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted forecast
      */
     public JSONObject deleteForecast(final JSONObject forecastJSON) {
-        return forecast.delete(forecastJSON);
+        return forecast().delete(forecastJSON);
     }
 
 
@@ -7232,7 +7727,7 @@ public class BigMLClient {
     public JSONObject createDeepnet(final String datasetId, JSONObject args,
             Integer waitTime, Integer retries) {
 
-        return deepnet.create(datasetId, args, waitTime, retries);
+        return deepnet().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -7254,7 +7749,7 @@ public class BigMLClient {
      * @return a JSONObject for the deepnet
      */
     public JSONObject getDeepnet(final String deepnetId) {
-        return deepnet.get(deepnetId);
+        return deepnet().get(deepnetId);
     }
 
     /**
@@ -7275,7 +7770,7 @@ public class BigMLClient {
      * @return a JSONObject for the deepnet
      */
     public JSONObject getDeepnet(final JSONObject deepnetJSON) {
-        return deepnet.get(deepnetJSON);
+        return deepnet().get(deepnetJSON);
     }
 
     /**
@@ -7288,7 +7783,7 @@ public class BigMLClient {
      * @return true if deepnet is finished
      */
     public boolean deepnetIsReady(final String deepnetId) {
-        return deepnet.isReady(deepnetId);
+        return deepnet().isReady(deepnetId);
     }
 
     /**
@@ -7300,7 +7795,7 @@ public class BigMLClient {
      * @return true if deepnet is finished
      */
     public boolean deepnetIsReady(final JSONObject deepnetJSON) {
-        return deepnet.isReady(deepnetJSON);
+        return deepnet().isReady(deepnetJSON);
     }
 
     /**
@@ -7315,7 +7810,7 @@ public class BigMLClient {
      * @return a JSONObject containing all deepnets matching the query
      */
     public JSONObject listDeepnets(final String queryString) {
-        return deepnet.list(queryString);
+        return deepnet().list(queryString);
     }
 
     /**
@@ -7334,7 +7829,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated deepnet
      */
     public JSONObject updateDeepnet(final String deepnetId, final String changes) {
-        return deepnet.update(deepnetId, changes);
+        return deepnet().update(deepnetId, changes);
     }
 
     /**
@@ -7353,7 +7848,7 @@ public class BigMLClient {
      */
     public JSONObject updateDeepnet(final JSONObject deepnetJSON,
             final JSONObject changes) {
-        return deepnet.update(deepnetJSON, changes);
+        return deepnet().update(deepnetJSON, changes);
     }
 
     /**
@@ -7370,7 +7865,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted deepnet
      */
     public JSONObject deleteDeepnet(final String deepnetId) {
-        return deepnet.delete(deepnetId);
+        return deepnet().delete(deepnetId);
     }
 
     /**
@@ -7386,7 +7881,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted deepnet
      */
     public JSONObject deleteDeepnet(final JSONObject deepnetJSON) {
-        return deepnet.delete(deepnetJSON);
+        return deepnet().delete(deepnetJSON);
     }
 
 
@@ -7420,7 +7915,7 @@ public class BigMLClient {
     public JSONObject createOptiML(final String datasetId, JSONObject args,
             Integer waitTime, Integer retries) {
 
-        return optiml.create(datasetId, args, waitTime, retries);
+        return optiml().create(datasetId, args, waitTime, retries);
     }
 
 
@@ -7443,7 +7938,7 @@ public class BigMLClient {
      * @return a JSONObject for the optiML
      */
     public JSONObject getOptiML(final String optimlId) {
-        return optiml.get(optimlId);
+        return optiml().get(optimlId);
     }
 
     /**
@@ -7464,7 +7959,7 @@ public class BigMLClient {
      * @return a JSONObject for the optiML
      */
     public JSONObject getOptiML(final JSONObject optimlJSON) {
-        return optiml.get(optimlJSON);
+        return optiml().get(optimlJSON);
     }
 
 
@@ -7478,7 +7973,7 @@ public class BigMLClient {
      * @return true if optiML is finished
      */
     public boolean optiMLIsReady(final String optimlId) {
-        return optiml.isReady(optimlId);
+        return optiml().isReady(optimlId);
     }
 
     /**
@@ -7490,7 +7985,7 @@ public class BigMLClient {
      * @return true if optiML is finished
      */
     public boolean optimlIsReady(final JSONObject optimlJSON) {
-        return optiml.isReady(optimlJSON);
+        return optiml().isReady(optimlJSON);
     }
 
     /**
@@ -7505,7 +8000,7 @@ public class BigMLClient {
      * @return a JSONObject containing all optiMLs matching the query
      */
     public JSONObject listOptiMLs(final String queryString) {
-        return optiml.list(queryString);
+        return optiml().list(queryString);
     }
 
     /**
@@ -7525,7 +8020,7 @@ public class BigMLClient {
      */
     public JSONObject updateOptiML(final String optimlId,
     			final String changes) {
-        return optiml.update(optimlId, changes);
+        return optiml().update(optimlId, changes);
     }
 
     /**
@@ -7544,7 +8039,7 @@ public class BigMLClient {
      */
     public JSONObject updateOptiML(final JSONObject optimlJSON,
             final JSONObject changes) {
-        return optiml.update(optimlJSON, changes);
+        return optiml().update(optimlJSON, changes);
     }
 
     /**
@@ -7561,7 +8056,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted optiML
      */
     public JSONObject deleteOptiML(final String optimlId) {
-        return optiml.delete(optimlId);
+        return optiml().delete(optimlId);
     }
 
     /**
@@ -7577,7 +8072,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted optiML
      */
     public JSONObject deleteOptiML(final JSONObject optimlJSON) {
-        return optiml.delete(optimlJSON);
+        return optiml().delete(optimlJSON);
     }
 
 
@@ -7613,7 +8108,7 @@ public class BigMLClient {
     public JSONObject createFusion(final List<String> modelsIds,
         JSONObject args, Integer waitTime, Integer retries) {
 
-        return fusion.create(modelsIds, args, waitTime, retries);
+        return fusion().create(modelsIds, args, waitTime, retries);
     }
 
     /**
@@ -7647,7 +8142,7 @@ public class BigMLClient {
     public JSONObject createFusionWithModels(final List<JSONObject> models,
         JSONObject args, Integer waitTime, Integer retries) {
 
-        return fusion.createWithModels(models, args, waitTime, retries);
+        return fusion().createWithModels(models, args, waitTime, retries);
     }
 
     /**
@@ -7664,7 +8159,7 @@ public class BigMLClient {
      * @return a JSONObject for the fusion
      */
     public JSONObject getFusion(final String fusionId) {
-        return fusion.get(fusionId);
+        return fusion().get(fusionId);
     }
 
     /**
@@ -7680,7 +8175,7 @@ public class BigMLClient {
      * @return a JSONObject for the fusion
      */
     public JSONObject getFusion(final JSONObject fusionJSON) {
-        return fusion.get(fusionJSON);
+        return fusion().get(fusionJSON);
     }
 
     /**
@@ -7693,7 +8188,7 @@ public class BigMLClient {
      * @return true if fusion is finished
      */
     public boolean fusionIsReady(final String fusionId) {
-        return fusion.isReady(fusionId);
+        return fusion().isReady(fusionId);
     }
 
     /**
@@ -7705,7 +8200,7 @@ public class BigMLClient {
      * @return true if fusion is finished
      */
     public boolean fusionIsReady(final JSONObject fusionJSON) {
-        return fusion.isReady(fusionJSON);
+        return fusion().isReady(fusionJSON);
     }
 
     /**
@@ -7720,7 +8215,7 @@ public class BigMLClient {
      * @return a JSONObject containing all fusions matching the query
      */
     public JSONObject listFusions(final String queryString) {
-        return fusion.list(queryString);
+        return fusion().list(queryString);
     }
 
     /**
@@ -7739,7 +8234,7 @@ public class BigMLClient {
      * @return a JSONObject for the updated fusion
      */
     public JSONObject updateFusion(final String fusionId, final String changes) {
-        return fusion.update(fusionId, changes);
+        return fusion().update(fusionId, changes);
     }
 
     /**
@@ -7758,7 +8253,7 @@ public class BigMLClient {
      */
     public JSONObject updateFusion(final JSONObject fusionJSON,
             final JSONObject changes) {
-        return fusion.update(fusionJSON, changes);
+        return fusion().update(fusionJSON, changes);
     }
 
     /**
@@ -7775,7 +8270,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted fusion
      */
     public JSONObject deleteFusion(final String fusionId) {
-        return fusion.delete(fusionId);
+        return fusion().delete(fusionId);
     }
 
     /**
@@ -7791,7 +8286,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted fusion
      */
     public JSONObject deleteFusion(final JSONObject fusionJSON) {
-        return fusion.delete(fusionJSON);
+        return fusion().delete(fusionJSON);
     }
 
 
@@ -7825,7 +8320,7 @@ public class BigMLClient {
     public JSONObject createPca(final String datasetId,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return pca.create(datasetId, args, waitTime, retries);
+        return pca().create(datasetId, args, waitTime, retries);
     }
 
     /**
@@ -7852,7 +8347,7 @@ public class BigMLClient {
     public JSONObject createPca(final List datasetsIds,
     		JSONObject args, Integer waitTime, Integer retries) {
 
-        return pca.create(datasetsIds, args, waitTime, retries);
+        return pca().create(datasetsIds, args, waitTime, retries);
     }
 
     /**
@@ -7874,7 +8369,7 @@ public class BigMLClient {
      * @return a JSONObject for the pca
      */
     public JSONObject getPca(final String pcaId) {
-        return pca.get(pcaId);
+        return pca().get(pcaId);
     }
 
     /**
@@ -7895,7 +8390,7 @@ public class BigMLClient {
      * @return a JSONObject for the pca
      */
     public JSONObject getPca(final JSONObject pcaJSON) {
-        return pca.get(pcaJSON);
+        return pca().get(pcaJSON);
     }
 
     /**
@@ -7908,7 +8403,7 @@ public class BigMLClient {
      * @return true if pca is finished
      */
     public boolean pcaIsReady(final String pcaId) {
-        return pca.isReady(pcaId);
+        return pca().isReady(pcaId);
     }
 
     /**
@@ -7920,7 +8415,7 @@ public class BigMLClient {
      * @return true if pca is finished
      */
     public boolean pcaIsReady(final JSONObject pcaJSON) {
-        return pca.isReady(pcaJSON);
+        return pca().isReady(pcaJSON);
     }
 
     /**
@@ -7935,7 +8430,7 @@ public class BigMLClient {
      * @return a JSONObject containing all pcas matching the query
      */
     public JSONObject listPcas(final String queryString) {
-        return pca.list(queryString);
+        return pca().list(queryString);
     }
 
     /**
@@ -7955,7 +8450,7 @@ public class BigMLClient {
      */
     public JSONObject updatePca(final String pcaId,
             final String changes) {
-        return pca.update(pcaId, changes);
+        return pca().update(pcaId, changes);
     }
 
     /**
@@ -7973,7 +8468,7 @@ public class BigMLClient {
      */
     public JSONObject updatePca(final JSONObject pcaJSON,
             final JSONObject changes) {
-        return pca.update(pcaJSON, changes);
+        return pca().update(pcaJSON, changes);
     }
 
     /**
@@ -7990,7 +8485,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted pca
      */
     public JSONObject deletePca(final String pcaId) {
-        return pca.delete(pcaId);
+        return pca().delete(pcaId);
     }
 
     /**
@@ -8006,7 +8501,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted pca
      */
     public JSONObject deletePca(final JSONObject pcaJSON) {
-        return pca.delete(pcaJSON);
+        return pca().delete(pcaJSON);
     }
 
 
@@ -8045,7 +8540,7 @@ public class BigMLClient {
     public JSONObject createProjection(final String pcaId,
             JSONObject inputData, JSONObject args, Integer waitTime,
             Integer retries) {
-        return projection.create(pcaId, inputData, args,
+        return projection().create(pcaId, inputData, args,
         	waitTime, retries);
     }
 
@@ -8093,7 +8588,7 @@ public class BigMLClient {
      * @return a JSONObject for the projection
      */
     public JSONObject getProjection(final String projectionId) {
-        return projection.get(projectionId);
+        return projection().get(projectionId);
     }
 
     /**
@@ -8108,7 +8603,7 @@ public class BigMLClient {
      * @return a JSONObject for the projection
      */
     public JSONObject getProjection(final JSONObject projectionJSON) {
-        return projection.get(projectionJSON);
+        return projection().get(projectionJSON);
     }
 
     /**
@@ -8121,7 +8616,7 @@ public class BigMLClient {
      * @return true if projection is finished
      */
     public boolean projectionIsReady(final String projectionId) {
-        return projection.isReady(projectionId);
+        return projection().isReady(projectionId);
     }
 
     /**
@@ -8133,7 +8628,7 @@ public class BigMLClient {
      * @return true if projection is finished
      */
     public boolean projectionIsReady(final JSONObject projectionJSON) {
-        return projection.isReady(projectionJSON);
+        return projection().isReady(projectionJSON);
     }
 
     /**
@@ -8149,7 +8644,7 @@ public class BigMLClient {
      * @return a JSONObject containing all projections matching the query
      */
     public JSONObject listProjections(final String queryString) {
-        return projection.list(queryString);
+        return projection().list(queryString);
     }
 
     /**
@@ -8168,7 +8663,7 @@ public class BigMLClient {
      */
     public JSONObject updateProjection(final String projectionId,
             final String changes) {
-        return projection.update(projectionId, changes);
+        return projection().update(projectionId, changes);
     }
 
     /**
@@ -8186,7 +8681,7 @@ public class BigMLClient {
      */
     public JSONObject updateProjection(final JSONObject projectionJSON,
             final JSONObject changes) {
-        return projection.update(projectionJSON, changes);
+        return projection().update(projectionJSON, changes);
     }
 
     /**
@@ -8202,7 +8697,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted projection
      */
     public JSONObject deleteProjection(final String projectionId) {
-        return projection.delete(projectionId);
+        return projection().delete(projectionId);
     }
 
     /**
@@ -8217,7 +8712,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted projection
      */
     public JSONObject deleteProjection(final JSONObject projectionJSON) {
-        return projection.delete(projectionJSON);
+        return projection().delete(projectionJSON);
     }
 
 
@@ -8256,7 +8751,7 @@ public class BigMLClient {
     public JSONObject createBatchProjection(final String pcaId,
             final String datasetId, JSONObject args, Integer waitTime,
             Integer retries) {
-        return batchProjection.create(pcaId, datasetId, args,
+        return batchProjection().create(pcaId, datasetId, args,
                 waitTime, retries);
     }
 
@@ -8280,7 +8775,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch projection
      */
     public JSONObject getBatchProjection(final String batchProjectionId) {
-        return batchProjection.get(batchProjectionId);
+        return batchProjection().get(batchProjectionId);
     }
 
     /**
@@ -8302,7 +8797,7 @@ public class BigMLClient {
      * @return a JSONObject for the batch projection
      */
     public JSONObject getBatchProjection(final JSONObject batchProjectionJSON) {
-        return batchProjection.get(batchProjectionJSON);
+        return batchProjection().get(batchProjectionJSON);
     }
 
     /**
@@ -8322,7 +8817,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchProjection(final String batchProjectionId,
             final String filename) {
-        return batchProjection.downloadBatchProjection(batchProjectionId,
+        return batchProjection().downloadBatchProjection(batchProjectionId,
                 filename);
     }
 
@@ -8342,7 +8837,7 @@ public class BigMLClient {
      */
     public JSONObject downloadBatchProjection(
             final JSONObject batchProjectionJSON, final String filename) {
-        return batchProjection.downloadBatchProjection(batchProjectionJSON,
+        return batchProjection().downloadBatchProjection(batchProjectionJSON,
                 filename);
     }
 
@@ -8356,7 +8851,7 @@ public class BigMLClient {
      * @return true if batch projection is finished
      */
     public boolean batchProjectionIsReady(final String batchProjectionId) {
-        return batchProjection.isReady(batchProjectionId);
+        return batchProjection().isReady(batchProjectionId);
     }
 
     /**
@@ -8368,7 +8863,7 @@ public class BigMLClient {
      * @return true if batch projection is finished
      */
     public boolean batchProjectionIsReady(final JSONObject batchProjectionJSON) {
-        return batchProjection.isReady(batchProjectionJSON);
+        return batchProjection().isReady(batchProjectionJSON);
     }
 
     /**
@@ -8383,7 +8878,7 @@ public class BigMLClient {
      * @return a JSONObject containing all batch projections matching the query
      */
     public JSONObject listBatchProjections(final String queryString) {
-        return batchProjection.list(queryString);
+        return batchProjection().list(queryString);
     }
 
     /**
@@ -8402,7 +8897,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchProjection(final String batchProjectionId,
             final String changes) {
-        return batchProjection.update(batchProjectionId, changes);
+        return batchProjection().update(batchProjectionId, changes);
     }
 
     /**
@@ -8420,7 +8915,7 @@ public class BigMLClient {
      */
     public JSONObject updateBatchProjection(
             final JSONObject batchProjectionJSON, final JSONObject changes) {
-        return batchProjection.update(batchProjectionJSON, changes);
+        return batchProjection().update(batchProjectionJSON, changes);
     }
 
     /**
@@ -8436,7 +8931,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch projection
      */
     public JSONObject deleteBatchProjection(final String batchProjectionId) {
-        return batchProjection.delete(batchProjectionId);
+        return batchProjection().delete(batchProjectionId);
     }
 
     /**
@@ -8451,7 +8946,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted batch projection
      */
     public JSONObject deleteBatchProjection(final JSONObject batchProjectionJSON) {
-        return batchProjection.delete(batchProjectionJSON);
+        return batchProjection().delete(batchProjectionJSON);
     }
 
 
@@ -8486,7 +8981,7 @@ public class BigMLClient {
     		final Map connectionInfo, JSONObject args, Integer waitTime,
     		Integer retries) {
 
-        return externalConnector.create(source, connectionInfo, args, waitTime, retries);
+        return externalConnector().create(source, connectionInfo, args, waitTime, retries);
     }
 
     /**
@@ -8508,7 +9003,7 @@ public class BigMLClient {
      * @return a JSONObject for the external connector
      */
     public JSONObject getExternalConnector(final String externalConnectorId) {
-        return externalConnector.get(externalConnectorId);
+        return externalConnector().get(externalConnectorId);
     }
 
     /**
@@ -8529,7 +9024,7 @@ public class BigMLClient {
      * @return a JSONObject for the external connector
      */
     public JSONObject getExternalConnector(final JSONObject externalConnectorJSON) {
-        return externalConnector.get(externalConnectorJSON);
+        return externalConnector().get(externalConnectorJSON);
     }
 
     /**
@@ -8542,7 +9037,7 @@ public class BigMLClient {
      * @return true if external connector is finished
      */
     public boolean externalConnectorIsReady(final String externalConnectorId) {
-        return externalConnector.isReady(externalConnectorId);
+        return externalConnector().isReady(externalConnectorId);
     }
 
     /**
@@ -8554,7 +9049,7 @@ public class BigMLClient {
      * @return true if external connector is finished
      */
     public boolean externalConnectorIsReady(final JSONObject externalConnectorJSON) {
-        return externalConnector.isReady(externalConnectorJSON);
+        return externalConnector().isReady(externalConnectorJSON);
     }
 
     /**
@@ -8569,7 +9064,7 @@ public class BigMLClient {
      * @return a JSONObject containing all external connectors matching the query
      */
     public JSONObject listExternalConnectors(final String queryString) {
-        return externalConnector.list(queryString);
+        return externalConnector().list(queryString);
     }
 
     /**
@@ -8589,7 +9084,7 @@ public class BigMLClient {
      */
     public JSONObject updateExternalConnector(
         final String externalConnectorId, final String changes) {
-        return externalConnector.update(externalConnectorId, changes);
+        return externalConnector().update(externalConnectorId, changes);
     }
 
     /**
@@ -8607,7 +9102,7 @@ public class BigMLClient {
      */
     public JSONObject updateExternalConnector(
             final JSONObject externalConnectorJSON, final JSONObject changes) {
-        return externalConnector.update(externalConnectorJSON, changes);
+        return externalConnector().update(externalConnectorJSON, changes);
     }
 
     /**
@@ -8624,7 +9119,7 @@ public class BigMLClient {
      * @return a JSONObject for the deleted external connector
      */
     public JSONObject deleteexternalConnector(final String externalConnectorId) {
-        return externalConnector.delete(externalConnectorId);
+        return externalConnector().delete(externalConnectorId);
     }
 
     /**
@@ -8641,7 +9136,7 @@ public class BigMLClient {
      */
     public JSONObject deleteExternalConnector(
             final JSONObject externalConnectorJSON) {
-        return externalConnector.delete(externalConnectorJSON);
+        return externalConnector().delete(externalConnectorJSON);
     }
 
 }
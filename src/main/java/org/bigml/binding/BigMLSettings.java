@@ -0,0 +1,192 @@
+package org.bigml.binding;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The settings of a BigMLClient: the url of the API, the credentials, the
+ * project and organization and the storage of the resources.
+ *
+ * The default settings are loaded once per JVM, from the system
+ * properties and environment variables BIGML_USERNAME and BIGML_API_KEY,
+ * and from the binding.properties file, read from the working directory
+ * (src/main/resources/binding.properties) or from the classpath.
+ *
+ * The settings are immutable, so a single instance can be shared by many
+ * clients and threads.
+ *
+ * Example usage:
+ *
+ *  BigMLSettings settings = new BigMLSettings(null, "user", "key",
+ *      null, null, "./storage");
+ *  BigMLClient api = new BigMLClient(settings);
+ */
+public final class BigMLSettings {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(BigMLSettings.class.getName());
+
+    public static final String PROPERTIES_FILE = "binding.properties";
+
+    private final String url;
+    private final String username;
+    private final String apiKey;
+    private final String projectId;
+    private final String organizationId;
+    private final String storage;
+
+    /**
+     * The default settings, loaded the first time they are used
+     */
+    private static class Defaults {
+        static final BigMLSettings INSTANCE = load();
+    }
+
+    /**
+     * Builds the settings of a client. The values that are null are taken
+     * from the default settings.
+     *
+     * @param bigmlDomain
+     *            the domain of the API, e.g. "https://bigml.io/". Optional
+     * @param apiUser
+     *            API username. Optional
+     * @param apiKey
+     *            API key. Optional
+     * @param projectId
+     *            the project the requests are limited to. Optional
+     * @param organizationId
+     *            the organization the requests are limited to. Optional
+     * @param storage
+     *            the directory where the resources retrieved are stored.
+     *            Optional
+     */
+    public BigMLSettings(String bigmlDomain, String apiUser, String apiKey,
+            String projectId, String organizationId, String storage) {
+        BigMLSettings defaults = getDefault();
+
+        this.url = bigmlDomain != null && bigmlDomain.length() > 0 ?
+                bigmlDomain + (bigmlDomain.endsWith("/") ? "" : "/") :
+                defaults.url;
+
+        String username = apiUser != null ? apiUser : defaults.username;
+        String key = apiKey != null ? apiKey : defaults.apiKey;
+        if (isEmpty(username) || isEmpty(key)) {
+            // the credentials go together
+            username = defaults.username;
+            key = defaults.apiKey;
+        }
+        this.username = username;
+        this.apiKey = key;
+
+        this.projectId = projectId;
+        this.organizationId = organizationId;
+        this.storage = storage;
+    }
+
+    private BigMLSettings(String url, String username, String apiKey) {
+        this.url = url;
+        this.username = username;
+        this.apiKey = apiKey;
+        this.projectId = null;
+        this.organizationId = null;
+        this.storage = null;
+    }
+
+    /**
+     * Returns the default settings, shared by the clients built without
+     * explicit settings
+     */
+    public static BigMLSettings getDefault() {
+        return Defaults.INSTANCE;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public String getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns true if both the username and the API key are set
+     */
+    public boolean hasCredentials() {
+        return !isEmpty(username) && !isEmpty(apiKey);
+    }
+
+    private static BigMLSettings load() {
+        Properties props = loadProperties();
+
+        String username = setting("BIGML_USERNAME");
+        String apiKey = setting("BIGML_API_KEY");
+        if (isEmpty(username) || isEmpty(apiKey)) {
+            username = props.getProperty("BIGML_USERNAME");
+            apiKey = props.getProperty("BIGML_API_KEY");
+        }
+        return new BigMLSettings(
+                props.getProperty("BIGML_URL", BigMLClient.BIGML_URL),
+                username, apiKey);
+    }
+
+    private static Properties loadProperties() {
+        Properties props = new Properties();
+        InputStream is = null;
+        try {
+            File file = new File("src/main/resources/" + PROPERTIES_FILE);
+            is = file.exists() ? new FileInputStream(file) :
+                    BigMLSettings.class.getResourceAsStream("/" + PROPERTIES_FILE);
+            if (is != null) {
+                props.load(is);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to load " + PROPERTIES_FILE, e);
+        } finally {
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (Exception e) {}
+        }
+        return props;
+    }
+
+    private static String setting(String setting) {
+        String value = System.getProperty(setting);
+        if (value == null) {
+            value = System.getenv(setting);
+        }
+        return value;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.length() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BigMLSettings(url=%s, username=%s)", url,
+                username);
+    }
+}
@@ -51,14 +51,35 @@ public class Fields {
 	private JSONObject fieldsByName = null;
 	private Map<Long, String> fieldsByColumnNumber = null;
 	private List<String> missingTokens = null;
+	private Set<String> missingTokensSet = null;
 	private List<Long> fieldsColumns = null;
 	private List<String> filteredFields = null;
 
-	private List<String> rowIds;
-	private List<String> headers;
-	private Object objectiveField;
-	private Boolean objectiveFieldPresent;
-	private List<Long> filteredIndexes;
+	// The layout of the rows, replaced as a whole when the objective field
+	// or the headers change, so that the rows can be paired concurrently
+	private volatile Layout layout;
+
+	/**
+	 * The position of the objective field and of the included fields in
+	 * the rows
+	 */
+	private static class Layout {
+		private final Object objectiveField;
+		private final Boolean objectiveFieldPresent;
+		private final List<String> rowIds;
+		private final List<String> headers;
+		private final List<Long> filteredIndexes;
+
+		Layout(Object objectiveField, Boolean objectiveFieldPresent,
+				List<String> rowIds, List<String> headers,
+				List<Long> filteredIndexes) {
+			this.objectiveField = objectiveField;
+			this.objectiveFieldPresent = objectiveFieldPresent;
+			this.rowIds = rowIds;
+			this.headers = headers;
+			this.filteredIndexes = filteredIndexes;
+		}
+	}
 
 	/**
 	 * Returns the field structure for a resource, its locale and missing_tokens
@@ -185,6 +206,7 @@ public class Fields {
 		this.locale = Utils.findLocale(dataLocale, true);
 
 		this.missingTokens = missingTokens;
+		this.missingTokensSet = new HashSet<String>(missingTokens);
 
 		this.fieldsColumns = new ArrayList<Long>(fieldsByColumnNumber.keySet());
 		Collections.sort(this.fieldsColumns);
@@ -207,13 +229,9 @@ public class Fields {
 		}
 
 		// To be updated in update_objective_field
-		this.rowIds = null;
-		this.headers = null;
-		this.objectiveField = null;
-		this.objectiveFieldPresent = null;
-		this.filteredIndexes = null;
+		this.layout = null;
 
-		updateObjectiveField(objectiveField, objectiveFieldPresent, headers);
+		updateObjectiveField(objectiveField, objectiveFieldPresent, null);
 
 	}
 
@@ -229,44 +247,48 @@ public class Fields {
 	 * @param headers	list of strings with fields names
 	 */
 	protected void updateObjectiveField(Object objectiveField, Boolean objectiveFieldPresent, List<String> headers) {
+		this.layout = buildLayout(objectiveField, objectiveFieldPresent, headers);
+	}
+
+	private Layout buildLayout(Object objectiveField, Boolean objectiveFieldPresent, List<String> headers) {
 
 		// If no objective field, select the last column, else store its column
 		if (objectiveField == null) {
-			this.objectiveField = fieldsColumns.get(fieldsColumns.size() - 1);
+			objectiveField = fieldsColumns.get(fieldsColumns.size() - 1);
 		} else if (objectiveField instanceof String) {
-			this.objectiveField = getFieldColumnNumber(objectiveField.toString());
-		} else {
-			this.objectiveField = objectiveField;
+			objectiveField = getFieldColumnNumber(objectiveField.toString());
 		}
 
-		String objectiveFieldID = fieldsByColumnNumber.get(this.objectiveField);
-		filteredFields.remove(objectiveFieldID);
-
-		rowIds = new ArrayList<String>();
+		String objectiveFieldID = fieldsByColumnNumber.get(objectiveField);
 
-		this.objectiveFieldPresent = objectiveFieldPresent;
+		List<String> rowIds = new ArrayList<String>();
 		if (headers == null) {
 			// The row is supposed to contain the fields sorted by column number
 			for (Long fieldColumnIndex : fieldsColumns) {
-				if (!fieldColumnIndex.equals(this.objectiveField)) {
+				if (!fieldColumnIndex.equals(objectiveField)) {
 					rowIds.add(fieldsByColumnNumber.get(fieldColumnIndex));
 				}
 			}
 
-			this.headers = this.rowIds;
+			headers = rowIds;
 		} else {
-			this.rowIds = new ArrayList<String>(headers.size());
+			rowIds = new ArrayList<String>(headers.size());
 			for (String header : headers) {
-				this.rowIds.add(getFieldId(header));
+				rowIds.add(getFieldId(header));
 			}
-			this.headers = new ArrayList<String>(headers);
+			headers = new ArrayList<String>(headers);
 		}
 
-		filteredIndexes = new ArrayList<Long>();
+		List<Long> filteredIndexes = new ArrayList<Long>();
 		for (String filteredField : filteredFields) {
-			long index = rowIds.indexOf(filteredField);
-			filteredIndexes.add(index);
+			if (!filteredField.equals(objectiveFieldID)) {
+				long index = rowIds.indexOf(filteredField);
+				filteredIndexes.add(index);
+			}
 		}
+
+		return new Layout(objectiveField, objectiveFieldPresent, rowIds,
+				headers, filteredIndexes);
 	}
 
 	/**
@@ -420,12 +442,14 @@ public class Fields {
 			objectiveFieldPresent = false;
 		}
 
+		Layout layout = this.layout;
+
 		// Try to get objective field form Fields or use the last column
 		if (objectiveField == null) {
-			if (this.objectiveField == null) {
+			if (layout.objectiveField == null) {
 				objectiveField = fieldsColumns.get(fieldsColumns.size() - 1);
 			} else {
-				objectiveField = this.objectiveField;
+				objectiveField = layout.objectiveField;
 			}
 		}
 
@@ -445,18 +469,23 @@ public class Fields {
 			}
 		}
 
-		// If objective field, its presence or headers have changed, update
-		if (!objectiveField.equals(this.objectiveField) || objectiveFieldPresent != this.objectiveFieldPresent
-				|| (headers != null && !headers.equals(this.headers))) {
-			updateObjectiveField(objectiveField, objectiveFieldPresent, headers);
+		// If objective field, its presence or headers have changed, update.
+		// The new layout is used by this call even if other threads
+		// replace it meanwhile.
+		if (!objectiveField.equals(layout.objectiveField) || objectiveFieldPresent != layout.objectiveFieldPresent
+				|| (headers != null && !headers.equals(layout.headers))) {
+			layout = buildLayout(objectiveField, objectiveFieldPresent, headers);
+			this.layout = layout;
 		}
 
-		JSONArray normalizedRow = new JSONArray();
-		for (Object rowValue : row) {
-			normalizedRow.add(normalize(rowValue));
+		// Only the included columns are normalized and paired
+		Map<String, Object> pair = new HashMap<String, Object>(layout.filteredIndexes.size() * 2);
+		for (Long filteredIndex : layout.filteredIndexes) {
+			int index = filteredIndex.intValue();
+			pair.put(layout.headers.get(index), normalize(row.get(index)));
 		}
 
-		return toInputData(normalizedRow);
+		return pair;
 	}
 
 	/**
@@ -467,9 +496,10 @@ public class Fields {
 	 * @return a map with field, value
 	 */
 	public Map<String, Object> toInputData(JSONArray row) {
+		Layout layout = this.layout;
 		Map<String, Object> pair = new HashMap<String, Object>();
-		for (Long filteredIndex : filteredIndexes) {
-			pair.put(this.headers.get(filteredIndex.intValue()), row.get(filteredIndex.intValue()));
+		for (Long filteredIndex : layout.filteredIndexes) {
+			pair.put(layout.headers.get(filteredIndex.intValue()), row.get(filteredIndex.intValue()));
 		}
 
 		return pair;
@@ -513,7 +543,7 @@ public class Fields {
 	 */
 	public Object normalize(Object value) {
 		if (value instanceof String) {
-			return (missingTokens.contains(value) ? null : value);
+			return (missingTokensSet.contains(value) ? null : value);
 		}
 
 		return null;
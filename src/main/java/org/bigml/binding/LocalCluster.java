@@ -3,6 +3,7 @@ package org.bigml.binding;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.text.StringEscapeUtils;
+import org.bigml.binding.localcluster.PointsIndex;
 import org.bigml.binding.resources.AbstractResource;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
@@ -12,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -85,6 +87,9 @@ public class LocalCluster extends ModelFields {
     private Map<String, Map<String, Integer>> items = 
     		new HashMap<String, Map<String, Integer>>();
     private JSONObject datasets;
+
+    // Indexes of the points in each cluster, built on first use
+    private transient Map<String, PointsIndex> pointsIndexes = null;
     
     
     public LocalCluster(JSONObject cluster) throws Exception {
@@ -531,16 +536,15 @@ public class LocalCluster extends ModelFields {
     }
     
     /**
-     * Returns the list of data points that fall in one cluster.
+     * Downloads the data points that fall in one cluster as CSV.
      */
-    private JSONArray pointsInCluster(String centroidId) 
+    private String pointsInCluster(String centroidId) 
     		throws Exception {
     	
-    	JSONArray points = new JSONArray();
-    	
-    	String centroidDataset = (String) datasets.get(centroidId);
+    	BigMLClient api = getBigMLClient();
     	
-    	BigMLClient api = new BigMLClient();
+    	String centroidDataset = datasets != null ?
+    			(String) datasets.get(centroidId) : null;
     	JSONObject dataset = null;
     	
     	if (centroidDataset == null || centroidDataset.length() == 0) {
@@ -569,28 +573,57 @@ public class LocalCluster extends ModelFields {
     	while (!api.datasetIsReady(dataset)) {
     		try {
                 Thread.sleep(2000);
-            } catch (InterruptedException e) {}
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Exception("Interrupted while waiting for the" +
+                        " dataset of the centroid " + centroidId);
+            }
     	}
     	
     	// download dataset to compute local predictions
     	JSONObject downloadedData = api.downloadDataset(
     			(String) dataset.get("resource"), null);
-    	
-    	String[] lines = ((String) downloadedData.get("csv")).split("\n");
-    	String[] headers = lines[0].split(",");
-    	for (int i=1; i<lines.length; i++) {
-    		String[] lineInfo = lines[i].split(",");
-    		JSONObject line = new JSONObject();
-    		for (int j=0; j<headers.length; j++) {
-    			try {
-    				line.put(headers[j], Double.parseDouble(lineInfo[j]));
-    			} catch (Exception e) {
-    				line.put(headers[j], lineInfo[j]);
-				}
-    		}
-    		points.add(line);
+    	return (String) downloadedData.get("csv");
+    }
+
+    /**
+     * Sets the data points that fall in one cluster, so that they don't
+     * need to be downloaded to find the points closest to a reference
+     * point.
+     * 
+     * @param centroidId	the id of the centroid
+     * @param reader		the reader of the points in CSV format, with
+     * 						the field names in the first line
+     * 
+     * @throws IOException if the points can't be read
+     */
+    public void setPointsInCluster(String centroidId, Reader reader)
+    		throws IOException {
+    	getPointsIndexes().put(centroidId, new PointsIndex(reader, fields,
+    			scales, fieldsIdByName, missingTokens));
+    }
+
+    /**
+     * Returns the index of the data points that fall in one cluster. The
+     * points are downloaded and parsed only the first time.
+     */
+    private synchronized PointsIndex getPointsIndex(String centroidId)
+    		throws Exception {
+    	PointsIndex index = getPointsIndexes().get(centroidId);
+    	if (index == null) {
+    		String csv = pointsInCluster(centroidId);
+    		index = new PointsIndex(new StringReader(csv), fields, scales,
+    				fieldsIdByName, missingTokens);
+    		getPointsIndexes().put(centroidId, index);
     	}
-    	return points;
+    	return index;
+    }
+
+    private synchronized Map<String, PointsIndex> getPointsIndexes() {
+    	if (pointsIndexes == null) {
+    		pointsIndexes = new ConcurrentHashMap<String, PointsIndex>();
+    	}
+    	return pointsIndexes;
     }
 
     /**
@@ -619,7 +652,7 @@ public class LocalCluster extends ModelFields {
     	if (centroidId!=null) {
     		boolean existCentroid = false;
     		for (LocalCentroid centroid: centroids) {
-    			if (centroid.getCentroidId() == centroidId) {
+    			if (centroidId.equals(centroid.getCentroidId())) {
     				existCentroid = true;
     				break;
     			}
@@ -636,33 +669,12 @@ public class LocalCluster extends ModelFields {
     		centroidId = (String) centroidInfo.get("centroid_id");
     	}
     	
-    	// reading the points that fall in the same cluster
-    	JSONArray pointsInCluster = pointsInCluster(centroidId);
-    	
-        // computing distance to reference point
- 		List<JSONObject> points = distances2ToPoint(
-     			referencePoint, pointsInCluster);
-        
-	    Collections.sort(points, new Comparator<JSONObject>() {
-            @Override
-            public int compare(JSONObject o1, JSONObject o2) {
-                return ((Double) o1.get("distance")).
-                		compareTo(((Double) o2.get("distance")));
-            }
-        });
-	    
-	    if (numberOfPoints != null) {
-            points = points.subList(0, numberOfPoints);
-		}
-	    
-	    for (JSONObject point: points) {
-    		point.put("distance", Math.sqrt((Double) point.get("distance")));
-    	}
+    	// finding the closest points that fall in the same cluster
+    	List<JSONObject> points = getPointsIndex(centroidId).closest(
+    			prepareForDistance(referencePoint), numberOfPoints);
 	    
 	    JSONArray pointsArray = new JSONArray();
-	    for (JSONObject point: points) {
-	    	pointsArray.add(point);
-	    }
+	    pointsArray.addAll(points);
 	    
 	    if (centroidId != null) {
 	    	closest.put("centroid_id", centroidId);
@@ -8,6 +8,7 @@ import java.util.List;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.utils.Instrumentation;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -61,6 +62,8 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
 	static Logger logger = LoggerFactory.getLogger(
 			LocalDeepnet.class.getName());
 	
+	private static final String[] OPERATING_POINT_KINDS = {"probability"};
+
 	private String deepnetId;
 	private JSONArray inputFields = null;
 	private String objectiveField = null;
@@ -140,6 +143,8 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
 							+ "Could not find the 'deepnet' key in "
 							+ "the resource:\n\n%s", deepnet));
 		}	
+
+		recordLoadTime("deepnet");
 	}
 	
 	/**
@@ -208,6 +213,30 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
 	public HashMap<String, Object> predict(
 			JSONObject inputData, JSONObject operatingPoint, 
 			String operatingKind, Boolean full) throws Exception {
+		long start = Instrumentation.start();
+		try {
+			Object key = predictionKey(inputData, operatingPoint,
+					operatingKind, full);
+			HashMap<String, Object> prediction = cachedPrediction(key);
+			if (prediction == null) {
+				prediction = cachePrediction(key, computePrediction(
+						inputData, operatingPoint, operatingKind, full));
+			}
+			return prediction;
+		} finally {
+			if (start != 0L) {
+				Instrumentation.stop(Instrumentation.PREDICT, start,
+						"kind", "deepnet", "model", getMeasuredId());
+			}
+		}
+	}
+
+	/**
+	 * Computes the prediction, see predict
+	 */
+	private HashMap<String, Object> computePrediction(
+			JSONObject inputData, JSONObject operatingPoint, 
+			String operatingKind, Boolean full) throws Exception {
 		
 		if (full == null) {
 			full = false;
@@ -247,11 +276,7 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
         }
         
         HashMap<String, Object> prediction = new HashMap<String, Object>();
-        HashMap<String, Object> instance =
-            new ObjectMapper().readValue(inputData.toString(), HashMap.class);
-
-		Predictor predictor = Predictor.getPredictor(this.model.toJSONString());
-        Double[] predict = ArrayUtils.toObject(predictor.predict(instance));
+        Double[] predict = ArrayUtils.toObject(predictValues(inputData));
 
         ArrayList<List<Double>> pred = new ArrayList<List<Double>>();
         pred.add((List<Double>) Arrays.asList(predict));
@@ -263,22 +288,6 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
         return prediction;
 	}
 	
-	/**
-	 * Predicts a probability for each possible output class, based on
-     * input values. The input fields must be a dictionary keyed by
-     * field name or field ID.
-     *
-     * @param inputData	Input data to be predicted
-	 */
-	private JSONArray predictProbability(JSONObject inputData) {
-		try {
-			return predictProbability(inputData, null);
-		} catch (Exception e) {
-			return null;
-		}
-	}
-	
-	
 	/**
 	 * Predicts a probability for each possible output class, based on
      * input values. The input fields must be a dictionary keyed by
@@ -303,37 +312,12 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
 	 * Computes the prediction based on a user-given operating point.
 	 */
 	private HashMap<String, Object> predictOperating(
-			JSONObject inputData, JSONObject operatingPoint) {
+			JSONObject inputData, JSONObject operatingPoint) throws Exception {
 
-		String[] operatingKinds = {"probability"};
-		Object[] operating = Utils.parseOperatingPoint(
-				operatingPoint, operatingKinds, classNames);
-
-		String kind = (String) operating[0];
-		Double threshold = (Double) operating[1];
-		String positiveClass = (String) operating[2];
-		
-		JSONArray predictions = predictProbability(inputData);
-		for (Object pred: predictions) {
-			JSONObject prediction = (JSONObject) pred;
-			String category = (String) prediction.get("category");
-			
-			if (category.equals(positiveClass) &&
-					(Double) prediction.get(kind) > threshold) {
-				return prediction;
-			}
-		}
-		
-		HashMap<String, Object> prediction 
-			= (HashMap<String, Object>) predictions.get(0);
-		String category = (String) prediction.get("category");
-		if (category.equals(positiveClass)) {
-			prediction = (HashMap<String, Object>) predictions.get(1);
-		}
-		
-		prediction.put("prediction", prediction.get("category"));
-		prediction.remove("category");
-		return prediction;
+		OperatingPoint point = compileOperatingPoint(
+				operatingPoint, OPERATING_POINT_KINDS, classNames);
+		double[] values = classValues(inputData);
+		return toPrediction(values, point.decide(values));
 	}
 
 	
@@ -341,21 +325,48 @@ public class LocalDeepnet extends ModelFields implements SupervisedModelInterfac
 	 * Computes the prediction based on a user-given operating kind.
 	 */
 	private HashMap<String, Object> predictOperatingKind(
-			JSONObject inputData, String operatingKind) {
+			JSONObject inputData, String operatingKind) throws Exception {
 
-		JSONArray predictions = null;
 		String kind = operatingKind.toLowerCase();
-		if (kind.equals("probability")) {
-			predictions = predictProbability(inputData);
-		} else {
+		if (!kind.equals("probability")) {
 			throw new IllegalArgumentException(
            		 	"Only probability is allowed as operating kind " +
                     "for deepnets.");
 		}
-		HashMap<String, Object> prediction 
-			= (HashMap<String, Object>) predictions.get(0);
-		prediction.put("prediction", prediction.get("category"));
-		prediction.remove("category");
+		double[] values = classValues(inputData);
+		return toPrediction(values, OperatingPoint.best(values, classNames, -1));
+	}
+
+	/**
+	 * Runs the network for the input data, already filtered and cast
+	 */
+	private double[] predictValues(JSONObject inputData) throws Exception {
+        HashMap<String, Object> instance =
+            new ObjectMapper().readValue(inputData.toString(), HashMap.class);
+
+		Predictor predictor = Predictor.getPredictor(this.model.toJSONString());
+		return predictor.predict(instance);
+	}
+
+	/**
+	 * Computes the probability of each class, in the order of the class
+	 * names, running the network once
+	 */
+	private double[] classValues(JSONObject inputData) throws Exception {
+		double[] values = predictValues(inputData);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Utils.roundOff(values[i], Constants.PRECISION);
+		}
+		return values;
+	}
+
+	/**
+	 * Builds the prediction of a class, with its probability
+	 */
+	private HashMap<String, Object> toPrediction(double[] values, int index) {
+		HashMap<String, Object> prediction = new JSONObject();
+		prediction.put("prediction", classNames.get(index));
+		prediction.put("probability", values[index]);
 		return prediction;
 	}
 
@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.util.*;
 
 import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.utils.Instrumentation;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -98,8 +99,6 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
 
     	super(bigmlClient, ensemble);
     	ensemble = this.model;
-    	
-    	initBigML(bigmlClient);
 
         ensembleId = (String) ensemble.get("resource");
 
@@ -197,7 +196,7 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
         throws Exception {
         models = new JSONArray();
         for (String id : modelsIds) {
-            models.add(this.bigmlClient.getModel(id));
+            models.add(getBigMLClient().getModel(id));
         }
         JSONObject model = (JSONObject) models.get(0);
         int numberOfModels = models.size();
@@ -294,6 +293,8 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
         if (modelsSplit.size() == 1) {
             multiModel = new MultiModel(models, fields, classNames);
         }
+
+        recordLoadTime("ensemble");
     }
 
     /**
@@ -310,6 +311,26 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
         return classNames;
     }
 
+    /**
+     * Compiles the trees of all the models of the ensemble at once, see
+     * LocalPredictiveModel.compile. The votes of the models are then made
+     * by the compiled trees when the last prediction strategy is used.
+     *
+     * The ensembles whose models are split in several groups, because of
+     * their size, build the models of each group on every prediction, so
+     * they cannot be compiled.
+     *
+     * @throws Exception if the trees cannot be compiled
+     */
+    public void compile() throws Exception {
+        if (multiModel == null) {
+            throw new UnsupportedOperationException(
+                "The ensemble is too large to be compiled, its models "
+                + "are split in " + modelsSplit.size() + " groups.");
+        }
+        multiModel.compile();
+    }
+
     /**
      * Calculates the full list of fields used by this ensemble. It's obtained
      * from the union of fields in all models of the ensemble.
@@ -707,6 +728,33 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
                                            MissingStrategy missingStrategy,
                                            JSONObject operatingPoint, String operatingKind,
                                            Boolean median, Boolean full) throws Exception {
+        long start = Instrumentation.start();
+        try {
+            Object key = predictionKey(inputData, method, options,
+                    missingStrategy, operatingPoint, operatingKind, median, full);
+            HashMap<String, Object> prediction = cachedPrediction(key);
+            if (prediction == null) {
+                prediction = cachePrediction(key, computePrediction(
+                        inputData, method, options, missingStrategy,
+                        operatingPoint, operatingKind, median, full));
+            }
+            return prediction;
+        } finally {
+            if (start != 0L) {
+                Instrumentation.stop(Instrumentation.PREDICT, start,
+                        "kind", "ensemble", "model", getMeasuredId());
+            }
+        }
+    }
+
+    /**
+     * Computes the prediction, see predict
+     */
+    private HashMap<String, Object> computePrediction(JSONObject inputData,
+                                           PredictionMethod method, Map options,
+                                           MissingStrategy missingStrategy,
+                                           JSONObject operatingPoint, String operatingKind,
+                                           Boolean median, Boolean full) throws Exception {
 
         if (missingStrategy == null) {
             missingStrategy = MissingStrategy.LAST_PREDICTION;
@@ -824,28 +872,28 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
             missingStrategy = MissingStrategy.LAST_PREDICTION;
         }
 
-        Object[] operating = Utils.parseOperatingPoint(operatingPoint,
-                                                       OPERATING_POINT_KINDS, classNames);
-
-        String kind = (String) operating[0];
-        Double threshold = (Double) operating[1];
-        String positiveClass = (String) operating[2];
+        OperatingPoint point = compileOperatingPoint(operatingPoint,
+                                                     OPERATING_POINT_KINDS, classNames);
+        String kind = point.getKind();
 
-        if (!Arrays.asList(OPERATING_POINT_KINDS).contains(kind)) {
-            throw new IllegalArgumentException(
-                String.format("Allowed operating kinds are %", (Object[]) OPERATING_POINT_KINDS));
+        if (boosting != null) {
+            return predictBoostedOperating(
+                operatingPredictions(inputData, missingStrategy, kind), point);
         }
 
-        JSONArray predictions = null;
-        if (kind.equals("probability")) {
-            predictions = predictProbability(inputData, missingStrategy);
-        }
-        if (kind.equals("confidence")) {
-            predictions = predictConfidence(inputData, missingStrategy);
-        }
-        if (kind.equals("votes")) {
-            predictions = predictVotes(inputData, missingStrategy);
-        }
+        double[] values = classValues(inputData, missingStrategy, kind);
+        return toPrediction(kind, values, point.decide(values));
+    }
+
+    /**
+     * Decides the prediction of a boosted ensemble based on a user-given
+     * operating point.
+     */
+    private HashMap<String, Object> predictBoostedOperating(
+        JSONArray predictions, OperatingPoint point) {
+
+        String kind = point.getKind();
+        String positiveClass = point.getPositiveClass();
 
         for (Object pred : predictions) {
             HashMap<String, Object> prediction
@@ -860,7 +908,7 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
             }
 
             if (category.equals(positiveClass)
-                && (Double) prediction.get(kind) > threshold) {
+                && (Double) prediction.get(kind) > point.getThreshold()) {
                 return prediction;
             }
         }
@@ -900,25 +948,67 @@ public class LocalEnsemble extends ModelFields implements SupervisedModelInterfa
                 String.format("Allowed operating kinds are %", (Object[]) OPERATING_POINT_KINDS));
         }
 
-        JSONArray predictions = null;
-        if (kind.equals("probability")) {
-            predictions = predictProbability(inputData, missingStrategy);
+        if (boosting != null) {
+            HashMap<String, Object> prediction = (HashMap<String, Object>)
+                operatingPredictions(inputData, missingStrategy, kind).get(0);
+            prediction.put("prediction", prediction.get("category"));
+            prediction.remove("category");
+            return prediction;
         }
+
+        double[] values = classValues(inputData, missingStrategy, kind);
+        return toPrediction(kind, values,
+                            OperatingPoint.best(values, classNames, -1));
+    }
+
+    /**
+     * Returns the sorted predictions of an operating kind
+     */
+    private JSONArray operatingPredictions(JSONObject inputData,
+                                           MissingStrategy missingStrategy, String kind) throws Exception {
         if (kind.equals("confidence")) {
-            predictions = predictConfidence(inputData, missingStrategy);
+            return predictConfidence(inputData, missingStrategy);
         }
         if (kind.equals("votes")) {
-            predictions = predictVotes(inputData, missingStrategy);
+            return predictVotes(inputData, missingStrategy);
         }
+        return predictProbability(inputData, missingStrategy);
+    }
 
-        HashMap<String, Object> prediction
-            = (HashMap<String, Object>) predictions.get(0);
-        prediction.put("prediction", prediction.get("category"));
-        prediction.remove("category");
+    /**
+     * Computes the probability, confidence or votes of each class, in the
+     * order of the class names, combining the distributions of the models
+     * once.
+     */
+    private double[] classValues(JSONObject inputData,
+                                 MissingStrategy missingStrategy, String kind) throws Exception {
+        PredictionMethod method = null;
+        if (kind.equals("confidence")) {
+            method = PredictionMethod.CONFIDENCE;
+        }
+        if (kind.equals("votes")) {
+            method = PredictionMethod.PLURALITY;
+        }
 
-        return prediction;
+        List<Double> output = combineDistributions(inputData,
+                                                   missingStrategy, method);
+        double[] values = new double[classNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = output.get(i);
+        }
+        return values;
     }
 
+    /**
+     * Builds the prediction of a class, with its value of the given kind
+     */
+    private HashMap<String, Object> toPrediction(String kind, double[] values,
+                                                 int index) {
+        HashMap<String, Object> prediction = new JSONObject();
+        prediction.put("prediction", classNames.get(index));
+        prediction.put(kind, values[index]);
+        return prediction;
+    }
 
     /**
      * For classification models, Predicts a probability for each possible
@@ -0,0 +1,647 @@
+package org.bigml.binding;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Evaluates a local supervised model with a CSV test file, without
+ * creating any remote resource.
+ *
+ * The test file must have a column for the objective field, named after
+ * its name or id. The file is streamed and split in chunks of rows that
+ * are evaluated in parallel. Each thread adds its rows to its own
+ * accumulator, and the accumulators are merged once the whole file has
+ * been read. Only a bounded number of chunks is held in memory.
+ *
+ * The result has the structure of the remote evaluations: the "model"
+ * measures of the "result" are computed, but not the "mode" and "random"
+ * baselines.
+ *
+ * For classifications: the accuracy, the confusion matrix, whose rows are
+ * the actual classes and whose columns are the predicted ones, the
+ * precision, recall, F-measure and phi coefficient of each class and their
+ * averages. The classes are the ones of the model when it implements
+ * SupervisedModelInterface. In that case, the area under the ROC curve of
+ * each class is also computed from the class probabilities, which are
+ * grouped in ROC_BINS bins. Unless another scorer is given, the rows are
+ * scored by BatchScorer.probabilityScorer, which computes the prediction
+ * and the class probabilities in a single pass. A scorer of its own
+ * returns them with its prediction, under the
+ * BatchScorer.CLASS_PROBABILITIES key, so that each row is scored once.
+ *
+ * For regressions: the mean absolute error, the mean squared error and
+ * the R squared.
+ *
+ * The rows with a missing objective value or no prediction are skipped.
+ *
+ * Example usage:
+ *
+ *  LocalEnsemble localEnsemble = new LocalEnsemble(ensemble);
+ *  LocalEvaluator evaluator = new LocalEvaluator(localEnsemble,
+ *      MissingStrategy.LAST_PREDICTION);
+ *  JSONObject evaluation = evaluator.evaluate(new File("test.csv"));
+ *  Utils.getJSONObject(evaluation, "result.model.average_phi");
+ *
+ * The model is shared by the evaluating threads, so its predictions must
+ * be safe to run concurrently.
+ */
+public class LocalEvaluator {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(LocalEvaluator.class.getName());
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    // Number of bins of the class probabilities in the ROC curves
+    public static final int ROC_BINS = 10000;
+
+    private final ModelFields model;
+    private final RowScorer.Scorer scorer;
+    private final boolean regression;
+    // the classes of the model, or null if they are not known
+    private final List<String> classNames;
+
+    private boolean rocCurves;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxPendingChunks = 0;
+
+    /**
+     * Creates a local evaluator.
+     *
+     * @param model
+     *            the local model whose fields are used to read the rows
+     * @param scorer
+     *            computes the prediction for each row. The result is
+     *            expected to be a map with a "prediction" key, and the
+     *            class probabilities when the ROC curves are computed, or
+     *            the prediction itself.
+     */
+    public LocalEvaluator(ModelFields model, RowScorer.Scorer scorer) {
+        this.model = model;
+        this.scorer = scorer;
+        this.regression = Constants.OPTYPE_NUMERIC.equals(Utils.getJSONObject(
+                model.fields, model.objectiveFieldId + ".optype"));
+        this.classNames = !regression
+                && model instanceof SupervisedModelInterface ?
+                ((SupervisedModelInterface) model).getClassNames() : null;
+        this.rocCurves = classNames != null;
+    }
+
+    /**
+     * Creates a local evaluator of a classification model that scores
+     * each row with BatchScorer.probabilityScorer.
+     *
+     * @param model
+     *            the local classification model, which implements
+     *            SupervisedModelInterface
+     * @param missingStrategy
+     *            the missing strategy of the predictions, or null
+     */
+    public LocalEvaluator(ModelFields model, MissingStrategy missingStrategy) {
+        this(model, model instanceof SupervisedModelInterface ?
+                BatchScorer.probabilityScorer((SupervisedModelInterface) model,
+                        missingStrategy) : null);
+        if( regression || scorer == null ) {
+            throw new IllegalArgumentException(
+                    "Only the supervised classification models are scored"
+                    + " with their class probabilities");
+        }
+    }
+
+    /**
+     * Sets whether the area under the ROC curves is computed, which is the
+     * default for the classification models that implement
+     * SupervisedModelInterface. It needs the class probabilities of every
+     * row in the results of the scorer.
+     */
+    public void setRocCurves(boolean rocCurves) {
+        if( rocCurves && (regression ||
+                !(model instanceof SupervisedModelInterface)) ) {
+            throw new IllegalArgumentException(
+                    "ROC curves are only available for supervised classification models");
+        }
+        this.rocCurves = rocCurves;
+    }
+
+    /**
+     * Sets the number of threads that evaluate the chunks
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the number of rows in each chunk
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Sets the maximum number of chunks held in memory. By default, twice
+     * the number of threads.
+     */
+    public void setMaxPendingChunks(int maxPendingChunks) {
+        this.maxPendingChunks = maxPendingChunks;
+    }
+
+    /**
+     * Evaluates the model with the rows of a CSV file. The first line of
+     * the file must hold the headers.
+     *
+     * @param input
+     *            the CSV test file
+     *
+     * @return the evaluation, with the number of rows evaluated in "rows"
+     *         and the measures in "result"
+     */
+    public JSONObject evaluate(File input) throws Exception {
+        Reader reader = new InputStreamReader(new FileInputStream(input),
+                StandardCharsets.UTF_8);
+        try {
+            return evaluate(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Evaluates the model with the rows of a CSV file. The first line of
+     * the contents must hold the headers.
+     *
+     * @param reader
+     *            the reader of the CSV contents
+     *
+     * @return the evaluation, with the number of rows evaluated in "rows"
+     *         and the measures in "result"
+     */
+    public JSONObject evaluate(Reader reader) throws Exception {
+        CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.builder()
+                .setHeader().setSkipHeaderRecord(true).build());
+        List<String> headers = parser.getHeaderNames();
+        int objectiveColumn = getObjectiveColumn(headers);
+
+        // Each evaluating thread takes an accumulator from the pool
+        final BlockingQueue<Accumulator> accumulators =
+                new ArrayBlockingQueue<Accumulator>(threads);
+        for (int i = 0; i < threads; i++) {
+            accumulators.add(new Accumulator(
+                    new RowScorer(model, headers), objectiveColumn));
+        }
+
+        int maxPending = maxPendingChunks > 0 ? maxPendingChunks : 2 * threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "bigml-evaluator-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        try {
+            Iterator<CSVRecord> records = parser.iterator();
+            Deque<Future<Void>> pending = new ArrayDeque<Future<Void>>();
+            long start = System.nanoTime();
+            while( records.hasNext() ) {
+                final List<CSVRecord> chunk = new ArrayList<CSVRecord>(chunkSize);
+                while( chunk.size() < chunkSize && records.hasNext() ) {
+                    chunk.add(records.next());
+                }
+
+                // Wait for the oldest chunk before reading more rows
+                if( pending.size() >= maxPending ) {
+                    waitFor(pending.removeFirst());
+                }
+
+                pending.addLast(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        Accumulator accumulator = accumulators.take();
+                        try {
+                            accumulator.add(chunk);
+                        } finally {
+                            accumulators.put(accumulator);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            while( !pending.isEmpty() ) {
+                waitFor(pending.removeFirst());
+            }
+
+            Accumulator total = accumulators.remove();
+            for (Accumulator accumulator : accumulators) {
+                total.merge(accumulator);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            logger.info(String.format(
+                    "Evaluated %d rows, skipped %d (%.0f rows/s)",
+                    total.rows, total.skipped,
+                    seconds > 0 ? total.rows / seconds : 0.0));
+
+            JSONObject evaluation = new JSONObject();
+            evaluation.put("rows", total.rows);
+            evaluation.put("result", total.toResult());
+            return evaluation;
+        } finally {
+            executor.shutdownNow();
+            parser.close();
+        }
+    }
+
+    /**
+     * Returns the position of the objective field in the headers
+     */
+    private int getObjectiveColumn(List<String> headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            String fieldId = headers.get(i);
+            if (model.fieldsIdByName.containsKey(fieldId)) {
+                fieldId = model.fieldsIdByName.get(fieldId);
+            }
+            if (fieldId.equals(model.objectiveFieldId)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "The test data has no column for the objective field %s",
+                model.objectiveFieldName));
+    }
+
+    private void waitFor(Future<Void> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw new Exception("Error evaluating the CSV", e.getCause());
+        }
+    }
+
+    /**
+     * The counts of the rows evaluated by a thread, which can be merged
+     * with the ones of the other threads.
+     */
+    private class Accumulator {
+
+        private final RowScorer rowScorer;
+        private final int objectiveColumn;
+        private final Set<String> missingTokens;
+
+        private long rows = 0;
+        private long skipped = 0;
+
+        // Classifications: the index of each class in the confusion matrix
+        // and in the ROC bins, and its positive and negative rows per bin
+        private final Map<String, Integer> classIndex =
+                new HashMap<String, Integer>();
+        private final List<String> classes = new ArrayList<String>();
+        private long[][] confusion = new long[0][0];
+        private long[][] positives = new long[0][];
+        private long[][] negatives = new long[0][];
+
+        // Regressions
+        private double absoluteErrors = 0;
+        private double squaredErrors = 0;
+        private double sum = 0;
+        private double squaresSum = 0;
+
+        Accumulator(RowScorer rowScorer, int objectiveColumn) {
+            this.rowScorer = rowScorer;
+            this.objectiveColumn = objectiveColumn;
+            this.missingTokens = new HashSet<String>(model.getMissingTokens());
+            if( classNames != null ) {
+                for (String className : classNames) {
+                    index(className);
+                }
+            }
+        }
+
+        void add(List<CSVRecord> chunk) throws Exception {
+            for (CSVRecord record : chunk) {
+                String actual = objectiveColumn < record.size() ?
+                        record.get(objectiveColumn) : null;
+                if( actual == null || missingTokens.contains(actual) ) {
+                    skipped++;
+                    continue;
+                }
+
+                Object result = scorer.score(rowScorer.bind(record));
+                Object prediction = result instanceof Map ?
+                        ((Map) result).get("prediction") : result;
+                if( prediction == null ) {
+                    skipped++;
+                    continue;
+                }
+
+                if( regression ) {
+                    addRegression(actual, prediction);
+                } else {
+                    addClassification(result, actual, prediction);
+                }
+            }
+        }
+
+        private void addRegression(String actual, Object prediction) {
+            double value;
+            try {
+                value = Double.parseDouble(actual.trim());
+            } catch (NumberFormatException e) {
+                skipped++;
+                return;
+            }
+            double error = ((Number) prediction).doubleValue() - value;
+            absoluteErrors += Math.abs(error);
+            squaredErrors += error * error;
+            sum += value;
+            squaresSum += value * value;
+            rows++;
+        }
+
+        private void addClassification(Object result, String actual,
+                Object prediction) {
+            int actualIndex = index(actual);
+            int predictedIndex = index(prediction.toString());
+            confusion[actualIndex][predictedIndex]++;
+            rows++;
+
+            if( rocCurves ) {
+                Object probabilities = result instanceof Map ? ((Map) result)
+                        .get(BatchScorer.CLASS_PROBABILITIES) : null;
+                if( probabilities instanceof List ) {
+                    for (Object item : (List) probabilities) {
+                        Map category = (Map) item;
+                        addProbability(BatchScorer.className(category),
+                                category.get("probability"), actualIndex);
+                    }
+                } else if( probabilities instanceof Map ) {
+                    for (Object item : ((Map) probabilities).entrySet()) {
+                        Map.Entry category = (Map.Entry) item;
+                        addProbability(category.getKey(),
+                                category.getValue(), actualIndex);
+                    }
+                } else {
+                    throw new IllegalArgumentException(
+                            "The scorer must return the class probabilities"
+                            + " to compute the ROC curves, as the scorer of"
+                            + " BatchScorer.probabilityScorer does");
+                }
+            }
+        }
+
+        /**
+         * Adds the probability of a class to its ROC bins. The classes
+         * that are not in the model are ignored.
+         */
+        private void addProbability(Object className, Object probability,
+                int actualIndex) {
+            Integer position = className != null ?
+                    classIndex.get(className.toString()) : null;
+            if( position == null || !(probability instanceof Number) ) {
+                return;
+            }
+            int bin = Math.min(ROC_BINS - 1, Math.max(0, (int)
+                    (((Number) probability).doubleValue() * ROC_BINS)));
+            if( position == actualIndex ) {
+                positives[position][bin]++;
+            } else {
+                negatives[position][bin]++;
+            }
+        }
+
+        /**
+         * Returns the index of a class, adding it if new
+         */
+        private int index(String className) {
+            Integer position = classIndex.get(className);
+            if( position != null ) {
+                return position;
+            }
+
+            position = classes.size();
+            classIndex.put(className, position);
+            classes.add(className);
+
+            int size = classes.size();
+            confusion = Arrays.copyOf(confusion, size);
+            for (int i = 0; i < size; i++) {
+                confusion[i] = confusion[i] == null ? new long[size] :
+                        Arrays.copyOf(confusion[i], size);
+            }
+            if( rocCurves ) {
+                positives = Arrays.copyOf(positives, size);
+                positives[position] = new long[ROC_BINS];
+                negatives = Arrays.copyOf(negatives, size);
+                negatives[position] = new long[ROC_BINS];
+            }
+            return position;
+        }
+
+        void merge(Accumulator other) {
+            rows += other.rows;
+            skipped += other.skipped;
+
+            absoluteErrors += other.absoluteErrors;
+            squaredErrors += other.squaredErrors;
+            sum += other.sum;
+            squaresSum += other.squaresSum;
+
+            int[] positions = new int[other.classes.size()];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = index(other.classes.get(i));
+            }
+            for (int i = 0; i < positions.length; i++) {
+                for (int j = 0; j < positions.length; j++) {
+                    confusion[positions[i]][positions[j]] +=
+                            other.confusion[i][j];
+                }
+                if( rocCurves ) {
+                    for (int bin = 0; bin < ROC_BINS; bin++) {
+                        positives[positions[i]][bin] += other.positives[i][bin];
+                        negatives[positions[i]][bin] += other.negatives[i][bin];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Builds the result of the evaluation, as the remote evaluations
+         */
+        JSONObject toResult() {
+            JSONObject measures = regression ?
+                    regressionMeasures() : classificationMeasures();
+
+            JSONObject result = new JSONObject();
+            if( !regression ) {
+                List<String> classNames = new ArrayList<String>(classes);
+                Collections.sort(classNames);
+                result.put("class_names", classNames);
+            }
+            result.put("model", measures);
+            return result;
+        }
+
+        private JSONObject regressionMeasures() {
+            JSONObject measures = new JSONObject();
+            double variance = squaresSum - sum * sum / Math.max(1, rows);
+            measures.put("mean_absolute_error", ratio(absoluteErrors, rows));
+            measures.put("mean_squared_error", ratio(squaredErrors, rows));
+            measures.put("r_squared", variance > 0 ?
+                    1 - squaredErrors / variance : 0.0);
+            return measures;
+        }
+
+        private JSONObject classificationMeasures() {
+            List<String> classNames = new ArrayList<String>(classes);
+            Collections.sort(classNames);
+            int size = classNames.size();
+            int[] positions = new int[size];
+            for (int i = 0; i < size; i++) {
+                positions[i] = classIndex.get(classNames.get(i));
+            }
+
+            JSONArray confusionMatrix = new JSONArray();
+            long hits = 0;
+            for (int i = 0; i < size; i++) {
+                JSONArray row = new JSONArray();
+                for (int j = 0; j < size; j++) {
+                    row.add(confusion[positions[i]][positions[j]]);
+                }
+                confusionMatrix.add(row);
+                hits += confusion[positions[i]][positions[i]];
+            }
+
+            JSONArray perClass = new JSONArray();
+            String[] averaged = new String[] {"area_under_roc_curve",
+                    "balanced_accuracy", "f_measure", "phi_coefficient",
+                    "precision", "recall"};
+            double[] sums = new double[averaged.length];
+            for (int i = 0; i < size; i++) {
+                JSONObject statistics = classStatistics(positions[i]);
+                statistics.put("class_name", classNames.get(i));
+                perClass.add(statistics);
+                for (int k = 0; k < averaged.length; k++) {
+                    Object value = statistics.get(averaged[k]);
+                    if( value != null ) {
+                        sums[k] += (Double) value;
+                    }
+                }
+            }
+
+            JSONObject measures = new JSONObject();
+            measures.put("accuracy", ratio(hits, rows));
+            measures.put("average_balanced_accuracy", ratio(sums[1], size));
+            measures.put("average_f_measure", ratio(sums[2], size));
+            measures.put("average_phi", ratio(sums[3], size));
+            measures.put("average_precision", ratio(sums[4], size));
+            measures.put("average_recall", ratio(sums[5], size));
+            if( rocCurves ) {
+                measures.put("average_area_under_roc_curve",
+                        ratio(sums[0], size));
+            }
+            measures.put("confusion_matrix", confusionMatrix);
+            measures.put("per_class_statistics", perClass);
+            return measures;
+        }
+
+        /**
+         * Returns the one-vs-rest measures of a class
+         */
+        private JSONObject classStatistics(int position) {
+            long truePositives = confusion[position][position];
+            long actualPositives = 0;
+            long predictedPositives = 0;
+            for (int i = 0; i < classes.size(); i++) {
+                actualPositives += confusion[position][i];
+                predictedPositives += confusion[i][position];
+            }
+            long falsePositives = predictedPositives - truePositives;
+            long falseNegatives = actualPositives - truePositives;
+            long trueNegatives = rows - truePositives - falsePositives
+                    - falseNegatives;
+
+            double precision = ratio(truePositives, predictedPositives);
+            double recall = ratio(truePositives, actualPositives);
+            double specificity = ratio(trueNegatives,
+                    trueNegatives + falsePositives);
+            double phiDenominator = Math.sqrt((double) predictedPositives
+                    * actualPositives * (trueNegatives + falseNegatives)
+                    * (trueNegatives + falsePositives));
+
+            JSONObject statistics = new JSONObject();
+            statistics.put("accuracy",
+                    ratio(truePositives + trueNegatives, rows));
+            statistics.put("balanced_accuracy", (recall + specificity) / 2);
+            statistics.put("precision", precision);
+            statistics.put("recall", recall);
+            statistics.put("f_measure", precision + recall > 0 ?
+                    2 * precision * recall / (precision + recall) : 0.0);
+            statistics.put("phi_coefficient", phiDenominator > 0 ?
+                    ((double) truePositives * trueNegatives
+                    - (double) falsePositives * falseNegatives)
+                    / phiDenominator : 0.0);
+            statistics.put("present_in_test_data", actualPositives > 0);
+            if( rocCurves ) {
+                statistics.put("area_under_roc_curve", rocArea(position));
+            }
+            return statistics;
+        }
+
+        /**
+         * Returns the area under the ROC curve of a class, walking its bins
+         * from the highest probability to the lowest
+         */
+        private double rocArea(int position) {
+            long truePositives = 0;
+            long falsePositives = 0;
+            double area = 0;
+            for (int bin = ROC_BINS - 1; bin >= 0; bin--) {
+                long previousPositives = truePositives;
+                truePositives += positives[position][bin];
+                falsePositives += negatives[position][bin];
+                area += (double) negatives[position][bin]
+                        * (truePositives + previousPositives) / 2;
+            }
+            return ratio(area, (double) truePositives * falsePositives);
+        }
+
+        private double ratio(double numerator, double denominator) {
+            return denominator > 0 ? numerator / denominator : 0.0;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 
 import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.utils.Instrumentation;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -173,6 +174,8 @@ public class LocalFusion extends ModelFields implements SupervisedModelInterface
 							+ "Could not find the 'fusion' key in "
 							+ "the resource:\n\n%s", fusion));
 		}
+
+		recordLoadTime("fusion");
 	}
 
 	/**
@@ -223,13 +226,58 @@ public class LocalFusion extends ModelFields implements SupervisedModelInterface
     		missingStrategy = MissingStrategy.LAST_PREDICTION;
         }
 
+		MultiVoteList votes = combineVotes(inputData, missingStrategy);
+
+		JSONArray output = new JSONArray();
+		if (this.regression) {
+			double totalWeight = 1;
+			if (!this.weights.isEmpty()) {
+				totalWeight = 0;
+				for (Double w: this.weights) {
+					totalWeight += w;
+				}
+			}
+
+			double sum = 0.0;
+			for (Object votesPreds: votes.predictions) {
+				List<Double> preds = (List<Double>) votesPreds;
+				for (Double p: preds) {
+					sum += p;
+				}
+			}
+
+			float divisor = ((Double) (votes.predictions.size() * totalWeight)).floatValue();
+
+			JSONObject prediction = new JSONObject();
+			prediction.put("prediction", sum / divisor);
+			output.add(prediction);
+		} else {
+			List<Double> probabilities = votes.combineToDistribution(true);
+			for (int i = 0; i < classNames.size(); i++) {
+				JSONObject prediction = new JSONObject();
+				prediction.put("prediction", (String) classNames.get(i));
+				prediction.put("probability", probabilities.get(i));
+				output.add(prediction);
+			}
+		}
+
+		return output;
+	}
+
+	/**
+	 * Collects the probabilities predicted by the models of the fusion
+	 */
+	private MultiVoteList combineVotes(
+			JSONObject inputData, MissingStrategy missingStrategy)
+			throws Exception {
+
 		MultiVoteList votes = new MultiVoteList(null);
 
 		if (!this.missingNumerics) {
 			Utils.checkNoMissingNumerics(inputData, this.fields, null);
 		}
 
-		BigMLClient bigmlClient = new BigMLClient();
+		BigMLClient bigmlClient = getBigMLClient();
 
 		for (Object modelSplit: modelsSplit) {
 			MultiVoteList votesSplit = new MultiVoteList(null);
@@ -242,23 +290,23 @@ public class LocalFusion extends ModelFields implements SupervisedModelInterface
 
 				if ("model".equals(type)) {
 					model = bigmlClient.getModel((String) modelId);
-					models.add(new LocalPredictiveModel(model));
+					models.add(new LocalPredictiveModel(bigmlClient, model));
 				}
 				if ("ensemble".equals(type)) {
 					model = bigmlClient.getEnsemble((String) modelId);
-					models.add(new LocalEnsemble(model));
+					models.add(new LocalEnsemble(bigmlClient, model));
 				}
 				if ("logisticregression".equals(type)) {
 					model = bigmlClient.getLogisticRegression((String) modelId);
-					models.add(new LocalLogisticRegression(model));
+					models.add(new LocalLogisticRegression(bigmlClient, model));
 				}
 				if ("deepnet".equals(type)) {
 					model = bigmlClient.getDeepnet((String) modelId);
-					models.add(new LocalDeepnet(model));
+					models.add(new LocalDeepnet(bigmlClient, model));
 				}
 				if ("fusion".equals(type)) {
 					model = bigmlClient.getFusion((String) modelId);
-					models.add(new LocalFusion(model));
+					models.add(new LocalFusion(bigmlClient, model, null));
 				}
 			}
 
@@ -297,40 +345,23 @@ public class LocalFusion extends ModelFields implements SupervisedModelInterface
 			votes.extend(votesSplit);
 		}
 
-		JSONArray output = new JSONArray();
-		if (this.regression) {
-			double totalWeight = 1;
-			if (!this.weights.isEmpty()) {
-				totalWeight = 0;
-				for (Double w: this.weights) {
-					totalWeight += w;
-				}
-			}
-
-			double sum = 0.0;
-			for (Object votesPreds: votes.predictions) {
-				List<Double> preds = (List<Double>) votesPreds;
-				for (Double p: preds) {
-					sum += p;
-				}
-			}
-
-			float divisor = ((Double) (votes.predictions.size() * totalWeight)).floatValue();
+		return votes;
+	}
 
-			JSONObject prediction = new JSONObject();
-			prediction.put("prediction", sum / divisor);
-			output.add(prediction);
-		} else {
-			List<Double> probabilities = votes.combineToDistribution(true);
-			for (int i = 0; i < classNames.size(); i++) {
-				JSONObject prediction = new JSONObject();
-				prediction.put("prediction", (String) classNames.get(i));
-				prediction.put("probability", probabilities.get(i));
-				output.add(prediction);
-			}
+	/**
+	 * Computes the probability of each class, in the order of the class
+	 * names
+	 */
+	private double[] classValues(
+			JSONObject inputData, MissingStrategy missingStrategy)
+			throws Exception {
+		List<Double> probabilities = combineVotes(
+				inputData, missingStrategy).combineToDistribution(true);
+		double[] values = new double[classNames.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = probabilities.get(i);
 		}
-
-		return output;
+		return values;
 	}
 
 
@@ -378,50 +409,15 @@ public class LocalFusion extends ModelFields implements SupervisedModelInterface
         }
 
 		// only probability is allowed as operating kind
-		Object[] operating = Utils.parseOperatingPoint(
+		OperatingPoint point = compileOperatingPoint(
 				operatingPoint, OPERATING_POINT_KINDS, classNames);
+		double[] values = classValues(inputData, missingStrategy);
 
-		String kind = (String) operating[0];
-		Double threshold = (Double) operating[1];
-		String positiveClass = (String) operating[2];
-
-		if (!Arrays.asList(OPERATING_POINT_KINDS).contains(kind)) {
-			throw new IllegalArgumentException(
-					String.format("Allowed operating kinds are %", (Object[]) OPERATING_POINT_KINDS));
-		}
-
-		JSONArray predictions = predictProbability(
-				inputData, missingStrategy);
-
-		for (Object pred: predictions) {
-			HashMap<String, Object> prediction = (HashMap<String, Object>) pred;
-			String category = (String) prediction.get("category");
-			if (category == null) {
-                category = (String) prediction.get("prediction");
-            }
-
-			if (category.equals(positiveClass) &&
-					(Double) prediction.get(kind) > threshold) {
-				return prediction;
-			}
-		}
-
-		HashMap<String, Object> prediction
-			= (HashMap<String, Object>) predictions.get(0);
-		String category = (String) prediction.get("category");
-        if (category == null) {
-            category = (String) prediction.get("prediction");
-        }
-
-		if (category.equals(positiveClass)) {
-			prediction = (JSONObject) predictions.get(1);
-		}
-
-        if (prediction.get("category") != null) {
-            prediction.put("prediction", prediction.get("category"));
-            prediction.remove("category");
-        }
-		return  prediction;
+		int index = point.decide(values);
+		HashMap<String, Object> prediction = new JSONObject();
+		prediction.put("prediction", classNames.get(index));
+		prediction.put("probability", values[index]);
+		return prediction;
 	}
 
 
@@ -462,6 +458,30 @@ public class LocalFusion extends ModelFields implements SupervisedModelInterface
 			JSONObject inputData, MissingStrategy missingStrategy,
 			JSONObject operatingPoint, Boolean full)
 			throws Exception {
+		long start = Instrumentation.start();
+		try {
+			Object key = predictionKey(inputData, missingStrategy,
+					operatingPoint, full);
+			HashMap<String, Object> prediction = cachedPrediction(key);
+			if (prediction == null) {
+				prediction = cachePrediction(key, computePrediction(
+						inputData, missingStrategy, operatingPoint, full));
+			}
+			return prediction;
+		} finally {
+			if (start != 0L) {
+				Instrumentation.stop(Instrumentation.PREDICT, start,
+						"kind", "fusion", "model", getMeasuredId());
+			}
+		}
+	}
+
+	/**
+	 * Computes the prediction, see predict
+	 */
+	private HashMap<String, Object> computePrediction(
+			JSONObject inputData, MissingStrategy missingStrategy,
+			JSONObject operatingPoint, Boolean full) throws Exception {
 
 		if (missingStrategy == null) {
     		missingStrategy = MissingStrategy.LAST_PREDICTION;
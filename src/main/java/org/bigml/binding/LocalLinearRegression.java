@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.bigml.binding.utils.Instrumentation;
 import org.bigml.binding.utils.Utils;
 import org.bigml.binding.resources.AbstractResource;
 
@@ -216,6 +217,7 @@ public class LocalLinearRegression extends ModelFields {
                             + "the resource:\n\n%s", linear));
         }
 
+        recordLoadTime("linearregression");
     }
     
     /**
@@ -470,6 +472,28 @@ public class LocalLinearRegression extends ModelFields {
      */
     public HashMap<String, Object> predict(
             JSONObject inputData, Boolean full) {
+        long start = Instrumentation.start();
+        try {
+            Object key = predictionKey(inputData, full);
+            HashMap<String, Object> prediction = cachedPrediction(key);
+            if (prediction == null) {
+                prediction = cachePrediction(key,
+                        computePrediction(inputData, full));
+            }
+            return prediction;
+        } finally {
+            if (start != 0L) {
+                Instrumentation.stop(Instrumentation.PREDICT, start,
+                        "kind", "linearregression", "model", getMeasuredId());
+            }
+        }
+    }
+
+    /**
+     * Computes the prediction, see predict
+     */
+    private HashMap<String, Object> computePrediction(
+            JSONObject inputData, Boolean full) {
 
         if (full == null) {
             full = false;
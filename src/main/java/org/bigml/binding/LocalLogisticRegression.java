@@ -2,6 +2,7 @@ package org.bigml.binding;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.bigml.binding.utils.Instrumentation;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -61,6 +62,8 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
 
 	protected static final String[] OPTIONAL_FIELDS = { 
     		"categorical", "text", "items", "datetime" };
+
+	private static final String[] OPERATING_POINT_KINDS = {"probability"};
 	
 	/**
 	 * Logging
@@ -226,6 +229,7 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
 							+ "the resource:\n\n%s", logistic));
 		}
 
+		recordLoadTime("logisticregression");
 	}
 	
 	/**
@@ -297,25 +301,10 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
 	private HashMap<String, Object> predictOperating(
 			JSONObject inputData, JSONObject operatingPoint) {
 		
-		String[] operatingKinds = {"probability"};
-		Object[] operating = Utils.parseOperatingPoint(
-				operatingPoint, operatingKinds, classNames);
-		
-		String kind = (String) operating[0];
-		Double threshold = (Double) operating[1];
-		String positiveClass = (String) operating[2];
-		
-		JSONArray predictions = predictProbability(inputData);
-		for (Object pred: predictions) {
-			HashMap<String, Object> prediction 
-				= (HashMap<String, Object>) pred;
-			String category = (String) prediction.get("prediction");
-			if (category.equals(positiveClass) &&
-					(Double) prediction.get(kind) > threshold) {
-				return prediction;
-			}
-		}
-		return (HashMap<String, Object>) predictions.get(0);
+		OperatingPoint point = compileOperatingPoint(
+				operatingPoint, OPERATING_POINT_KINDS, classNames);
+		double[] values = classValues(inputData);
+		return toPrediction(values, point.decide(values));
 	}
 	
 	
@@ -325,17 +314,38 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
 	private HashMap<String, Object> predictOperatingKind(
 			JSONObject inputData, String operatingKind) {
 		
-		JSONArray predictions = null;
 		String kind = operatingKind.toLowerCase();
-		if (kind.equals("probability")) {
-			predictions = predictProbability(inputData);
-		} else {
+		if (!kind.equals("probability")) {
 			throw new IllegalArgumentException(
            		 	"Only probability is allowed as operating kind " +
                     "for logistic regressions.");
 		}
-		
-		return (HashMap<String, Object>) predictions.get(0);
+		double[] values = classValues(inputData);
+		return toPrediction(values, OperatingPoint.best(values, classNames, -1));
+	}
+	
+	/**
+	 * Computes the probability of each class, in the order of the class
+	 * names
+	 */
+	private double[] classValues(JSONObject inputData) {
+		HashMap<String, Double> probabilities = categoryProbabilities(inputData);
+		double[] values = new double[classNames.size()];
+		for (int i = 0; i < values.length; i++) {
+			Double probability = probabilities.get(classNames.get(i));
+			values[i] = probability != null ? probability : 0.0;
+		}
+		return values;
+	}
+	
+	/**
+	 * Builds the prediction of a class, with its probability
+	 */
+	private HashMap<String, Object> toPrediction(double[] values, int index) {
+		HashMap<String, Object> prediction = new JSONObject();
+		prediction.put("prediction", classNames.get(index));
+		prediction.put("probability", values[index]);
+		return prediction;
 	}
 	
 	/**
@@ -376,6 +386,30 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
 	public HashMap<String, Object> predict(
 			JSONObject inputData, JSONObject operatingPoint, 
 			String operatingKind, Boolean full) {
+		long start = Instrumentation.start();
+		try {
+			Object key = predictionKey(inputData, operatingPoint,
+					operatingKind, full);
+			HashMap<String, Object> prediction = cachedPrediction(key);
+			if (prediction == null) {
+				prediction = cachePrediction(key, computePrediction(
+						inputData, operatingPoint, operatingKind, full));
+			}
+			return prediction;
+		} finally {
+			if (start != 0L) {
+				Instrumentation.stop(Instrumentation.PREDICT, start,
+						"kind", "logisticregression", "model", getMeasuredId());
+			}
+		}
+	}
+
+	/**
+	 * Computes the prediction, see predict
+	 */
+	private HashMap<String, Object> computePrediction(
+			JSONObject inputData, JSONObject operatingPoint, 
+			String operatingKind, Boolean full) {
 		
 		if (full == null) {
 			full = false;
@@ -402,6 +436,37 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
         	return predictOperatingKind(inputData, operatingKind);
         }
         
+        // Chooses the most probable category as prediction
+        HashMap<String, Double> probabilities = categoryProbabilities(inputData);
+        JSONArray distribution = new JSONArray();
+        for (Map.Entry<String, Double> entry: probabilities.entrySet()) {
+        	JSONObject probabilityCategory = new JSONObject();
+        	probabilityCategory.put("prediction", entry.getKey());
+        	probabilityCategory.put("probability", entry.getValue());
+        	distribution.add(probabilityCategory);
+        }
+        
+        Utils.sortPredictions(distribution, "probability", "prediction");
+        JSONObject prediction = (JSONObject) distribution.get(0);
+        
+        HashMap<String, Object> result = new HashMap<String, Object>();
+        result.put("prediction", (String) prediction.get("prediction"));
+        result.put("probability", (Double) prediction.get("probability"));
+        result.put("distribution", distribution);
+        
+        if (full) {
+        	result.put("unused_fields", unusedFields);
+        }
+        
+		return result;
+	}
+	
+	
+	/**
+	 * Computes the normalized probability of each category. The input
+	 * data must be already filtered and cast.
+	 */
+	private HashMap<String, Double> categoryProbabilities(JSONObject inputData) {
         // In case that missing_numerics is False, checks that all numeric
         // fields are present in input data.
         if (!this.missingNumerics) {
@@ -416,65 +481,23 @@ public class LocalLogisticRegression extends ModelFields implements SupervisedMo
         Map<String, Object> uniqueTerms = uniqueTerms(inputData);
         
         // Computes the contributions for each category
-        JSONObject probabilities = new JSONObject();
+        HashMap<String, Double> probabilities = new HashMap<String, Double>();
         double total = 0;
         
         for (Object coeff : coefficients.keySet()) {
         	String category = (String) coeff;
         	double probability = categoryProbability(
         			inputData, uniqueTerms, category);
-        	
-        	JSONArray objectiveFieldCategory = 
-        		(JSONArray) categories.get(objectiveField);
-        	int order = objectiveFieldCategory.indexOf(category);
-        	if (order == -1) {
-        		if (category.equals("")) {
-        			order = objectiveFieldCategory.size();
-        		}
-        	}
-        	
-        	JSONObject probabilityCategory = new JSONObject();
-        	probabilityCategory.put("prediction", category);
-        	probabilityCategory.put("probability", probability);
-        	probabilityCategory.put("order", order);
-   
-        	probabilities.put(category, probabilityCategory);
+        	probabilities.put(category, probability);
         	total += probability;
         }
         
         // Normalizes the contributions to get a probability
-        for (Object category: probabilities.keySet()) {
-        	JSONObject probabilityCategory = (JSONObject)
-        			probabilities.get(category);
-        	double probability = ((Number) 
-        		probabilityCategory.get("probability")).doubleValue();
-        	probability /= total;
-        	probabilityCategory.put("probability", 
-        			Utils.roundOff(probability, Constants.PRECISION));
+        for (Map.Entry<String, Double> entry: probabilities.entrySet()) {
+        	entry.setValue(Utils.roundOff(
+        			entry.getValue() / total, Constants.PRECISION));
         }
-        
-        // Chooses the most probable category as prediction
-        JSONArray distribution = new JSONArray();
-        for (Object category: probabilities.keySet()) {
-        	JSONObject probabilityCategory = (JSONObject)
-        			probabilities.get(category);
-        	probabilityCategory.remove("order");
-        	distribution.add(probabilityCategory);
-        }
-        
-        Utils.sortPredictions(distribution, "probability", "prediction");
-        JSONObject prediction = (JSONObject) distribution.get(0);
-        
-        HashMap<String, Object> result = new HashMap<String, Object>();
-        result.put("prediction", (String) prediction.get("prediction"));
-        result.put("probability", (Double) prediction.get("probability"));
-        result.put("distribution", distribution);
-        
-        if (full) {
-        	result.put("unused_fields", unusedFields);
-        }
-        
-		return result;
+        return probabilities;
 	}
 	
 	
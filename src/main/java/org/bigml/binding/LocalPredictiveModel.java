@@ -38,11 +38,15 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.bigml.binding.localmodel.AbstractTree;
 import org.bigml.binding.localmodel.BoostedTree;
+import org.bigml.binding.localmodel.CompiledTree;
 import org.bigml.binding.localmodel.Predicate;
 import org.bigml.binding.localmodel.Prediction;
 import org.bigml.binding.localmodel.Tree;
+import org.bigml.binding.localmodel.TreeCompiler;
 import org.bigml.binding.localmodel.TreeNodeFilter;
 import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.utils.Instrumentation;
+import org.bigml.binding.utils.JSONStreamReader;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -94,12 +98,61 @@ public class LocalPredictiveModel extends ModelFields
     private JSONObject boosting = null;
     private List<String> classNames = new ArrayList<String>();
     private String defaultNumericValue = null;
+    private boolean explain = true;
+    private transient CompiledTree compiledTree = null;
 
 
     public LocalPredictiveModel(JSONObject model) throws Exception {
         this(null, model);
     }
 
+    /**
+     * The sections of the JSON of a model that aren't needed to predict:
+     * the field importance and the histograms of the summaries of the
+     * fields. The statistics of the summaries are kept, as they're used
+     * to fill the missing numeric values.
+     */
+    public static final List<String> PREDICTION_SKIPPED_PATHS =
+        Collections.unmodifiableList(Arrays.asList(
+            "object.model.importance",
+            "object.model.fields.*.summary.bins",
+            "object.model.fields.*.summary.counts",
+            "object.model.model_fields.*.summary.bins",
+            "object.model.model_fields.*.summary.counts"));
+
+    /**
+     * Creates a local model from a stream of its JSON, as downloaded from
+     * the API, without reading the sections that predictions don't use.
+     * The model can't be summarized, as its field importance is skipped.
+     *
+     * @param input
+     *            the stream of the JSON of the model, closed afterwards
+     *
+     * @return the local model
+     */
+    public static LocalPredictiveModel read(InputStream input)
+            throws Exception {
+        return read(input, PREDICTION_SKIPPED_PATHS);
+    }
+
+    /**
+     * Creates a local model from a stream of its JSON, skipping some of
+     * its sections.
+     *
+     * @param input
+     *            the stream of the JSON of the model, closed afterwards
+     * @param skipped
+     *            the paths of the sections to skip, as in
+     *            JSONStreamReader.read. None is skipped if null.
+     *
+     * @return the local model
+     */
+    public static LocalPredictiveModel read(InputStream input,
+            Collection<String> skipped) throws Exception {
+        return new LocalPredictiveModel(
+            (JSONObject) JSONStreamReader.read(input, skipped));
+    }
+
 
     public LocalPredictiveModel(
         	BigMLClient bigmlClient, JSONObject model) throws Exception {
@@ -147,19 +200,6 @@ public class LocalPredictiveModel extends ModelFields
 
             super.initialize(fields, objectiveField, null, null);
 
-            JSONArray modelFieldImportance = (JSONArray) Utils.getJSONObject(model, "model.importance", null);
-
-            if (modelFieldImportance != null) {
-                fieldImportance = new JSONArray();
-
-                for (Object element : modelFieldImportance) {
-                    JSONArray elementItem = (JSONArray) element;
-                    if (fields.containsKey(elementItem.get(0).toString())) {
-                        fieldImportance.add(elementItem);
-                    }
-                }
-            }
-
             // boosting models are to be handled using the BoostedTree
             // class
         	boolean boostedEnsemble = (Boolean) Utils.getJSONObject(
@@ -178,8 +218,6 @@ public class LocalPredictiveModel extends ModelFields
 
             this.root = (JSONObject) Utils.getJSONObject(model, "model.root");
 
-            this.idsMap = new HashMap<String, Tree>();
-
             if (isBoosting()) {
             	this.boostedTree = new BoostedTree(
             			root, this.fields, objectiveField);
@@ -191,7 +229,7 @@ public class LocalPredictiveModel extends ModelFields
             	JSONObject treeInfo = new JSONObject();
             	treeInfo.put("max_bins", maxBins);
             	this.tree = new Tree(root, this.fields, objectiveField,
-            			distribution, null, idsMap, true, treeInfo);
+            			distribution, null, null, true, treeInfo);
 
             	if (this.tree.isRegression()) {
                     this.maxBins = this.tree.getMaxBins();
@@ -208,6 +246,8 @@ public class LocalPredictiveModel extends ModelFields
             	}
             }
         }
+
+        recordLoadTime("model");
     }
 
     /**
@@ -668,6 +708,34 @@ public class LocalPredictiveModel extends ModelFields
 			JSONObject inputData, MissingStrategy missingStrategy,
 			JSONObject operatingPoint, String operatingKind, Boolean full,
 			List<String> unusedFields) throws Exception {
+        long start = Instrumentation.start();
+        try {
+            // the path is only in the predictions made with explain
+            Object key = predictionKey(inputData, missingStrategy,
+                    operatingPoint, operatingKind, full, unusedFields,
+                    explain);
+            Prediction prediction = cachedPrediction(key);
+            if (prediction == null) {
+                prediction = cachePrediction(key, computePrediction(
+                        inputData, missingStrategy, operatingPoint,
+                        operatingKind, full, unusedFields));
+            }
+            return prediction;
+        } finally {
+            if (start != 0L) {
+                Instrumentation.stop(Instrumentation.PREDICT, start,
+                        "kind", "model", "model", getMeasuredId());
+            }
+        }
+    }
+
+    /**
+     * Computes the prediction, see predict
+     */
+    private Prediction computePrediction(
+			JSONObject inputData, MissingStrategy missingStrategy,
+			JSONObject operatingPoint, String operatingKind, Boolean full,
+			List<String> unusedFields) throws Exception {
 
     	if (missingStrategy == null) {
     		missingStrategy = MissingStrategy.LAST_PREDICTION;
@@ -711,9 +779,20 @@ public class LocalPredictiveModel extends ModelFields
         	return predictOperatingKind(inputData, missingStrategy, operatingKind);
         }
 
-        Prediction prediction = isBoosting() ?
-        		this.boostedTree.predict(inputData, null, missingStrategy) :
-        		this.tree.predict(inputData, null, missingStrategy);
+        long start = Instrumentation.start();
+        Prediction prediction;
+        if (compiledTree != null
+                && missingStrategy == MissingStrategy.LAST_PREDICTION) {
+            prediction = compiledTree.predict(inputData, explain);
+        } else {
+            prediction = isBoosting() ?
+                this.boostedTree.predict(inputData, null, missingStrategy) :
+                this.tree.predict(inputData, null, missingStrategy, explain);
+        }
+        if (start != 0L) {
+            Instrumentation.stop(Instrumentation.TREE_TRAVERSAL, start,
+                    "model", getMeasuredId());
+        }
 
         if (isBoosting() && missingStrategy == MissingStrategy.PROPORTIONAL) {
         	// output has to be recomputed and comes in a different format
@@ -755,6 +834,52 @@ public class LocalPredictiveModel extends ModelFields
 		return prediction;
 	}
 
+    /**
+     * Sets whether the predictions include the rules that lead to them.
+     * Building the rules costs more than checking the predicates, so when
+     * set to false predictions are made faster and the rules are only
+     * built when requested through Prediction.getPath.
+     *
+     * @param explain	whether to build the path of the predictions
+     */
+    public void setExplain(boolean explain) {
+    	this.explain = explain;
+    }
+
+    public boolean isExplain() {
+    	return explain;
+    }
+
+    /**
+     * Compiles the tree of the model to a Java class, see TreeCompiler.
+     * Once compiled, the predictions with the last prediction strategy
+     * use the compiled tree and give the same results faster. The rest
+     * of strategies keep using the interpreted tree.
+     *
+     * The compilation needs the compiler of a JDK.
+     *
+     * @throws Exception if the tree cannot be compiled
+     */
+    public void compile() throws Exception {
+    	setCompiledTree(TreeCompiler.compile(getRootTree()));
+    }
+
+    /**
+     * Returns the compiled tree of the model, or null if it has not been
+     * compiled
+     */
+    public CompiledTree getCompiledTree() {
+    	return compiledTree;
+    }
+
+    void setCompiledTree(CompiledTree compiledTree) {
+    	this.compiledTree = compiledTree;
+    }
+
+    AbstractTree getRootTree() {
+    	return isBoosting() ? boostedTree : tree;
+    }
+
     /**
      * Computes the probability of a distribution using a Laplacian correction
      */
@@ -829,6 +954,42 @@ public class LocalPredictiveModel extends ModelFields
 		return output;
 	}
 
+    /**
+     * Predicts the output of a classification model and the probability
+     * of each class, traversing the tree once. It gives the prediction of
+     * predict with the class probabilities of predictProbability.
+     *
+     * @param inputData			Input data to be predicted
+     * @param missingStrategy	LAST_PREDICTION|PROPORTIONAL missing strategy
+     *                        	for missing fields
+     *
+     * @return the prediction, its confidence and probability, and the
+     *         probability of each class under the "class_probabilities"
+     *         key, in the order of the class names
+     * @throws Exception a generic exception
+     */
+    public JSONObject predictWithProbabilities(
+			JSONObject inputData, MissingStrategy missingStrategy)
+    		throws Exception {
+    	if (isBoosting() || isRegression()) {
+    		throw new IllegalStateException(
+    				"Class probabilities are only available for classifications");
+    	}
+    	Prediction prediction = predict(inputData, missingStrategy,
+    			null, null, true);
+    	HashMap<String, Double> categoryMap = probabilities(
+    			(JSONArray) prediction.get("distribution"));
+
+    	JSONObject result = new JSONObject();
+    	result.put("prediction", prediction.getPrediction());
+    	result.put("confidence", prediction.getConfidence());
+    	Double probability = categoryMap.get(prediction.getPrediction());
+    	result.put("probability", probability != null ?
+    			Utils.roundOff(probability, Constants.PRECISION) : null);
+    	result.put("class_probabilities", toOutput(categoryMap, "probability"));
+    	return result;
+    }
+
     /**
 	 * For classification models, Predicts a confidence for
      * each possible output class, based on input values.  The input
@@ -863,24 +1024,28 @@ public class LocalPredictiveModel extends ModelFields
 			}
 		}
 
+		prediction = predict(inputData, missingStrategy,
+				 null, null, true);
+		return toOutput(confidences(
+				(JSONArray) prediction.get("distribution")), "confidence");
+    }
+
+    /**
+     * Computes the confidence of each class of the model in a distribution
+     */
+    private HashMap<String, Double> confidences(JSONArray distribution) {
 		HashMap<String, Double> categoryMap = new HashMap<String, Double>();
-		JSONArray distribution = tree.getDistribution();
-		for (Object item : distribution) {
+		for (Object item : tree.getDistribution()) {
             JSONArray distInfo = (JSONArray) item;
             categoryMap.put((String) distInfo.get(0), 0.0);
 		}
 
-		prediction = predict(inputData, missingStrategy,
-				 null, null, true);
-		distribution = (JSONArray) prediction.get("distribution");
-
 		for (Object item : distribution) {
             JSONArray distInfo = (JSONArray) item;
             String name = (String) distInfo.get(0);
             categoryMap.put(name, Tree.wsConfidence(name, distribution));
 		}
-
-		return toOutput(categoryMap, "confidence");
+		return categoryMap;
     }
 
     /**
@@ -890,43 +1055,11 @@ public class LocalPredictiveModel extends ModelFields
 			JSONObject inputData, MissingStrategy missingStrategy,
 			JSONObject operatingPoint) throws Exception {
 
-		if (missingStrategy == null) {
-       		missingStrategy = MissingStrategy.LAST_PREDICTION;
-        }
-
-		Object[] operating = Utils.parseOperatingPoint(
+		OperatingPoint point = compileOperatingPoint(
 				operatingPoint, OPERATING_POINT_KINDS, classNames);
-		String kind = (String) operating[0];
-		Double threshold = (Double) operating[1];
-		String positiveClass = (String) operating[2];
-
-		JSONArray predictions = null;
-   		if (kind.equals("probability")) {
-   			predictions = predictProbability(inputData, missingStrategy);
-   		} else {
-   			predictions = predictConfidence(inputData, missingStrategy);
-   		}
-
-   		for (Object pred: predictions) {
-   			Prediction prediction = (Prediction) pred;
-			String category = (String) prediction.get("category");
-			if (category.equals(positiveClass) &&
-					(Double) prediction.get(kind) > threshold) {
-				prediction.put("prediction", prediction.get("category"));
-		   		prediction.remove("category");
-				return prediction;
-			}
-		}
-
-   		Prediction prediction = (Prediction) predictions.get(0);
-   		String category = (String) prediction.get("category");
-		if (category.equals(positiveClass)) {
-			prediction = (Prediction) predictions.get(1);
-		}
-   		prediction.put("prediction", prediction.get("category"));
-   		prediction.remove("category");
-
-   		return prediction;
+		double[] values = classValues(
+				inputData, missingStrategy, point.getKind());
+		return toPrediction(point.getKind(), values, point.decide(values));
 	}
 
 
@@ -937,34 +1070,104 @@ public class LocalPredictiveModel extends ModelFields
    			JSONObject inputData, MissingStrategy missingStrategy,
    			String operatingKind) throws Exception {
 
-   		if (missingStrategy == null) {
-       		missingStrategy = MissingStrategy.LAST_PREDICTION;
-        }
-
    		String kind = operatingKind.toLowerCase();
    		if (!Arrays.asList(OPERATING_POINT_KINDS).contains(kind)) {
    			throw new IllegalArgumentException(
    					String.format("Allowed operating kinds are %", (Object[]) OPERATING_POINT_KINDS));
    		}
 
-   		JSONArray predictions = null;
-   		if (kind.equals("probability")) {
-   			predictions = predictProbability(inputData, missingStrategy);
-   		} else {
-   			predictions = predictConfidence(inputData, missingStrategy);
+   		double[] values = classValues(inputData, missingStrategy, kind);
+   		return toPrediction(kind, values,
+   				OperatingPoint.best(values, classNames, -1));
+   	}
+
+
+   	/**
+   	 * Computes the probability or the confidence of each class, in the
+   	 * order of the class names, with a single traversal of the tree.
+   	 * The input data must be already filtered and cast.
+   	 */
+   	private double[] classValues(JSONObject inputData,
+   			MissingStrategy missingStrategy, String kind) {
+   		if (isBoosting()) {
+   			throw new IllegalArgumentException(
+   					"This method is available for non-boosting" +
+   					" models only.");
    		}
 
-   		sortPredictions(predictions, kind);
+   		JSONArray distribution = (JSONArray) this.tree.predict(
+   				inputData, null, missingStrategy, false).get("distribution");
+   		HashMap<String, Double> categoryMap = "probability".equals(kind) ?
+   				probabilities(distribution) : confidences(distribution);
 
-   		Prediction prediction = (Prediction) predictions.get(0);
-   		prediction.put("prediction", prediction.get("category"));
-   		prediction.remove("category");
+   		double[] values = new double[classNames.size()];
+   		for (int i = 0; i < values.length; i++) {
+   			values[i] = Utils.roundOff(
+   					categoryMap.get(classNames.get(i)), Constants.PRECISION);
+   		}
+   		return values;
+   	}
 
+
+   	/**
+   	 * Builds the prediction of a class, with its value of the given kind
+   	 */
+   	private Prediction toPrediction(String kind, double[] values, int index) {
+   		Prediction prediction = new Prediction();
+   		prediction.put("prediction", classNames.get(index));
+   		prediction.put(kind, values[index]);
    		return prediction;
    	}
 
 
 
+    /**
+     * Returns the map of node ids to tree nodes. It's only needed to filter
+     * the rules, so it's built the first time it's requested.
+     */
+    private synchronized Map<String, Tree> getIdsMap() {
+        if( idsMap == null ) {
+            Map<String, Tree> nodes = new HashMap<String, Tree>();
+            Deque<Tree> pending = new ArrayDeque<Tree>();
+            pending.push(tree);
+            while( !pending.isEmpty() ) {
+                Tree node = pending.pop();
+                if( node.getId() != null ) {
+                    nodes.put(node.getId(), node);
+                }
+                for (Tree child : node.getChildren()) {
+                    pending.push(child);
+                }
+            }
+            idsMap = nodes;
+        }
+        return idsMap;
+    }
+
+    /**
+     * Returns the field importance of the model restricted to the fields
+     * used in it. It's only needed to summarize the model, so it's read
+     * from the model JSON the first time it's requested.
+     */
+    protected synchronized JSONArray getFieldImportance() {
+        if( fieldImportance == null ) {
+            JSONArray modelFieldImportance = (JSONArray) Utils.getJSONObject(
+                model, "model.importance", null);
+
+            if (modelFieldImportance != null) {
+                fieldImportance = new JSONArray();
+
+                for (Object element : modelFieldImportance) {
+                    JSONArray elementItem = (JSONArray) element;
+                    if (fields.containsKey(elementItem.get(0).toString())) {
+                        fieldImportance.add(elementItem);
+                    }
+                }
+            }
+        }
+        return fieldImportance;
+    }
+
     /**
      * Builds the list of ids that go from a given id to the tree root
      * 
@@ -977,6 +1180,7 @@ public class LocalPredictiveModel extends ModelFields
 
         if( (filterId != null && filterId.length() > 0 ) &&
                 (tree.getId() != null && tree.getId().length() > 0) ) {
+            Map<String, Tree> idsMap = getIdsMap();
             if( !idsMap.containsKey(filterId) ) {
                 throw new IllegalArgumentException(
                         String.format("The given id for the filter does " +
@@ -1457,7 +1661,7 @@ public class LocalPredictiveModel extends ModelFields
         if( addFieldImportance ) {
             summarize.append("Field importance:\n");
             int count = 1;
-            for (Object fieldItem : fieldImportance) {
+            for (Object fieldItem : getFieldImportance()) {
                 String fieldId = ((JSONArray) fieldItem).get(0).toString();
                 double importance = ((Number) ((JSONArray) fieldItem).get(1)).doubleValue();
                 summarize.append(String.format("    %s. %s: %.2f%%\n", count++,
@@ -1711,26 +1915,4 @@ public class LocalPredictiveModel extends ModelFields
         }
     }
 
-   	/**
-	  * Sorts the categories in the predicted node according to the
-      *  given criteria
-	  *
-	  */
-	 private void sortPredictions(JSONArray predictions, final String property) {
-		Collections.sort(predictions, new Comparator<Prediction>() {
-         @Override
-         public int compare(Prediction o1, Prediction o2) {
-         	Double o1p = (Double) o1.get(property);
-         	Double o2p = (Double) o2.get(property);
-
-         	if (o1p.doubleValue() == o2p.doubleValue()) {
-         		return ((String) o1.get("category")).
-                 		compareTo(((String) o2.get("category")));
-         	}
-
-             return o2p.compareTo(o1p);
-         }
-     });
-	}
-
 }
@@ -58,7 +58,6 @@ public class LocalTopicModel extends ModelFields implements Serializable {
 	private Boolean caseSensitive = false;
 	private Boolean bigrams = false;
 	private Integer ntopics;
-	private Double[] temp;
 	private Double[][] phi;
 	private HashMap<String, Integer> termToIndex;
 	private JSONArray topics;
@@ -111,11 +110,6 @@ public class LocalTopicModel extends ModelFields implements Serializable {
 
 				Double beta = (Double) model.get("beta");
 
-				this.temp = new Double[this.ntopics];
-				for (int i = 0; i < this.ntopics; i++) {
-					this.temp[i] = 0d;
-				}
-
 				int nterms = termToIndex.size();
 				
 				Long[] sums = new Long[this.ntopics];
@@ -336,6 +330,8 @@ public class LocalTopicModel extends ModelFields implements Serializable {
     	for (int i = 0; i < this.ntopics; i++) {
 			counts[i] = 0;
 		}
+    	// scratch of the call, so that the model can be shared by threads
+    	double[] temp = new double[this.ntopics];
     	
     	for (int i = 0; i < updates; i++) {
 
@@ -344,18 +340,18 @@ public class LocalTopicModel extends ModelFields implements Serializable {
     			for (int k = 0; k < this.ntopics; k++) {
     				double topicTerm = this.phi[k][term];
     				double topicDocument = (assignments[k] + this.alpha) / normalizer;
-    				this.temp[k] = topicTerm * topicDocument;
+    				temp[k] = topicTerm * topicDocument;
     			}
     			
     			for (int k = 1; k < this.ntopics; k++) {
-    				this.temp[k] += this.temp[k -1];
+    				temp[k] += temp[k -1];
     			}
     			
     			double randomValue = rng.nextDouble() * 
-    								 this.temp[this.temp.length-1];
+    								 temp[temp.length-1];
     			
     			int topic = 0;
-    			while (this.temp[topic] < randomValue && topic < this.ntopics) {
+    			while (temp[topic] < randomValue && topic < this.ntopics) {
     				topic++;
     			}
     			
@@ -380,24 +376,26 @@ public class LocalTopicModel extends ModelFields implements Serializable {
     	for (int i = 0; i < this.ntopics; i++) {
 			counts[i] = 0;
 		}
+    	// scratch of the call, so that the model can be shared by threads
+    	double[] temp = new double[this.ntopics];
     	
     	for (int i = 0; i < updates; i++) {
 
     		for(Integer term: doc) {
     			
     			for (int k = 0; k < this.ntopics; k++) {
-    				this.temp[k] = this.phi[k][term];
+    				temp[k] = this.phi[k][term];
     			}
     			
     			for (int k = 1; k < this.ntopics; k++) {
-    				this.temp[k] += this.temp[k -1];
+    				temp[k] += temp[k -1];
     			}
     			
     			double randomValue = rng.nextDouble() * 
-    								 this.temp[this.temp.length-1];
+    								 temp[temp.length-1];
     			
     			int topic = 0;
-    			while (this.temp[topic] < randomValue && 
+    			while (temp[topic] < randomValue && 
     					randomValue < this.ntopics) {
     				topic++;
     			}
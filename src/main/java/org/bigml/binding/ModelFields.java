@@ -2,6 +2,7 @@ package org.bigml.binding;
 
 import org.apache.commons.text.StringEscapeUtils;
 import org.bigml.binding.utils.Chronos;
+import org.bigml.binding.utils.Instrumentation;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -33,6 +34,31 @@ public abstract class ModelFields implements Serializable {
 
 	public static String[] DEFAULT_MISSING_TOKENS = Fields.DEFAULT_MISSING_TOKENS;
 
+	/**
+	 * Calendar fields for each datetime subfield type
+	 */
+	private static final Map<String, Integer> DATE_TYPES = new HashMap<String, Integer>();
+	static {
+		DATE_TYPES.put("era", Calendar.ERA);
+		DATE_TYPES.put("year", Calendar.YEAR);
+		DATE_TYPES.put("month", Calendar.MONTH);
+		DATE_TYPES.put("day-of-month", Calendar.DAY_OF_MONTH);
+		DATE_TYPES.put("day-of-week", Calendar.DAY_OF_WEEK);
+		DATE_TYPES.put("week-of-month", Calendar.WEEK_OF_MONTH);
+		DATE_TYPES.put("day-of-week-in-month", Calendar.DAY_OF_WEEK_IN_MONTH);
+		DATE_TYPES.put("am-pm", Calendar.AM_PM);
+		DATE_TYPES.put("hour", Calendar.HOUR_OF_DAY);
+		DATE_TYPES.put("hour-of-day", Calendar.HOUR_OF_DAY);
+		DATE_TYPES.put("minute", Calendar.MINUTE);
+		DATE_TYPES.put("second", Calendar.SECOND);
+		DATE_TYPES.put("millisecond", Calendar.MILLISECOND);
+	}
+
+	/**
+	 * Maximum number of raw dates whose expanded subfields are kept
+	 */
+	private static final int EXPANDED_DATES_CACHE_SIZE = 1024;
+
 	public static HashMap<String, String> FIELDS_PARENT = new HashMap<String, String>();
 	static {
 		FIELDS_PARENT.put("cluster", "clusters");
@@ -69,6 +95,27 @@ public abstract class ModelFields implements Serializable {
 	protected JSONObject categories = new JSONObject();
 	protected JSONObject numericFields = new JSONObject();
 
+	// datetime information derived from the fields. It's rebuilt when the
+	// fields structure is replaced.
+	private transient volatile JSONObject datetimeSource = null;
+	private transient Map<String, JSONArray> datetimeFormats = null;
+	private transient Map<String, JSONObject> datetimeSubfields = null;
+	private transient Map<String, Map<String, Integer>> expandedDates = null;
+
+	// Lookup set for the missing tokens. It's rebuilt when the list of
+	// missing tokens is replaced.
+	private transient volatile List<String> missingTokensSource = null;
+	private transient volatile Set<Object> missingTokensSet = null;
+
+	// start time of the construction, or 0 if it's not measured
+	private transient long loadStart = Instrumentation.start();
+
+	// cache of the predictions, or null if they are not cached
+	private transient volatile PredictionCache predictionCache = null;
+
+	// last operating point compiled by the model
+	private transient volatile OperatingPoint operatingPoint = null;
+
 	/**
 	 * The constructor can be instantiated with nothing inside.
 	 *
@@ -89,6 +136,8 @@ public abstract class ModelFields implements Serializable {
 	protected ModelFields(BigMLClient bigmlClient, JSONObject model) 
 			throws Exception {
 		
+		this.bigmlClient = bigmlClient;
+
 		// checks whether the information needed for local predictions 
  		// is in the model argument
  		if (!checkModelFields(model)) {
@@ -126,6 +175,31 @@ public abstract class ModelFields implements Serializable {
  		this.model = model;
 	}
 	
+	/**
+	 * Records the time spent since the construction of the model started,
+	 * if it's measured.
+	 *
+	 * @param kind	the kind of model
+	 */
+	protected void recordLoadTime(String kind) {
+		if (loadStart != 0L) {
+			Instrumentation.stop(Instrumentation.MODEL_LOAD, loadStart,
+					"kind", kind, "model", getMeasuredId());
+			loadStart = 0L;
+		}
+	}
+
+	/**
+	 * Returns the id of the model that tags its measures
+	 */
+	protected String getMeasuredId() {
+		if (modelId != null) {
+			return modelId;
+		}
+		Object resource = model != null ? model.get("resource") : null;
+		return resource != null ? resource.toString() : "unknown";
+	}
+
 	/**
 	 * Inits BigMLClient
 	 * 
@@ -138,7 +212,21 @@ public abstract class ModelFields implements Serializable {
 		this.bigmlClient =
             (bigmlClient != null)
                 ? bigmlClient
-                : new BigMLClient(null, null, BigMLClient.STORAGE);
+                : BigMLClient.getInstance();
+	}
+
+	/**
+	 * Returns the client used to retrieve the resources of the model: the
+	 * one given to the constructor or, if none, the shared client built
+	 * from the default settings.
+	 *
+	 * @throws Exception	if there is no client and no default credentials
+	 */
+	protected BigMLClient getBigMLClient() throws Exception {
+		if (this.bigmlClient == null) {
+			initBigML(null);
+		}
+		return this.bigmlClient;
 	}
 
 	/**
@@ -483,11 +571,19 @@ public abstract class ModelFields implements Serializable {
 	/**
 	 * Retrieves all the values of the subfields from a given date
 	 */
-	private Map<String, Integer> expandDate(Object date, JSONObject subfields, JSONArray formats) {
-		Map<String, Integer> expanded = new HashMap<String, Integer>();
+	private Map<String, Integer> expandDate(String name, Object date,
+			JSONObject subfields, JSONArray formats) {
+		String key = name + "\u0000" + date;
+		Map<String, Integer> expanded = expandedDates.get(key);
+		if (expanded != null) {
+			return expanded;
+		}
 
+		expanded = new HashMap<String, Integer>();
 		GregorianCalendar cal = new GregorianCalendar();
 		try {
+			// the first of the formats of the field that matches, in the
+			// order they are declared
 			Date parsedDate = Chronos.parse((String) date, formats);
 			if (parsedDate == null) {
 				return expanded;
@@ -497,26 +593,11 @@ public abstract class ModelFields implements Serializable {
 			return expanded;
 		}
 
-		for (Object key : subfields.keySet()) {
-			String fieldId = (String) key;
+		for (Object subfieldId : subfields.keySet()) {
+			String fieldId = (String) subfieldId;
 			String datePeriod = (String) subfields.get(fieldId);
 
-			HashMap<String, Integer> dateTypes = new HashMap<String, Integer>();
-			dateTypes.put("era", Calendar.ERA);
-			dateTypes.put("year", Calendar.YEAR);
-			dateTypes.put("month", Calendar.MONTH);
-			dateTypes.put("day-of-month", Calendar.DAY_OF_MONTH);
-			dateTypes.put("day-of-week", Calendar.DAY_OF_WEEK);
-			dateTypes.put("week-of-month", Calendar.WEEK_OF_MONTH);
-			dateTypes.put("day-of-week-in-month", Calendar.DAY_OF_WEEK_IN_MONTH);
-			dateTypes.put("am-pm", Calendar.AM_PM);
-			dateTypes.put("hour", Calendar.HOUR_OF_DAY);
-			dateTypes.put("hour-of-day", Calendar.HOUR_OF_DAY);
-			dateTypes.put("minute", Calendar.MINUTE);
-			dateTypes.put("second", Calendar.SECOND);
-			dateTypes.put("millisecond", Calendar.MILLISECOND);
-
-			Integer value = cal.get(dateTypes.get(datePeriod));
+			Integer value = cal.get(DATE_TYPES.get(datePeriod));
 			if ("month".equals(datePeriod)) {
 				value += 1;
 			}
@@ -527,9 +608,39 @@ public abstract class ModelFields implements Serializable {
 			expanded.put(fieldId, value);
 		}
 
+		expanded = Collections.unmodifiableMap(expanded);
+		expandedDates.put(key, expanded);
 		return expanded;
 	}
 
+	/**
+	 * Builds the datetime formats and subfields of the fields the first
+	 * time they are needed or when the fields have been replaced
+	 */
+	private void initDatetimeInfo() {
+		// the volatile source is written last, so the rest of the
+		// information is visible once it matches the fields
+		if (datetimeSource == this.fields && datetimeSubfields != null) {
+			return;
+		}
+		synchronized (this) {
+			if (datetimeSource != this.fields || datetimeSubfields == null) {
+				datetimeFormats = getDatetimeFormats();
+				datetimeSubfields = getDatetimeSubfields(this.fields);
+				expandedDates = Collections.synchronizedMap(
+					new LinkedHashMap<String, Map<String, Integer>>(16, 0.75f, true) {
+						private static final long serialVersionUID = 1L;
+
+						protected boolean removeEldestEntry(
+								Map.Entry<String, Map<String, Integer>> eldest) {
+							return size() > EXPANDED_DATES_CACHE_SIZE;
+						}
+					});
+				datetimeSource = this.fields;
+			}
+		}
+	}
+
 
 	/**
 	 * Returns the values for all the subfields from all the datetime
@@ -543,15 +654,19 @@ public abstract class ModelFields implements Serializable {
 	 */
 	protected Map<String, Object> expandDatetimeFields(JSONObject inputData) {
 		Map<String, Object> expanded = new HashMap<String, Object>();
-		Map<String, JSONArray> timeFormats = getDatetimeFormats();
-		Map<String, JSONObject> subfields = getDatetimeSubfields(this.fields);
+		initDatetimeInfo();
+		Map<String, JSONArray> timeFormats = datetimeFormats;
+		Map<String, JSONObject> subfields = datetimeSubfields;
+		if (subfields.isEmpty()) {
+			return expanded;
+		}
 
 		for (Object nameObj : inputData.keySet()) {
 			String name = (String) nameObj;
 			Object date = inputData.get(name);
 			if (subfields.containsKey(name)) {
 				JSONArray formats = timeFormats.get(name);
-				expanded.putAll(expandDate(date, subfields.get(name), formats));
+				expanded.putAll(expandDate(name, date, subfields.get(name), formats));
 			}
 		}
 
@@ -573,6 +688,18 @@ public abstract class ModelFields implements Serializable {
 	 */
 	protected JSONObject filterInputData(JSONObject inputData,
 			Boolean addUnusedFields) {
+		long start = Instrumentation.start();
+		try {
+			return filterInputDataFields(inputData, addUnusedFields);
+		} finally {
+			if (start != 0L) {
+				Instrumentation.stop(Instrumentation.FILTER_INPUT, start);
+			}
+		}
+	}
+
+	private JSONObject filterInputDataFields(JSONObject inputData,
+			Boolean addUnusedFields) {
 
 		if (addUnusedFields == null) {
 			addUnusedFields = false;
@@ -580,27 +707,22 @@ public abstract class ModelFields implements Serializable {
 
 		Map<String, Object> datetimeFields = expandDatetimeFields(inputData);
 
-		// remove all missing values
-		Iterator<String> fieldIdItr = inputData.keySet().iterator();
-		while (fieldIdItr.hasNext()) {
-			String fieldId = fieldIdItr.next();
-			Object value = inputData.get(fieldId);
-			value = normalize(value);
-			if (value == null) {
-				fieldIdItr.remove();
-			}
-		}
-
 		JSONObject newInputData = new JSONObject();
 		List<String> unusedFields = new ArrayList<String>();
 		for (Object fieldId : inputData.keySet()) {
 			Object value = inputData.get(fieldId);
 
+			// the missing values are left out, without changing the
+			// input data of the caller
+			if (normalize(value) == null) {
+				continue;
+			}
+
 			if (fieldsIdByName.containsKey(fieldId)) {
 				fieldId = fieldsIdByName.get(fieldId.toString());
 			}
 
-			if (fieldsId.contains(fieldId) && (objectiveFieldId == null
+			if (fieldsNameById.containsKey(fieldId) && (objectiveFieldId == null
 					|| !fieldId.equals(objectiveFieldId))) {
 
 				String optype = (String) Utils.getJSONObject(this.fields, fieldId + ".optype");
@@ -721,13 +843,33 @@ public abstract class ModelFields implements Serializable {
 	 * @return	the normalized value
 	 */
 	protected <T> T normalize(T value) {
-		// if( value instanceof String ) {
-		return (missingTokens.contains(value) ? null : value);
-		// }
+		return (getMissingTokensSet().contains(value) ? null : value);
+	}
 
-		// return null;
+	/**
+	 * Returns the missing tokens as a set, to check them in constant time
+	 *
+	 * @return	the set of missing tokens
+	 */
+	protected Set<Object> getMissingTokensSet() {
+		List<String> tokens = missingTokens;
+		if (missingTokensSource != tokens) {
+			missingTokensSet = new HashSet<Object>(tokens);
+			missingTokensSource = tokens;
+		}
+		return missingTokensSet;
 	}
 
+	/**
+	 * Returns the unique terms of the text, items and categorical fields
+	 * of the input data. The fields expanded are removed from the input
+	 * data, so it must be the copy built by filterInputData for the
+	 * prediction and not the input data of the caller.
+	 *
+	 * @param inputData		the filtered input data of the prediction
+	 *
+	 * @return a map with the unique terms per field id
+	 */
 	protected Map<String, Object> uniqueTerms(Map<String, Object> inputData) {
 		Map<String, Object> uniqueTerms = new HashMap<String, Object>();
 		
@@ -920,7 +1062,129 @@ public abstract class ModelFields implements Serializable {
 	public JSONObject getFields() {
 		return fields;
 	}
+
+	/**
+	 * Sets the cache of the predictions of the model, or null to compute
+	 * every prediction.
+	 *
+	 * @param predictionCache	the cache of the predictions
+	 */
+	public void setPredictionCache(PredictionCache predictionCache) {
+		this.predictionCache = predictionCache;
+	}
+
+	public PredictionCache getPredictionCache() {
+		return predictionCache;
+	}
+
+	/**
+	 * Returns the key of the prediction cache for the input data and the
+	 * options of a prediction, or null when the predictions are not cached.
+	 *
+	 * The values of the model fields are keyed by field id, with the
+	 * numbers as doubles and without the missing values, and the fields
+	 * that are not in the model only by name, as they can be listed in the
+	 * prediction.
+	 *
+	 * @param inputData		the input data of the prediction
+	 * @param options		the arguments of the prediction that change it
+	 *
+	 * @return the key of the prediction, or null
+	 */
+	protected Object predictionKey(JSONObject inputData, Object... options) {
+		if (predictionCache == null || inputData == null) {
+			return null;
+		}
+
+		TreeMap<String, Object> values = new TreeMap<String, Object>();
+		TreeSet<String> unused = new TreeSet<String>();
+		for (Object item : inputData.entrySet()) {
+			Map.Entry entry = (Map.Entry) item;
+			String fieldId = String.valueOf(entry.getKey());
+			Object value = normalize(entry.getValue());
+			if (value == null) {
+				continue;
+			}
+
+			if (fieldsIdByName.containsKey(fieldId)) {
+				fieldId = fieldsIdByName.get(fieldId);
+			}
+			if (!fieldsNameById.containsKey(fieldId)
+					|| fieldId.equals(objectiveFieldId)) {
+				unused.add(String.valueOf(entry.getKey()));
+				continue;
+			}
+
+			if (value instanceof Number && Constants.OPTYPE_NUMERIC.equals(
+					Utils.getJSONObject(fields, fieldId + ".optype"))) {
+				value = ((Number) value).doubleValue();
+			}
+			if (values.put(fieldId, value) != null) {
+				// the field is given both by name and by id
+				return null;
+			}
+		}
+
+		List<Object> key = new ArrayList<Object>(options.length + 2);
+		key.add(values);
+		key.add(unused);
+		for (Object option : options) {
+			if (option instanceof Map) {
+				option = new HashMap<Object, Object>((Map) option);
+			} else if (option instanceof List) {
+				option = new ArrayList<Object>((List) option);
+			}
+			key.add(option);
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the cached prediction for a key, or null
+	 *
+	 * @param key	the key built by predictionKey. Can be null.
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> T cachedPrediction(Object key) {
+		PredictionCache cache = predictionCache;
+		return key != null && cache != null ? (T) cache.get(key) : null;
+	}
+
+	/**
+	 * Caches a prediction and returns it
+	 *
+	 * @param key			the key built by predictionKey. Can be null.
+	 * @param prediction	the prediction computed for the key
+	 */
+	protected <T> T cachePrediction(Object key, T prediction) {
+		PredictionCache cache = predictionCache;
+		if (key != null && cache != null) {
+			cache.put(key, prediction);
+		}
+		return prediction;
+	}
 	
+	/**
+	 * Returns the operating point compiled for the model. The last one
+	 * compiled is kept, so that the predictions made with the same
+	 * operating point don't check it again.
+	 *
+	 * @param operatingPoint	the operating point of the prediction
+	 * @param operatingKinds	the kinds of operating point of the model
+	 * @param classNames		the names of the classes of the model
+	 */
+	protected OperatingPoint compileOperatingPoint(JSONObject operatingPoint,
+			String[] operatingKinds, List<String> classNames) {
+		OperatingPoint compiled = this.operatingPoint;
+		if (compiled == null
+				|| !compiled.isCompiledFrom(operatingPoint, classNames)) {
+			compiled = OperatingPoint.compile(
+					operatingPoint, operatingKinds, classNames);
+			this.operatingPoint = compiled;
+		}
+		return compiled;
+	}
+
 	/**
 	 * Returns reg expression for model Id.
 	 * 
@@ -26,7 +26,10 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
+import org.bigml.binding.localmodel.AbstractTree;
+import org.bigml.binding.localmodel.CompiledTree;
 import org.bigml.binding.localmodel.Prediction;
+import org.bigml.binding.localmodel.TreeCompiler;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
@@ -46,7 +49,6 @@ public class MultiModel implements Serializable {
     private JSONArray models;
     protected JSONObject fields = null;
     private List<String> classNames = new ArrayList<String>();
-    private MultiVote votes;
     private List<LocalPredictiveModel> localModels = 
     		new ArrayList<LocalPredictiveModel>();
 
@@ -100,6 +102,25 @@ public class MultiModel implements Serializable {
     }
 
     
+    /**
+     * Compiles the trees of all the models at once, see
+     * LocalPredictiveModel.compile.
+     *
+     * @throws Exception if the trees cannot be compiled
+     */
+    public void compile() throws Exception {
+        List<AbstractTree> roots = new ArrayList<AbstractTree>();
+        for (LocalPredictiveModel localModel : localModels) {
+            roots.add(localModel.getRootTree());
+        }
+
+        List<CompiledTree> compiledTrees = TreeCompiler.compile(roots);
+        for (int i = 0; i < localModels.size(); i++) {
+            localModels.get(i).setCompiledTree(compiledTrees.get(i));
+        }
+    }
+
+
     /**
      * Lists all the model/ids that compound the multi model.
      * 
@@ -265,7 +286,7 @@ public class MultiModel implements Serializable {
         	strategy = MissingStrategy.LAST_PREDICTION;
         }
         
-        votes = this.generateVotes(inputData, strategy, null);
+        MultiVote votes = this.generateVotes(inputData, strategy, null);
         HashMap<Object, Object> result =  votes.combine(method, options);
         return result;
     }
@@ -300,7 +321,7 @@ public class MultiModel implements Serializable {
             withConfidence = false;
         }
 
-        votes = this.generateVotes(inputData, null, null);
+        MultiVote votes = this.generateVotes(inputData, null, null);
         return votes.combine(method, null);
     }
     
@@ -354,7 +375,7 @@ public class MultiModel implements Serializable {
             withConfidence = false;
         }
 
-        votes = this.generateVotes(inputData, strategy, null);
+        MultiVote votes = this.generateVotes(inputData, strategy, null);
 
         return votes.combine(method, options);
     }
@@ -0,0 +1,154 @@
+package org.bigml.binding;
+
+import java.util.List;
+
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONObject;
+
+/**
+ * An operating point of a classification model, checked and compiled
+ * once so that it can decide many predictions.
+ *
+ * The operating point is defined by the kind of the values used to decide
+ * (probability, confidence or votes), the positive class and a threshold:
+ *
+ *  {"kind": "probability", "positive_class": "Iris-setosa",
+ *   "threshold": 0.5}
+ *
+ * The positive class is predicted when its value is over the threshold.
+ * Otherwise, the prediction is the class with the highest value among the
+ * rest, and the ties are broken by the name of the class.
+ *
+ * The values of the classes are given in the order of the class names of
+ * the model.
+ *
+ * Example usage:
+ *
+ *  OperatingPoint point = OperatingPoint.compile(operatingPoint,
+ *      new String[] {"probability"}, localModel.getClassNames());
+ *  int index = point.decide(probabilities);
+ *  String prediction = point.getClassNames().get(index);
+ */
+public final class OperatingPoint {
+
+    private final JSONObject definition;
+    private final List<String> classNames;
+    private final String kind;
+    private final double threshold;
+    private final String positiveClass;
+    private final int positiveIndex;
+
+    private OperatingPoint(JSONObject definition, List<String> classNames,
+            String kind, double threshold, String positiveClass) {
+        this.definition = definition;
+        this.classNames = classNames;
+        this.kind = kind;
+        this.threshold = threshold;
+        this.positiveClass = positiveClass;
+        this.positiveIndex = classNames.indexOf(positiveClass);
+    }
+
+    /**
+     * Checks and compiles an operating point.
+     *
+     * @param operatingPoint
+     *            the operating point, with its kind, threshold and
+     *            positive_class
+     * @param operatingKinds
+     *            the kinds of operating point allowed by the model
+     * @param classNames
+     *            the names of the classes of the model
+     *
+     * @throws IllegalArgumentException if the operating point is not valid
+     *             for the model
+     */
+    public static OperatingPoint compile(JSONObject operatingPoint,
+            String[] operatingKinds, List<String> classNames) {
+        Object[] operating = Utils.parseOperatingPoint(operatingPoint,
+                operatingKinds, classNames);
+        return new OperatingPoint(new JSONObject(operatingPoint), classNames,
+                (String) operating[0], (Double) operating[1],
+                (String) operating[2]);
+    }
+
+    /**
+     * Returns whether the operating point was compiled from the given
+     * definition, for the given classes
+     */
+    public boolean isCompiledFrom(JSONObject operatingPoint,
+            List<String> classNames) {
+        return this.classNames == classNames
+                && definition.equals(operatingPoint);
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public String getPositiveClass() {
+        return positiveClass;
+    }
+
+    public int getPositiveIndex() {
+        return positiveIndex;
+    }
+
+    public List<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * Decides the predicted class.
+     *
+     * @param values
+     *            the values of the kind of the operating point for each
+     *            class, in the order of the class names
+     *
+     * @return the index of the predicted class
+     */
+    public int decide(double[] values) {
+        if (values[positiveIndex] > threshold) {
+            return positiveIndex;
+        }
+        return best(values, classNames, positiveIndex);
+    }
+
+    /**
+     * Returns the index of the class with the highest value, breaking the
+     * ties by the name of the class, as the predictions are sorted.
+     *
+     * @param values
+     *            the values of each class, in the order of the class names
+     * @param classNames
+     *            the names of the classes
+     * @param excluded
+     *            the index of a class that can't be chosen, or -1. It's
+     *            chosen anyway if it's the only class.
+     */
+    public static int best(double[] values, List<String> classNames,
+            int excluded) {
+        int best = -1;
+        for (int i = 0; i < values.length; i++) {
+            if (i == excluded) {
+                continue;
+            }
+            if (best == -1 || values[i] > values[best]
+                    || (values[i] == values[best] && classNames.get(i)
+                            .compareTo(classNames.get(best)) < 0)) {
+                best = i;
+            }
+        }
+        return best == -1 ? excluded : best;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "OperatingPoint(kind=%s, positiveClass=%s, threshold=%s)",
+                kind, positiveClass, threshold);
+    }
+}
@@ -0,0 +1,403 @@
+package org.bigml.binding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of the predictions of a local model, shared by all the
+ * threads that use the model.
+ *
+ * The predictions are keyed by the values of the model fields in the input
+ * data, keyed by field id, and by the options of the prediction, like the
+ * missing strategy or the operating point. So a cached prediction is
+ * always the one the model would compute.
+ *
+ * The cache is bounded by a number of entries and, optionally, by an
+ * estimate of the bytes used by the keys and predictions. The least
+ * recently used predictions are evicted first. When the admission filter
+ * is on, a new prediction only replaces the least recently used one if
+ * its input data has been seen more often, as TinyLFU does, so that a
+ * burst of unique rows doesn't flush the frequent ones.
+ *
+ * The entries are split in segments with their own lock, to reduce the
+ * contention among threads.
+ *
+ * Example usage:
+ *
+ *  LocalPredictiveModel localModel = new LocalPredictiveModel(model);
+ *  localModel.setPredictionCache(new PredictionCache(10000));
+ *  localModel.predict(inputData);
+ *  localModel.getPredictionCache().getHitRatio();
+ *
+ * The predictions are copied when they are stored and when they are
+ * returned, but only their top level: the lists and maps they contain
+ * are shared and must not be modified.
+ */
+public class PredictionCache {
+
+    // Segments used for caches with at least this number of entries each
+    private static final int MIN_SEGMENT_SIZE = 64;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Segment[] segments;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejections = new AtomicLong();
+
+    /**
+     * Creates a cache bounded by a number of entries.
+     *
+     * @param maxEntries
+     *            the maximum number of predictions cached
+     */
+    public PredictionCache(int maxEntries) {
+        this(maxEntries, 0L, false);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries
+     *            the maximum number of predictions cached
+     * @param maxBytes
+     *            the maximum estimated size of the keys and predictions
+     *            cached, in bytes. 0 for no limit.
+     * @param admission
+     *            whether a new prediction must have been requested more
+     *            often than the one it replaces to be cached
+     */
+    public PredictionCache(int maxEntries, long maxBytes, boolean admission) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                    "The cache must hold at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = Math.max(0L, maxBytes);
+
+        int count = Integer.highestOneBit(
+                Math.max(1, maxEntries / MIN_SEGMENT_SIZE));
+        count = Math.min(MAX_SEGMENTS, count);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((maxEntries + count - 1) / count,
+                    this.maxBytes / count, admission);
+        }
+    }
+
+    /**
+     * Returns a copy of the prediction cached for a key, or null
+     */
+    public Object get(Object key) {
+        Segment segment = segment(key);
+        Object value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(value);
+    }
+
+    /**
+     * Stores a copy of the prediction for a key
+     */
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        value = copy(value);
+        long weight = maxBytes > 0 ? weight(key) + weight(value) : 0L;
+
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, value, weight);
+        }
+    }
+
+    /**
+     * Removes all the predictions and resets the statistics
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+        rejections.set(0);
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of predictions cached
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated size of the cached predictions, in bytes, when
+     * the cache is bounded by bytes
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of predictions removed to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of predictions not cached by the admission filter
+     */
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /**
+     * Returns the fraction of the lookups that found a prediction
+     */
+    public double getHitRatio() {
+        long found = hits.get();
+        long total = found + misses.get();
+        return total > 0 ? (double) found / total : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "PredictionCache(size=%d, hits=%d, misses=%d, hitRatio=%.3f, evictions=%d)",
+                size(), getHits(), getMisses(), getHitRatio(), getEvictions());
+    }
+
+    private Segment segment(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * Copies the top level of a prediction
+     */
+    private static Object copy(Object value) {
+        if (value instanceof HashMap) {
+            return ((HashMap) value).clone();
+        }
+        if (value instanceof ArrayList) {
+            return ((ArrayList) value).clone();
+        }
+        return value;
+    }
+
+    /**
+     * Returns a rough estimate of the bytes used by a key or a prediction
+     */
+    static long weight(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof String) {
+            return 40L + 2L * ((String) value).length();
+        }
+        if (value instanceof Map) {
+            long weight = 48L;
+            for (Object item : ((Map) value).entrySet()) {
+                Map.Entry entry = (Map.Entry) item;
+                weight += 32L + weight(entry.getKey())
+                        + weight(entry.getValue());
+            }
+            return weight;
+        }
+        if (value instanceof Iterable) {
+            long weight = 40L;
+            for (Object item : (Iterable) value) {
+                weight += 8L + weight(item);
+            }
+            return weight;
+        }
+        return 16L;
+    }
+
+    /**
+     * The least recently used predictions of a part of the keys
+     */
+    private class Segment {
+
+        private final int maxEntries;
+        private final long maxBytes;
+        private final FrequencySketch sketch;
+
+        private final LinkedHashMap<Object, Object[]> entries =
+                new LinkedHashMap<Object, Object[]>(16, 0.75f, true);
+        private long bytes = 0L;
+
+        Segment(int maxEntries, long maxBytes, boolean admission) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            this.sketch = admission ? new FrequencySketch(maxEntries) : null;
+        }
+
+        Object get(Object key) {
+            if (sketch != null) {
+                sketch.increment(key.hashCode());
+            }
+            Object[] entry = entries.get(key);
+            return entry != null ? entry[0] : null;
+        }
+
+        void put(Object key, Object value, long weight) {
+            if (maxBytes > 0 && weight > maxBytes) {
+                rejections.incrementAndGet();
+                return;
+            }
+
+            // a cached key is replaced in place, without the admission
+            // filter, and the entries it needs room from are chosen before
+            // any of them is removed, so that a rejection changes nothing
+            Object[] previous = entries.get(key);
+            int size = entries.size() + (previous == null ? 1 : 0);
+            long newBytes = bytes + weight
+                    - (previous == null ? 0L : (Long) previous[1]);
+            List<Object> victims = new ArrayList<Object>();
+            Iterator<Map.Entry<Object, Object[]>> eldest =
+                    entries.entrySet().iterator();
+            while ((size > maxEntries || (maxBytes > 0 && newBytes > maxBytes))
+                    && eldest.hasNext()) {
+                Map.Entry<Object, Object[]> victim = eldest.next();
+                if (victim.getKey().equals(key)) {
+                    continue;
+                }
+                if (previous == null && sketch != null
+                        && sketch.frequency(key.hashCode())
+                        <= sketch.frequency(victim.getKey().hashCode())) {
+                    rejections.incrementAndGet();
+                    return;
+                }
+                victims.add(victim.getKey());
+                size--;
+                newBytes -= (Long) victim.getValue()[1];
+            }
+
+            for (Object victim : victims) {
+                entries.remove(victim);
+                evictions.incrementAndGet();
+            }
+            entries.put(key, new Object[] {value, weight});
+            bytes = newBytes;
+        }
+
+        void clear() {
+            entries.clear();
+            bytes = 0L;
+            if (sketch != null) {
+                sketch.clear();
+            }
+        }
+    }
+
+    /**
+     * Estimates how often the keys have been requested lately, with a
+     * count-min sketch of small counters that are halved periodically.
+     */
+    private static class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = new int[] {
+                0x97cb3127, 0xb8cd9e3b, 0x5bd1e995, 0x27d4eb2f};
+
+        private final int[] counts;
+        private final int mask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(int maxEntries) {
+            // Four counters per row and entry, to keep the collisions low
+            int entries = Integer.highestOneBit(
+                    Math.max(16, maxEntries) * 2 - 1);
+            this.counts = new int[DEPTH * 4 * entries];
+            this.mask = 4 * entries - 1;
+            this.sampleSize = 10 * entries;
+        }
+
+        void increment(int hash) {
+            for (int i = 0; i < DEPTH; i++) {
+                int index = index(hash, i);
+                if (counts[index] < MAX_COUNT) {
+                    counts[index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                // Ages the counts, so that old keys are forgotten
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] >>>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, counts[index(hash, i)]);
+            }
+            return frequency;
+        }
+
+        void clear() {
+            Arrays.fill(counts, 0);
+            additions = 0;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 17;
+            return row * (mask + 1) + (h & mask);
+        }
+    }
+}
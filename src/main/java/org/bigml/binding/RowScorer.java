@@ -0,0 +1,252 @@
+package org.bigml.binding;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scores the rows of a CSV file with a fixed schema using a local model.
+ *
+ * The positions of the headers are bound to the model fields once, when
+ * the scorer is created. Then each record is read into a reusable input
+ * data buffer keyed by field id, with numeric values already parsed, and
+ * handed to the model. Columns that the model does not use and missing
+ * values are skipped.
+ *
+ * Example usage:
+ *
+ *  LocalPredictiveModel localModel = new LocalPredictiveModel(model);
+ *  RowScorer rowScorer = new RowScorer(localModel, headers);
+ *  rowScorer.score(reader, new RowScorer.Scorer() {
+ *      public Object score(JSONObject inputData) throws Exception {
+ *          return localModel.predict(inputData);
+ *      }
+ *  }, handler);
+ *
+ * A scorer reuses its buffer, so it must not be shared among threads.
+ */
+public class RowScorer {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(RowScorer.class.getName());
+
+    /**
+     * Computes the result for the input data of a row.
+     *
+     * The input data buffer is reused for the next row, so it must not be
+     * kept after the call.
+     */
+    public interface Scorer {
+        Object score(JSONObject inputData) throws Exception;
+    }
+
+    /**
+     * Receives the result computed for each row.
+     */
+    public interface Handler {
+        void handle(CSVRecord record, Object result) throws Exception;
+    }
+
+    private final List<String> headers;
+
+    // Bound slots: the position in the row, the field id and whether the
+    // value must be parsed as a number
+    private final int[] columns;
+    private final String[] fieldIds;
+    private final boolean[] numerics;
+
+    private final Set<String> missingTokens;
+    private final JSONObject inputData;
+
+    private long scoredRows = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * Binds the headers of the rows to the fields of the model.
+     *
+     * @param model
+     *            the local model whose fields are used
+     * @param headers
+     *            the names or ids of the fields in each row, in order
+     */
+    public RowScorer(ModelFields model, List<String> headers) {
+        this.headers = new ArrayList<String>(headers);
+
+        List<Integer> boundColumns = new ArrayList<Integer>();
+        List<String> boundIds = new ArrayList<String>();
+        for (int i = 0; i < headers.size(); i++) {
+            String fieldId = headers.get(i);
+            if (model.fieldsIdByName.containsKey(fieldId)) {
+                fieldId = model.fieldsIdByName.get(fieldId);
+            }
+
+            if (model.fieldsNameById.containsKey(fieldId)
+                    && !fieldId.equals(model.objectiveFieldId)) {
+                boundColumns.add(i);
+                boundIds.add(fieldId);
+            }
+        }
+
+        int size = boundColumns.size();
+        this.columns = new int[size];
+        this.fieldIds = new String[size];
+        this.numerics = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            columns[i] = boundColumns.get(i);
+            fieldIds[i] = boundIds.get(i);
+            numerics[i] = "numeric".equals(Utils.getJSONObject(
+                    model.fields, fieldIds[i] + ".optype"));
+        }
+
+        this.missingTokens = new HashSet<String>(model.getMissingTokens());
+        this.inputData = new JSONObject();
+
+        if( logger.isDebugEnabled() ) {
+            logger.debug(String.format("Bound %d of %d columns to fields %s",
+                    size, headers.size(), boundIds));
+        }
+    }
+
+    /**
+     * Returns the headers the scorer was bound to
+     */
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Fills the input data buffer with the values of a row.
+     *
+     * @param record
+     *            the CSV record with the values of the row
+     *
+     * @return the input data buffer, keyed by field id
+     */
+    public JSONObject bind(CSVRecord record) {
+        inputData.clear();
+        int size = record.size();
+        for (int i = 0; i < columns.length; i++) {
+            if( columns[i] >= size ) {
+                continue;
+            }
+            String value = record.get(columns[i]);
+            if( value == null || missingTokens.contains(value) ) {
+                continue;
+            }
+            inputData.put(fieldIds[i], numerics[i] ? toNumber(value) : value);
+        }
+        return inputData;
+    }
+
+    /**
+     * Scores the records with the scorer and hands each result to the
+     * handler, in the same order.
+     *
+     * @param records
+     *            the CSV records to score
+     * @param scorer
+     *            computes the result for each row
+     * @param handler
+     *            receives the result of each row. Can be null.
+     *
+     * @return the number of rows scored
+     */
+    public long score(Iterable<CSVRecord> records, Scorer scorer,
+            Handler handler) throws Exception {
+        long rows = 0;
+        long start = System.nanoTime();
+        try {
+            for (CSVRecord record : records) {
+                Object result = scorer.score(bind(record));
+                if( handler != null ) {
+                    handler.handle(record, result);
+                }
+                rows++;
+            }
+        } finally {
+            scoredRows += rows;
+            elapsedNanos += System.nanoTime() - start;
+        }
+
+        if( logger.isDebugEnabled() ) {
+            logger.debug(String.format("Scored %d rows (%.0f rows/s)",
+                    rows, getRowsPerSecond()));
+        }
+        return rows;
+    }
+
+    /**
+     * Scores a CSV file whose first line holds the headers the scorer was
+     * bound to.
+     *
+     * @param reader
+     *            the reader of the CSV contents
+     * @param scorer
+     *            computes the result for each row
+     * @param handler
+     *            receives the result of each row. Can be null.
+     *
+     * @return the number of rows scored
+     */
+    public long score(Reader reader, Scorer scorer, Handler handler)
+            throws Exception {
+        CSVParser parser = new CSVParser(reader,
+                CSVFormat.DEFAULT.builder().setHeader()
+                        .setSkipHeaderRecord(true).build());
+        try {
+            return score(parser, scorer, handler);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Creates a scorer bound to the header of a CSV file.
+     *
+     * @param model
+     *            the local model whose fields are used
+     * @param parser
+     *            a CSV parser created with a header
+     *
+     * @return the scorer bound to the header
+     */
+    public static RowScorer forHeader(ModelFields model, CSVParser parser) {
+        return new RowScorer(model, parser.getHeaderNames());
+    }
+
+    /**
+     * Returns the number of rows scored so far
+     */
+    public long getScoredRows() {
+        return scoredRows;
+    }
+
+    /**
+     * Returns the throughput of the rows scored so far, in rows per second
+     */
+    public double getRowsPerSecond() {
+        if( elapsedNanos == 0 ) {
+            return 0.0;
+        }
+        return scoredRows * 1e9 / elapsedNanos;
+    }
+
+    private static Object toNumber(String value) {
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            // Leave it to the model to handle the value
+            return value;
+        }
+    }
+}
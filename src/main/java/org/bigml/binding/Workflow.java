@@ -0,0 +1,602 @@
+package org.bigml.binding;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.utils.BulkResult;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates a set of remote resources that depend on each other, e.g. a
+ * source, its dataset, some models and their batch predictions.
+ *
+ * The workflow is declared as a set of named steps. Each step creates a
+ * resource whose arguments may refer to the resources of other steps, its
+ * parents. A step is created as soon as all its parents are finished, and
+ * the steps that don't depend on each other are created at the same time,
+ * with a bounded number of requests in flight. The resources being built
+ * are checked by the same threads, so no thread waits for a resource.
+ *
+ * When a step fails, the steps that depend on it are not created, but the
+ * rest of the workflow goes on. A step whose creation is throttled by the
+ * API doesn't fail: it's created again after the poll interval.
+ *
+ * When a checkpoint file is set, the ids of the resources created are
+ * stored in it as soon as they are known, and a new run with the same
+ * checkpoint file reuses them instead of creating them again. The faulty
+ * or deleted ones are created again.
+ *
+ * Example usage:
+ *
+ *  Workflow workflow = new Workflow(api);
+ *  workflow.addSource("source", "data/iris.csv");
+ *  workflow.add("dataset", "dataset").ref("source", "source");
+ *  workflow.add("train", "dataset").ref("origin_dataset", "dataset")
+ *      .arg("sample_rate", 0.8).arg("seed", "bigml");
+ *  workflow.add("test", "dataset").ref("origin_dataset", "dataset")
+ *      .arg("sample_rate", 0.8).arg("seed", "bigml")
+ *      .arg("out_of_bag", true);
+ *  workflow.add("model", "model").ref("dataset", "train");
+ *  workflow.add("evaluation", "evaluation").ref("model", "model")
+ *      .ref("dataset", "test");
+ *  workflow.setCheckpointFile(new File("iris_workflow.json"));
+ *  BulkResult result = workflow.run();
+ *
+ * The result has the last JSONObject retrieved for each step, by name.
+ */
+public class Workflow {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(Workflow.class.getName());
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final long DEFAULT_POLL_INTERVAL = 3000;
+
+    private final BigMLClient api;
+    private final Map<String, Step> steps = new LinkedHashMap<String, Step>();
+
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private long pollInterval = DEFAULT_POLL_INTERVAL;
+    private File checkpointFile = null;
+
+    private enum State {
+        WAITING, CREATING, RUNNING, CHECKING, FINISHED, FAILED
+    }
+
+    /**
+     * A step of the workflow, that creates a resource
+     */
+    public static class Step {
+        private final String name;
+        private final String resourceName;
+        private final String fileName;
+        private final JSONObject args = new JSONObject();
+        private final Map<String, Object> refs = new LinkedHashMap<String, Object>();
+        private final Set<String> parents = new LinkedHashSet<String>();
+
+        private Step(String name, String resourceName, String fileName) {
+            this.name = name;
+            this.resourceName = resourceName;
+            this.fileName = fileName;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        /**
+         * Sets an argument of the new resource
+         */
+        public Step arg(String key, Object value) {
+            args.put(key, value);
+            return this;
+        }
+
+        /**
+         * Sets some arguments of the new resource
+         */
+        public Step args(JSONObject args) {
+            if( args != null ) {
+                this.args.putAll(args);
+            }
+            return this;
+        }
+
+        /**
+         * Sets an argument of the new resource to the id of the resource
+         * of another step, e.g. the dataset of a model
+         */
+        public Step ref(String key, String step) {
+            refs.put(key, step);
+            parents.add(step);
+            return this;
+        }
+
+        /**
+         * Sets an argument of the new resource to the list of ids of the
+         * resources of other steps, e.g. the datasets of a model
+         */
+        public Step refs(String key, String... steps) {
+            refs.put(key, Arrays.asList(steps));
+            parents.addAll(Arrays.asList(steps));
+            return this;
+        }
+
+        /**
+         * Makes the step wait for other steps, without using their
+         * resources as arguments
+         */
+        public Step after(String... steps) {
+            parents.addAll(Arrays.asList(steps));
+            return this;
+        }
+
+        /**
+         * Returns the names of the steps that must finish first
+         */
+        public Set<String> getParents() {
+            return parents;
+        }
+    }
+
+    /**
+     * The progress of a step while the workflow runs
+     */
+    private static class Run {
+        final Step step;
+        State state = State.WAITING;
+        String resourceId = null;
+        boolean resumed = false;
+        JSONObject result = null;
+        long nextCheck = 0;
+
+        Run(Step step) {
+            this.step = step;
+        }
+    }
+
+    public Workflow(BigMLClient api) {
+        this.api = api;
+    }
+
+    /**
+     * Adds a step that creates a resource from its arguments
+     *
+     * @param name
+     *            the name of the step, unique in the workflow
+     * @param resourceName
+     *            the kind of resource: source, dataset, model...
+     */
+    public Step add(String name, String resourceName) {
+        if( api.getResourceByName(resourceName) == null ) {
+            throw new IllegalArgumentException(
+                    "Unknown resource name: " + resourceName);
+        }
+        return add(new Step(name, resourceName, null));
+    }
+
+    /**
+     * Adds a step that creates a source by uploading a local file
+     *
+     * @param name
+     *            the name of the step, unique in the workflow
+     * @param fileName
+     *            the file with the data
+     */
+    public Step addSource(String name, String fileName) {
+        return add(new Step(name, "source", fileName));
+    }
+
+    private Step add(Step step) {
+        if( steps.containsKey(step.name) ) {
+            throw new IllegalArgumentException(
+                    "Duplicated step name: " + step.name);
+        }
+        steps.put(step.name, step);
+        return step;
+    }
+
+    public Step getStep(String name) {
+        return steps.get(name);
+    }
+
+    /**
+     * Sets the maximum number of requests in flight
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Sets the time between two checks of a resource being built, in ms
+     */
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = Math.max(0, pollInterval);
+    }
+
+    /**
+     * Sets the file where the ids of the resources created are stored, so
+     * that an interrupted workflow can be resumed
+     */
+    public void setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Creates the resources of all the steps, reusing the ones stored in
+     * the checkpoint file, if any.
+     *
+     * @return the last JSONObject retrieved for each step, by name, with
+     *         HTTP_OK as the code of the finished ones
+     */
+    public BulkResult run() throws InterruptedException {
+        final Map<String, Run> runs = new LinkedHashMap<String, Run>();
+        for (Step step : sorted()) {
+            runs.put(step.name, new Run(step));
+        }
+
+        Map<String, String> checkpoint = readCheckpoint();
+        for (Run run : runs.values()) {
+            String resourceId = checkpoint.get(run.step.name);
+            if( resourceId != null
+                    && resourceId.startsWith(run.step.resourceName + "/") ) {
+                run.resourceId = resourceId;
+                run.resumed = true;
+                run.state = State.RUNNING;
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "bigml-workflow-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        CompletionService<JSONObject> completion =
+                new ExecutorCompletionService<JSONObject>(executor);
+        Map<Future<JSONObject>, Run> inFlight =
+                new LinkedHashMap<Future<JSONObject>, Run>();
+
+        try {
+            while( true ) {
+                long now = System.currentTimeMillis();
+                long nextCheck = Long.MAX_VALUE;
+                for (final Run run : runs.values()) {
+                    if( run.state == State.WAITING ) {
+                        String failed = failedParent(run, runs);
+                        if( failed != null ) {
+                            run.state = State.FAILED;
+                            run.result = errorResult(
+                                    "The step " + failed + " failed");
+                        } else if( run.nextCheck > now ) {
+                            // a throttled creation waits to be sent again
+                            nextCheck = Math.min(nextCheck, run.nextCheck);
+                        } else if( parentsFinished(run, runs) ) {
+                            run.state = State.CREATING;
+                            final JSONObject args = arguments(run, runs);
+                            inFlight.put(completion.submit(
+                                    new Callable<JSONObject>() {
+                                        public JSONObject call() {
+                                            return create(run.step, args);
+                                        }
+                                    }), run);
+                        }
+                    } else if( run.state == State.RUNNING ) {
+                        if( run.nextCheck <= now ) {
+                            run.state = State.CHECKING;
+                            final String resourceId = run.resourceId;
+                            inFlight.put(completion.submit(
+                                    new Callable<JSONObject>() {
+                                        public JSONObject call() {
+                                            return check(resourceId);
+                                        }
+                                    }), run);
+                        } else {
+                            nextCheck = Math.min(nextCheck, run.nextCheck);
+                        }
+                    }
+                }
+
+                if( inFlight.isEmpty() ) {
+                    if( nextCheck == Long.MAX_VALUE ) {
+                        break;
+                    }
+                    Thread.sleep(Math.max(0, nextCheck - now));
+                    continue;
+                }
+
+                Future<JSONObject> future = nextCheck == Long.MAX_VALUE ?
+                        completion.take() :
+                        completion.poll(Math.max(0, nextCheck - now),
+                                TimeUnit.MILLISECONDS);
+                while( future != null ) {
+                    update(inFlight.remove(future), result(future), runs);
+                    future = completion.poll();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, JSONObject> results = new LinkedHashMap<String, JSONObject>();
+        for (Run run : runs.values()) {
+            results.put(run.step.name, run.result);
+        }
+        return new BulkResult(results, AbstractResource.HTTP_OK);
+    }
+
+    /**
+     * Updates a step with the result of its creation or of a check of its
+     * resource
+     */
+    private void update(Run run, JSONObject result, Map<String, Run> runs) {
+        run.result = result;
+        int code = code(result);
+
+        if( run.state == State.CREATING ) {
+            if( code == AbstractResource.HTTP_TOO_MANY_REQUESTS
+                    || code == AbstractResource.HTTP_SERVICE_UNAVAILABLE ) {
+                // throttled, e.g. after the retries of the client, so the
+                // step is created again later
+                logger.info(String.format("The creation of the step %s was "
+                        + "throttled (%d), sending it again", run.step.name,
+                        code));
+                run.state = State.WAITING;
+                run.nextCheck = System.currentTimeMillis() + pollInterval;
+                return;
+            }
+            if( code != AbstractResource.HTTP_CREATED ) {
+                logger.error("Failed to create the step " + run.step.name);
+                run.state = State.FAILED;
+                return;
+            }
+            run.resourceId = (String) result.get("resource");
+            run.state = State.RUNNING;
+            run.nextCheck = System.currentTimeMillis() + pollInterval;
+            logger.info(String.format("Step %s created %s", run.step.name,
+                    run.resourceId));
+            writeCheckpoint(runs);
+            return;
+        }
+
+        int status = statusCode(result);
+        if( code == AbstractResource.HTTP_OK
+                && status == AbstractResource.FINISHED ) {
+            run.state = State.FINISHED;
+        } else if( code == AbstractResource.HTTP_OK
+                && status != AbstractResource.FAULTY
+                && status != AbstractResource.UNKNOWN ) {
+            run.state = State.RUNNING;
+            run.nextCheck = System.currentTimeMillis() + pollInterval;
+        } else if( run.resumed && (code == AbstractResource.HTTP_OK
+                || code == AbstractResource.HTTP_NOT_FOUND) ) {
+            // a resource of a previous run that is faulty or was deleted
+            logger.info(String.format("The resource %s of the step %s is "
+                    + "faulty or missing, creating it again", run.resourceId,
+                    run.step.name));
+            run.resourceId = null;
+            run.resumed = false;
+            run.state = State.WAITING;
+        } else if( code == AbstractResource.HTTP_OK
+                || code == AbstractResource.HTTP_NOT_FOUND ) {
+            logger.error(String.format("The resource %s of the step %s is "
+                    + "faulty or missing", run.resourceId, run.step.name));
+            run.state = State.FAILED;
+        } else {
+            // a resource that couldn't be retrieved, e.g. after the retries
+            // of the client, is checked again later
+            run.state = State.RUNNING;
+            run.nextCheck = System.currentTimeMillis() + pollInterval;
+        }
+    }
+
+    private JSONObject create(Step step, JSONObject args) {
+        if( step.fileName != null ) {
+            return api.createSource(step.fileName, null, null, args);
+        }
+        return api.getResourceByName(step.resourceName).create(args);
+    }
+
+    private JSONObject check(String resourceId) {
+        AbstractResource resource = api.getResourceByName(
+                resourceId.substring(0, resourceId.indexOf('/')));
+        return resource.get(resourceId);
+    }
+
+    /**
+     * Returns the arguments of a step, with the ids of the resources of
+     * the steps it refers to
+     */
+    private JSONObject arguments(Run run, Map<String, Run> runs) {
+        JSONObject args = new JSONObject();
+        args.putAll(run.step.args);
+        for (Map.Entry<String, Object> ref : run.step.refs.entrySet()) {
+            if( ref.getValue() instanceof String ) {
+                args.put(ref.getKey(), runs.get(ref.getValue()).resourceId);
+            } else {
+                JSONArray ids = new JSONArray();
+                for (Object step : (List<?>) ref.getValue()) {
+                    ids.add(runs.get(step).resourceId);
+                }
+                args.put(ref.getKey(), ids);
+            }
+        }
+        return args;
+    }
+
+    private String failedParent(Run run, Map<String, Run> runs) {
+        for (String parent : run.step.parents) {
+            if( runs.get(parent).state == State.FAILED ) {
+                return parent;
+            }
+        }
+        return null;
+    }
+
+    private boolean parentsFinished(Run run, Map<String, Run> runs) {
+        for (String parent : run.step.parents) {
+            if( runs.get(parent).state != State.FINISHED ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the steps sorted so that every step goes after its parents
+     *
+     * @throws IllegalArgumentException if a step refers to an unknown step
+     *         or the steps depend on each other in a cycle
+     */
+    private List<Step> sorted() {
+        List<Step> sorted = new ArrayList<Step>();
+        Set<String> visited = new LinkedHashSet<String>();
+        Set<String> visiting = new LinkedHashSet<String>();
+        for (Step step : steps.values()) {
+            visit(step, visited, visiting, sorted);
+        }
+        return sorted;
+    }
+
+    private void visit(Step step, Set<String> visited, Set<String> visiting,
+            List<Step> sorted) {
+        if( visited.contains(step.name) ) {
+            return;
+        }
+        if( !visiting.add(step.name) ) {
+            throw new IllegalArgumentException(
+                    "The steps depend on each other: " + visiting);
+        }
+        for (String parent : step.parents) {
+            Step parentStep = steps.get(parent);
+            if( parentStep == null ) {
+                throw new IllegalArgumentException(String.format(
+                        "The step %s refers to the unknown step %s",
+                        step.name, parent));
+            }
+            visit(parentStep, visited, visiting, sorted);
+        }
+        visiting.remove(step.name);
+        visited.add(step.name);
+        sorted.add(step);
+    }
+
+    private static JSONObject result(Future<JSONObject> future)
+            throws InterruptedException {
+        try {
+            JSONObject result = future.get();
+            return result != null ? result :
+                    errorResult("No result");
+        } catch (ExecutionException e) {
+            logger.error("Error running a workflow step", e.getCause());
+            return errorResult(String.valueOf(e.getCause()));
+        }
+    }
+
+    private static int code(JSONObject result) {
+        Object code = result.get("code");
+        return code instanceof Number ? ((Number) code).intValue() : 0;
+    }
+
+    private static int statusCode(JSONObject result) {
+        JSONObject object = (JSONObject) result.get("object");
+        JSONObject status = object != null ?
+                (JSONObject) object.get("status") : null;
+        Object code = status != null ? status.get("code") : null;
+        return code instanceof Number ? ((Number) code).intValue() :
+                AbstractResource.UNKNOWN;
+    }
+
+    private static JSONObject errorResult(String message) {
+        JSONObject status = new JSONObject();
+        status.put("code", AbstractResource.HTTP_INTERNAL_SERVER_ERROR);
+        status.put("message", message);
+        JSONObject error = new JSONObject();
+        error.put("status", status);
+
+        JSONObject result = new JSONObject();
+        result.put("code", AbstractResource.HTTP_INTERNAL_SERVER_ERROR);
+        result.put("error", error);
+        return result;
+    }
+
+    /**
+     * Returns the ids of the resources stored in the checkpoint, by step
+     */
+    private Map<String, String> readCheckpoint() {
+        Map<String, String> checkpoint = new LinkedHashMap<String, String>();
+        if( checkpointFile == null || !checkpointFile.exists() ) {
+            return checkpoint;
+        }
+
+        try {
+            JSONObject ids = (JSONObject) JSONValue.parse(new String(
+                    Files.readAllBytes(checkpointFile.toPath()),
+                    StandardCharsets.UTF_8));
+            for (Object step : ids.keySet()) {
+                checkpoint.put((String) step, (String) ids.get(step));
+            }
+        } catch (Exception e) {
+            logger.warn("Ignoring invalid checkpoint " + checkpointFile);
+            checkpoint.clear();
+        }
+        return checkpoint;
+    }
+
+    private void writeCheckpoint(Map<String, Run> runs) {
+        if( checkpointFile == null ) {
+            return;
+        }
+
+        JSONObject ids = new JSONObject();
+        for (Run run : runs.values()) {
+            if( run.resourceId != null ) {
+                ids.put(run.step.name, run.resourceId);
+            }
+        }
+        try {
+            File tmp = new File(checkpointFile.getPath() + ".tmp");
+            Files.write(tmp.toPath(), ids.toJSONString()
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), checkpointFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Unable to write the checkpoint " + checkpointFile, e);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package org.bigml.binding.localcluster;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONObject;
+
+/**
+ * Index of the data points of a cluster for the BigML local Cluster
+ *
+ * The points are parsed once from their CSV contents and stored by column:
+ * the numeric values as doubles and the rest of values as strings. A k-d
+ * tree is built over the numeric columns to find the points closest to a
+ * reference point without computing the distance to all of them.
+ *
+ * The distance is the one used for centroids: the scaled euclidean
+ * distance for numeric fields plus the squared scale for every other field
+ * in the reference point whose value doesn't match. As the non-numeric
+ * terms only add to the distance, the numeric distance to a region of the
+ * tree is a lower bound for the distance to any of its points.
+ */
+public class PointsIndex {
+
+    private static final int LEAF_SIZE = 16;
+
+    // numeric fields
+    private final String[] numericIds;
+    private final String[] numericNames;
+    private final double[] numericScales;
+    private final double[][] numericColumns;
+
+    // categorical, text and items fields
+    private final String[] otherIds;
+    private final String[] otherNames;
+    private final double[] otherScales;
+    private final String[][] otherColumns;
+
+    private final int size;
+    private final int[] order;
+    private final Node root;
+
+    /**
+     * Node of the k-d tree. Leaves hold the points in order[lo, hi).
+     */
+    private static class Node {
+        int lo;
+        int hi;
+        int dimension = -1;
+        double split;
+        Node left;
+        Node right;
+    }
+
+    /**
+     * A point found close to the reference point
+     */
+    private static class Neighbor {
+        final int index;
+        final double distance2;
+
+        Neighbor(int index, double distance2) {
+            this.index = index;
+            this.distance2 = distance2;
+        }
+    }
+
+    // Farthest neighbors first. Ties are broken by position in the data
+    private static final Comparator<Neighbor> FARTHEST_FIRST =
+            new Comparator<Neighbor>() {
+                @Override
+                public int compare(Neighbor o1, Neighbor o2) {
+                    int result = Double.compare(o2.distance2, o1.distance2);
+                    return result != 0 ? result :
+                            Integer.compare(o2.index, o1.index);
+                }
+            };
+
+    /**
+     * Parses the points from CSV contents whose first line holds the field
+     * names.
+     *
+     * @param reader
+     *            the reader of the CSV contents
+     * @param fields
+     *            the fields structure of the cluster
+     * @param scales
+     *            the scales per field id used in the distance
+     * @param fieldsIdByName
+     *            the field ids per field name
+     * @param missingTokens
+     *            the tokens that represent a missing value
+     *
+     * @throws IOException if the contents can't be read
+     */
+    public PointsIndex(Reader reader, JSONObject fields, JSONObject scales,
+            Map<String, String> fieldsIdByName,
+            Collection<String> missingTokens) throws IOException {
+
+        CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.builder()
+                .setHeader().setSkipHeaderRecord(true).build());
+        try {
+            List<String> headers = parser.getHeaderNames();
+
+            // Binds the columns to the fields used in the distance
+            List<Integer> numericPositions = new ArrayList<Integer>();
+            List<Integer> otherPositions = new ArrayList<Integer>();
+            List<String> numericIdsList = new ArrayList<String>();
+            List<String> otherIdsList = new ArrayList<String>();
+            for (int i = 0; i < headers.size(); i++) {
+                String fieldId = headers.get(i);
+                if( fieldsIdByName.containsKey(fieldId) ) {
+                    fieldId = fieldsIdByName.get(fieldId);
+                }
+                if( !fields.containsKey(fieldId) || !scales.containsKey(fieldId) ) {
+                    continue;
+                }
+
+                String optype = (String) Utils.getJSONObject(fields,
+                        fieldId + ".optype");
+                if( "datetime".equals(optype) ) {
+                    continue;
+                }
+                if( "numeric".equals(optype) ) {
+                    numericPositions.add(i);
+                    numericIdsList.add(fieldId);
+                } else {
+                    otherPositions.add(i);
+                    otherIdsList.add(fieldId);
+                }
+            }
+
+            numericIds = numericIdsList.toArray(new String[0]);
+            numericNames = names(numericIds, fields);
+            numericScales = scales(numericIds, scales);
+            otherIds = otherIdsList.toArray(new String[0]);
+            otherNames = names(otherIds, fields);
+            otherScales = scales(otherIds, scales);
+
+            Set<String> missing = new HashSet<String>(missingTokens);
+            List<double[]> numericRows = new ArrayList<double[]>();
+            List<String[]> otherRows = new ArrayList<String[]>();
+            for (CSVRecord record : parser) {
+                double[] numericRow = new double[numericIds.length];
+                boolean complete = true;
+                for (int j = 0; j < numericIds.length && complete; j++) {
+                    String value = value(record, numericPositions.get(j), missing);
+                    try {
+                        numericRow[j] = Double.parseDouble(value);
+                    } catch (Exception e) {
+                        // numeric values are needed to compute the distance
+                        complete = false;
+                    }
+                }
+                if( !complete ) {
+                    continue;
+                }
+
+                String[] otherRow = new String[otherIds.length];
+                for (int j = 0; j < otherIds.length; j++) {
+                    otherRow[j] = value(record, otherPositions.get(j), missing);
+                }
+                numericRows.add(numericRow);
+                otherRows.add(otherRow);
+            }
+
+            // Stores the values by column
+            size = numericRows.size();
+            numericColumns = new double[numericIds.length][size];
+            otherColumns = new String[otherIds.length][size];
+            for (int i = 0; i < size; i++) {
+                double[] numericRow = numericRows.get(i);
+                for (int j = 0; j < numericIds.length; j++) {
+                    numericColumns[j][i] = numericRow[j];
+                }
+                String[] otherRow = otherRows.get(i);
+                for (int j = 0; j < otherIds.length; j++) {
+                    otherColumns[j][i] = otherRow[j];
+                }
+            }
+        } finally {
+            parser.close();
+        }
+
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        root = build(0, size);
+    }
+
+    /**
+     * Returns the number of points in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the points closest to a reference point, sorted by their
+     * distance to it.
+     *
+     * @param referencePoint
+     *            the values of the reference point per field id. It must
+     *            contain all the numeric fields.
+     * @param numberOfPoints
+     *            the maximum number of points to return. All of them if
+     *            null.
+     *
+     * @return the list of points, as maps with the values per field name
+     *         in "data" and the distance in "distance"
+     */
+    public List<JSONObject> closest(Map<String, Object> referencePoint,
+            Integer numberOfPoints) {
+        int k = numberOfPoints == null ? size : Math.min(numberOfPoints, size);
+        if( k <= 0 ) {
+            return new ArrayList<JSONObject>();
+        }
+
+        double[] query = new double[numericIds.length];
+        for (int j = 0; j < numericIds.length; j++) {
+            Object value = referencePoint.get(numericIds[j]);
+            if( !(value instanceof Number) ) {
+                throw new IllegalArgumentException("The reference point must"
+                        + " contain values for all numeric fields.");
+            }
+            query[j] = ((Number) value).doubleValue();
+        }
+
+        // Only the fields in the reference point add to the distance
+        List<Integer> others = new ArrayList<Integer>();
+        List<Object> otherValues = new ArrayList<Object>();
+        for (int j = 0; j < otherIds.length; j++) {
+            if( referencePoint.containsKey(otherIds[j]) ) {
+                others.add(j);
+                otherValues.add(referencePoint.get(otherIds[j]));
+            }
+        }
+
+        PriorityQueue<Neighbor> neighbors =
+                new PriorityQueue<Neighbor>(k + 1, FARTHEST_FIRST);
+        search(root, query, others, otherValues, k, neighbors);
+
+        List<Neighbor> sorted = new ArrayList<Neighbor>(neighbors);
+        Collections.sort(sorted, Collections.reverseOrder(FARTHEST_FIRST));
+
+        List<JSONObject> points = new ArrayList<JSONObject>(sorted.size());
+        for (Neighbor neighbor : sorted) {
+            JSONObject point = new JSONObject();
+            point.put("data", data(neighbor.index));
+            point.put("distance", Math.sqrt(neighbor.distance2));
+            points.add(point);
+        }
+        return points;
+    }
+
+    /**
+     * Returns the values of a point per field name
+     */
+    private JSONObject data(int index) {
+        JSONObject data = new JSONObject();
+        for (int j = 0; j < numericIds.length; j++) {
+            data.put(numericNames[j], numericColumns[j][index]);
+        }
+        for (int j = 0; j < otherIds.length; j++) {
+            if( otherColumns[j][index] != null ) {
+                data.put(otherNames[j], otherColumns[j][index]);
+            }
+        }
+        return data;
+    }
+
+    private void search(Node node, double[] query, List<Integer> others,
+            List<Object> otherValues, int k, PriorityQueue<Neighbor> neighbors) {
+
+        if( node.dimension < 0 ) {
+            for (int i = node.lo; i < node.hi; i++) {
+                int index = order[i];
+                double distance2 = distance2(index, query, others, otherValues);
+                if( neighbors.size() < k ) {
+                    neighbors.add(new Neighbor(index, distance2));
+                } else {
+                    Neighbor farthest = neighbors.peek();
+                    if( distance2 < farthest.distance2 ||
+                            (distance2 == farthest.distance2 && index < farthest.index) ) {
+                        neighbors.poll();
+                        neighbors.add(new Neighbor(index, distance2));
+                    }
+                }
+            }
+            return;
+        }
+
+        double delta = (query[node.dimension] - node.split)
+                * numericScales[node.dimension];
+        Node near = delta < 0 ? node.left : node.right;
+        Node far = delta < 0 ? node.right : node.left;
+
+        search(near, query, others, otherValues, k, neighbors);
+        if( neighbors.size() < k || delta * delta <= neighbors.peek().distance2 ) {
+            search(far, query, others, otherValues, k, neighbors);
+        }
+    }
+
+    private double distance2(int index, double[] query, List<Integer> others,
+            List<Object> otherValues) {
+        double distance2 = 0.0;
+        for (int j = 0; j < query.length; j++) {
+            double delta = (query[j] - numericColumns[j][index]) * numericScales[j];
+            distance2 += delta * delta;
+        }
+        for (int o = 0; o < others.size(); o++) {
+            int j = others.get(o);
+            if( !otherValues.get(o).equals(otherColumns[j][index]) ) {
+                distance2 += otherScales[j] * otherScales[j];
+            }
+        }
+        return distance2;
+    }
+
+    /**
+     * Builds the k-d tree for the points in order[lo, hi), splitting by the
+     * median of the numeric column with the widest scaled spread.
+     */
+    private Node build(int lo, int hi) {
+        Node node = new Node();
+        node.lo = lo;
+        node.hi = hi;
+        if( hi - lo <= LEAF_SIZE || numericIds.length == 0 ) {
+            return node;
+        }
+
+        int dimension = 0;
+        double widest = -1;
+        for (int j = 0; j < numericIds.length; j++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double value = numericColumns[j][order[i]];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            double spread = (max - min) * numericScales[j];
+            if( spread > widest ) {
+                widest = spread;
+                dimension = j;
+            }
+        }
+        if( widest <= 0 ) {
+            return node;
+        }
+
+        int middle = (lo + hi) >>> 1;
+        select(numericColumns[dimension], lo, hi - 1, middle);
+
+        node.dimension = dimension;
+        node.split = numericColumns[dimension][order[middle]];
+        node.left = build(lo, middle);
+        node.right = build(middle, hi);
+        return node;
+    }
+
+    /**
+     * Reorders order[lo, hi] so that the point at position k has the k-th
+     * smallest value in the column, with smaller or equal values before it
+     * and greater or equal values after it.
+     */
+    private void select(double[] column, int lo, int hi, int k) {
+        while( hi > lo ) {
+            double pivot = column[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while( i <= j ) {
+                while( column[order[i]] < pivot ) {
+                    i++;
+                }
+                while( column[order[j]] > pivot ) {
+                    j--;
+                }
+                if( i <= j ) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if( k <= j ) {
+                hi = j;
+            } else if( k >= i ) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static String value(CSVRecord record, int position,
+            Set<String> missingTokens) {
+        if( position >= record.size() ) {
+            return null;
+        }
+        String value = record.get(position);
+        return missingTokens.contains(value) ? null : value;
+    }
+
+    private static String[] names(String[] fieldIds, JSONObject fields) {
+        String[] names = new String[fieldIds.length];
+        for (int j = 0; j < fieldIds.length; j++) {
+            names[j] = (String) Utils.getJSONObject(fields, fieldIds[j] + ".name");
+        }
+        return names;
+    }
+
+    private static double[] scales(String[] fieldIds, JSONObject scales) {
+        double[] values = new double[fieldIds.length];
+        for (int j = 0; j < fieldIds.length; j++) {
+            values[j] = ((Number) scales.get(fieldIds[j])).doubleValue();
+        }
+        return values;
+    }
+}
@@ -91,6 +91,8 @@ public abstract class AbstractTree {
     public Object getOutput() {
         return output;
     }
+
+    public abstract List<? extends AbstractTree> getChildren();
     
     
     protected long calculateTotalInstances(JSONArray distribution) {
@@ -0,0 +1,239 @@
+package org.bigml.binding.localmodel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bigml.binding.Constants;
+import org.json.simple.JSONObject;
+
+/**
+ * A tree compiled to a Java class by TreeCompiler.
+ *
+ * The compiled tree finds the node that Tree.predict and BoostedTree.predict
+ * reach with the last prediction strategy, without walking the nodes and
+ * their predicates. Its input is a row with a position per field used in
+ * the splits of the tree, in the order given by getFieldIds: the values of
+ * the numeric fields go in a double[], with NaN for the missing ones, and
+ * the values of the rest of fields in an Object[], with null for the
+ * missing ones.
+ *
+ * Example usage:
+ *
+ *  CompiledTree compiledTree = TreeCompiler.compile(tree);
+ *  double[] numbers = new double[compiledTree.getFieldIds().size()];
+ *  Object[] values = new Object[compiledTree.getFieldIds().size()];
+ *  compiledTree.fill(inputData, numbers, values);
+ *  Object output = compiledTree.getNode(
+ *      compiledTree.leaf(numbers, values)).getOutput();
+ *
+ * The compiled trees hold no state, so they can be used by many threads at
+ * the same time.
+ */
+public abstract class CompiledTree {
+
+    private AbstractTree root;
+    private AbstractTree[] nodes;
+    private int[] parents;
+    private String[] fieldIds;
+    private boolean[] numeric;
+    private JSONObject fields;
+
+    // the categories compared in the generated code
+    protected String[] strings;
+
+    // the predicates that the generated code evaluates as the interpreter
+    // does, e.g. the ones of text fields
+    protected Predicate[] predicates;
+
+    // the classes of the tree, when its code doesn't fit in one
+    protected CompiledTree[] parts;
+
+    /**
+     * Sets the nodes and constants of the tree, once the class has been
+     * loaded
+     */
+    void init(AbstractTree root, List<AbstractTree> nodes,
+            List<Integer> parents, List<String> fieldIds, JSONObject fields,
+            List<String> strings, List<Predicate> predicates,
+            CompiledTree[] parts) {
+        this.parts = parts;
+        this.root = root;
+        this.nodes = nodes.toArray(new AbstractTree[nodes.size()]);
+        this.parents = new int[parents.size()];
+        for (int i = 0; i < this.parents.length; i++) {
+            this.parents[i] = parents.get(i);
+        }
+        this.fieldIds = fieldIds.toArray(new String[fieldIds.size()]);
+        this.numeric = new boolean[this.fieldIds.length];
+        for (int i = 0; i < this.fieldIds.length; i++) {
+            this.numeric[i] = isNumeric(fields, this.fieldIds[i]);
+        }
+        this.fields = fields;
+        this.strings = strings.toArray(new String[strings.size()]);
+        this.predicates = predicates.toArray(new Predicate[predicates.size()]);
+    }
+
+    /**
+     * Shares the nodes and constants of the tree with one of its parts
+     */
+    void init(CompiledTree tree) {
+        this.root = tree.root;
+        this.nodes = tree.nodes;
+        this.parents = tree.parents;
+        this.fieldIds = tree.fieldIds;
+        this.numeric = tree.numeric;
+        this.fields = tree.fields;
+        this.strings = tree.strings;
+        this.predicates = tree.predicates;
+        this.parts = tree.parts;
+    }
+
+    /**
+     * Returns the index of the node reached by a row
+     *
+     * @param numbers
+     *            the values of the numeric fields, NaN when missing
+     * @param values
+     *            the values of the other fields, null when missing
+     * @return the index of the node, see getNode
+     */
+    public abstract int leaf(double[] numbers, Object[] values);
+
+    /**
+     * Returns the ids of the fields in the positions of a row
+     */
+    public List<String> getFieldIds() {
+        return Collections.unmodifiableList(Arrays.asList(fieldIds));
+    }
+
+    /**
+     * Returns whether the field in a position of a row is numeric, and so
+     * its value goes in the double[]
+     */
+    public boolean isNumeric(int position) {
+        return numeric[position];
+    }
+
+    public AbstractTree getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the number of nodes of the tree
+     */
+    public int getSize() {
+        return nodes.length;
+    }
+
+    public AbstractTree getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * Fills a row with the input data
+     *
+     * @param inputData
+     *            the input data keyed by field id, with its values cast
+     *            to the types of the fields
+     * @param numbers
+     *            the values of the numeric fields
+     * @param values
+     *            the values of the rest of fields. The original values of
+     *            the numeric fields are also kept, for the predicates
+     *            evaluated by the interpreter.
+     */
+    public void fill(JSONObject inputData, double[] numbers, Object[] values) {
+        for (int i = 0; i < fieldIds.length; i++) {
+            Object value = inputData.get(fieldIds[i]);
+            values[i] = value;
+            if( numeric[i] ) {
+                numbers[i] = value instanceof Number ?
+                        ((Number) value).doubleValue() : Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Returns the node reached by the input data
+     *
+     * @param inputData
+     *            the input data keyed by field id, with its values cast
+     *            to the types of the fields
+     */
+    public AbstractTree node(JSONObject inputData) {
+        double[] numbers = new double[fieldIds.length];
+        Object[] values = new Object[fieldIds.length];
+        fill(inputData, numbers, values);
+        return nodes[leaf(numbers, values)];
+    }
+
+    /**
+     * Returns the rules from the root of the tree to a node
+     */
+    public List<String> getPath(int index) {
+        List<String> rules = new ArrayList<String>();
+        for (int node = index; parents[node] >= 0; node = parents[node]) {
+            rules.add(nodes[node].getPredicate().toRule(fields));
+        }
+        Collections.reverse(rules);
+        return rules;
+    }
+
+    /**
+     * Makes a prediction with the last prediction strategy, as the
+     * predict method of the tree does.
+     *
+     * @param inputData
+     *            the input data keyed by field id, with its values cast
+     *            to the types of the fields
+     * @param explain
+     *            whether to build the rules of the path
+     */
+    public Prediction predict(JSONObject inputData, boolean explain) {
+        double[] numbers = new double[fieldIds.length];
+        Object[] values = new Object[fieldIds.length];
+        fill(inputData, numbers, values);
+        int index = leaf(numbers, values);
+
+        if( root instanceof Tree ) {
+            return ((Tree) root).predictionFor((Tree) nodes[index],
+                    new ArrayList<String>(), explain);
+        }
+        BoostedTree node = (BoostedTree) nodes[index];
+        return new Prediction(node.getOutput(), node.getCount(),
+                getPath(index), node.getChildren());
+    }
+
+    /**
+     * Evaluates a predicate as the interpreter does
+     *
+     * @param predicate
+     *            the index of the predicate
+     * @param position
+     *            the position of its field in the row
+     */
+    protected final boolean apply(int predicate, int position,
+            double[] numbers, Object[] values) {
+        Object value = values != null ? values[position] : null;
+        if( value == null && numeric[position]
+                && !Double.isNaN(numbers[position]) ) {
+            value = numbers[position];
+        }
+
+        Map<Object, Object> inputData = new HashMap<Object, Object>();
+        if( value != null ) {
+            inputData.put(fieldIds[position], value);
+        }
+        return predicates[predicate].apply(new JSONObject(inputData), fields);
+    }
+
+    static boolean isNumeric(JSONObject fields, String fieldId) {
+        JSONObject field = (JSONObject) fields.get(fieldId);
+        return field != null
+                && Constants.OPTYPE_NUMERIC.equals(field.get("optype"));
+    }
+}
@@ -2,6 +2,7 @@ package org.bigml.binding.localmodel;
 
 import org.json.simple.JSONArray;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -18,6 +19,12 @@ public class Prediction extends HashMap<Object, Object> {
 
 	private static final long serialVersionUID = 1L;
 
+	// nodes used to build the path on demand
+	private transient Tree explanationRoot;
+	private transient Tree explanationNode;
+	// the path built on demand, kept out of the map
+	private transient volatile List<String> explainedPath;
+
     public Prediction() {
         super(9);
     }
@@ -90,14 +97,40 @@ public class Prediction extends HashMap<Object, Object> {
         this.put("probability", probability);
     }
 
+    /**
+     * Returns the rules that lead to the prediction. When the prediction
+     * was made without explanation, the rules are built the first time
+     * they are requested, without changing the prediction, so that it
+     * can be read by several threads.
+     */
     public List<String> getPath() {
-        return (List<String>) this.get("path");
+        List<String> path = (List<String>) this.get("path");
+        if( path == null && explanationNode != null ) {
+            path = explainedPath;
+            if( path == null ) {
+                path = Collections.unmodifiableList(
+                        explanationNode.getRulesFrom(explanationRoot));
+                explainedPath = path;
+            }
+        }
+        return path;
     }
 
     public void setPath(List<String> path) {
         this.put("path", path);
     }
 
+    /**
+     * Sets the nodes used to build the path of the prediction on demand
+     *
+     * @param root  the node where the path starts
+     * @param node  the node where the prediction was made
+     */
+    public void setExplanation(Tree root, Tree node) {
+        this.explanationRoot = root;
+        this.explanationNode = node;
+    }
+
     public JSONArray getDistribution() {
         return (JSONArray) this.get("distribution");
     }
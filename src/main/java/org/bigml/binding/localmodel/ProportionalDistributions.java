@@ -0,0 +1,269 @@
+package org.bigml.binding.localmodel;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * The merged distributions of the leaves of each subtree of a tree, used
+ * to predict with the proportional missing strategy.
+ *
+ * When the value of a splitting field is missing, the proportional
+ * strategy merges the distributions of all the leaves below the split. If
+ * none of the fields used by the splits of a subtree is in the input data,
+ * all of its leaves are merged, so the distribution merged in advance is
+ * used instead of walking the subtree. The distributions are kept as arrays
+ * of counts indexed by the distribution values, and they are added to an
+ * array of counts.
+ *
+ * The result is the one of merging the distributions of the leaves reached
+ * one by one: the counts are added as integers, and the last node is the
+ * last leaf merged.
+ */
+class ProportionalDistributions {
+
+    private final Node root;
+    private final JSONObject fields;
+
+    // the values of the distributions of the leaves, and their index
+    private final Object[] values;
+    // the fields used by the splits, and their index
+    private final Map<String, Integer> fieldIndexes;
+
+    private ProportionalDistributions(Node root, JSONObject fields,
+            Object[] values, Map<String, Integer> fieldIndexes) {
+        this.root = root;
+        this.fields = fields;
+        this.values = values;
+        this.fieldIndexes = fieldIndexes;
+    }
+
+    /**
+     * Merges the distributions of the subtrees of a tree
+     *
+     * @param tree  the tree, or subtree, used to predict
+     */
+    static ProportionalDistributions build(Tree tree) {
+        Map<Object, Integer> valueIndexes = new LinkedHashMap<Object, Integer>();
+        Map<String, Integer> fieldIndexes = new HashMap<String, Integer>();
+        Node root = node(tree, valueIndexes, fieldIndexes);
+        return new ProportionalDistributions(root, tree.listFields(),
+                valueIndexes.keySet().toArray(), fieldIndexes);
+    }
+
+    private static Node node(Tree tree, Map<Object, Integer> valueIndexes,
+            Map<String, Integer> fieldIndexes) {
+
+        List<Tree> children = tree.getChildren();
+        Node node = new Node(tree, new Node[children.size()]);
+
+        if (children.isEmpty()) {
+            // as Utils.convertDistributionArrayToMap, the last count of
+            // a value is kept
+            Map<Integer, Integer> counts = new LinkedHashMap<Integer, Integer>();
+            JSONArray distribution = tree.getLeafDistribution();
+            if (distribution != null) {
+                for (Object item : distribution) {
+                    JSONArray bin = (JSONArray) item;
+                    counts.put(index(valueIndexes, bin.get(0)),
+                            ((Number) bin.get(1)).intValue());
+                }
+            }
+            node.setCounts(counts);
+            node.lastLeaf = tree;
+            node.complete = true;
+            return node;
+        }
+
+        String split = AbstractTree.split(children);
+        JSONObject field = split != null ?
+                (JSONObject) tree.listFields().get(split) : null;
+        String optype = field != null ? (String) field.get("optype") : null;
+
+        node.split = split;
+        node.oneBranch = tree.missingBranch(children) || tree.noneValue(children)
+                || "text".equals(optype) || "items".equals(optype);
+        node.complete = optype != null && !node.oneBranch;
+        if (split != null) {
+            node.fields.set(index(fieldIndexes, split));
+        }
+
+        Map<Integer, Integer> counts = new LinkedHashMap<Integer, Integer>();
+        for (int i = 0; i < children.size(); i++) {
+            Node child = node(children.get(i), valueIndexes, fieldIndexes);
+            node.children[i] = child;
+            node.complete &= child.complete;
+            node.fields.or(child.fields);
+            node.lastLeaf = child.lastLeaf;
+            for (int j = 0; j < child.values.length; j++) {
+                Integer count = counts.get(child.values[j]);
+                counts.put(child.values[j], (count == null ? 0 : count)
+                        + child.counts[j]);
+            }
+        }
+        node.setCounts(counts);
+        return node;
+    }
+
+    private static <T> int index(Map<T, Integer> indexes, T key) {
+        Integer index = indexes.get(key);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Merges the distributions of the leaves reached by the input data,
+     * following every branch of the splits whose field is missing.
+     *
+     * @param inputData  the input data keyed by field Id
+     * @param lastNode   set to the last leaf merged
+     * @param path       the list where the rules of the unique path are
+     *                   added
+     *
+     * @return the merged distribution, or null if no branch applies
+     */
+    Map<Object, Number> merge(JSONObject inputData,
+            Tree.TreeHolder lastNode, List<String> path) {
+
+        BitSet present = new BitSet(fieldIndexes.size());
+        for (Object fieldId : inputData.keySet()) {
+            Integer index = fieldIndexes.get(fieldId);
+            if (index != null) {
+                present.set(index);
+            }
+        }
+
+        Merge merge = new Merge(values.length);
+        if (!merge(root, inputData, present, lastNode, path, false, merge)) {
+            return null;
+        }
+
+        Map<Object, Number> distribution = new HashMap<Object, Number>();
+        for (int i = 0; i < merge.size; i++) {
+            int value = merge.order[i];
+            distribution.put(values[value], merge.counts[value]);
+        }
+        return distribution;
+    }
+
+    private boolean merge(Node node, JSONObject inputData, BitSet present,
+            Tree.TreeHolder lastNode, List<String> path,
+            boolean missingFound, Merge merge) {
+
+        if (node.children.length == 0) {
+            lastNode.setTree(node.tree);
+            merge.add(node);
+            return true;
+        }
+
+        if (node.oneBranch || inputData.containsKey(node.split)) {
+            for (Node child : node.children) {
+                Predicate predicate = child.tree.getPredicate();
+                if (predicate.apply(inputData, fields)) {
+                    // the rules are only added before the first missing
+                    // value, so they aren't built after it
+                    if (!missingFound) {
+                        String newRule = predicate.toRule(fields);
+                        if (!path.contains(newRule)) {
+                            path.add(newRule);
+                        }
+                    }
+                    return merge(child, inputData, present, lastNode, path,
+                            missingFound, merge);
+                }
+            }
+            return false;
+        }
+
+        // missing value found, the unique path stops
+        for (Node child : node.children) {
+            if (child.complete && !child.fields.intersects(present)) {
+                // all the leaves of the child are merged
+                lastNode.setTree(child.lastLeaf);
+                merge.add(child);
+            } else {
+                merge(child, inputData, present, lastNode, path, true, merge);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A node of the tree with the merged distribution of its leaves
+     */
+    private static class Node {
+
+        final Tree tree;
+        final Node[] children;
+
+        // the field of the split, and whether only one branch is followed
+        // whatever the input data is
+        String split;
+        boolean oneBranch;
+
+        // the fields used by the splits of the subtree
+        final BitSet fields = new BitSet();
+        // whether a missing value leads to all the leaves of the subtree
+        boolean complete;
+        Tree lastLeaf;
+
+        // the indexes of the values of the merged distribution, in
+        // the order they were merged, and their counts
+        int[] values;
+        int[] counts;
+
+        Node(Tree tree, Node[] children) {
+            this.tree = tree;
+            this.children = children;
+        }
+
+        void setCounts(Map<Integer, Integer> merged) {
+            values = new int[merged.size()];
+            counts = new int[merged.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : merged.entrySet()) {
+                values[i] = entry.getKey();
+                counts[i] = entry.getValue();
+                i++;
+            }
+        }
+    }
+
+    /**
+     * The counts merged by a prediction
+     */
+    private static class Merge {
+
+        final int[] counts;
+        final boolean[] merged;
+        // the indexes of the values merged, in order
+        final int[] order;
+        int size = 0;
+
+        Merge(int values) {
+            counts = new int[values];
+            merged = new boolean[values];
+            order = new int[values];
+        }
+
+        void add(Node node) {
+            for (int i = 0; i < node.values.length; i++) {
+                int value = node.values[i];
+                if (!merged[value]) {
+                    merged[value] = true;
+                    order[size++] = value;
+                }
+                counts[value] += node.counts[i];
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +95,7 @@ public class Tree extends AbstractTree {
 
 
     private String parentId;
+    private Tree parent;
     private final List<Tree> children;
     private JSONObject rootDistribution;
     private boolean regression;
@@ -103,13 +105,17 @@ public class Tree extends AbstractTree {
     private JSONArray weightedDistribution;
     private String weightedDistributionUnit;
     private Double median;
-    private double impurity = 0.0;
+    private Double impurity;
     private Double weight;
     private boolean weighted = false;
     private Integer max;
     private Integer min;
     private JSONObject treeInfo;
 
+    // merged distributions of the subtrees for the proportional strategy,
+    // built the first time they are needed
+    private transient volatile ProportionalDistributions proportionalDistributions;
+
     /**
      * Constructor
      */
@@ -137,6 +143,7 @@ public class Tree extends AbstractTree {
                 JSONObject child = (JSONObject) childrenObj.get(i);
                 Tree childTree = new Tree(child, fields, objectiveField,
                 		null, id, idsMap, subtree, treeInfo);
+                childTree.parent = this;
                 children.add(childTree);
             }
         }
@@ -190,40 +197,22 @@ public class Tree extends AbstractTree {
         		Math.max(((Number) treeInfo.get("max_bins")).intValue(),
         				 distribution.size()));
 
+            // the median is only computed from the distribution when the
+            // summary lacks it and someone asks for it (see getMedian)
             median = null;
-            if( summary != null ) {
+            if( summary != null && summary.get("median") != null ) {
                 median = ((Number) summary.get("median")).doubleValue();
             }
 
-            if( median == null ) {
-                median = distributionMedian(distribution, count);
-            }
-
-            if (summary.containsKey("maximum")) {
+            if (summary != null && summary.containsKey("maximum")) {
             	max = ((Number) summary.get("maximum")).intValue();
-            } else {
-            	int max = 0;
-            	for (int i=0; i<this.distribution.size(); i++) {
-            		ArrayList dist = (ArrayList) this.distribution.get(i);
-            		max = Math.max(max, ((Number) dist.get(0)).intValue());
-            	}
             }
 
-            if (summary.containsKey("minimum")) {
+            if (summary != null && summary.containsKey("minimum")) {
             	min = ((Number) summary.get("minimum")).intValue();
-            } else {
-            	int min = 0;
-            	for (int i=0; i<this.distribution.size(); i++) {
-            		ArrayList dist = (ArrayList) this.distribution.get(i);
-            		min = Math.min(min, ((Number) dist.get(0)).intValue());
-            	}
             }
         }
 
-        if( !this.regression && this.distribution != null ) {
-            impurity = calculateGiniImpurity();
-        }
-
         this.treeInfo = treeInfo;
     }
 
@@ -233,10 +222,21 @@ public class Tree extends AbstractTree {
     }
 
     public Double getMedian() {
+        if( median == null && regression && distribution != null ) {
+            median = distributionMedian(distribution, count);
+        }
         return median;
     }
 
+    /**
+     * Returns the gini impurity of the node. It is only needed to inspect
+     * the model, so it is computed the first time it is requested.
+     */
     public double getImpurity() {
+        if( impurity == null ) {
+            impurity = (!regression && distribution != null) ?
+                calculateGiniImpurity() : 0.0;
+        }
         return impurity;
     }
 
@@ -264,6 +264,14 @@ public class Tree extends AbstractTree {
         return weighted;
     }
 
+    /**
+     * Returns the distribution of the node used by the proportional
+     * strategy, the weighted one in weighted models
+     */
+    JSONArray getLeafDistribution() {
+        return !this.weighted ? distribution : weightedDistribution;
+    }
+
     public Integer getMin() {
         return min;
     }
@@ -591,7 +599,7 @@ public class Tree extends AbstractTree {
             }
 
             if( "impurity".equals(header) ) {
-                row.add(impurity);
+                row.add(getImpurity());
                 continue;
             }
 
@@ -776,13 +784,27 @@ public class Tree extends AbstractTree {
      *
      */
     public String getJavaBody(final List<String> idsPath, final boolean subtree) {
-        return getJavaBody(0, "", null, null, idsPath, subtree);
+        StringBuilder instructions = new StringBuilder();
+        getJavaBody(instructions, 0, "", null, null, idsPath, subtree);
+        return instructions.toString();
     }
 
     protected String getJavaBody(final int depth, String body, List<String> conditions,
                                  List<String> cmv, final List<String> idsPath, final boolean subtree) {
-        String instructions = "";
+        StringBuilder instructions = new StringBuilder();
+        getJavaBody(instructions, depth, body, conditions, cmv, idsPath, subtree);
+        return instructions.toString();
+    }
 
+    /**
+     * Appends the "if" java statements of the subtree to instructions. The
+     * whole model is written to a single builder, instead of concatenating
+     * the code of each subtree.
+     */
+    protected void getJavaBody(StringBuilder instructions, final int depth,
+                               String body, List<String> conditions,
+                               List<String> cmv, final List<String> idsPath,
+                               final boolean subtree) {
         if( cmv == null ) {
             cmv = new ArrayList<String>();
         }
@@ -801,6 +823,7 @@ public class Tree extends AbstractTree {
 
         List<Tree> children = filterNodes(this.children, idsPath, subtree);
 
+        String indent = new String(new char[depth]).replace("\0", INDENT);
         if (children != null && children.size() > 0) {
             String fieldId = Utils.split(children);
             String fieldName = Utils.getJSONObject(fields, fieldId + ".name", "").toString();
@@ -812,15 +835,14 @@ public class Tree extends AbstractTree {
 
                 String comparison = JAVA_OPERATOR.get(child.predicate
                         .getOpType() + "-" + child.predicate.getOperator());
-                instructions += MessageFormat.format("{0}if ({1} != null && "
+                instructions.append(MessageFormat.format("{0}if ({1} != null && "
                         + comparison + ") '{'\n",
-                        new String(new char[depth]).replace("\0", INDENT),
-                        slug, slug,
-                        child.predicate.getValue() + "");
+                        indent, slug, slug,
+                        child.predicate.getValue() + ""));
 
-                instructions += child.getJavaBody(depth + 1, body, conditions, cmv, idsPath, subtree);
-                instructions += new String(new char[depth]).replace("\0",
-                        INDENT) + "}\n";
+                child.getJavaBody(instructions, depth + 1, body, conditions,
+                        cmv, idsPath, subtree);
+                instructions.append(indent).append("}\n");
             }
         } else {
             String returnSentence = "{0} return {1};\n";
@@ -830,11 +852,9 @@ public class Tree extends AbstractTree {
             if (objectiveType.equals("numeric") ) {
                 returnSentence = "{0} return {1}F;\n";
             }
-            instructions += MessageFormat.format(returnSentence, new String(
-                    new char[depth]).replace("\0", INDENT), this.output);
+            instructions.append(MessageFormat.format(returnSentence, indent,
+                    this.output));
         }
-
-        return instructions;
     }
 
 
@@ -861,6 +881,26 @@ public class Tree extends AbstractTree {
      */
     public Prediction predict(final JSONObject inputData, List<String> path,
                                            MissingStrategy strategy) {
+        return predict(inputData, path, strategy, true);
+    }
+
+    /**
+     * Makes a prediction based on a number of field values.
+     *
+     * The input fields must be keyed by Id.
+     *
+     * When explain is false and the LAST_PREDICTION strategy is used, the
+     * rules that lead to the prediction are not built while predicting.
+     * They are built only if requested through Prediction.getPath.
+     *
+     * @param inputData  the input data keyed by field Id
+     * @param path       the list where the rules are added
+     * @param strategy   the missing strategy
+     * @param explain    whether to build the rules of the path
+     * @return the prediction
+     */
+    public Prediction predict(final JSONObject inputData, List<String> path,
+            MissingStrategy strategy, boolean explain) {
         if (strategy == null) {
             strategy = MissingStrategy.LAST_PREDICTION;
         }
@@ -870,7 +910,7 @@ public class Tree extends AbstractTree {
         }
 
         if (strategy == MissingStrategy.LAST_PREDICTION) {
-            return predictLastPrediction(inputData, path);
+            return predictLastPrediction(inputData, path, explain);
         }
         else if (strategy == MissingStrategy.PROPORTIONAL) {
             return predictProportional(inputData, path);
@@ -882,32 +922,72 @@ public class Tree extends AbstractTree {
     }
 
     /* helper function for predict() */
-    private Prediction predictLastPrediction(final JSONObject inputData, List<String> path) {
-        if (this.children != null && this.children.size() > 0) {
-            for (int i = 0; i < this.children.size(); i++) {
-                Tree child = this.children.get(i);
-
+    private Prediction predictLastPrediction(final JSONObject inputData,
+            List<String> path, boolean explain) {
+        // descends to the last node whose predicate is true
+        Tree node = this;
+        boolean descending = true;
+        while (descending) {
+            descending = false;
+            for (Tree child : node.children) {
                 if( child.predicate.apply(inputData, fields) ) {
-                    path.add(child.predicate.toRule(fields));
-                    return child.predict(inputData, path, MissingStrategy.LAST_PREDICTION);
+                    node = child;
+                    descending = true;
+                    break;
                 }
             }
         }
 
-        Integer dMin = !this.regression ? null : this.min;
-        Integer dMax = !this.regression ? null : this.max;
+        return predictionFor(node, path, explain);
+    }
 
-        return new Prediction(this.output, this.confidence, this.count,
-                              (isRegression() ? this.median : null),
-                              path, this.distribution, this.distributionUnit,
-                              children, dMin, dMax);
+    /**
+     * Returns the prediction of a node reached from this node with the
+     * last prediction strategy, either by predictLastPrediction or by a
+     * CompiledTree.
+     */
+    Prediction predictionFor(Tree node, List<String> path, boolean explain) {
+        if( explain ) {
+            path.addAll(node.getRulesFrom(this));
+        }
+
+        Integer dMin = !node.regression ? null : node.min;
+        Integer dMax = !node.regression ? null : node.max;
+
+        Prediction prediction = new Prediction(node.output, node.confidence,
+                              node.count,
+                              (node.isRegression() ? node.getMedian() : null),
+                              explain ? path : null, node.distribution,
+                              node.distributionUnit, node.children, dMin, dMax);
+        if( !explain ) {
+            prediction.setExplanation(this, node);
+        }
+        return prediction;
+    }
+
+    /**
+     * Returns the rules that lead from an ancestor node to this node
+     *
+     * @param ancestor  the node where the rules start
+     * @return the list of rules
+     */
+    public List<String> getRulesFrom(Tree ancestor) {
+        List<String> rules = new ArrayList<String>();
+        Tree node = this;
+        while (node != ancestor && node != null && node.predicate != null) {
+            rules.add(node.predicate.toRule(fields));
+            node = node.parent;
+        }
+        Collections.reverse(rules);
+        return rules;
     }
 
 
     /* helper function for predict() */
     private Prediction predictProportional(final JSONObject inputData, List<String> path) {
         TreeHolder lastNode = new TreeHolder();
-        Map<Object, Number> finalDistribution = predictProportional(inputData, lastNode, path, false, false);
+        Map<Object, Number> finalDistribution = getProportionalDistributions()
+                .merge(inputData, lastNode, path);
 
         if ( isRegression() ) {
             return predictProportionalRegression(inputData, path, lastNode, finalDistribution);
@@ -999,60 +1079,15 @@ public class Tree extends AbstractTree {
                               dMax);
     }
 
-    /**
-     * Makes a prediction based on a number of field values averaging
-     * the predictions of the leaves that fall in a subtree.
-     *
-     * Each time a splitting field has no value assigned, we consider
-     * both branches of the split to be true, merging their predictions.
-     * The function returns the merged distribution and the last node
-     * reached by a unique path.
-     *
-     * @param inputData
-     * @param path
-     * @param missingFound
-     */
-    protected Map<Object, Number> predictProportional(
-    		final JSONObject inputData, final TreeHolder lastNode, List<String> path,
-            Boolean missingFound, Boolean median) {
-
-        if( path == null ) {
-            path = new ArrayList<String>();
-        }
-
-        Map<Object, Number> finalDistribution = new HashMap<Object, Number>();
-
-        // We are in a leaf node... the only thing we need to do is return distribution of the node as a Map object
-        if( children.isEmpty() ) {
-            lastNode.setTree(this);
-            distribution = !this.weighted ? distribution : weightedDistribution;
-            return Utils.mergeDistributions(new HashMap<Object, Number>(), Utils.convertDistributionArrayToMap(distribution));
-        }
-
-        String optype = (String) ((JSONObject) fields.get(split(children))).get("optype");
-        if( isOneBranch(children, inputData) || optype.equals("text") || optype.equals("items")) {
-        	for (Tree child : children) {
-                if( child.getPredicate().apply(inputData, fields) ) {
-                    String newRule = child.getPredicate().toRule(fields);
-                    if( !path.contains(newRule) && !missingFound ) {
-                        path.add(newRule);
-                    }
-                    return child.predictProportional(inputData, lastNode, path, missingFound, median);
-                }
-            }
-        } else {
-            // missing value found, the unique path stops
-            missingFound = true;
-            for (Tree child : children) {
-                finalDistribution = Utils.mergeDistributions(finalDistribution,
-                        child.predictProportional(inputData, lastNode, path, missingFound, median));
-            }
-            return finalDistribution;
+    private ProportionalDistributions getProportionalDistributions() {
+        ProportionalDistributions distributions = proportionalDistributions;
+        if (distributions == null) {
+            distributions = ProportionalDistributions.build(this);
+            proportionalDistributions = distributions;
         }
-        return null;
+        return distributions;
     }
 
-
     protected static class TreeHolder {
         private Tree tree;
 
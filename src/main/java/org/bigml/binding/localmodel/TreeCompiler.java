@@ -0,0 +1,496 @@
+package org.bigml.binding.localmodel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.bigml.binding.Constants;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles trees to Java classes, loaded in the running JVM.
+ *
+ * The generated class of a tree checks the predicates of the nodes with
+ * nested "if" statements, as Tree.getJavaBody does, and returns the index
+ * of the node reached, so that it gives the same predictions as the
+ * interpreted tree with the last prediction strategy. The splits on
+ * numeric fields compare primitive doubles, and the splits on categorical
+ * fields compare strings. Other predicates, e.g. the ones on text fields,
+ * are evaluated by the interpreter.
+ *
+ * The code of large or deep trees is split in several methods, so that no
+ * method goes beyond the limits of the JVM.
+ *
+ * The classes are compiled with the compiler of the JDK, so the
+ * compilation needs a JDK, not only a JRE. Each call compiles all the
+ * trees at once, e.g. all the trees of an ensemble.
+ *
+ * Example usage:
+ *
+ *  LocalPredictiveModel localModel = new LocalPredictiveModel(model);
+ *  localModel.compile();
+ *  Prediction prediction = localModel.predict(inputData);
+ */
+public class TreeCompiler {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(
+            TreeCompiler.class.getName());
+
+    // The maximum number of nodes in a generated method
+    public static final int METHOD_NODES = 512;
+
+    // The maximum depth of the nested "if" statements of a method
+    public static final int METHOD_DEPTH = 32;
+
+    // The maximum number of nodes in a generated class, whose constants
+    // are limited
+    public static final int CLASS_NODES = 4096;
+
+    // The maximum length of the code compiled by a single run of the
+    // compiler, whose memory grows with the code of all its classes
+    public static final int TASK_LENGTH = 1 << 22;
+
+    private static final String PACKAGE = "org.bigml.binding.localmodel";
+
+    private static final AtomicLong classes = new AtomicLong();
+
+    private static final Map<String, String> NUMERIC_OPERATORS =
+            new HashMap<String, String>();
+    static {
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_LT, "<");
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_LE, "<=");
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_EQ, "==");
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_NE, "!=");
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_NE2, "!=");
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_GE, ">=");
+        NUMERIC_OPERATORS.put(Constants.OPERATOR_GT, ">");
+    }
+
+    /**
+     * Returns whether the trees can be compiled, i.e., whether a Java
+     * compiler is available
+     */
+    public static boolean isAvailable() {
+        return ToolProvider.getSystemJavaCompiler() != null;
+    }
+
+    /**
+     * Compiles a tree
+     *
+     * @param root
+     *            the root of a Tree or a BoostedTree
+     * @return the compiled tree
+     * @throws Exception if the tree cannot be compiled
+     */
+    public static CompiledTree compile(AbstractTree root) throws Exception {
+        return compile(Collections.singletonList(root)).get(0);
+    }
+
+    /**
+     * Compiles many trees, e.g. the ones of an ensemble, at once
+     *
+     * @param roots
+     *            the roots of Trees or BoostedTrees
+     * @return the compiled trees, in the same order
+     * @throws Exception if the trees cannot be compiled
+     */
+    public static List<CompiledTree> compile(
+            List<? extends AbstractTree> roots) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if( compiler == null ) {
+            throw new IllegalStateException("No Java compiler available. "
+                    + "The trees can only be compiled when running on a JDK.");
+        }
+
+        long start = System.currentTimeMillis();
+        List<Generator> generators = new ArrayList<Generator>();
+        List<Source> sources = new ArrayList<Source>();
+        for (AbstractTree root : roots) {
+            Generator generator = new Generator(root,
+                    "GeneratedTree" + classes.incrementAndGet());
+            generators.add(generator);
+            for (Map.Entry<String, String> source :
+                    generator.generate().entrySet()) {
+                sources.add(new Source(source.getKey(), source.getValue()));
+            }
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics =
+                new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager standardManager =
+                compiler.getStandardFileManager(diagnostics, null, null);
+        final Map<String, ByteArrayOutputStream> bytecodes =
+                new HashMap<String, ByteArrayOutputStream>();
+        ForwardingJavaFileManager<StandardJavaFileManager> fileManager =
+                new ForwardingJavaFileManager<StandardJavaFileManager>(
+                        standardManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location,
+                    final String className, JavaFileObject.Kind kind,
+                    FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("mem:///"
+                        + className.replace('.', '/') + kind.extension),
+                        kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytecode =
+                                new ByteArrayOutputStream();
+                        bytecodes.put(className, bytecode);
+                        return bytecode;
+                    }
+                };
+            }
+        };
+
+        try {
+            List<String> options = Arrays.asList("-classpath", classpath(),
+                    "-proc:none", "-g:none", "-nowarn");
+            // the generated classes only depend on CompiledTree, so they
+            // can be compiled in several runs
+            List<Source> task = new ArrayList<Source>();
+            int length = 0;
+            for (int i = 0; i < sources.size(); i++) {
+                Source source = sources.get(i);
+                task.add(source);
+                length += source.code.length();
+                if( length >= TASK_LENGTH || i == sources.size() - 1 ) {
+                    Boolean compiled = compiler.getTask(null, fileManager,
+                            diagnostics, options, null, task).call();
+                    if( !Boolean.TRUE.equals(compiled) ) {
+                        throw new IllegalStateException(
+                                errors(diagnostics));
+                    }
+                    task.clear();
+                    length = 0;
+                }
+            }
+        } finally {
+            fileManager.close();
+        }
+
+        Map<String, byte[]> classBytes = new HashMap<String, byte[]>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry :
+                bytecodes.entrySet()) {
+            classBytes.put(entry.getKey(), entry.getValue().toByteArray());
+        }
+        TreeClassLoader classLoader = new TreeClassLoader(
+                CompiledTree.class.getClassLoader(), classBytes);
+
+        List<CompiledTree> compiledTrees = new ArrayList<CompiledTree>();
+        for (Generator generator : generators) {
+            CompiledTree[] parts = new CompiledTree[generator.parts.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = (CompiledTree) classLoader
+                        .loadClass(PACKAGE + "." + generator.className(i))
+                        .getDeclaredConstructor().newInstance();
+            }
+            parts[0].init(generator.root, generator.nodes, generator.parents,
+                    generator.fieldIds, generator.root.fields,
+                    generator.strings, generator.predicates, parts);
+            for (int i = 1; i < parts.length; i++) {
+                parts[i].init(parts[0]);
+            }
+            compiledTrees.add(parts[0]);
+        }
+
+        logger.debug("Compiled {} trees in {} ms", roots.size(),
+                System.currentTimeMillis() - start);
+        return compiledTrees;
+    }
+
+    private static String errors(
+            DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder message = new StringBuilder(
+                "The trees couldn't be compiled:");
+        for (Diagnostic<? extends JavaFileObject> diagnostic :
+                diagnostics.getDiagnostics()) {
+            if( diagnostic.getKind() == Diagnostic.Kind.ERROR ) {
+                message.append('\n').append(diagnostic.getMessage(null));
+            }
+        }
+        return message.toString();
+    }
+
+    /**
+     * Returns the classpath to compile the generated classes: the one of
+     * the JVM and the location of the bindings, that can be loaded from
+     * elsewhere, e.g. in an application server
+     */
+    private static String classpath() {
+        String classpath = System.getProperty("java.class.path", "");
+        try {
+            CodeSource codeSource = CompiledTree.class.getProtectionDomain()
+                    .getCodeSource();
+            if( codeSource != null ) {
+                String location = new File(codeSource.getLocation().toURI())
+                        .getPath();
+                classpath = location + File.pathSeparator + classpath;
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to find the location of the bindings", e);
+        }
+        return classpath;
+    }
+
+    /**
+     * Generates the Java code of a tree
+     */
+    static class Generator {
+        final AbstractTree root;
+        final String className;
+
+        // the nodes in preorder, their parents and the sizes of their
+        // subtrees
+        final List<AbstractTree> nodes = new ArrayList<AbstractTree>();
+        final List<Integer> parents = new ArrayList<Integer>();
+        final List<Integer> sizes = new ArrayList<Integer>();
+        final List<List<Integer>> children = new ArrayList<List<Integer>>();
+
+        final List<String> fieldIds = new ArrayList<String>();
+        final Map<String, Integer> positions = new LinkedHashMap<String, Integer>();
+        final List<String> strings = new ArrayList<String>();
+        final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        final List<Predicate> predicates = new ArrayList<Predicate>();
+
+        // the nodes whose code goes in a class of its own, and the ones
+        // whose code goes in a method of its own in the current class
+        final List<Integer> parts = new ArrayList<Integer>();
+        final Deque<Integer> methods = new ArrayDeque<Integer>();
+        int partNodes = 0;
+
+        Generator(AbstractTree root, String className) {
+            this.root = root;
+            this.className = className;
+            index(root, -1);
+        }
+
+        /**
+         * Numbers the nodes in preorder
+         */
+        private int index(AbstractTree node, int parent) {
+            int index = nodes.size();
+            nodes.add(node);
+            parents.add(parent);
+            sizes.add(1);
+            children.add(new ArrayList<Integer>());
+
+            int size = 1;
+            List<? extends AbstractTree> nodeChildren = node.getChildren();
+            if( nodeChildren != null ) {
+                for (AbstractTree child : nodeChildren) {
+                    children.get(index).add(nodes.size());
+                    size += index(child, index);
+                }
+            }
+            sizes.set(index, size);
+            return size;
+        }
+
+        /**
+         * Returns the code of the classes of the tree, by name. The first
+         * one is the class of the tree, and the rest are the parts of a
+         * large tree, each one with the code of a subtree.
+         */
+        Map<String, String> generate() {
+            Map<String, String> sources = new LinkedHashMap<String, String>();
+            part(0);
+            for (int part = 0; part < parts.size(); part++) {
+                String name = className(part);
+                StringBuilder code = new StringBuilder();
+                code.append("package ").append(PACKAGE).append(";\n\n");
+                code.append("public final class ").append(name)
+                    .append(" extends CompiledTree {\n\n");
+                code.append("    public int leaf(double[] x, Object[] o) {\n");
+                code.append("        return n").append(parts.get(part))
+                    .append("(x, o);\n");
+                code.append("    }\n");
+
+                methods.clear();
+                methods.add(parts.get(part));
+                partNodes = Math.min(sizes.get(parts.get(part)), METHOD_NODES);
+                while( !methods.isEmpty() ) {
+                    int node = methods.poll();
+                    code.append("\n    private int n").append(node)
+                        .append("(double[] x, Object[] o) {\n");
+                    node(code, node, 2, new int[] { 0 });
+                    code.append("    }\n");
+                }
+                code.append("}\n");
+                sources.put(name, code.toString());
+            }
+            return sources;
+        }
+
+        String className(int part) {
+            return part == 0 ? className : className + "_" + part;
+        }
+
+        /**
+         * Adds a part whose class starts at a node
+         */
+        private int part(int node) {
+            parts.add(node);
+            return parts.size() - 1;
+        }
+
+        /**
+         * Appends the code of a node: an "if" for each child, whose code
+         * returns the node reached, followed by the return of the node
+         * itself when no child predicate is true
+         */
+        private void node(StringBuilder code, int node, int depth,
+                int[] methodNodes) {
+            methodNodes[0]++;
+            for (int child : children.get(node)) {
+                indent(code, depth).append("if (")
+                    .append(condition(nodes.get(child).getPredicate()))
+                    .append(") {\n");
+                boolean leaf = children.get(child).isEmpty();
+                int size = sizes.get(child);
+                if( leaf || (depth < METHOD_DEPTH
+                        && methodNodes[0] + size <= METHOD_NODES) ) {
+                    node(code, child, depth + 1, methodNodes);
+                } else if( partNodes + Math.min(size, METHOD_NODES)
+                        <= CLASS_NODES ) {
+                    // a method of its own in the same class
+                    partNodes += Math.min(size, METHOD_NODES);
+                    methods.add(child);
+                    indent(code, depth + 1).append("return n").append(child)
+                        .append("(x, o);\n");
+                } else {
+                    // a class of its own, as the constants of a class are
+                    // limited
+                    indent(code, depth + 1).append("return parts[")
+                        .append(part(child)).append("].leaf(x, o);\n");
+                }
+                indent(code, depth).append("}\n");
+            }
+            indent(code, depth).append("return ").append(node).append(";\n");
+        }
+
+        /**
+         * Returns the Java condition of a predicate
+         */
+        private String condition(Predicate predicate) {
+            String fieldId = predicate.getField();
+            int position = position(fieldId);
+            boolean numeric = CompiledTree.isNumeric(root.fields, fieldId);
+            Object value = predicate.getValue();
+            String operator = predicate.getOperator();
+
+            if( predicate.getTerm() == null ) {
+                if( numeric && value instanceof Number
+                        && NUMERIC_OPERATORS.containsKey(operator) ) {
+                    return String.format("(Double.isNaN(x[%d]) ? %s : x[%d] %s %s)",
+                            position, predicate.isMissing(), position,
+                            NUMERIC_OPERATORS.get(operator),
+                            Double.toString(((Number) value).doubleValue()));
+                }
+                if( !numeric && value instanceof String
+                        && (Constants.OPERATOR_EQ.equals(operator)
+                            || Constants.OPERATOR_NE.equals(operator)
+                            || Constants.OPERATOR_NE2.equals(operator)) ) {
+                    return String.format("(o[%d] == null ? %s : %sstrings[%d].equals(o[%d].toString()))",
+                            position, predicate.isMissing(),
+                            Constants.OPERATOR_EQ.equals(operator) ? "" : "!",
+                            string((String) value), position);
+                }
+            }
+
+            predicates.add(predicate);
+            return String.format("apply(%d, %d, x, o)",
+                    predicates.size() - 1, position);
+        }
+
+        private int position(String fieldId) {
+            Integer position = positions.get(fieldId);
+            if( position == null ) {
+                position = fieldIds.size();
+                positions.put(fieldId, position);
+                fieldIds.add(fieldId);
+            }
+            return position;
+        }
+
+        private int string(String value) {
+            Integer index = stringIndexes.get(value);
+            if( index == null ) {
+                index = strings.size();
+                stringIndexes.put(value, index);
+                strings.add(value);
+            }
+            return index;
+        }
+
+        private static StringBuilder indent(StringBuilder code, int depth) {
+            for (int i = 0; i < depth; i++) {
+                code.append(Tree.INDENT);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * The source of a generated class
+     */
+    private static class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + PACKAGE.replace('.', '/') + "/"
+                    + className + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /**
+     * Loads the generated classes of a compilation
+     */
+    private static class TreeClassLoader extends ClassLoader {
+        private final Map<String, byte[]> classBytes;
+
+        TreeClassLoader(ClassLoader parent, Map<String, byte[]> classBytes) {
+            super(parent);
+            this.classBytes = classBytes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classBytes.get(name);
+            if( bytes == null ) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,929 @@
+package org.bigml.binding.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the BigML API, to run tests and load benchmarks
+ * offline and reproducibly.
+ *
+ * It implements the REST calls sent by the resources of the bindings:
+ * create, get, list, update and delete, for any kind of resource, the
+ * downloads and the upload of local files as sources. The resources are
+ * kept in memory. The ones created through the API go from queued to in
+ * progress to finished as the processing time elapses, so that waiting for
+ * them works as with the real API. Recorded resources, e.g. downloaded
+ * models, can be added with {@link #put(JSONObject)} or {@link #load(File)},
+ * and templates give the content of the resources created for a kind.
+ *
+ * Latency, errors, throttling (HTTP 429 with Retry-After) and dropped
+ * connections can be injected at random, with a fixed seed, or for the
+ * next requests with {@link #failNext(int, int)}.
+ *
+ * Example usage:
+ *
+ *  MockApiServer server = new MockApiServer();
+ *  server.load(new File("data/iris_model.json"));
+ *  server.setThrottleRate(0.1);
+ *  server.start();
+ *  BigMLClient api = new BigMLClient(server.getUrl(), "user", "key", null);
+ *  ...
+ *  server.stop();
+ */
+public class MockApiServer {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(
+            MockApiServer.class.getName());
+
+    // Closes the connection without a response, as a network failure
+    public static final int DROP_CONNECTION = -1;
+
+    public static final int DEFAULT_THREADS = 16;
+    public static final int DEFAULT_LIMIT = 20;
+
+    // Status codes of the resources
+    public static final int QUEUED = 1;
+    public static final int IN_PROGRESS = 3;
+    public static final int FINISHED = 5;
+
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+
+    // query parameters that are not filters of the listings
+    private static final Set<String> RESERVED = new HashSet<String>(
+            java.util.Arrays.asList("username", "api_key", "project",
+                    "organization", "limit", "offset", "order_by",
+                    "full", "fields", "exclude", "only_model"));
+
+    private final Map<String, Entry> resources =
+            new ConcurrentHashMap<String, Entry>();
+    private final Map<String, JSONObject> templates =
+            new ConcurrentHashMap<String, JSONObject>();
+    private final Map<String, String> downloads =
+            new ConcurrentHashMap<String, String>();
+    private final ConcurrentLinkedQueue<Integer> failures =
+            new ConcurrentLinkedQueue<Integer>();
+    private final Map<String, AtomicLong> counts =
+            new ConcurrentHashMap<String, AtomicLong>();
+    // the ids are unique across servers, as the client caches the
+    // resources by id
+    private static final AtomicLong sequence = new AtomicLong(
+            System.currentTimeMillis() / 1000 << 32);
+
+    private final int port;
+    private final int threads;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private Random random = new Random();
+    private volatile long processingTime = 0;
+    private volatile long minLatency = 0;
+    private volatile long maxLatency = 0;
+    private volatile double errorRate = 0.0;
+    private volatile int errorCode = 500;
+    private volatile double throttleRate = 0.0;
+    private volatile int retryAfter = 1;
+    private volatile boolean checkAuth = true;
+
+    /**
+     * A resource and the time it was created at
+     */
+    private static class Entry {
+        final JSONObject resource;
+        final long created;
+        // true for the resources created through the API, whose status
+        // progresses with time
+        final boolean processed;
+
+        Entry(JSONObject resource, boolean processed) {
+            this.resource = resource;
+            this.created = System.currentTimeMillis();
+            this.processed = processed;
+        }
+    }
+
+    /**
+     * Creates a server on a free port
+     */
+    public MockApiServer() {
+        this(0, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param port
+     *            the port to listen to, or 0 for a free one
+     * @param threads
+     *            the number of requests served at the same time
+     */
+    public MockApiServer(int port, int threads) {
+        this.port = port;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Starts serving requests
+     */
+    public synchronized MockApiServer start() throws IOException {
+        if( server != null ) {
+            return this;
+        }
+        server = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        "bigml-mock-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    serve(exchange);
+                } catch (Throwable e) {
+                    logger.error("Error serving " + exchange.getRequestURI(), e);
+                    try {
+                        respond(exchange, 500, error(500, e.getMessage()));
+                    } catch (IOException ignored) {
+                        // the response was already sent
+                    }
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+        logger.info("Mock BigML API listening at " + getUrl());
+        return this;
+    }
+
+    /**
+     * Stops serving requests
+     */
+    public synchronized void stop() {
+        if( server != null ) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            executor = null;
+        }
+    }
+
+    /**
+     * Returns the url to give to the BigMLClient as its domain
+     */
+    public String getUrl() {
+        return String.format("http://%s:%d/",
+                server.getAddress().getAddress().getHostAddress(),
+                server.getAddress().getPort());
+    }
+
+    // ------------------------------------------------------------------
+    // Resources
+    // ------------------------------------------------------------------
+
+    /**
+     * Adds a resource, as given by the API. Resources wrapped in the result
+     * of a get, with the resource in their "object" property, are unwrapped.
+     *
+     * @return the id of the resource
+     */
+    public String put(JSONObject resource) {
+        if( resource.get("object") instanceof JSONObject ) {
+            resource = (JSONObject) resource.get("object");
+        }
+        String resourceId = (String) resource.get("resource");
+        if( resourceId == null ) {
+            throw new IllegalArgumentException(
+                    "The resource has no \"resource\" id");
+        }
+        resources.put(resourceId, new Entry(copy(resource), false));
+        return resourceId;
+    }
+
+    /**
+     * Adds the resources in a JSON file, or in all the .json files of a
+     * folder
+     *
+     * @return the number of resources added
+     */
+    public int load(File file) throws IOException {
+        if( file.isDirectory() ) {
+            int loaded = 0;
+            File[] files = file.listFiles();
+            if( files != null ) {
+                for (File child : files) {
+                    if( child.getName().endsWith(".json") ) {
+                        loaded += load(child);
+                    }
+                }
+            }
+            return loaded;
+        }
+
+        Object json = JSONValue.parse(new String(
+                Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        if( json instanceof JSONObject ) {
+            put((JSONObject) json);
+            return 1;
+        }
+        if( json instanceof JSONArray ) {
+            for (Object resource : (JSONArray) json) {
+                put((JSONObject) resource);
+            }
+            return ((JSONArray) json).size();
+        }
+        throw new IOException("No resources found in " + file);
+    }
+
+    /**
+     * Returns a copy of a resource, or null if there is none with this id
+     */
+    public JSONObject get(String resourceId) {
+        Entry entry = resources.get(resourceId);
+        return entry != null ? view(entry) : null;
+    }
+
+    /**
+     * Returns the ids of the resources of a kind, in creation order
+     */
+    public List<String> list(String kind) {
+        List<String> ids = new ArrayList<String>();
+        for (Entry entry : sorted(kind)) {
+            ids.add((String) entry.resource.get("resource"));
+        }
+        return ids;
+    }
+
+    /**
+     * Removes all the resources, templates and downloads
+     */
+    public void clear() {
+        resources.clear();
+        templates.clear();
+        downloads.clear();
+    }
+
+    /**
+     * Sets the content of the resources created for a kind, e.g. a
+     * recorded model for "model". The arguments of the create request are
+     * added to it.
+     *
+     * @param kind
+     *            the kind of resource, as in its path
+     * @param template
+     *            the resource, or null to remove the template
+     */
+    public void setTemplate(String kind, JSONObject template) {
+        if( template == null ) {
+            templates.remove(kind);
+            return;
+        }
+        if( template.get("object") instanceof JSONObject ) {
+            template = (JSONObject) template.get("object");
+        }
+        templates.put(kind, copy(template));
+    }
+
+    /**
+     * Sets the file returned when a resource is downloaded, e.g. the CSV
+     * of a batch prediction
+     */
+    public void setDownload(String resourceId, String content) {
+        downloads.put(resourceId, content);
+    }
+
+    // ------------------------------------------------------------------
+    // Behaviour
+    // ------------------------------------------------------------------
+
+    /**
+     * Sets the time a created resource takes to be finished, in ms. Zero
+     * (the default) finishes them as soon as they are retrieved.
+     */
+    public void setProcessingTime(long processingTime) {
+        this.processingTime = Math.max(0, processingTime);
+    }
+
+    /**
+     * Sets the latency of every response, chosen at random between a
+     * minimum and a maximum, in ms
+     */
+    public void setLatency(long minLatency, long maxLatency) {
+        this.minLatency = Math.max(0, minLatency);
+        this.maxLatency = Math.max(this.minLatency, maxLatency);
+    }
+
+    /**
+     * Sets the probability of answering with an error
+     *
+     * @param errorRate
+     *            the probability, between 0 and 1
+     * @param errorCode
+     *            the HTTP status of the errors, or DROP_CONNECTION
+     */
+    public void setErrorRate(double errorRate, int errorCode) {
+        this.errorRate = errorRate;
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * Sets the probability of answering with HTTP 429, too many requests
+     */
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Sets the Retry-After header of the throttled responses, in seconds,
+     * or a negative number to leave it out
+     */
+    public void setRetryAfter(int retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Sets the seed of the injected latencies and failures, so that a run
+     * can be reproduced
+     */
+    public synchronized void setSeed(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Sets whether the requests without username and api_key are rejected
+     * with HTTP 401. True by default.
+     */
+    public void setCheckAuth(boolean checkAuth) {
+        this.checkAuth = checkAuth;
+    }
+
+    /**
+     * Answers the next requests with an error, whatever the random
+     * failures
+     *
+     * @param count
+     *            the number of requests
+     * @param code
+     *            the HTTP status, e.g. 429 or 503, or DROP_CONNECTION
+     */
+    public void failNext(int count, int code) {
+        for (int i = 0; i < count; i++) {
+            failures.add(code);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Counts
+    // ------------------------------------------------------------------
+
+    /**
+     * Returns the number of requests received
+     */
+    public long getRequestCount() {
+        return count("requests");
+    }
+
+    /**
+     * Returns the number of requests received with a method, e.g. GET
+     */
+    public long getRequestCount(String method) {
+        return count(method);
+    }
+
+    /**
+     * Returns the number of responses sent with a status, or
+     * DROP_CONNECTION for the dropped connections
+     */
+    public long getResponseCount(int code) {
+        return count(String.valueOf(code));
+    }
+
+    /**
+     * Resets the counts of requests and responses
+     */
+    public void resetCounts() {
+        counts.clear();
+    }
+
+    private long count(String key) {
+        AtomicLong counter = counts.get(key);
+        return counter != null ? counter.get() : 0L;
+    }
+
+    private void increment(String key) {
+        AtomicLong counter = counts.get(key);
+        if( counter == null ) {
+            counts.putIfAbsent(key, new AtomicLong());
+            counter = counts.get(key);
+        }
+        counter.incrementAndGet();
+    }
+
+    // ------------------------------------------------------------------
+    // Requests
+    // ------------------------------------------------------------------
+
+    private void serve(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        increment("requests");
+        increment(method);
+
+        byte[] body = readAll(exchange.getRequestBody());
+        long latency = nextLatency();
+        if( latency > 0 ) {
+            Thread.sleep(latency);
+        }
+
+        Integer failure = nextFailure();
+        if( failure != null ) {
+            if( failure == DROP_CONNECTION ) {
+                increment(String.valueOf(DROP_CONNECTION));
+                // closing the exchange without a response resets it
+                return;
+            }
+            if( failure == 429 && retryAfter >= 0 ) {
+                exchange.getResponseHeaders().set("Retry-After",
+                        String.valueOf(retryAfter));
+            }
+            respond(exchange, failure, error(failure, failure == 429 ?
+                    "Too many requests" : "Injected failure"));
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI()
+                .getRawQuery());
+        if( checkAuth && (query.get("username") == null
+                || query.get("api_key") == null) ) {
+            respond(exchange, 401, error(401, "Unauthorized use"));
+            return;
+        }
+
+        String path = exchange.getRequestURI().getPath();
+        String[] segments = path.replaceAll("^/+|/+$", "").split("/");
+        String kind = segments[0];
+        if( kind.isEmpty() ) {
+            respond(exchange, 404, error(404, "Not found"));
+            return;
+        }
+
+        if( segments.length == 1 ) {
+            if( "POST".equals(method) ) {
+                create(exchange, kind, body);
+            } else if( "GET".equals(method) ) {
+                list(exchange, kind, query);
+            } else {
+                respond(exchange, 405, error(405, "Method not allowed"));
+            }
+            return;
+        }
+
+        String resourceId = kind + "/" + segments[1];
+        if( segments.length == 3 && "download".equals(segments[2])
+                && "GET".equals(method) ) {
+            download(exchange, resourceId);
+            return;
+        }
+        if( segments.length > 2 ) {
+            respond(exchange, 404, error(404, "Not found"));
+            return;
+        }
+
+        Entry entry = resources.get(resourceId);
+        if( entry == null ) {
+            respond(exchange, 404, error(404, "Id does not exist"));
+            return;
+        }
+
+        if( "GET".equals(method) ) {
+            respond(exchange, 200, view(entry));
+        } else if( "PUT".equals(method) ) {
+            JSONObject changes = (JSONObject) JSONValue.parse(
+                    new String(body, StandardCharsets.UTF_8));
+            if( changes == null ) {
+                respond(exchange, 400, error(400, "Bad request"));
+                return;
+            }
+            synchronized (entry) {
+                entry.resource.putAll(changes);
+                entry.resource.put("updated", now());
+            }
+            respond(exchange, 202, view(entry));
+        } else if( "DELETE".equals(method) ) {
+            resources.remove(resourceId);
+            downloads.remove(resourceId);
+            respond(exchange, 204, null);
+        } else {
+            respond(exchange, 405, error(405, "Method not allowed"));
+        }
+    }
+
+    private void create(HttpExchange exchange, String kind, byte[] body)
+            throws IOException {
+        JSONObject args;
+        String contentType = exchange.getRequestHeaders()
+                .getFirst("Content-Type");
+        if( contentType != null && contentType.startsWith("multipart/") ) {
+            args = parseMultipart(contentType, body);
+        } else {
+            args = body.length == 0 ? new JSONObject() : (JSONObject)
+                    JSONValue.parse(new String(body, StandardCharsets.UTF_8));
+        }
+        if( args == null ) {
+            respond(exchange, 400, error(400, "Bad request"));
+            return;
+        }
+
+        JSONObject template = templates.get(kind);
+        JSONObject resource = template != null ? copy(template)
+                : new JSONObject();
+        resource.putAll(args);
+
+        String resourceId = String.format("%s/%024x", kind,
+                sequence.incrementAndGet());
+        String created = now();
+        resource.put("resource", resourceId);
+        resource.put("created", created);
+        resource.put("updated", created);
+        if( !resource.containsKey("name") ) {
+            resource.put("name", kind);
+        }
+
+        Entry entry = new Entry(resource, true);
+        resources.put(resourceId, entry);
+        exchange.getResponseHeaders().set("Location", getUrl() + resourceId);
+        respond(exchange, 201, view(entry));
+    }
+
+    private void list(HttpExchange exchange, String kind,
+            Map<String, String> query) throws IOException {
+        int limit = integer(query.get("limit"), DEFAULT_LIMIT);
+        int offset = integer(query.get("offset"), 0);
+
+        List<JSONObject> matching = new ArrayList<JSONObject>();
+        List<Entry> entries = sorted(kind);
+        // the API lists the newest resources first
+        Collections.reverse(entries);
+        for (Entry entry : entries) {
+            JSONObject resource = view(entry);
+            if( matches(resource, query) ) {
+                matching.add(resource);
+            }
+        }
+
+        JSONArray objects = new JSONArray();
+        int end = limit > 0 ? Math.min(matching.size(), offset + limit)
+                : matching.size();
+        for (int i = Math.max(0, offset); i < end; i++) {
+            objects.add(matching.get(i));
+        }
+
+        JSONObject meta = new JSONObject();
+        meta.put("limit", limit);
+        meta.put("offset", offset);
+        meta.put("total_count", matching.size());
+        meta.put("next", end < matching.size() ? String.format(
+                "/%s?limit=%d&offset=%d", kind, limit, end) : null);
+        meta.put("previous", offset > 0 ? String.format(
+                "/%s?limit=%d&offset=%d", kind, limit,
+                Math.max(0, offset - limit)) : null);
+
+        JSONObject listing = new JSONObject();
+        listing.put("meta", meta);
+        listing.put("objects", objects);
+        respond(exchange, 200, listing);
+    }
+
+    private void download(HttpExchange exchange, String resourceId)
+            throws IOException {
+        String content = downloads.get(resourceId);
+        if( content == null ) {
+            respond(exchange, 404, error(404, "Id does not exist"));
+            return;
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "text/csv; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.close();
+        increment("200");
+    }
+
+    /**
+     * Returns a copy of a resource with its current status
+     */
+    private JSONObject view(Entry entry) {
+        JSONObject resource;
+        synchronized (entry) {
+            resource = copy(entry.resource);
+        }
+        if( !entry.processed ) {
+            return resource;
+        }
+
+        long elapsed = System.currentTimeMillis() - entry.created;
+        JSONObject status = new JSONObject();
+        if( elapsed >= processingTime ) {
+            status.put("code", FINISHED);
+            status.put("message", "The resource has been created");
+            status.put("progress", 1.0);
+        } else if( elapsed < processingTime / 4 ) {
+            status.put("code", QUEUED);
+            status.put("message", "The request has been queued and will be processed soon");
+            status.put("progress", 0.0);
+        } else {
+            status.put("code", IN_PROGRESS);
+            status.put("message", "The resource is being processed");
+            status.put("progress", (double) elapsed / processingTime);
+        }
+        status.put("elapsed", elapsed);
+        resource.put("status", status);
+        return resource;
+    }
+
+    private List<Entry> sorted(String kind) {
+        List<Entry> entries = new ArrayList<Entry>();
+        String prefix = kind + "/";
+        for (Map.Entry<String, Entry> entry : resources.entrySet()) {
+            if( entry.getKey().startsWith(prefix) ) {
+                entries.add(entry.getValue());
+            }
+        }
+        Collections.sort(entries, new java.util.Comparator<Entry>() {
+            public int compare(Entry e1, Entry e2) {
+                int order = Long.compare(e1.created, e2.created);
+                return order != 0 ? order :
+                    ((String) e1.resource.get("resource")).compareTo(
+                            (String) e2.resource.get("resource"));
+            }
+        });
+        return entries;
+    }
+
+    /**
+     * Checks the filters of a listing: field=value, field__in=value for
+     * list fields such as the tags, or field__lt, __lte, __gt and __gte for
+     * ranges, compared as numbers or else as strings, e.g. dates
+     */
+    private static boolean matches(JSONObject resource,
+            Map<String, String> query) {
+        for (Map.Entry<String, String> filter : query.entrySet()) {
+            String key = filter.getKey();
+            if( RESERVED.contains(key) ) {
+                continue;
+            }
+            String range = key.replaceAll("^.*__(lt|lte|gt|gte)$", "$1");
+            if( !range.equals(key) ) {
+                Object value = resource.get(key.substring(0,
+                        key.length() - range.length() - 2));
+                if( value == null ) {
+                    return false;
+                }
+                int order = compare(value, filter.getValue());
+                if( ("lt".equals(range) && order >= 0)
+                        || ("lte".equals(range) && order > 0)
+                        || ("gt".equals(range) && order <= 0)
+                        || ("gte".equals(range) && order < 0) ) {
+                    return false;
+                }
+                continue;
+            }
+            String field = key.endsWith("__in") ?
+                    key.substring(0, key.length() - 4) : key;
+            Object value = resource.get(field);
+            if( value instanceof List ) {
+                boolean found = false;
+                for (Object item : (List<?>) value) {
+                    found |= String.valueOf(item).equals(filter.getValue());
+                }
+                if( !found ) {
+                    return false;
+                }
+            } else if( value == null
+                    || !String.valueOf(value).equals(filter.getValue()) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(Object value, String bound) {
+        if( value instanceof Number ) {
+            try {
+                return Double.compare(((Number) value).doubleValue(),
+                        Double.parseDouble(bound));
+            } catch (NumberFormatException e) {
+                // compared as strings
+            }
+        }
+        return String.valueOf(value).compareTo(bound);
+    }
+
+    // ------------------------------------------------------------------
+    // Failures
+    // ------------------------------------------------------------------
+
+    private synchronized long nextLatency() {
+        if( maxLatency <= 0 ) {
+            return 0;
+        }
+        return minLatency + (long) (random.nextDouble()
+                * (maxLatency - minLatency));
+    }
+
+    /**
+     * Returns the status of the failure of the next request, or null to
+     * answer it
+     */
+    private synchronized Integer nextFailure() {
+        Integer failure = failures.poll();
+        if( failure != null ) {
+            return failure;
+        }
+        if( throttleRate > 0 && random.nextDouble() < throttleRate ) {
+            return 429;
+        }
+        if( errorRate > 0 && random.nextDouble() < errorRate ) {
+            return errorCode;
+        }
+        return null;
+    }
+
+    // ------------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------------
+
+    private void respond(HttpExchange exchange, int code, JSONObject body)
+            throws IOException {
+        increment(String.valueOf(code));
+        if( body == null ) {
+            exchange.sendResponseHeaders(code, -1);
+            return;
+        }
+        byte[] bytes = body.toJSONString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(bytes);
+        output.close();
+    }
+
+    /**
+     * Returns an error in the format of the API
+     */
+    private static JSONObject error(int code, String message) {
+        JSONObject status = new JSONObject();
+        status.put("code", -1 * code);
+        status.put("message", message);
+        JSONObject error = new JSONObject();
+        error.put("code", code);
+        error.put("status", status);
+        return error;
+    }
+
+    /**
+     * Parses the fields of a multipart/form-data body. The files are
+     * replaced by their name and size, as the sources created from them.
+     */
+    static JSONObject parseMultipart(String contentType, byte[] body)
+            throws UnsupportedEncodingException {
+        JSONObject fields = new JSONObject();
+        int index = contentType.indexOf("boundary=");
+        if( index < 0 ) {
+            return fields;
+        }
+        String boundary = "--" + contentType.substring(index + 9)
+                .replace("\"", "").trim();
+
+        // ISO-8859-1 keeps a char per byte, so the parts can be cut as text
+        String content = new String(body, StandardCharsets.ISO_8859_1);
+        for (String part : content.split(java.util.regex.Pattern.quote(boundary))) {
+            int headersEnd = part.indexOf("\r\n\r\n");
+            if( headersEnd < 0 ) {
+                continue;
+            }
+            String headers = part.substring(0, headersEnd);
+            String value = part.substring(headersEnd + 4);
+            if( value.endsWith("\r\n") ) {
+                value = value.substring(0, value.length() - 2);
+            }
+
+            String name = headerParameter(headers, "name");
+            if( name == null ) {
+                continue;
+            }
+            String fileName = headerParameter(headers, "filename");
+            if( fileName != null ) {
+                fields.put("file_name", fileName);
+                fields.put("size", value.length());
+            } else {
+                String text = new String(
+                        value.getBytes(StandardCharsets.ISO_8859_1),
+                        StandardCharsets.UTF_8);
+                // JSON arguments are sent as their string
+                Object json = text.startsWith("{") || text.startsWith("[") ?
+                        JSONValue.parse(text) : null;
+                fields.put(name, json != null ? json : text);
+            }
+        }
+        return fields;
+    }
+
+    private static String headerParameter(String headers, String name) {
+        java.util.regex.Matcher matcher = java.util.regex.Pattern.compile(
+                "[;\\s]" + name + "=\"([^\"]*)\"").matcher(headers);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Map<String, String> parseQuery(String query)
+            throws UnsupportedEncodingException {
+        Map<String, String> parameters = new LinkedHashMap<String, String>();
+        if( query == null ) {
+            return parameters;
+        }
+        for (String parameter : query.split("[&;]")) {
+            if( parameter.isEmpty() ) {
+                continue;
+            }
+            int equals = parameter.indexOf('=');
+            String key = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(key, "UTF-8"),
+                    URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private static int integer(String value, int defaultValue) {
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while( (read = input.read(buffer)) >= 0 ) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private static JSONObject copy(JSONObject resource) {
+        return (JSONObject) JSONValue.parse(resource.toJSONString());
+    }
+
+    private static String now() {
+        return LocalDateTime.now(ZoneOffset.UTC).format(DATE_FORMAT);
+    }
+}
@@ -3,6 +3,11 @@ package org.bigml.binding.resources;
 import org.bigml.binding.AuthenticationException;
 import org.bigml.binding.BigMLClient;
 import org.bigml.binding.utils.CacheManager;
+import org.bigml.binding.utils.CircuitOpenException;
+import org.bigml.binding.utils.Instrumentation;
+import org.bigml.binding.utils.JSONStreamReader;
+import org.bigml.binding.utils.RequestCoalescer;
+import org.bigml.binding.utils.RetryPolicy;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -13,8 +18,11 @@ import org.slf4j.LoggerFactory;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Entry point to create, retrieve, list, update, and delete sources,
@@ -190,7 +198,7 @@ public abstract class AbstractResource {
     public static int HTTP_UNSUPPORTED_MEDIA_TPE = 415;
     public static int HTTP_TOO_MANY_REQUESTS = 429;
     public static int HTTP_INTERNAL_SERVER_ERROR = 500;
-    public static int HTTP_SERVICE_UNAVAILABLE = 500;
+    public static int HTTP_SERVICE_UNAVAILABLE = 503;
 
     // Resource status codes
     public static int WAITING = 0;
@@ -298,6 +306,118 @@ public abstract class AbstractResource {
         return ((String) resource.get("resource")).matches(this.resourceRe);
     }
 
+    /**
+     * Creates a new resource from its arguments.
+     *
+     * POST /andromeda/xxxxx?username=$BIGML_USERNAME&api_key=$BIGML_API_KEY;
+     * HTTP/1.1 Host: bigml.io Content-Type: application/json
+     *
+     * @param args
+     *            set of parameters for the new resource, including its
+     *            origin resources.
+     *
+     * @return a JSONObject for the new resource
+     */
+    public JSONObject create(JSONObject args) {
+        try {
+            JSONObject requestObject = new JSONObject();
+            if (args != null) {
+                requestObject.putAll(args);
+            }
+            return createResource(resourceUrl, requestObject.toJSONString());
+        } catch (Throwable e) {
+            logger.error("Failed to generate the " + resourceName + ".", e);
+            return null;
+        }
+    }
+
+
+    /**
+     * Sends a request through the retry policy of the client, if any.
+     *
+     * @param method
+     *            the HTTP method: GET, POST, PUT or DELETE
+     * @param urlString
+     *            the url of the request, including the authentication
+     * @param json
+     *            the body of the request, for POST and PUT
+     *
+     * @return the connection, with its response code already received
+     */
+    HttpURLConnection send(final String method, final String urlString,
+            final String json) throws Exception {
+        RetryPolicy.Request request = new RetryPolicy.Request() {
+            public HttpURLConnection send() throws Exception {
+                if ("POST".equals(method)) {
+                    return Utils.processPOST(urlString, json);
+                } else if ("PUT".equals(method)) {
+                    return Utils.processPUT(urlString, json);
+                } else if ("DELETE".equals(method)) {
+                    return Utils.processDELETE(urlString);
+                }
+                return Utils.processGET(urlString);
+            }
+        };
+
+        RetryPolicy policy = bigmlClient != null ?
+                bigmlClient.getRetryPolicy() : null;
+        Instrumentation instrumentation = Instrumentation.get();
+        if (!instrumentation.isEnabled()) {
+            return policy != null ?
+                    policy.execute(resourceName, method, request) :
+                    request.send();
+        }
+
+        if (json != null) {
+            instrumentation.record(Instrumentation.HTTP_REQUEST_BYTES,
+                    json.length(), "resource", resourceName, "method", method);
+        }
+        String status = "error";
+        long start = System.nanoTime();
+        try {
+            HttpURLConnection connection = policy != null ?
+                    policy.execute(resourceName, method, request) :
+                    request.send();
+            status = String.valueOf(connection.getResponseCode());
+            long length = connection.getContentLengthLong();
+            if (length >= 0) {
+                instrumentation.record(Instrumentation.HTTP_RESPONSE_BYTES,
+                        length, "resource", resourceName, "method", method);
+            }
+            return connection;
+        } finally {
+            instrumentation.recordTime(Instrumentation.HTTP_REQUEST,
+                    System.nanoTime() - start, "resource", resourceName,
+                    "method", method, "status", status);
+        }
+    }
+
+    /**
+     * Returns the code to report for an unexpected response. Too many
+     * requests and service unavailable are kept, also in the status of
+     * the error, so that callers can back off and retry. Any other code
+     * is reported as an internal server error.
+     *
+     * @param code
+     *            the code of the response
+     * @param error
+     *            the error of the result, whose status is updated
+     *
+     * @return the code of the result
+     */
+    public static int errorCode(int code, JSONObject error) {
+        Logger logger = LoggerFactory.getLogger(AbstractResource.class);
+        if (code != HTTP_TOO_MANY_REQUESTS && code != HTTP_SERVICE_UNAVAILABLE) {
+            logger.info("Unexpected error (" + code + ")");
+            return HTTP_INTERNAL_SERVER_ERROR;
+        }
+        logger.info("Too many requests or unavailable (" + code + ")");
+        JSONObject status = (JSONObject) error.get("status");
+        if (status != null) {
+            status.put("code", code);
+        }
+        return code;
+    }
 
     /**
      * Create a new resource.
@@ -322,14 +442,13 @@ public abstract class AbstractResource {
         error.put("status", status);
 
         try {
-            HttpURLConnection connection = Utils.processPOST(
-            		urlString + bigmlAuth, json);
+            HttpURLConnection connection = send("POST", urlString + bigmlAuth, json);
 
             code = connection.getResponseCode();
             if (code == HTTP_CREATED) {
                 location = connection.getHeaderField(location);
-                resource = (JSONObject) JSONValue.parse(Utils
-                        .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                resource = (JSONObject) JSONStreamReader.read(
+                        connection.getInputStream());
 
                 resourceId = (String) resource.get("resource");
                 error = new JSONObject();
@@ -337,13 +456,17 @@ public abstract class AbstractResource {
                 if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED
                         || code == HTTP_PAYMENT_REQUIRED
                         || code == HTTP_NOT_FOUND) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
+        } catch (CircuitOpenException e) {
+            logger.info(e.getMessage());
+            code = HTTP_SERVICE_UNAVAILABLE;
+            status.put("code", code);
+            status.put("message", e.getMessage());
         } catch (Throwable e) {
             logger.error("Error creating resource", e);
         }
@@ -406,6 +529,94 @@ public abstract class AbstractResource {
      */
     public JSONObject getResource(final String urlString,
             final String queryString, final String apiUser, final String apiKey) {
+
+        // Check the cache first
+        if( cacheManager != null ) {
+            String resourceId = urlString.substring(BIGML_URL.length(), urlString.length());
+            JSONObject resource = null;
+            if( cacheManager.exists(resourceId, queryString) ) {
+                resource = cacheManager.get(resourceId, queryString);
+            }
+
+            Instrumentation instrumentation = Instrumentation.get();
+            if( instrumentation.isEnabled() ) {
+                instrumentation.increment(resource != null ?
+                        Instrumentation.CACHE_HIT : Instrumentation.CACHE_MISS,
+                        "resource", resourceName);
+            }
+
+            // an entry that couldn't be read is retrieved again
+            if( resource != null ) {
+                return cachedResource(resourceId, urlString, resource);
+            }
+        }
+
+        final String auth = apiUser != null && apiKey != null ? "?username="
+                + apiUser + "&api_key=" + apiKey + "&" : bigmlAuth;
+
+        // Concurrent requests for the same resource and query share a
+        // single request. Each of them gets its own copy of the result.
+        RequestCoalescer coalescer = bigmlClient != null ?
+                bigmlClient.getRequestCoalescer() : null;
+        JSONObject result = null;
+        if( coalescer != null ) {
+            String key = urlString + auth + (queryString != null ? queryString : "");
+            result = coalescer.execute(key, new Callable<JSONObject>() {
+                public JSONObject call() {
+                    return fetchResource(urlString, queryString, auth);
+                }
+            });
+        } else {
+            result = fetchResource(urlString, queryString, auth);
+        }
+
+        if( result == null ) {
+            JSONObject error = new JSONObject();
+            JSONObject status = new JSONObject();
+            status.put("code", HTTP_INTERNAL_SERVER_ERROR);
+            status.put("message", "The resource couldn't be retrieved");
+            error.put("status", status);
+
+            result = new JSONObject();
+            result.put("code", HTTP_INTERNAL_SERVER_ERROR);
+            result.put("resource", null);
+            result.put("location", urlString);
+            result.put("object", null);
+            result.put("error", error);
+            return result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the result for a resource read from the cache
+     */
+    private JSONObject cachedResource(String resourceId, String location,
+            JSONObject resource) {
+        JSONObject result = new JSONObject();
+        result.put("code", HTTP_OK);
+        result.put("resource", resourceId);
+        result.put("location", location);
+        result.put("object", resource);
+        result.put("error", new JSONObject());
+        return result;
+    }
+
+    /**
+     * Retrieves a resource from BigML and caches it if it's ready.
+     *
+     * @param urlString
+     * 			the url for the remote resource
+     * @param queryString
+     *            query for filtering.
+     * @param auth
+     *            the authentication part of the query string
+     *
+     * @return a JSONObject for the resource
+     */
+    private JSONObject fetchResource(final String urlString,
+            final String queryString, final String auth) {
         int code = HTTP_INTERNAL_SERVER_ERROR;
         JSONObject resource = null;
         String resourceId = null;
@@ -417,54 +628,66 @@ public abstract class AbstractResource {
         status.put("message", "The resource couldn't be retrieved");
         error.put("status", status);
 
-        // Check the cache first
+        // only one thread or process sharing the cache retrieves a
+        // missing resource, the rest wait and read it from the cache
+        CacheManager.EntryLock entryLock = null;
         if( cacheManager != null ) {
             resourceId = urlString.substring(BIGML_URL.length(), urlString.length());
-            if( cacheManager.exists(resourceId, queryString) ) {
+            try {
+                entryLock = cacheManager.lockEntry(resourceId, queryString);
+            } catch (IOException e) {
+                logger.error("Unable to lock the cache entry", e);
+            }
+            if( entryLock != null &&
+                    cacheManager.exists(resourceId, queryString) ) {
                 resource = cacheManager.get(resourceId, queryString);
-
-                JSONObject result = new JSONObject();
-                result.put("code", HTTP_OK);
-                result.put("resource", resourceId);
-                result.put("location", location);
-                result.put("object", resource);
-                result.put("error", new JSONObject());
-                return result;
+                if( resource != null ) {
+                    entryLock.close();
+                    return cachedResource(resourceId, urlString, resource);
+                }
             }
         }
 
         try {
             String query = queryString != null ? queryString : "";
-            String auth = apiUser != null && apiKey != null ? "?username="
-                    + apiUser + "&api_key=" + apiKey + "&" : bigmlAuth;
 
-            HttpURLConnection connection = Utils.processGET(urlString + auth + query);
+            HttpURLConnection connection = send("GET", urlString + auth + query, null);
 
             code = connection.getResponseCode();
 
             if (code == HTTP_OK) {
-                resource = (JSONObject) JSONValue.parse(Utils
-                        .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                resource = (JSONObject) JSONStreamReader.read(
+                        connection.getInputStream());
                 resourceId = (String) resource.get("resource");
                 error = new JSONObject();
             } else {
                 if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED
                         || code == HTTP_NOT_FOUND) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
 
+        } catch (CircuitOpenException e) {
+            logger.info(e.getMessage());
+            code = HTTP_SERVICE_UNAVAILABLE;
+            status.put("code", code);
+            status.put("message", e.getMessage());
         } catch (Throwable e) {
             logger.error("Error getting resource", e);
         }
 
         // Cache the resource if the resource if ready
-        if( cacheManager != null && resource != null && isResourceReady(resource)) {
-            cacheManager.put(resourceId, queryString, resource);
+        try {
+            if( cacheManager != null && resource != null && isResourceReady(resource)) {
+                cacheManager.put(resourceId, queryString, resource);
+            }
+        } finally {
+            if( entryLock != null ) {
+                entryLock.close();
+            }
         }
 
         JSONObject result = new JSONObject();
@@ -501,26 +724,30 @@ public abstract class AbstractResource {
         try {
             String query = queryString != null ? queryString : "";
 
-            HttpURLConnection connection = Utils.processGET(urlString + bigmlAuth + query);
+            HttpURLConnection connection = send("GET", urlString + bigmlAuth + query, null);
 
             code = connection.getResponseCode();
 
             if (code == HTTP_OK) {
-                JSONObject resource = (JSONObject) JSONValue.parse(Utils
-                        .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                JSONObject resource = (JSONObject) JSONStreamReader.read(
+                        connection.getInputStream());
                 meta = (JSONObject) resource.get("meta");
                 resources = (JSONArray) resource.get("objects");
                 error = new JSONObject();
             } else {
                 if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED
                         || code == HTTP_NOT_FOUND) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
+        } catch (CircuitOpenException e) {
+            logger.info(e.getMessage());
+            code = HTTP_SERVICE_UNAVAILABLE;
+            status.put("code", code);
+            status.put("message", e.getMessage());
         } catch (Throwable e) {
             logger.error("Error listing resources ", e);
         }
@@ -554,24 +781,28 @@ public abstract class AbstractResource {
         error.put("status", status);
 
         try {
-            HttpURLConnection connection = Utils.processPUT(urlString + bigmlAuth, json);
+            HttpURLConnection connection = send("PUT", urlString + bigmlAuth, json);
 
             code = connection.getResponseCode();
             if (code == HTTP_ACCEPTED) {
-                resource = (JSONObject) JSONValue.parse(Utils
-                        .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                resource = (JSONObject) JSONStreamReader.read(
+                        connection.getInputStream());
                 resourceId = (String) resource.get("resource");
                 error = new JSONObject();
             } else {
                 if (code == HTTP_UNAUTHORIZED || code == HTTP_PAYMENT_REQUIRED
                         || code == HTTP_METHOD_NOT_ALLOWED) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
+        } catch (CircuitOpenException e) {
+            logger.info(e.getMessage());
+            code = HTTP_SERVICE_UNAVAILABLE;
+            status.put("code", code);
+            status.put("message", e.getMessage());
         } catch (Throwable e) {
             e.printStackTrace();
             logger.error("Error updating resource", e);
@@ -610,7 +841,7 @@ public abstract class AbstractResource {
         error.put("status", status);
 
         try {
-            HttpURLConnection connection = Utils.processDELETE(urlString + bigmlAuth);
+            HttpURLConnection connection = send("DELETE", urlString + bigmlAuth, null);
 
             code = connection.getResponseCode();
 
@@ -619,13 +850,17 @@ public abstract class AbstractResource {
             } else {
                 if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED
                         || code == HTTP_NOT_FOUND) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
+        } catch (CircuitOpenException e) {
+            logger.info(e.getMessage());
+            code = HTTP_SERVICE_UNAVAILABLE;
+            status.put("code", code);
+            status.put("message", e.getMessage());
         } catch (Throwable e) {
             logger.error("Error deleting resource: ", urlString);
         }
@@ -871,6 +1106,44 @@ public abstract class AbstractResource {
         return listResources(this.resourceUrl, queryString);
     }
 
+    /**
+     * Iterates over all your resources, requesting them page by page.
+     *
+     * @param queryString
+     *            query filtering the listing. Optional
+     *
+     * @return an iterator over all the resources matching the query
+     */
+    public ResourceIterator iterate(final String queryString) {
+        return iterate(queryString, ResourceIterator.DEFAULT_PAGE_SIZE, null);
+    }
+
+    /**
+     * Iterates over all your resources, requesting them page by page.
+     *
+     * @param queryString
+     *            query filtering the listing. Optional
+     * @param pageSize
+     *            the number of resources requested per page
+     * @param fields
+     *            the fields kept for each resource. All of them if null.
+     *
+     * @return an iterator over all the resources matching the query
+     */
+    public ResourceIterator iterate(final String queryString,
+            final int pageSize, final List<String> fields) {
+        return new ResourceIterator(this, queryString, pageSize, fields);
+    }
+
+    /**
+     * Returns the name of the resource, as used in its urls
+     *
+     * @return the name of the resource
+     */
+    public String getResourceName() {
+        return resourceName;
+    }
+
     /**
      * Updates a resource.
      *
@@ -978,7 +1251,7 @@ public abstract class AbstractResource {
         JSONObject error = new JSONObject();
         String csv = "";
         try {
-            HttpURLConnection connection = Utils.processGET(url + bigmlAuth);
+            HttpURLConnection connection = send("GET", url + bigmlAuth, null);
 
             code = connection.getResponseCode();
 
@@ -998,12 +1271,11 @@ public abstract class AbstractResource {
             } else {
                 if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED
                         || code == HTTP_NOT_FOUND) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                     logger.info("Error downloading:" + code);
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
 
@@ -1070,7 +1342,7 @@ public abstract class AbstractResource {
         JSONObject error = new JSONObject();
         String csv = "";
         try {
-            HttpURLConnection connection = Utils.processGET(url + bigmlAuth);
+            HttpURLConnection connection = send("GET", url + bigmlAuth, null);
 
             code = connection.getResponseCode();
 
@@ -1126,12 +1398,11 @@ public abstract class AbstractResource {
             } else {
                 if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED
                         || code == HTTP_NOT_FOUND) {
-                    error = (JSONObject) JSONValue.parse(Utils
-                            .inputStreamAsString(connection.getInputStream(), "UTF-8"));
+                    error = (JSONObject) JSONStreamReader.read(
+                            connection.getInputStream());
                     logger.info("Error downloading:" + code);
                 } else {
-                    logger.info("Unexpected error (" + code + ")");
-                    code = HTTP_INTERNAL_SERVER_ERROR;
+                    code = errorCode(code, error);
                 }
             }
 
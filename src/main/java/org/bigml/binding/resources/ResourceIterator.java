@@ -0,0 +1,355 @@
+package org.bigml.binding.resources;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.bigml.binding.utils.JSONStreamReader;
+import org.bigml.binding.utils.Utils;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Iterates lazily over all the resources of a kind that match a query.
+ *
+ * The listing is requested page by page. While the resources of a page are
+ * being consumed, the next page is fetched in the background. Each page is
+ * parsed from the response stream as it arrives, and only the selected
+ * fields of each resource are kept.
+ *
+ * Unless the query sets its own order, the resources are listed by
+ * creation date, newest first, and each page is requested from the creation
+ * date where the previous one ended instead of from an offset. Resources
+ * created or deleted during the iteration don't shift the pages then, so
+ * none of the remaining ones is skipped or repeated. A query with its own
+ * order is paged by offset.
+ *
+ * Example usage:
+ *
+ *  ResourceIterator models = api.iterateResources("model",
+ *      "tags__in=production", 1000, Arrays.asList("resource", "name"));
+ *  try {
+ *      while (models.hasNext()) {
+ *          JSONObject model = models.next();
+ *          ...
+ *      }
+ *  } finally {
+ *      models.close();
+ *  }
+ */
+public class ResourceIterator implements Iterator<JSONObject>, Closeable {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(
+            ResourceIterator.class.getName());
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    // The pages are fetched by daemon threads shared by all the iterators,
+    // so that iterators that are not exhausted or closed leave no thread
+    // behind.
+    private static final ExecutorService PREFETCH =
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable,
+                            "bigml-list-prefetch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final AbstractResource resource;
+    private final String queryString;
+    private final int pageSize;
+    private final Set<String> fields;
+    private final Set<String> readFields;
+    // true when the pages are requested by creation date
+    private final boolean byCreation;
+
+    private Iterator<JSONObject> page = null;
+    private Future<Page> nextPage = null;
+    private int offset = 0;
+    // the creation date of the last resource read, and the ids of the
+    // resources read that were created at that time
+    private String lastCreated = null;
+    private Set<String> lastIds = new HashSet<String>();
+    private long totalCount = -1;
+
+    /**
+     * A page of the listing
+     */
+    private static class Page {
+        List<JSONObject> objects = new ArrayList<JSONObject>();
+        Object next = null;
+        long totalCount = -1;
+    }
+
+    /**
+     * Creates the iterator and starts fetching the first page.
+     *
+     * @param resource
+     *            the kind of resource to list
+     * @param queryString
+     *            query filtering the listing. Optional
+     * @param pageSize
+     *            the number of resources requested per page
+     * @param fields
+     *            the fields kept for each resource. All of them if null.
+     */
+    ResourceIterator(AbstractResource resource, String queryString,
+            int pageSize, List<String> fields) {
+        this.resource = resource;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.fields = fields != null ? new HashSet<String>(fields) : null;
+
+        String query = queryString != null ? queryString : "";
+        if( query.length() > 0 && !query.endsWith("&") ) {
+            query += "&";
+        }
+        this.byCreation = !query.startsWith("order_by=")
+                && !query.contains("&order_by=");
+        if( byCreation ) {
+            query += "order_by=-created&";
+        }
+        this.queryString = query;
+
+        // The creation date and id of each resource are needed for the
+        // next page, even if they are not kept
+        if( this.fields != null && byCreation ) {
+            this.readFields = new HashSet<String>(this.fields);
+            this.readFields.add("created");
+            this.readFields.add("resource");
+        } else {
+            this.readFields = this.fields;
+        }
+
+        this.nextPage = prefetch("");
+    }
+
+    /**
+     * Returns the total number of resources matching the query, as told by
+     * the first page, or -1 if it's not known yet
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while( page == null || !page.hasNext() ) {
+            if( nextPage == null ) {
+                return false;
+            }
+            Page current = waitFor(nextPage);
+            nextPage = null;
+
+            if( totalCount < 0 ) {
+                totalCount = current.totalCount;
+            }
+            boolean more = current.next != null && current.objects.size() > 0;
+            List<JSONObject> objects = byCreation ?
+                    afterLastCreated(current.objects, more) : current.objects;
+            page = objects.iterator();
+
+            // Starts fetching the next page before the current one is used
+            if( more ) {
+                if( byCreation ) {
+                    nextPage = prefetch("created__lte=" + URLEncoder.encode(
+                            lastCreated, StandardCharsets.UTF_8) + "&");
+                } else {
+                    offset += current.objects.size();
+                    nextPage = prefetch("offset=" + offset + "&");
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public JSONObject next() {
+        if( !hasNext() ) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Returns the remaining resources as a stream. Closing the stream
+     * closes the iterator.
+     */
+    public Stream<JSONObject> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(new Runnable() {
+                    public void run() {
+                        close();
+                    }
+                });
+    }
+
+    /**
+     * Stops fetching pages
+     */
+    @Override
+    public void close() {
+        if( nextPage != null ) {
+            nextPage.cancel(true);
+        }
+        nextPage = null;
+        page = null;
+    }
+
+    /**
+     * Drops the resources of a page listed by creation date that were
+     * already read in the previous one, and moves the position of the
+     * listing to the last resource of the page.
+     */
+    private List<JSONObject> afterLastCreated(List<JSONObject> objects,
+            boolean more) {
+        List<JSONObject> unread = new ArrayList<JSONObject>(objects.size());
+        for (JSONObject object : objects) {
+            String created = (String) object.get("created");
+            String resourceId = (String) object.get("resource");
+            if( created == null ) {
+                throw new IllegalStateException(
+                        "Listed a resource without creation date: " + resourceId);
+            }
+            if( created.equals(lastCreated) && lastIds.contains(resourceId) ) {
+                continue;
+            }
+            if( !created.equals(lastCreated) ) {
+                lastCreated = created;
+                lastIds = new HashSet<String>();
+            }
+            lastIds.add(resourceId);
+            unread.add(object);
+        }
+
+        // A page with nothing new can't move the listing forward
+        if( more && unread.isEmpty() ) {
+            throw new IllegalStateException(String.format(
+                    "More than %d %s resources were created at %s. Use a"
+                    + " bigger page size.", pageSize, resource.resourceName,
+                    lastCreated));
+        }
+
+        if( readFields != fields ) {
+            for (JSONObject object : unread) {
+                object.keySet().retainAll(fields);
+            }
+        }
+        return unread;
+    }
+
+    private Future<Page> prefetch(final String pageQuery) {
+        return PREFETCH.submit(new Callable<Page>() {
+            public Page call() throws Exception {
+                return fetch(pageQuery);
+            }
+        });
+    }
+
+    private Page waitFor(Future<Page> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException(
+                    "Interrupted while listing " + resource.resourceName, e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(
+                    "Error listing " + resource.resourceName, cause);
+        }
+    }
+
+    /**
+     * Fetches a page of the listing and parses it from the response stream
+     */
+    private Page fetch(String pageQuery) throws Exception {
+        String urlString = resource.resourceUrl + resource.bigmlAuth
+                + queryString + pageQuery + "limit=" + pageSize;
+
+        HttpURLConnection connection = resource.send("GET", urlString, null);
+        int code = connection.getResponseCode();
+        if( code != AbstractResource.HTTP_OK ) {
+            String error = null;
+            try {
+                error = Utils.inputStreamAsString(
+                        connection.getErrorStream(), "UTF-8");
+            } catch (Exception e) {
+                // no error details
+            }
+            throw new IllegalStateException(String.format(
+                    "Error listing %s (%d): %s", resource.resourceName, code,
+                    error != null ? JSONValue.parse(error) : null));
+        }
+
+        Page page = new Page();
+        InputStream input = connection.getInputStream();
+        JsonParser parser = JSONStreamReader.JSON_FACTORY.createParser(input);
+        try {
+            if( parser.nextToken() != JsonToken.START_OBJECT ) {
+                throw new IllegalStateException("Unexpected listing response");
+            }
+            while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+                String key = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if( "objects".equals(key) && token == JsonToken.START_ARRAY ) {
+                    while( parser.nextToken() == JsonToken.START_OBJECT ) {
+                        page.objects.add(JSONStreamReader.readObject(parser, readFields));
+                    }
+                } else if( "meta".equals(key) && token == JsonToken.START_OBJECT ) {
+                    JSONObject meta = JSONStreamReader.readObject(parser, null);
+                    page.next = meta.get("next");
+                    Object count = meta.get("total_count");
+                    if( count instanceof Number ) {
+                        page.totalCount = ((Number) count).longValue();
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } finally {
+            parser.close();
+            input.close();
+        }
+
+        if( logger.isDebugEnabled() ) {
+            logger.debug(String.format("Listed %d %s resources with %s",
+                    page.objects.size(), resource.resourceName, pageQuery));
+        }
+        return page;
+    }
+}
@@ -7,10 +7,10 @@ import java.util.Set;
 
 import org.bigml.binding.BigMLClient;
 import org.bigml.binding.utils.CacheManager;
+import org.bigml.binding.utils.JSONStreamReader;
 import org.bigml.binding.utils.MultipartUtility;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -126,18 +126,17 @@ public class Source extends AbstractResource {
 
 			if (code == HTTP_CREATED) {
 				location = connection.getHeaderField(location);
-				resource = (JSONObject) JSONValue
-						.parse(Utils.inputStreamAsString(connection.getInputStream(), "UTF-8"));
+				resource = (JSONObject) JSONStreamReader.read(
+						connection.getInputStream());
 				resourceId = (String) resource.get("resource");
 				error = new JSONObject();
 			} else {
 				if (code == HTTP_BAD_REQUEST || code == HTTP_UNAUTHORIZED || code == HTTP_PAYMENT_REQUIRED
 						|| code == HTTP_NOT_FOUND) {
-					error = (JSONObject) JSONValue
-							.parse(Utils.inputStreamAsString(connection.getInputStream(), "UTF-8"));
+					error = (JSONObject) JSONStreamReader.read(
+							connection.getInputStream());
 				} else {
-					logger.info("Unexpected error (" + code + ")");
-					code = HTTP_INTERNAL_SERVER_ERROR;
+					code = errorCode(code, error);
 				}
 			}
 
@@ -0,0 +1,386 @@
+package org.bigml.binding.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The default retry policy.
+ *
+ * Requests are paced by a token bucket shared by all the resources of a
+ * client. Its rate is halved every time the API answers 429 (too many
+ * requests) and grows back slowly with every successful request. When the
+ * response has a Retry-After header, no request is sent until then.
+ *
+ * GET and DELETE requests, which are idempotent, are retried on 429, 502,
+ * 503, 504 and connection errors, waiting an exponential backoff with
+ * full jitter, or the Retry-After time if it is longer. Other requests are
+ * never retried.
+ *
+ * After a number of consecutive server or connection errors the circuit
+ * opens and requests fail fast with a CircuitOpenException for a while.
+ * Then a single request is let through, and its outcome closes the
+ * circuit or opens it again. A request that is being retried when the
+ * circuit opens ends with the response of its last attempt.
+ */
+public class AdaptiveRetryPolicy implements RetryPolicy {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(
+            AdaptiveRetryPolicy.class.getName());
+
+    public static final double DEFAULT_MAX_RATE = 50.0;
+    public static final double MIN_RATE = 0.5;
+    public static final int DEFAULT_MAX_RETRIES = 4;
+    public static final long DEFAULT_BACKOFF = 500;
+    public static final long DEFAULT_MAX_BACKOFF = 30000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_TIME = 30000;
+
+    private enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final Random random = new Random();
+    private final ConcurrentHashMap<String, RequestMetrics> metrics =
+            new ConcurrentHashMap<String, RequestMetrics>();
+
+    private final double maxRate;
+    private final int maxRetries;
+    private final long backoff;
+    private final long maxBackoff;
+    private final int failureThreshold;
+    private final long openTime;
+
+    // token bucket
+    private double rate;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private long blockedUntil = 0;
+
+    // circuit breaker
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private boolean trialInFlight = false;
+
+    public AdaptiveRetryPolicy() {
+        this(DEFAULT_MAX_RATE, DEFAULT_MAX_RETRIES, DEFAULT_BACKOFF,
+                DEFAULT_MAX_BACKOFF, DEFAULT_FAILURE_THRESHOLD,
+                DEFAULT_OPEN_TIME);
+    }
+
+    /**
+     * @param maxRate
+     *            the maximum number of requests per second
+     * @param maxRetries
+     *            the number of times an idempotent request is retried
+     * @param backoff
+     *            the initial backoff before a retry, in ms
+     * @param maxBackoff
+     *            the maximum backoff before a retry, in ms
+     * @param failureThreshold
+     *            the number of consecutive failures that open the circuit
+     * @param openTime
+     *            the time the circuit stays open, in ms
+     */
+    public AdaptiveRetryPolicy(double maxRate, int maxRetries, long backoff,
+            long maxBackoff, int failureThreshold, long openTime) {
+        this.maxRate = Math.max(MIN_RATE, maxRate);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.backoff = Math.max(0, backoff);
+        this.maxBackoff = Math.max(this.backoff, maxBackoff);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openTime = Math.max(0, openTime);
+        this.rate = this.maxRate;
+        this.tokens = this.maxRate;
+    }
+
+    @Override
+    public HttpURLConnection execute(String resourceName, String method,
+            Request request) throws Exception {
+        RequestMetrics resourceMetrics = getMetrics(resourceName);
+        boolean idempotent = "GET".equals(method) || "DELETE".equals(method);
+
+        // the response of the previous attempt, kept until the request
+        // is sent again
+        HttpURLConnection previous = null;
+        IOException previousFailure = null;
+        for (int attempt = 0; ; attempt++) {
+            boolean trial;
+            try {
+                trial = checkCircuit();
+            } catch (CircuitOpenException e) {
+                resourceMetrics.recordRejected();
+                if( attempt == 0 ) {
+                    throw e;
+                }
+                // the circuit opened while retrying: the caller gets the
+                // last response
+                if( previousFailure != null ) {
+                    throw previousFailure;
+                }
+                return previous;
+            }
+
+            // the trial of a half-open circuit is released however the
+            // attempt ends, so that another request can try
+            boolean recorded = false;
+            try {
+                discard(previous);
+                previous = null;
+                previousFailure = null;
+                acquire();
+
+                HttpURLConnection connection = null;
+                IOException failure = null;
+                int code = -1;
+                long start = System.nanoTime();
+                try {
+                    connection = request.send();
+                    code = connection.getResponseCode();
+                } catch (IOException e) {
+                    failure = e;
+                }
+                resourceMetrics.recordAttempt(code, System.nanoTime() - start);
+
+                long retryAfter = connection != null ?
+                        getRetryAfter(connection.getHeaderField("Retry-After")) : -1;
+                boolean serverFailure = failure != null || code >= 500;
+                boolean retryable = failure != null || code == 429
+                        || code == 502 || code == 503 || code == 504;
+
+                if( code == 429 ) {
+                    onThrottle(retryAfter);
+                } else if( code > 0 && code < 500 ) {
+                    onSuccess();
+                }
+                if( retryAfter > 0 && code == 503 ) {
+                    block(retryAfter);
+                }
+                recordOutcome(serverFailure, trial);
+                recorded = true;
+
+                if( !idempotent || !retryable || attempt >= maxRetries ) {
+                    if( failure != null ) {
+                        throw failure;
+                    }
+                    return connection;
+                }
+
+                long wait = Math.max(retryAfter, getBackoff(attempt));
+                logger.info(String.format("Retrying %s %s request in %d ms (%s)",
+                        method, resourceName, wait,
+                        failure != null ? failure.getMessage() : "HTTP " + code));
+                previous = connection;
+                previousFailure = failure;
+                resourceMetrics.recordRetry();
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    discard(previous);
+                    throw e;
+                }
+            } finally {
+                if( !recorded ) {
+                    releaseTrial(trial);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, RequestMetrics> getMetrics() {
+        return Collections.unmodifiableMap(
+                new TreeMap<String, RequestMetrics>(metrics));
+    }
+
+    /**
+     * Returns the current rate of the token bucket, in requests per second
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns true if requests are being rejected because the circuit is
+     * open
+     */
+    public synchronized boolean isCircuitOpen() {
+        return state == CircuitState.OPEN
+                && System.currentTimeMillis() < openUntil;
+    }
+
+    private RequestMetrics getMetrics(String resourceName) {
+        String key = resourceName != null ? resourceName : "";
+        RequestMetrics resourceMetrics = metrics.get(key);
+        if( resourceMetrics == null ) {
+            metrics.putIfAbsent(key, new RequestMetrics());
+            resourceMetrics = metrics.get(key);
+        }
+        return resourceMetrics;
+    }
+
+    /**
+     * Waits for a token of the bucket
+     */
+    private void acquire() throws InterruptedException {
+        while( true ) {
+            long wait;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(maxRate,
+                        tokens + (now - lastRefill) / 1e9 * rate);
+                lastRefill = now;
+
+                long blocked = blockedUntil - System.currentTimeMillis();
+                if( blocked > 0 ) {
+                    wait = blocked;
+                } else if( tokens >= 1.0 ) {
+                    tokens -= 1.0;
+                    return;
+                } else {
+                    wait = Math.max(1, (long) Math.ceil((1.0 - tokens) / rate * 1000));
+                }
+            }
+            Thread.sleep(wait);
+        }
+    }
+
+    private synchronized void onThrottle(long retryAfter) {
+        rate = Math.max(MIN_RATE, rate / 2);
+        tokens = Math.min(tokens, 0.0);
+        if( retryAfter > 0 ) {
+            blockedUntil = Math.max(blockedUntil,
+                    System.currentTimeMillis() + retryAfter);
+        }
+        logger.info(String.format("Too many requests, rate lowered to %.2f/s", rate));
+    }
+
+    private synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + 1.0 / Math.max(1.0, rate));
+    }
+
+    private synchronized void block(long wait) {
+        blockedUntil = Math.max(blockedUntil, System.currentTimeMillis() + wait);
+    }
+
+    /**
+     * Checks that the circuit lets the request through
+     *
+     * @return true if the request is the trial of a half-open circuit
+     */
+    private synchronized boolean checkCircuit() throws CircuitOpenException {
+        if( state == CircuitState.CLOSED ) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if( state == CircuitState.OPEN && now >= openUntil ) {
+            state = CircuitState.HALF_OPEN;
+        }
+        if( state == CircuitState.HALF_OPEN && !trialInFlight ) {
+            trialInFlight = true;
+            return true;
+        }
+        throw new CircuitOpenException(String.format(
+                "The API is failing, requests are suspended for %d ms",
+                Math.max(0, openUntil - now)), openUntil);
+    }
+
+    private synchronized void recordOutcome(boolean failure, boolean trial) {
+        if( trial ) {
+            trialInFlight = false;
+        }
+        if( !failure ) {
+            consecutiveFailures = 0;
+            if( state != CircuitState.CLOSED ) {
+                logger.info("The API is responding again, circuit closed");
+            }
+            state = CircuitState.CLOSED;
+            return;
+        }
+
+        consecutiveFailures++;
+        if( trial || consecutiveFailures >= failureThreshold ) {
+            if( state != CircuitState.OPEN ) {
+                logger.warn(String.format(
+                        "%d consecutive failures, circuit open for %d ms",
+                        consecutiveFailures, openTime));
+            }
+            state = CircuitState.OPEN;
+            openUntil = System.currentTimeMillis() + openTime;
+        }
+    }
+
+    private synchronized void releaseTrial(boolean trial) {
+        if( trial ) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Returns the backoff before a retry: a random time between zero and
+     * the exponential backoff of the attempt
+     */
+    private long getBackoff(int attempt) {
+        long exponential = Math.min(maxBackoff, backoff << Math.min(attempt, 20));
+        synchronized (random) {
+            return (long) (random.nextDouble() * exponential);
+        }
+    }
+
+    /**
+     * Parses a Retry-After header, in seconds or as an HTTP date
+     *
+     * @return the time to wait in ms, or -1 if there's no valid header
+     */
+    static long getRetryAfter(String header) {
+        if( header == null || header.trim().length() == 0 ) {
+            return -1;
+        }
+        String value = header.trim();
+        try {
+            return Math.max(0, Long.parseLong(value)) * 1000;
+        } catch (NumberFormatException e) {
+            // not in seconds
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value,
+                    DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, date.toInstant().toEpochMilli()
+                    - System.currentTimeMillis());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reads what is left of a response that won't be used, so that the
+     * connection can be reused
+     */
+    private static void discard(HttpURLConnection connection) {
+        if( connection == null ) {
+            return;
+        }
+        try {
+            InputStream stream = connection.getErrorStream();
+            if( stream != null ) {
+                byte[] buffer = new byte[4096];
+                while( stream.read(buffer) >= 0 ) {
+                    // drained
+                }
+                stream.close();
+            }
+        } catch (IOException e) {
+            connection.disconnect();
+        }
+    }
+}
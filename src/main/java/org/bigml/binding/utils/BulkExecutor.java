@@ -0,0 +1,293 @@
+package org.bigml.binding.utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs an operation for many keys with bounded concurrency.
+ *
+ * When the API answers with HTTP 429 (too many requests), the number of
+ * operations allowed to run at the same time is halved. Unless the requests
+ * are already retried by a RetryPolicy, all of them also pause for an
+ * exponential backoff with jitter before the throttled one is retried.
+ * Every successful (2xx) operation lets the concurrency grow back by one,
+ * up to the configured limit.
+ */
+public class BulkExecutor {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(BulkExecutor.class.getName());
+
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_MAX_RETRIES = 5;
+    public static final long DEFAULT_BACKOFF = 1000;
+    public static final long MAX_BACKOFF = 60000;
+
+    private final Random random = new Random();
+
+    private volatile int concurrency;
+    private volatile int maxRetries;
+    private volatile long backoff;
+
+    /**
+     * An operation run for each key
+     */
+    public interface Operation {
+        /**
+         * Runs the operation for a key and returns its result, with the
+         * HTTP status in its "code" property
+         */
+        JSONObject run(String key);
+    }
+
+    public BulkExecutor() {
+        this(DEFAULT_CONCURRENCY, DEFAULT_MAX_RETRIES, DEFAULT_BACKOFF);
+    }
+
+    /**
+     * @param concurrency
+     *            the maximum number of operations running at the same time
+     * @param maxRetries
+     *            the number of times a throttled operation is retried
+     * @param backoff
+     *            the initial wait after a throttled operation, in ms
+     */
+    public BulkExecutor(int concurrency, int maxRetries, long backoff) {
+        setConcurrency(concurrency);
+        setMaxRetries(maxRetries);
+        setBackoff(backoff);
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    public long getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(long backoff) {
+        this.backoff = Math.max(0, backoff);
+    }
+
+    /**
+     * Runs the operation for all the keys.
+     *
+     * @param keys
+     *            the keys to run the operation for
+     * @param operation
+     *            the operation
+     * @param successCode
+     *            the HTTP status of a successful operation
+     *
+     * @return the result per key, in the same order as the keys
+     */
+    public BulkResult execute(final List<String> keys,
+            final Operation operation, int successCode) {
+        return execute(keys, operation, successCode, true);
+    }
+
+    /**
+     * Runs the operation for all the keys.
+     *
+     * @param keys
+     *            the keys to run the operation for
+     * @param operation
+     *            the operation
+     * @param successCode
+     *            the HTTP status of a successful operation
+     * @param retryThrottled
+     *            whether throttled operations are retried here. False when
+     *            the requests go through a RetryPolicy, which has already
+     *            retried them as it sees fit.
+     *
+     * @return the result per key, in the same order as the keys
+     */
+    public BulkResult execute(final List<String> keys,
+            final Operation operation, int successCode,
+            final boolean retryThrottled) {
+
+        final JSONObject[] results = new JSONObject[keys.size()];
+        final AtomicInteger nextKey = new AtomicInteger();
+        final Limiter limiter = new Limiter(concurrency);
+
+        int threads = Math.min(concurrency, keys.size());
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, threads), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "bigml-bulk-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        int index;
+                        while( (index = nextKey.getAndIncrement()) < keys.size() ) {
+                            results[index] = runWithRetries(keys.get(index),
+                                    operation, limiter,
+                                    retryThrottled ? maxRetries : 0);
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            while( !executor.awaitTermination(1, TimeUnit.MINUTES) ) {
+                logger.info(String.format("Bulk operation in progress: %d of %d",
+                        Math.min(nextKey.get(), keys.size()), keys.size()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+
+        Map<String, JSONObject> resultsMap = new LinkedHashMap<String, JSONObject>();
+        for (int i = 0; i < results.length; i++) {
+            resultsMap.put(keys.get(i), results[i] != null ? results[i] :
+                    errorResult(keys.get(i), "The operation was not run"));
+        }
+        return new BulkResult(resultsMap, successCode);
+    }
+
+    private JSONObject runWithRetries(String key, Operation operation,
+            Limiter limiter, int maxRetries) {
+        JSONObject result = null;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return errorResult(key, "Interrupted");
+            }
+
+            try {
+                result = operation.run(key);
+            } catch (Throwable e) {
+                logger.error("Error running the bulk operation for " + key, e);
+                result = errorResult(key, e.getMessage());
+            } finally {
+                limiter.release();
+            }
+
+            if( result == null ) {
+                result = errorResult(key, "No result");
+            }
+
+            int code = result.get("code") instanceof Number ?
+                    ((Number) result.get("code")).intValue() : 0;
+            if( code != HTTP_TOO_MANY_REQUESTS ) {
+                if( code >= 200 && code < 300 ) {
+                    limiter.onSuccess();
+                }
+                return result;
+            }
+
+            if( attempt < maxRetries ) {
+                long wait = Math.min(MAX_BACKOFF, backoff << Math.min(attempt, 20));
+                // equal jitter: between half and the whole backoff
+                wait = wait / 2 + (long) (random.nextDouble() * (wait / 2 + 1));
+                logger.info(String.format("Too many requests for %s, retrying in %d ms",
+                        key, wait));
+                limiter.onThrottle(wait);
+            } else {
+                limiter.onThrottle(0);
+            }
+        }
+        return result;
+    }
+
+    private static JSONObject errorResult(String key, String message) {
+        JSONObject status = new JSONObject();
+        status.put("code", 500);
+        status.put("message", message);
+        JSONObject error = new JSONObject();
+        error.put("status", status);
+
+        JSONObject result = new JSONObject();
+        result.put("code", 500);
+        result.put("resource", key);
+        result.put("error", error);
+        return result;
+    }
+
+    /**
+     * Additive increase, multiplicative decrease limit of the operations
+     * running at the same time.
+     */
+    private static class Limiter {
+        private final int maxLimit;
+        private int limit;
+        private int inFlight = 0;
+        private int successes = 0;
+        private long pausedUntil = 0;
+
+        Limiter(int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = maxLimit;
+        }
+
+        synchronized void acquire() throws InterruptedException {
+            while( true ) {
+                long pause = pausedUntil - System.currentTimeMillis();
+                if( pause > 0 ) {
+                    wait(pause);
+                } else if( inFlight >= limit ) {
+                    wait();
+                } else {
+                    break;
+                }
+            }
+            inFlight++;
+        }
+
+        synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        synchronized void onSuccess() {
+            if( limit < maxLimit && ++successes >= limit ) {
+                limit++;
+                successes = 0;
+                notifyAll();
+            }
+        }
+
+        synchronized void onThrottle(long wait) {
+            limit = Math.max(1, limit / 2);
+            successes = 0;
+            pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + wait);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.bigml.binding.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+/**
+ * The results of a bulk operation, one per key in the order they were
+ * given. Each result is the JSONObject returned by the single operation,
+ * with its "code" and "error" properties, so that partial failures can be
+ * inspected and retried.
+ */
+public class BulkResult {
+
+    private final Map<String, JSONObject> results;
+    private final int successCode;
+
+    public BulkResult(Map<String, JSONObject> results, int successCode) {
+        this.results = Collections.unmodifiableMap(
+                new LinkedHashMap<String, JSONObject>(results));
+        this.successCode = successCode;
+    }
+
+    /**
+     * Returns the result per key
+     */
+    public Map<String, JSONObject> getResults() {
+        return results;
+    }
+
+    /**
+     * Returns the result of one key
+     */
+    public JSONObject getResult(String key) {
+        return results.get(key);
+    }
+
+    /**
+     * Returns the results whose code is not the expected success code
+     */
+    public Map<String, JSONObject> getFailures() {
+        Map<String, JSONObject> failures = new LinkedHashMap<String, JSONObject>();
+        for (Map.Entry<String, JSONObject> entry : results.entrySet()) {
+            if( !isSuccess(entry.getValue()) ) {
+                failures.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Returns the number of operations that succeeded
+     */
+    public int getSucceeded() {
+        return results.size() - getFailures().size();
+    }
+
+    /**
+     * Returns true if all the operations succeeded
+     */
+    public boolean isSuccessful() {
+        return getFailures().isEmpty();
+    }
+
+    private boolean isSuccess(JSONObject result) {
+        Object code = result != null ? result.get("code") : null;
+        return code instanceof Number && ((Number) code).intValue() == successCode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkResult(%d succeeded, %d failed)",
+                getSucceeded(), results.size() - getSucceeded());
+    }
+}
@@ -6,9 +6,47 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This class will we used to manage the local cache of resource
+ *
+ * Cached resources are stored in shard folders named after the first
+ * characters of the hash of the cache key, so that no folder grows too
+ * big. Entries are written to a temporary file and atomically renamed,
+ * so readers never see a partially written resource. Optionally, the
+ * JSON can be gzip compressed and the total size of the cache can be
+ * capped, evicting the least recently used entries first.
+ *
+ * The cache can be shared by several processes. Reading a complete
+ * entry never blocks, while the callers that need to fetch a missing
+ * entry can take its lock with lockEntry, so that only one of them, in
+ * any of the processes, fetches it and the rest read the cached result.
  */
 @SuppressWarnings("unused")
 public class CacheManager {
@@ -18,12 +56,57 @@ public class CacheManager {
 
     private static final String TMP_FOLDER_PROPERTY = "java.io.tmpdir";
 
+    private static final String ENTRY_SUFFIX = ".json";
+
+    private static final String TMP_PREFIX = ".tmp-";
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    // Temporary files older than this are considered abandoned
+    private static final long STALE_TMP_MILLIS = 60L * 60L * 1000L;
+
+    // Reading an entry refreshes its access time at most once per interval
+    private static final long ACCESS_RESOLUTION_MILLIS = 60L * 1000L;
+
+    // When the size cap is exceeded the cache is reduced to this ratio
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+
     private String storage = null;
 
     private File storageFolder;
 
+    private boolean compress = false;
+
+    private long maxSize = 0;
+
+    private ScheduledExecutorService cleanupExecutor = null;
+
+    private ScheduledFuture<?> cleanupTask = null;
+
+    // Locks of the entries being fetched by the threads of this JVM, by
+    // the canonical path of their lock file
+    private static final Map<String, KeyLock> KEY_LOCKS = new HashMap<String, KeyLock>();
+
     public CacheManager(String storage) {
+        this(storage, false, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param storage
+     *            the folder for the cache. A bigml_cache folder in the
+     *            temporary directory is used when null or empty
+     * @param compress
+     *            whether the new entries are gzip compressed
+     * @param maxSize
+     *            the maximum size of the cache in bytes. Zero or negative
+     *            for no limit
+     */
+    public CacheManager(String storage, boolean compress, long maxSize) {
         this.storage = storage;
+        this.compress = compress;
+        this.maxSize = maxSize;
         if( storage == null || storage.isEmpty() ) {
             // Get the temporary directory and print it.
             String tmpDir = System.getProperty(TMP_FOLDER_PROPERTY);
@@ -52,89 +135,283 @@ public class CacheManager {
         return storageFolder.getAbsolutePath();
     }
 
+    public boolean isCompress() {
+        return compress;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
     public boolean exists(String resource, String queryString) {
-        return getResourceFile(resource, queryString).exists();
+        return getResourceFile(resource, queryString).exists() ||
+                getLegacyResourceFile(resource, queryString).exists();
     }
 
-    public synchronized JSONObject get(String resource, String queryString) {
-        try {
-            if( exists(resource, queryString) ) {
-                StringBuilder fileContents = new StringBuilder();
-                File resourceFile = getResourceFile(resource, queryString);
-                BufferedReader input = new BufferedReader(new FileReader(
-                        resourceFile));
+    public JSONObject get(String resource, String queryString) {
+        File resourceFile = getResourceFile(resource, queryString);
+        if( !resourceFile.exists() ) {
+            resourceFile = getLegacyResourceFile(resource, queryString);
+        }
 
-                String sCurrentLine;
-                while ((sCurrentLine = input.readLine()) != null) {
-                    fileContents.append(sCurrentLine);
+        try {
+            if( resourceFile.exists() ) {
+                JSONObject value = read(resourceFile);
+                if( value == null ) {
+                    // an unreadable entry is discarded so it's downloaded again
+                    logger.warn(String.format("Discarding the invalid cache file: %s",
+                            resourceFile.getAbsolutePath()));
+                    resourceFile.delete();
+                    return null;
                 }
-
-                input.close();
-                return (JSONObject) JSONValue.parse(fileContents.toString());
+                touch(resourceFile);
+                return value;
             }
         } catch (IOException e) {
             logger.error(String.format("Unable to read the cache file for resource: %s",
-                    getResourceFile(resource, queryString).getAbsolutePath()));
+                    resourceFile.getAbsolutePath()));
         }
 
         return null;
     }
 
     public synchronized boolean put(String resource, String queryString, JSONObject value) {
-        // If exists we first delete the current cached file
-        if( exists(resource, queryString) ) {
-            evict(resource, queryString);
+        // The new entry atomically replaces the current one
+        if( write(getResourceFile(resource, queryString), value) ) {
+            getLegacyResourceFile(resource, queryString).delete();
+            return true;
         }
-
-        return putIfNotExists(resource, queryString, value);
+        return false;
     }
 
     public synchronized boolean putIfNotExists(String resource, String queryString, JSONObject value) {
-        try {
-            if( !exists(resource, queryString) ) {
-                File resourceFile = getResourceFile(resource, queryString);
-                BufferedWriter output = new BufferedWriter(new FileWriter(
-                        resourceFile));
-
-                output.write(JSONValue.toJSONString(value));
-
-                output.flush();
-                output.close();
-
-                return true;
-            }
-        } catch (IOException e) {
-            logger.error(String.format("Unable to read the cache file for resource: %s",
-                    getResourceFile(resource, queryString).getAbsolutePath()));
+        if( !exists(resource, queryString) ) {
+            return write(getResourceFile(resource, queryString), value);
         }
 
         return false;
     }
 
     public synchronized boolean evict(String resource, String queryString) {
-        try {
-            // If exists we first delete the current cached file
-            if( exists(resource, queryString) ) {
-                forceDelete(getResourceFile(resource, queryString));
-                return true;
+        boolean evicted = false;
+        File[] files = new File[] {getResourceFile(resource, queryString),
+                getLegacyResourceFile(resource, queryString)};
+        for (File file : files) {
+            try {
+                // If exists we delete the current cached file
+                if( file.exists() ) {
+                    forceDelete(file);
+                    evicted = true;
+                }
+            } catch (IOException e) {
+                logger.error(String.format("Unable to evict the resource with file: %s",
+                        file.getAbsolutePath()));
             }
-        } catch (IOException e) {
-            logger.error(String.format("Unable to evict the resource with file: %s",
-                    getResourceFile(resource, queryString).getAbsolutePath()));
         }
 
-        return false;
+        return evicted;
     }
 
     public synchronized void cleanCache() throws IOException {
         final File[] files = storageFolder.listFiles();
         if( files != null ) {
             for (File file : files) {
+                if( file.isDirectory() ) {
+                    File[] entries = file.listFiles();
+                    if( entries != null ) {
+                        for (File entry : entries) {
+                            forceDelete(entry);
+                        }
+                    }
+                }
                 forceDelete(file);
             }
         }
     }
 
+    /**
+     * Removes the abandoned temporary files and the lock files that no
+     * thread or process holds and, when the cache has a size limit and
+     * it's been exceeded, evicts the least recently used entries until
+     * the cache is below the limit.
+     *
+     * @return the number of deleted files
+     */
+    public synchronized int compact() {
+        int deleted = 0;
+        long now = System.currentTimeMillis();
+        long totalSize = 0;
+        List<File> entries = new ArrayList<File>();
+
+        for (File file : listCacheFiles()) {
+            if( file.getName().endsWith(LOCK_SUFFIX) ) {
+                if( deleteLockFile(file) ) {
+                    deleted++;
+                }
+                continue;
+            }
+            if( file.getName().startsWith(TMP_PREFIX) ) {
+                if( now - file.lastModified() > STALE_TMP_MILLIS && file.delete() ) {
+                    deleted++;
+                }
+                continue;
+            }
+            entries.add(file);
+            totalSize += file.length();
+        }
+
+        if( maxSize > 0 && totalSize > maxSize ) {
+            final Map<File, Long> accessTimes = new HashMap<File, Long>();
+            for (File entry : entries) {
+                accessTimes.put(entry, entry.lastModified());
+            }
+            Collections.sort(entries, new Comparator<File>() {
+                public int compare(File f1, File f2) {
+                    return accessTimes.get(f1).compareTo(accessTimes.get(f2));
+                }
+            });
+
+            long target = (long) (maxSize * EVICTION_TARGET_RATIO);
+            for (File entry : entries) {
+                if( totalSize <= target ) {
+                    break;
+                }
+                long size = entry.length();
+                if( entry.delete() ) {
+                    totalSize -= size;
+                    deleted++;
+                }
+            }
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Starts a background task that periodically compacts the cache. The
+     * task runs in a daemon thread.
+     *
+     * @param period
+     *            the time between two runs of the task
+     * @param unit
+     *            the time unit of the period
+     */
+    public synchronized void startCleanup(long period, TimeUnit unit) {
+        stopCleanup();
+        if( cleanupExecutor == null ) {
+            cleanupExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "bigml-cache-cleanup");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+        cleanupTask = cleanupExecutor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    compact();
+                } catch (Throwable e) {
+                    logger.error("Error compacting the cache", e);
+                }
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops the background cleanup task, if any
+     */
+    public synchronized void stopCleanup() {
+        if( cleanupTask != null ) {
+            cleanupTask.cancel(false);
+            cleanupTask = null;
+        }
+    }
+
+    /**
+     * Takes the lock of an entry, waiting for it to be released when
+     * another thread or process holds it. The lock is used to fetch a
+     * missing entry only once: after taking it, callers should check
+     * again whether the entry has been cached meanwhile.
+     *
+     * @param resource
+     *            the resource id
+     * @param queryString
+     *            the query string used to retrieve the resource
+     *
+     * @return the lock, to be released with its close method
+     * @throws IOException if the lock file cannot be used
+     */
+    public EntryLock lockEntry(String resource, String queryString)
+            throws IOException {
+        File lockFile = getLockFile(resource, queryString);
+        lockFile.getParentFile().mkdirs();
+        // the lock is shared by all the managers of the storage in this
+        // JVM, as a file can only be locked once by the JVM
+        String key = lockFile.getCanonicalPath();
+
+        KeyLock keyLock;
+        synchronized (KEY_LOCKS) {
+            keyLock = KEY_LOCKS.get(key);
+            if( keyLock == null ) {
+                keyLock = new KeyLock();
+                KEY_LOCKS.put(key, keyLock);
+            }
+            keyLock.users++;
+        }
+
+        boolean locked = false;
+        try {
+            keyLock.lock.lock();
+            // the file lock is only taken by the first thread
+            if( keyLock.lock.getHoldCount() == 1 ) {
+                keyLock.lockFile(lockFile);
+            }
+            locked = true;
+            return new EntryLock(key, keyLock);
+        } finally {
+            if( !locked ) {
+                releaseKeyLock(key, keyLock);
+            }
+        }
+    }
+
+    /**
+     * Deletes a lock file if it can be locked, that is, if it's not in use
+     * by this or another process. A process that opened the file before
+     * it was deleted notices it when it takes the lock and opens it again.
+     */
+    private boolean deleteLockFile(File lockFile) {
+        // the threads of this JVM register the lock before opening its file
+        synchronized (KEY_LOCKS) {
+            try {
+                if( KEY_LOCKS.containsKey(lockFile.getCanonicalPath()) ) {
+                    return false;
+                }
+                FileChannel lockChannel = new RandomAccessFile(lockFile, "rw").getChannel();
+                try {
+                    return lockChannel.tryLock() != null && lockFile.delete();
+                } finally {
+                    lockChannel.close();
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private static void releaseKeyLock(String key, KeyLock keyLock) {
+        if( keyLock.lock.isHeldByCurrentThread() ) {
+            keyLock.lock.unlock();
+        }
+        synchronized (KEY_LOCKS) {
+            if( --keyLock.users == 0 ) {
+                KEY_LOCKS.remove(key);
+            }
+        }
+    }
+
     protected void forceDelete(File file) throws IOException {
         boolean filePresent = file.exists();
         if (!file.delete()) {
@@ -147,6 +424,26 @@ public class CacheManager {
     }
 
     protected File getResourceFile(String resource, String queryString) {
+        String key = getCacheKey(resource, queryString);
+        String hash = hash(key);
+        File shard = new File(storageFolder, hash.substring(0, 2));
+        return new File(shard, key + ENTRY_SUFFIX);
+    }
+
+    protected File getLockFile(String resource, String queryString) {
+        File resourceFile = getResourceFile(resource, queryString);
+        return new File(resourceFile.getParentFile(),
+                getCacheKey(resource, queryString) + LOCK_SUFFIX);
+    }
+
+    /**
+     * Returns the file used for the resource before the cache was sharded
+     */
+    protected File getLegacyResourceFile(String resource, String queryString) {
+        return new File(storageFolder, getCacheKey(resource, queryString));
+    }
+
+    private String getCacheKey(String resource, String queryString) {
         if( queryString != null && queryString.length() > 0 ) {
             queryString = queryString.replaceAll("=","_");
             queryString = queryString.replaceAll("&","_");
@@ -155,8 +452,217 @@ public class CacheManager {
             queryString = "allfields";
         }
 
-        String resourceFile = String.format("%s%s%s_%s", storageFolder.getAbsolutePath(),
-                File.separator, resource.replaceAll("/", "_"), queryString);
-        return new File(resourceFile);
+        return String.format("%s_%s", resource.replaceAll("/", "_"), queryString);
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : bytes) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.format("%08x", key.hashCode());
+        }
+    }
+
+    /**
+     * Reads a cached entry, either plain or gzip compressed JSON. The
+     * entry is parsed as it's read from the file.
+     */
+    private JSONObject read(File file) throws IOException {
+        InputStream input = new BufferedInputStream(new FileInputStream(file));
+        try {
+            input.mark(2);
+            int first = input.read();
+            int second = input.read();
+            input.reset();
+
+            Object value;
+            try {
+                if( first == (GZIPInputStream.GZIP_MAGIC & 0xff) &&
+                        second == (GZIPInputStream.GZIP_MAGIC >> 8) ) {
+                    input = new GZIPInputStream(input);
+                }
+                value = JSONStreamReader.read(input);
+            } catch (IOException e) {
+                // a truncated or malformed entry, or a corrupt gzip header
+                return null;
+            }
+            return value instanceof JSONObject ? (JSONObject) value : null;
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Writes the entry in a temporary file that is renamed when complete
+     */
+    private boolean write(File file, JSONObject value) {
+        File shard = file.getParentFile();
+        if( !shard.exists() ) {
+            shard.mkdirs();
+        }
+
+        File tmpFile = new File(shard, TMP_PREFIX + UUID.randomUUID());
+        try {
+            OutputStream output = new FileOutputStream(tmpFile);
+            try {
+                if( compress ) {
+                    output = new GZIPOutputStream(output);
+                }
+                Writer writer = new BufferedWriter(new OutputStreamWriter(
+                        output, StandardCharsets.UTF_8));
+                writer.write(JSONValue.toJSONString(value));
+                writer.flush();
+            } finally {
+                output.close();
+            }
+
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            tmpFile.delete();
+            logger.error(String.format("Unable to write the cache file: %s",
+                    file.getAbsolutePath()));
+        }
+
+        return false;
+    }
+
+    /**
+     * Records the access to an entry in its modification time, which is
+     * used to evict the least recently used entries. It's recorded also
+     * when the cache has no size limit, as another manager of the same
+     * storage may have one.
+     */
+    private void touch(File file) {
+        long now = System.currentTimeMillis();
+        if( now - file.lastModified() > ACCESS_RESOLUTION_MILLIS ) {
+            try {
+                Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(now));
+            } catch (IOException e) {
+                // the entry may have been evicted meanwhile
+            }
+        }
+    }
+
+    private List<File> listCacheFiles() {
+        List<File> cacheFiles = new ArrayList<File>();
+        File[] files = storageFolder.listFiles();
+        if( files != null ) {
+            for (File file : files) {
+                if( file.isDirectory() ) {
+                    File[] entries = file.listFiles();
+                    if( entries != null ) {
+                        Collections.addAll(cacheFiles, entries);
+                    }
+                } else {
+                    cacheFiles.add(file);
+                }
+            }
+        }
+        return cacheFiles;
+    }
+
+    private static class KeyLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users = 0;
+        private FileChannel channel = null;
+        private FileLock fileLock = null;
+
+        private void lockFile(File lockFile) throws IOException {
+            while( channel == null ) {
+                FileChannel lockChannel = new RandomAccessFile(lockFile, "rw").getChannel();
+                try {
+                    Object opened = fileKey(lockFile);
+                    FileLock lock = lockChannel.lock();
+                    // compact deletes the lock files that aren't locked, so
+                    // the file may have been replaced before it was locked
+                    if( opened != null && opened.equals(fileKey(lockFile)) ) {
+                        fileLock = lock;
+                        channel = lockChannel;
+                    }
+                } finally {
+                    if( channel == null ) {
+                        lockChannel.close();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the identity of a file, or null when it doesn't exist
+         */
+        private static Object fileKey(File file) throws IOException {
+            try {
+                Object key = Files.readAttributes(file.toPath(),
+                        BasicFileAttributes.class).fileKey();
+                // without file keys, open files cannot be deleted either
+                return key != null ? key : Boolean.TRUE;
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+
+        private void unlockFile() throws IOException {
+            try {
+                if( fileLock != null ) {
+                    fileLock.release();
+                }
+            } finally {
+                fileLock = null;
+                if( channel != null ) {
+                    channel.close();
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * The lock of a cache entry, both for the threads of this JVM and for
+     * other processes sharing the cache
+     */
+    public static class EntryLock implements Closeable {
+
+        private final String key;
+        private final KeyLock keyLock;
+        private boolean released = false;
+
+        private EntryLock(String key, KeyLock keyLock) {
+            this.key = key;
+            this.keyLock = keyLock;
+        }
+
+        /**
+         * Releases the lock
+         */
+        public void close() {
+            if( released ) {
+                return;
+            }
+            released = true;
+            try {
+                if( keyLock.lock.getHoldCount() == 1 ) {
+                    keyLock.unlockFile();
+                }
+            } catch (IOException e) {
+                LoggerFactory.getLogger(CacheManager.class).error(
+                        "Unable to release the lock of the cache entry " + key);
+            } finally {
+                releaseKeyLock(key, keyLock);
+            }
+        }
     }
 }
@@ -1,9 +1,21 @@
 package org.bigml.binding.utils;
 
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAccessor;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.json.simple.JSONArray;
 import org.slf4j.Logger;
@@ -122,6 +134,21 @@ public class Chronos {
     	CUSTOM_FORMAT_PATTERNS.put("clock-second-nospace", "h:m:sa");
     }
     
+    /**
+     * The formats by format name. SimpleDateFormat is not thread-safe, so
+     * each thread keeps its own instance of each format.
+     */
+    private static final Map<String, ThreadLocal<SimpleDateFormat>> FORMATS =
+    		new ConcurrentHashMap<String, ThreadLocal<SimpleDateFormat>>();
+
+    /**
+     * Compiled formatters for the ISO week date formats, that
+     * SimpleDateFormat can't parse. DateTimeFormatter instances are
+     * immutable and thread-safe, so they are built once and shared.
+     */
+    private static final Map<String, DateTimeFormatter> WEEK_FORMATTERS =
+    		new ConcurrentHashMap<String, DateTimeFormatter>();
+
     /**
      * Creates a Date object from a string representing a date and a
      * format name
@@ -136,23 +163,156 @@ public class Chronos {
      */
     public static Date parse(String date, JSONArray formats) throws Exception {
     	for (Object formatName : formats) {
-    		String format = BASIC_FORMAT_PATTERNS.get((String) formatName);
-    		if (format == null) {
-    			format = CUSTOM_FORMAT_PATTERNS.get((String) formatName);
-    		}
-    		if (format == null) {
-    			throw new Exception("Timeformat specified is not valid");
+    		Date parsed = parse(date, (String) formatName);
+    		if (parsed != null) {
+    			return parsed;
     		}
+    	}
+
+    	return null;
+    }
 
+    /**
+     * Creates a Date object from a string representing a date using
+     * a single format name
+     * 
+     * @param date
+     * 			the date to parse as a string
+     * @param formatName
+     * 			the name of the date format to use
+     * 
+     * @return the parsed date or null if the date doesn't match the format
+     * @throws Exception if the format name is not valid
+     */
+    public static Date parse(String date, String formatName) throws Exception {
+    	ParsePosition position = new ParsePosition(0);
+    	String format = getPattern(formatName);
+    	if (isWeekDate(format)) {
+    		DateTimeFormatter formatter = WEEK_FORMATTERS.get(formatName);
+    		if (formatter == null) {
+    			formatter = buildWeekFormatter(format);
+    			WEEK_FORMATTERS.put(formatName, formatter);
+    		}
     		try {
-    			SimpleDateFormat sdf = new SimpleDateFormat(format);
-    			return sdf.parse(date);
-    		} catch (ParseException e) {
-    			continue;
+    			return toDate(formatter.parse(date, position));
+    		} catch (DateTimeException e) {
+    			return null;
     		}
     	}
 
-    	return null;
+    	// like SimpleDateFormat.parse(String), trailing text is allowed
+    	Date parsed = getFormat(formatName, format).parse(date, position);
+    	return position.getIndex() == 0 ? null : parsed;
+    }
+
+    private static String getPattern(String formatName) throws Exception {
+    	String format = BASIC_FORMAT_PATTERNS.get(formatName);
+    	if (format == null) {
+    		format = CUSTOM_FORMAT_PATTERNS.get(formatName);
+    	}
+    	if (format == null) {
+    		throw new Exception("Timeformat specified is not valid");
+    	}
+    	return format;
+    }
+
+    private static SimpleDateFormat getFormat(String formatName,
+    		final String format) {
+    	ThreadLocal<SimpleDateFormat> formats = FORMATS.get(formatName);
+    	if (formats == null) {
+    		formats = new ThreadLocal<SimpleDateFormat>() {
+    			@Override
+    			protected SimpleDateFormat initialValue() {
+    				return new SimpleDateFormat(format);
+    			}
+    		};
+    		FORMATS.put(formatName, formats);
+    	}
+    	return formats.get();
+    }
+
+    private static boolean isWeekDate(String format) {
+    	return format.contains("'W'");
+    }
+
+    /**
+     * Compiles an ISO week date pattern into a DateTimeFormatter, using
+     * the week based year ("xxxx"), week ("ww") and day of week ("e").
+     */
+    private static DateTimeFormatter buildWeekFormatter(String format) {
+    	DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+    			.parseCaseInsensitive();
+    	StringBuilder pending = new StringBuilder();
+    	boolean quoted = false;
+    	int i = 0;
+    	while (i < format.length()) {
+    		char c = format.charAt(i);
+    		int run = 1;
+    		while (!quoted && c != '\'' && i + run < format.length() &&
+    				format.charAt(i + run) == c) {
+    			run++;
+    		}
+
+    		if (c == '\'') {
+    			quoted = !quoted;
+    			pending.append(c);
+    		} else if (quoted) {
+    			pending.append(c);
+    		} else if (c == 'x' || c == 'w' || c == 'e' || c == 'z') {
+    			if (pending.length() > 0) {
+    				builder.appendPattern(pending.toString());
+    				pending.setLength(0);
+    			}
+    			if (c == 'x') {
+    				builder.appendValue(IsoFields.WEEK_BASED_YEAR, run);
+    			} else if (c == 'w') {
+    				builder.appendValue(IsoFields.WEEK_OF_WEEK_BASED_YEAR, run);
+    			} else if (c == 'e') {
+    				builder.appendValue(ChronoField.DAY_OF_WEEK, run);
+    			}
+    			// week dates carry no zone name, so 'z' is ignored
+    		} else {
+    			for (int j = 0; j < run; j++) {
+    				pending.append(c);
+    			}
+    		}
+    		i += run;
+    	}
+    	if (pending.length() > 0) {
+    		builder.appendPattern(pending.toString());
+    	}
+    	if (format.indexOf('e') < 0) {
+    		builder.parseDefaulting(ChronoField.DAY_OF_WEEK, 1);
+    	}
+    	return builder.toFormatter().withResolverStyle(ResolverStyle.LENIENT);
+    }
+
+    /**
+     * Builds the Date for the parsed fields. Like SimpleDateFormat, the
+     * fields not present in the format default to the epoch and dates
+     * without offset are in the default time zone.
+     */
+    private static Date toDate(TemporalAccessor parsed) {
+    	LocalDateTime dateTime = LocalDateTime.of(
+    			getField(parsed, ChronoField.YEAR, 1970),
+    			getField(parsed, ChronoField.MONTH_OF_YEAR, 1),
+    			getField(parsed, ChronoField.DAY_OF_MONTH, 1),
+    			getField(parsed, ChronoField.HOUR_OF_DAY, 0),
+    			getField(parsed, ChronoField.MINUTE_OF_HOUR, 0),
+    			getField(parsed, ChronoField.SECOND_OF_MINUTE, 0),
+    			getField(parsed, ChronoField.NANO_OF_SECOND, 0));
+
+    	if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+    		ZoneOffset offset = ZoneOffset.ofTotalSeconds(
+    				parsed.get(ChronoField.OFFSET_SECONDS));
+    		return Date.from(dateTime.toInstant(offset));
+    	}
+    	return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static int getField(TemporalAccessor parsed, ChronoField field,
+    		int defaultValue) {
+    	return parsed.isSupported(field) ? parsed.get(field) : defaultValue;
     }
 
 }
@@ -0,0 +1,27 @@
+package org.bigml.binding.utils;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request is not sent because the API has been failing and
+ * the circuit breaker of the retry policy is open.
+ */
+public class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAt;
+
+    public CircuitOpenException(String message, long retryAt) {
+        super(message);
+        this.retryAt = retryAt;
+    }
+
+    /**
+     * Returns the time, in ms since the epoch, after which requests will
+     * be sent again
+     */
+    public long getRetryAt() {
+        return retryAt;
+    }
+}
@@ -0,0 +1,260 @@
+package org.bigml.binding.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.simple.JSONObject;
+
+/**
+ * An instrumentation that keeps its counters and histograms in memory, so
+ * that they can be inspected or exported by the application.
+ *
+ * Timers are histograms of nanoseconds. Histograms keep their count, sum,
+ * minimum and maximum, and power of two buckets to estimate percentiles.
+ *
+ * Example usage:
+ *
+ *  InMemoryInstrumentation registry = new InMemoryInstrumentation();
+ *  Instrumentation.set(registry);
+ *  ...
+ *  registry.getHistogram(Instrumentation.PREDICT,
+ *      "kind", "model", "model", "model/5143a51a37203f2cf7000972")
+ *      .getPercentile(0.99);
+ */
+public class InMemoryInstrumentation extends Instrumentation {
+
+    private final ConcurrentHashMap<Key, LongAdder> counters =
+            new ConcurrentHashMap<Key, LongAdder>();
+
+    private final ConcurrentHashMap<Key, Histogram> histograms =
+            new ConcurrentHashMap<Key, Histogram>();
+
+    /**
+     * A histogram of values
+     */
+    public static class Histogram {
+        private static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        private final AtomicLong min = new AtomicLong(
+                Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        private final AtomicLong max = new AtomicLong(
+                Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+
+        void record(double value) {
+            count.increment();
+            sum.add(value);
+            long bits;
+            while( value < Double.longBitsToDouble(bits = min.get()) &&
+                    !min.compareAndSet(bits, Double.doubleToLongBits(value)) ) {
+                // retried
+            }
+            while( value > Double.longBitsToDouble(bits = max.get()) &&
+                    !max.compareAndSet(bits, Double.doubleToLongBits(value)) ) {
+                // retried
+            }
+            buckets.incrementAndGet(bucket(value));
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getSum() {
+            return sum.sum();
+        }
+
+        public double getMean() {
+            long total = getCount();
+            return total == 0 ? 0.0 : getSum() / total;
+        }
+
+        public double getMin() {
+            return getCount() == 0 ? 0.0 : Double.longBitsToDouble(min.get());
+        }
+
+        public double getMax() {
+            return getCount() == 0 ? 0.0 : Double.longBitsToDouble(max.get());
+        }
+
+        /**
+         * Returns an estimate of a percentile: the upper bound of the
+         * bucket that holds it, within the observed range
+         *
+         * @param quantile
+         *            the quantile, between 0 and 1
+         */
+        public double getPercentile(double quantile) {
+            long total = 0;
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            if( total == 0 ) {
+                return 0.0;
+            }
+
+            long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, quantile)) * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if( seen >= Math.max(1, rank) ) {
+                    double upper = i == 0 ? 0.0 : Math.pow(2, i) - 1;
+                    return Math.max(getMin(), Math.min(getMax(), upper));
+                }
+            }
+            return getMax();
+        }
+
+        private static int bucket(double value) {
+            if( !(value >= 1.0) ) {
+                return 0;
+            }
+            int bits = 64 - Long.numberOfLeadingZeros((long) Math.min(value, Long.MAX_VALUE));
+            return Math.min(BUCKETS - 1, bits);
+        }
+
+        public JSONObject toJSON() {
+            JSONObject histogram = new JSONObject();
+            histogram.put("count", getCount());
+            histogram.put("mean", getMean());
+            histogram.put("min", getMin());
+            histogram.put("max", getMax());
+            histogram.put("p50", getPercentile(0.5));
+            histogram.put("p99", getPercentile(0.99));
+            return histogram;
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void increment(String name, String... tags) {
+        Key key = new Key(name, tags);
+        LongAdder counter = counters.get(key);
+        if( counter == null ) {
+            counters.putIfAbsent(key, new LongAdder());
+            counter = counters.get(key);
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void record(String name, double value, String... tags) {
+        getOrCreate(new Key(name, tags)).record(value);
+    }
+
+    @Override
+    public void recordTime(String name, long nanos, String... tags) {
+        getOrCreate(new Key(name, tags)).record(nanos);
+    }
+
+    /**
+     * Returns the value of a counter, or 0 if it was never incremented
+     */
+    public long getCount(String name, String... tags) {
+        LongAdder counter = counters.get(new Key(name, tags));
+        return counter != null ? counter.sum() : 0L;
+    }
+
+    /**
+     * Returns a histogram or timer, or null if nothing was recorded in it
+     */
+    public Histogram getHistogram(String name, String... tags) {
+        return histograms.get(new Key(name, tags));
+    }
+
+    /**
+     * Returns all the counters and histograms, by name and tags
+     */
+    public JSONObject snapshot() {
+        Map<String, Object> sorted = new TreeMap<String, Object>();
+        for (Map.Entry<Key, LongAdder> entry : counters.entrySet()) {
+            sorted.put(entry.getKey().toString(), entry.getValue().sum());
+        }
+        for (Map.Entry<Key, Histogram> entry : histograms.entrySet()) {
+            sorted.put(entry.getKey().toString(), entry.getValue().toJSON());
+        }
+        JSONObject snapshot = new JSONObject();
+        snapshot.putAll(sorted);
+        return snapshot;
+    }
+
+    /**
+     * Removes all the counters and histograms
+     */
+    public void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    private Histogram getOrCreate(Key key) {
+        Histogram histogram = histograms.get(key);
+        if( histogram == null ) {
+            histograms.putIfAbsent(key, new Histogram());
+            histogram = histograms.get(key);
+        }
+        return histogram;
+    }
+
+    /**
+     * The key of a measure: its name and its tags
+     */
+    private static class Key {
+        private final String name;
+        private final String[] tags;
+        private final int hash;
+
+        Key(String name, String[] tags) {
+            this.name = name;
+            this.tags = tags != null ? tags : new String[0];
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(this.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if( !(other instanceof Key) ) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash && name.equals(key.name)
+                    && Arrays.equals(tags, key.tags);
+        }
+
+        /**
+         * Returns the name followed by the tags, e.g.
+         * bigml.cache.hit{resource=model}
+         */
+        @Override
+        public String toString() {
+            if( tags.length == 0 ) {
+                return name;
+            }
+            StringBuilder key = new StringBuilder(name).append('{');
+            for (int i = 0; i + 1 < tags.length; i += 2) {
+                if( i > 0 ) {
+                    key.append(',');
+                }
+                key.append(tags[i]).append('=').append(tags[i + 1]);
+            }
+            return key.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.bigml.binding.utils;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives the counters, histograms and timers of the bindings: the
+ * requests sent to the API, the cache hits and misses, the time to load a
+ * local model and the time spent in local predictions.
+ *
+ * All the methods do nothing by default, so an implementation only needs
+ * to override the ones it cares about. The instrumentation in use is the
+ * one set with {@link #set(Instrumentation)} or, if none was set, the
+ * first one declared as a service in
+ * META-INF/services/org.bigml.binding.utils.Instrumentation. When there
+ * is none, nothing is measured and the measured code only pays for a
+ * volatile read.
+ *
+ * Tags are given as alternating names and values, e.g.
+ * increment(CACHE_HIT, "resource", "model").
+ */
+public abstract class Instrumentation {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(
+            Instrumentation.class.getName());
+
+    // Timer of the requests to the API. Tags: resource, method, status
+    public static final String HTTP_REQUEST = "bigml.http.request";
+    // Size of the request bodies in bytes. Tags: resource, method
+    public static final String HTTP_REQUEST_BYTES = "bigml.http.request.bytes";
+    // Size of the response bodies in bytes, when told. Tags: resource, method
+    public static final String HTTP_RESPONSE_BYTES = "bigml.http.response.bytes";
+    // Resources read from or missing in the cache. Tags: resource
+    public static final String CACHE_HIT = "bigml.cache.hit";
+    public static final String CACHE_MISS = "bigml.cache.miss";
+    // Timer of the construction of local models. Tags: kind, model
+    public static final String MODEL_LOAD = "bigml.local.load";
+    // Timer of the local predictions. Tags: kind, model
+    public static final String PREDICT = "bigml.local.predict";
+    // Timer of the tree traversals in local models. Tags: model
+    public static final String TREE_TRAVERSAL = "bigml.local.tree";
+    // Timers of the input data preparation. No tags
+    public static final String FILTER_INPUT = "bigml.local.filter_input";
+    public static final String CAST = "bigml.local.cast";
+
+    /**
+     * The instrumentation used when there is none: it measures nothing
+     */
+    public static final Instrumentation NOOP = new Instrumentation() {
+    };
+
+    private static volatile Instrumentation current = load();
+
+    /**
+     * Returns the instrumentation in use
+     */
+    public static Instrumentation get() {
+        return current;
+    }
+
+    /**
+     * Sets the instrumentation in use
+     *
+     * @param instrumentation
+     *            the instrumentation, or null to measure nothing
+     */
+    public static void set(Instrumentation instrumentation) {
+        current = instrumentation != null ? instrumentation : NOOP;
+    }
+
+    /**
+     * Returns the start time of a measure, or 0 if nothing is measured
+     */
+    public static long start() {
+        return current.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the time elapsed since a start time, if it was measured
+     *
+     * @param name
+     *            the name of the timer
+     * @param start
+     *            the start time returned by {@link #start()}
+     * @param tags
+     *            alternating tag names and values
+     */
+    public static void stop(String name, long start, String... tags) {
+        if( start != 0L ) {
+            current.recordTime(name, System.nanoTime() - start, tags);
+        }
+    }
+
+    /**
+     * Returns true if the measures are recorded. When false, the callers
+     * skip measuring altogether.
+     */
+    public boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Adds one to a counter
+     */
+    public void increment(String name, String... tags) {
+    }
+
+    /**
+     * Records a value in a histogram
+     */
+    public void record(String name, double value, String... tags) {
+    }
+
+    /**
+     * Records a duration in a timer
+     *
+     * @param nanos
+     *            the duration, in nanoseconds
+     */
+    public void recordTime(String name, long nanos, String... tags) {
+    }
+
+    private static Instrumentation load() {
+        try {
+            Iterator<Instrumentation> providers = ServiceLoader.load(
+                    Instrumentation.class).iterator();
+            if( providers.hasNext() ) {
+                Instrumentation instrumentation = providers.next();
+                logger.info("Using the instrumentation "
+                        + instrumentation.getClass().getName());
+                return instrumentation;
+            }
+        } catch (Throwable e) {
+            logger.error("Unable to load the instrumentation", e);
+        }
+        return NOOP;
+    }
+}
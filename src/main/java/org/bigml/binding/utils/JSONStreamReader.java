@@ -0,0 +1,302 @@
+package org.bigml.binding.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+/**
+ * Reads JSON values from a streaming parser into the json-simple types
+ * used across the bindings: JSONObject, JSONArray, String, Long, Double,
+ * Boolean and null.
+ *
+ * The values are built as the tokens are read, without holding the whole
+ * document as a string first. Sections of the document that are not
+ * needed can be skipped by their path, so they are never built:
+ *
+ *  JSONObject model = (JSONObject) JSONStreamReader.read(input,
+ *      Arrays.asList("object.model.importance", "object.model.fields.*.summary"));
+ */
+public class JSONStreamReader {
+
+    /**
+     * The maximum nesting depth of the documents. Each level of a tree
+     * takes two, its node and the array of its children, so it allows the
+     * trees of the deepest models while it bounds what a hostile document
+     * can make the parser hold.
+     */
+    public static final int MAX_NESTING_DEPTH = 10000;
+
+    /**
+     * The factory of the parsers. The models of the API can be nested deeper
+     * and hold longer strings than the default limits of the parser allow,
+     * like the trees of deep models, so those limits are raised.
+     */
+    public static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder()
+                    .maxNestingDepth(MAX_NESTING_DEPTH)
+                    .maxStringLength(Integer.MAX_VALUE)
+                    .build())
+            .build();
+
+    private JSONStreamReader() {
+    }
+
+    /**
+     * Reads a JSON value from a stream, which is closed afterwards
+     *
+     * @param input
+     *            the stream of the UTF-8 encoded JSON
+     *
+     * @return the value read, or null if the stream is empty
+     */
+    public static Object read(InputStream input) throws IOException {
+        return read(input, null);
+    }
+
+    /**
+     * Reads a JSON value from a stream, which is closed afterwards,
+     * skipping some of its sections.
+     *
+     * @param input
+     *            the stream of the UTF-8 encoded JSON
+     * @param skipped
+     *            the paths of the sections to skip, as the keys from the
+     *            top object separated by dots. A * matches any key, and the
+     *            elements of an array have the path of the array. None is
+     *            skipped if null.
+     *
+     * @return the value read, or null if the stream is empty
+     */
+    public static Object read(InputStream input, Collection<String> skipped)
+            throws IOException {
+        JsonParser parser = JSON_FACTORY.createParser(input);
+        try {
+            if( parser.nextToken() == null ) {
+                return null;
+            }
+            if( skipped == null || skipped.isEmpty() ) {
+                return readValue(parser);
+            }
+            List<PathFilter> filters = new ArrayList<PathFilter>();
+            filters.add(PathFilter.build(skipped));
+            return readValue(parser, filters);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Reads the value that starts at the current token of the parser. The
+     * parser is left at the last token of the value.
+     *
+     * @param parser
+     *            the parser, positioned at the first token of the value
+     *
+     * @return the value read
+     */
+    public static Object readValue(JsonParser parser) throws IOException {
+        if( parser.currentToken() == null && parser.nextToken() == null ) {
+            return null;
+        }
+        return readValue(parser, null);
+    }
+
+    /**
+     * Reads the object that starts at the current token of the parser. The
+     * values of the keys that are not selected are skipped without being
+     * built.
+     *
+     * @param parser
+     *            the parser, positioned at the start of the object
+     * @param keys
+     *            the keys to keep. All of them if null.
+     *
+     * @return the object read
+     */
+    public static JSONObject readObject(JsonParser parser, Set<String> keys)
+            throws IOException {
+        if( parser.currentToken() != JsonToken.START_OBJECT ) {
+            throw new IOException("Expected a JSON object but found "
+                    + parser.currentToken());
+        }
+
+        JSONObject object = new JSONObject();
+        while( parser.nextToken() == JsonToken.FIELD_NAME ) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if( keys == null || keys.contains(key) ) {
+                object.put(key, readValue(parser, null));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Reads a value skipping the sections matched by the filters of its
+     * path, if any. The nested values are read with a stack of their own
+     * rather than recursively, so that the depth of the document is only
+     * limited by the constraints of the parser.
+     */
+    private static Object readValue(JsonParser parser,
+            List<PathFilter> filters) throws IOException {
+        JsonToken token = parser.currentToken();
+        if( token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY ) {
+            return readScalar(parser, token);
+        }
+
+        Object value = token == JsonToken.START_OBJECT ?
+                new JSONObject() : new JSONArray();
+        Deque<OpenValue> open = new ArrayDeque<OpenValue>();
+        open.push(new OpenValue(value, filters));
+        while( true ) {
+            OpenValue current = open.peek();
+            token = parser.nextToken();
+            if( token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY ) {
+                open.pop();
+                if( open.isEmpty() ) {
+                    return value;
+                }
+                continue;
+            }
+
+            // the elements of an array have the path of the array
+            String key = null;
+            List<PathFilter> childFilters = current.filters;
+            if( token == JsonToken.FIELD_NAME ) {
+                key = parser.getCurrentName();
+                token = parser.nextToken();
+                childFilters = null;
+                if( current.filters != null ) {
+                    List<PathFilter> keyFilters = new ArrayList<PathFilter>();
+                    boolean skip = false;
+                    for (PathFilter filter : current.filters) {
+                        skip |= filter.add(key, keyFilters);
+                        skip |= filter.add(PathFilter.ANY_KEY, keyFilters);
+                    }
+                    if( skip ) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    if( !keyFilters.isEmpty() ) {
+                        childFilters = keyFilters;
+                    }
+                }
+            }
+
+            Object child;
+            if( token == JsonToken.START_OBJECT ) {
+                child = new JSONObject();
+            } else if( token == JsonToken.START_ARRAY ) {
+                child = new JSONArray();
+            } else {
+                child = readScalar(parser, token);
+            }
+            if( current.value instanceof JSONObject ) {
+                ((JSONObject) current.value).put(key, child);
+            } else {
+                ((JSONArray) current.value).add(child);
+            }
+            if( child instanceof JSONObject || child instanceof JSONArray ) {
+                open.push(new OpenValue(child, childFilters));
+            }
+        }
+    }
+
+    private static Object readScalar(JsonParser parser, JsonToken token)
+            throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                if( parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ) {
+                    return parser.getDoubleValue();
+                }
+                return parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new IOException("Unexpected JSON token " + token);
+        }
+    }
+
+    /**
+     * An object or array being read, with the filters of its path
+     */
+    private static class OpenValue {
+
+        private final Object value;
+        private final List<PathFilter> filters;
+
+        OpenValue(Object value, List<PathFilter> filters) {
+            this.value = value;
+            this.filters = filters;
+        }
+    }
+
+    /**
+     * The paths to skip below a key, as a tree of keys
+     */
+    private static class PathFilter {
+
+        static final String ANY_KEY = "*";
+
+        private final Map<String, PathFilter> children =
+                new HashMap<String, PathFilter>();
+        private boolean skipped = false;
+
+        static PathFilter build(Collection<String> paths) {
+            PathFilter root = new PathFilter();
+            for (String path : paths) {
+                PathFilter filter = root;
+                for (String key : path.split("\\.")) {
+                    PathFilter child = filter.children.get(key);
+                    if( child == null ) {
+                        child = new PathFilter();
+                        filter.children.put(key, child);
+                    }
+                    filter = child;
+                }
+                filter.skipped = true;
+            }
+            return root;
+        }
+
+        /**
+         * Adds the filter of a key, if any, and returns whether the key is
+         * skipped
+         */
+        boolean add(String key, List<PathFilter> filters) {
+            PathFilter child = children.get(key);
+            if( child == null ) {
+                return false;
+            }
+            if( !child.children.isEmpty() ) {
+                filters.add(child);
+            }
+            return child.skipped;
+        }
+    }
+}
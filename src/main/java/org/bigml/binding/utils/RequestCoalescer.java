@@ -0,0 +1,175 @@
+package org.bigml.binding.utils;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Deduplicates the requests that are in flight at the same time.
+ *
+ * When several threads ask for the same key while a request for it is
+ * running, only the first one issues the request and the rest wait for
+ * it. Callers often modify the resources they get, so when the result of
+ * a request is shared, each caller receives its own deep copy of it.
+ * Counters for the issued and the coalesced requests are kept.
+ */
+public class RequestCoalescer {
+
+    // Logging
+    static Logger logger = LoggerFactory.getLogger(
+            RequestCoalescer.class.getName());
+
+    private final ConcurrentHashMap<String, Call> inFlight =
+            new ConcurrentHashMap<String, Call>();
+
+    private final AtomicLong issuedRequests = new AtomicLong();
+
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    /**
+     * Runs the request, unless a request with the same key is already
+     * running, in which case its result is returned when available.
+     *
+     * @param key
+     *            the key that identifies the request
+     * @param request
+     *            the request to run
+     *
+     * @return the result of the request, or null if the thread was
+     *         interrupted while waiting for it. When the result is shared
+     *         by several callers, each one gets a copy.
+     */
+    public JSONObject execute(String key, Callable<JSONObject> request) {
+        Call call = new Call(request);
+        while (true) {
+            Call current = inFlight.putIfAbsent(key, call);
+            if( current == null ) {
+                break;
+            }
+            if( current.join() ) {
+                coalescedRequests.incrementAndGet();
+                return copy(get(key, current.task));
+            }
+            // the request finished meanwhile without waiting callers
+            inFlight.remove(key, current);
+        }
+
+        issuedRequests.incrementAndGet();
+        try {
+            call.task.run();
+        } finally {
+            inFlight.remove(key, call);
+        }
+        JSONObject result = get(key, call.task);
+        // the callers that joined are reading the result to copy it
+        return call.close() ? copy(result) : result;
+    }
+
+    private JSONObject get(String key, FutureTask<JSONObject> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the request " + key);
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if( cause instanceof RuntimeException ) {
+                throw (RuntimeException) cause;
+            }
+            if( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Deep copies the JSON objects and arrays of a result. The rest of the
+     * values are immutable.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T value) {
+        if( value instanceof JSONObject ) {
+            JSONObject copy = new JSONObject();
+            for (Object entry : ((JSONObject) value).entrySet()) {
+                Map.Entry<Object, Object> item = (Map.Entry<Object, Object>) entry;
+                copy.put(item.getKey(), copy(item.getValue()));
+            }
+            return (T) copy;
+        }
+        if( value instanceof JSONArray ) {
+            JSONArray copy = new JSONArray();
+            for (Object item : (JSONArray) value) {
+                copy.add(copy(item));
+            }
+            return (T) copy;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of requests that have been issued
+     */
+    public long getIssuedRequests() {
+        return issuedRequests.get();
+    }
+
+    /**
+     * Returns the number of requests that have been served with the
+     * result of a request already in flight
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * Returns the number of requests currently in flight
+     */
+    public int getInFlightRequests() {
+        return inFlight.size();
+    }
+
+    /**
+     * A request in flight and whether other callers are waiting for it
+     */
+    private static class Call {
+
+        final FutureTask<JSONObject> task;
+        private boolean shared = false;
+        private boolean closed = false;
+
+        Call(Callable<JSONObject> request) {
+            this.task = new FutureTask<JSONObject>(request);
+        }
+
+        /**
+         * Joins the request, unless the caller that issued it has
+         * already taken its result
+         */
+        synchronized boolean join() {
+            if( closed ) {
+                return false;
+            }
+            shared = true;
+            return true;
+        }
+
+        /**
+         * Closes the request to new callers and returns whether any
+         * other caller joined it
+         */
+        synchronized boolean close() {
+            closed = true;
+            return shared;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.bigml.binding.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Counters of the requests sent for a kind of resource.
+ */
+public class RequestMetrics {
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+
+    /**
+     * Counts an attempt and its response code, or -1 if no response was
+     * received
+     */
+    public void recordAttempt(int code, long nanos) {
+        requests.incrementAndGet();
+        totalTime.addAndGet(nanos);
+        if( code == 429 ) {
+            throttled.incrementAndGet();
+        } else if( code >= 200 && code < 300 ) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    public void recordRetry() {
+        retries.incrementAndGet();
+    }
+
+    public void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of requests sent, including retries
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests answered with a 2xx code
+     */
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    /**
+     * Returns the number of requests answered with an error other than
+     * 429, or not answered at all
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of requests answered with a 429 code
+     */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    /**
+     * Returns the number of retried requests
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Returns the number of requests not sent because the circuit breaker
+     * was open
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the average time of a request, in ms
+     */
+    public double getAverageTime() {
+        long count = requests.get();
+        return count == 0 ? 0.0 : totalTime.get() / 1e6 / count;
+    }
+
+    public JSONObject toJSON() {
+        JSONObject metrics = new JSONObject();
+        metrics.put("requests", getRequests());
+        metrics.put("succeeded", getSucceeded());
+        metrics.put("failed", getFailed());
+        metrics.put("throttled", getThrottled());
+        metrics.put("retries", getRetries());
+        metrics.put("rejected", getRejected());
+        metrics.put("average_time", getAverageTime());
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return toJSON().toJSONString();
+    }
+}
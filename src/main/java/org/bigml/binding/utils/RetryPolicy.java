@@ -0,0 +1,48 @@
+package org.bigml.binding.utils;
+
+import java.net.HttpURLConnection;
+import java.util.Map;
+
+/**
+ * Decides how the requests to the API are paced and retried.
+ *
+ * The resources send every request through the policy of their client,
+ * which may delay it, retry it or reject it without sending it.
+ */
+public interface RetryPolicy {
+
+    /**
+     * A request that can be sent several times
+     */
+    interface Request {
+        /**
+         * Sends the request and returns its connection
+         */
+        HttpURLConnection send() throws Exception;
+    }
+
+    /**
+     * Sends the request, retrying it when the policy allows it. The
+     * connection of the last attempt is returned, with its response code
+     * already received.
+     *
+     * @param resourceName
+     *            the kind of resource the request is for: source, model...
+     * @param method
+     *            the HTTP method of the request
+     * @param request
+     *            the request
+     *
+     * @return the connection of the last attempt
+     *
+     * @throws CircuitOpenException
+     *            if the request was not sent because the API is failing
+     */
+    HttpURLConnection execute(String resourceName, String method,
+            Request request) throws Exception;
+
+    /**
+     * Returns the metrics of the requests sent, per kind of resource
+     */
+    Map<String, RequestMetrics> getMetrics();
+}
@@ -68,15 +68,32 @@ public class Stemmer {
     }
 	
     public static class SnowballStemmer implements StemmerInterface {
-        private final SnowballProgram stemmer;
-
-        public SnowballStemmer(SnowballProgram sb) {
-            stemmer = sb;
+        // The snowball programs keep the term they stem, so every thread
+        // uses its own program of the same class
+        private final ThreadLocal<SnowballProgram> stemmers;
+
+        public SnowballStemmer(final SnowballProgram sb) {
+            if (sb == null) {
+                stemmers = null;
+                return;
+            }
+            stemmers = new ThreadLocal<SnowballProgram>() {
+                protected SnowballProgram initialValue() {
+                    try {
+                        return sb.getClass().getDeclaredConstructor()
+                                .newInstance();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(
+                                "Unable to create the stemmer", e);
+                    }
+                }
+            };
         }
 
         @Override
         public String getStem(String term) {
-            if (stemmer != null) {
+            if (stemmers != null) {
+                SnowballProgram stemmer = stemmers.get();
                 stemmer.setCurrent(term);
                 stemmer.stem();
                 return stemmer.getCurrent();
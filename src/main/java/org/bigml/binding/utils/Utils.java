@@ -501,6 +501,17 @@ public class Utils {
      * @param fields	the fields json
      */
     public static void cast(JSONObject inputData, JSONObject fields) {
+        long start = Instrumentation.start();
+        try {
+            castFields(inputData, fields);
+        } finally {
+            if (start != 0L) {
+                Instrumentation.stop(Instrumentation.CAST, start);
+            }
+        }
+    }
+
+    private static void castFields(JSONObject inputData, JSONObject fields) {
 
         for (Object fieldId : inputData.keySet()) {
             Object value = inputData.get(fieldId);
@@ -938,39 +949,57 @@ public class Utils {
             return distribution;
         }
 
-        int indexToMerge = 2;
-        double shortest = Double.MAX_VALUE;
-        for(int index = 1; index < length; index++) {
-            double distance = ((Number) ((JSONArray) distribution.get(index)).get(0)).doubleValue() -
-                    ((Number) ((JSONArray) distribution.get(index - 1)).get(0)).doubleValue();
-
-            if( distance < shortest ) {
-                shortest = distance;
-                indexToMerge = index;
-            }
+        // The closest bins are merged in place until the limit is reached.
+        // The bins that are not merged are kept as they are.
+        Object[] bins = distribution.toArray();
+        double[] centers = new double[length];
+        double[] weights = new double[length];
+        long[] counts = new long[length];
+        for (int index = 0; index < length; index++) {
+            JSONArray bin = (JSONArray) bins[index];
+            centers[index] = ((Number) bin.get(0)).doubleValue();
+            weights[index] = ((Number) bin.get(1)).doubleValue();
+            counts[index] = ((Number) bin.get(1)).longValue();
         }
 
-        JSONArray newDistribution = new JSONArray();
-        newDistribution.addAll(distribution.subList(0, indexToMerge - 1));
+        while( length > limit ) {
+            int indexToMerge = 2;
+            double shortest = Double.MAX_VALUE;
+            for(int index = 1; index < length; index++) {
+                double distance = centers[index] - centers[index - 1];
 
-        JSONArray left = (JSONArray) distribution.get(indexToMerge - 1);
-
-        JSONArray right = (JSONArray) distribution.get(indexToMerge);
-
-        JSONArray newBin = new JSONArray();
-        newBin.add(0, ( ((((Number) left.get(0)).doubleValue() * ((Number) left.get(1)).doubleValue()) +
-                (((Number) right.get(0)).doubleValue() * ((Number) right.get(1)).doubleValue())) /
-                (((Number) left.get(1)).doubleValue() + ((Number) right.get(1)).doubleValue()) ) );
-        newBin.add(1, ((Number) left.get(1)).longValue() + ((Number) right.get(1)).longValue());
-
-
-        newDistribution.add(newBin);
+                if( distance < shortest ) {
+                    shortest = distance;
+                    indexToMerge = index;
+                }
+            }
 
-        if( indexToMerge < (length - 1) ) {
-            newDistribution.addAll(distribution.subList(indexToMerge + 1, distribution.size()));
+            int left = indexToMerge - 1;
+            double center = ((centers[left] * weights[left]) +
+                    (centers[indexToMerge] * weights[indexToMerge])) /
+                    (weights[left] + weights[indexToMerge]);
+            long count = counts[left] + counts[indexToMerge];
+
+            JSONArray newBin = new JSONArray();
+            newBin.add(0, center);
+            newBin.add(1, count);
+
+            bins[left] = newBin;
+            centers[left] = center;
+            weights[left] = count;
+            counts[left] = count;
+
+            int moved = length - indexToMerge - 1;
+            System.arraycopy(bins, indexToMerge + 1, bins, indexToMerge, moved);
+            System.arraycopy(centers, indexToMerge + 1, centers, indexToMerge, moved);
+            System.arraycopy(weights, indexToMerge + 1, weights, indexToMerge, moved);
+            System.arraycopy(counts, indexToMerge + 1, counts, indexToMerge, moved);
+            length--;
         }
 
-        return mergeBins(newDistribution, limit);
+        JSONArray newDistribution = new JSONArray();
+        newDistribution.addAll(Arrays.asList(bins).subList(0, length));
+        return newDistribution;
     }
 
     /**
@@ -5,11 +5,17 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
 
 import org.bigml.binding.resources.AbstractResource;
 import org.bigml.binding.utils.Utils;
@@ -37,6 +43,8 @@ public class ClustersStepdefs {
 
     private String downloadedFile;
 
+    private List<String[]> points;
+
     @Given("^I create a cluster with options \"(.*)\"$")
     public void I_create_a_cluster_with_options(String options) 
     		throws Throwable {
@@ -59,6 +67,97 @@ public class ClustersStepdefs {
         context.localCluster = new LocalCluster(context.cluster);
     }
     
+    @Given("^I create a local cluster from a \"(.*)\" file$")
+    public void I_create_a_local_cluster_from_file(String jsonClusterFile)
+            throws Exception {
+        context.cluster = (JSONObject) JSONValue.parse(
+                Utils.readFile(jsonClusterFile));
+        context.localCluster = new LocalCluster(context.cluster);
+    }
+
+    @Given("^I set (\\d+) points on a grid in the cluster \"(.*)\" with seed (\\d+)$")
+    public void I_set_points_on_a_grid(int numberOfPoints, String centroidId,
+            long seed) throws Exception {
+        String[] species = {"Iris-setosa", "Iris-versicolor", "Iris-virginica"};
+        Random random = new Random(seed);
+
+        // Grid values and repeated rows give points at the same distance,
+        // and rows with missing numeric values must be left out
+        points = new ArrayList<String[]>();
+        StringBuilder csv = new StringBuilder(
+                "sepal width,petal length,petal width,species\n");
+        for (int i = 0; i < numberOfPoints; i++) {
+            String[] point;
+            if (i % 7 == 6) {
+                point = points.get(i / 2);
+            } else {
+                point = new String[] {
+                    String.valueOf(2.0 + 0.5 * random.nextInt(5)),
+                    String.valueOf(1.0 + 0.5 * random.nextInt(12)),
+                    i % 11 == 10 ? "" : String.valueOf(0.5 * random.nextInt(5)),
+                    species[random.nextInt(species.length)] };
+            }
+            points.add(point);
+            csv.append(String.join(",", point)).append("\n");
+        }
+
+        context.localCluster.setPointsInCluster(centroidId,
+                new StringReader(csv.toString()));
+    }
+
+    @Then("^the closest (\\d+) points in the cluster \"(.*)\" to \"(.*)\" are the ones found by a full scan$")
+    public void closest_in_cluster_by_full_scan(int numberOfPoints,
+            String centroidId, String reference) throws Throwable {
+        JSONObject referencePoint = (JSONObject) JSONValue.parse(reference);
+        JSONObject cluster = (JSONObject) context.cluster.get("object");
+        JSONObject scales = (JSONObject) cluster.get("scales");
+        String[] names = {"sepal width", "petal length", "petal width"};
+        String[] ids = {"000001", "000002", "000003"};
+
+        // Distance to every complete point, the same way centroids do it
+        List<Object[]> scanned = new ArrayList<Object[]>();
+        for (String[] point : points) {
+            if (Arrays.asList(point).contains("")) {
+                continue;
+            }
+            double distance2 = 0.0;
+            JSONObject data = new JSONObject();
+            for (int j = 0; j < names.length; j++) {
+                double value = Double.parseDouble(point[j]);
+                double delta = (((Number) referencePoint.get(names[j]))
+                        .doubleValue() - value) *
+                        ((Number) scales.get(ids[j])).doubleValue();
+                distance2 += delta * delta;
+                data.put(names[j], value);
+            }
+            if (referencePoint.containsKey("species") &&
+                    !referencePoint.get("species").equals(point[3])) {
+                double scale = ((Number) scales.get("000004")).doubleValue();
+                distance2 += scale * scale;
+            }
+            data.put("species", point[3]);
+            scanned.add(new Object[] {distance2, data});
+        }
+        // Stable sort: ties keep the order of the points
+        scanned.sort(new Comparator<Object[]>() {
+            @Override
+            public int compare(Object[] o1, Object[] o2) {
+                return Double.compare((Double) o1[0], (Double) o2[0]);
+            }
+        });
+
+        JSONArray closest = (JSONArray) context.localCluster.closestInCluster(
+                referencePoint, numberOfPoints, centroidId).get("closest");
+
+        assertEquals(Math.min(numberOfPoints, scanned.size()), closest.size());
+        for (int i = 0; i < closest.size(); i++) {
+            JSONObject point = (JSONObject) closest.get(i);
+            assertEquals(scanned.get(i)[1], point.get("data"));
+            assertEquals(Math.sqrt((Double) scanned.get(i)[0]),
+                    (Double) point.get("distance"), 1e-9);
+        }
+    }
+
     @When("^I create a centroid for \"(.*)\"$")
     public void I_create_a_centroid_for(String inputData)
             throws AuthenticationException {
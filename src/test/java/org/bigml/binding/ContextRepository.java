@@ -1,6 +1,7 @@
 package org.bigml.binding;
 
 import org.bigml.binding.localmodel.Prediction;
+import org.bigml.binding.utils.InMemoryInstrumentation;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
@@ -65,6 +66,9 @@ public class ContextRepository {
     
     HashMap<String, Object> localPrediction = null;
     Prediction localModelPrediction = null;
+    List<Prediction> scoredPredictions = null;
+    List<String> batchScores = null;
+    InMemoryInstrumentation instrumentation = null;
     JSONObject localForecast = null;
     JSONObject localProjection = null;
     
@@ -3,9 +3,36 @@ package org.bigml.binding;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
 import org.bigml.binding.localmodel.Prediction;
+import org.bigml.binding.localmodel.Tree;
+import org.bigml.binding.mock.MockApiServer;
+import org.bigml.binding.utils.Chronos;
+import org.bigml.binding.utils.InMemoryInstrumentation;
+import org.bigml.binding.utils.Instrumentation;
+import org.bigml.binding.utils.JSONStreamReader;
 import org.bigml.binding.utils.Utils;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -28,6 +55,9 @@ public class LocalModelsStepdefs {
     @Autowired
     private ContextRepository context;
 
+    private LocalTopicModel localTopicModel;
+    private PredictionCache predictionCache;
+
     @Given("^I create a local model from a \"(.*)\" file$")
     public void I_create_a_local_model(String jsonModelFile) throws Exception {
 
@@ -38,6 +68,118 @@ public class LocalModelsStepdefs {
         assertTrue("", context.localModel != null);
     }
 
+    @Given("^I create a local model from a \"(.*)\" file without \"(.*)\"$")
+    public void I_create_a_local_model_without(String jsonModelFile,
+            String skipped) throws Exception {
+        context.localModel = LocalPredictiveModel.read(
+            new FileInputStream(jsonModelFile), Arrays.asList(skipped.split(",")));
+        assertTrue("", context.localModel != null);
+    }
+
+    @Given("^I create a local model for predictions from a \"(.*)\" file$")
+    public void I_create_a_local_model_for_predictions(String jsonModelFile)
+            throws Exception {
+        context.localModel = LocalPredictiveModel.read(
+            new FileInputStream(jsonModelFile));
+        assertTrue("", context.localModel != null);
+        assertTrue(context.localModel.getFieldImportance() == null);
+    }
+
+    @Then("^reading a json document nested (\\d+) levels deep (succeeds|fails)$")
+    public void reading_a_json_document_nested_levels_deep(int depth,
+            String outcome) throws Exception {
+        // each level nests an object and the array of its children, as
+        // the levels of a tree do
+        StringBuilder json = new StringBuilder();
+        for (int level = 0; level < depth; level++) {
+            json.append("{\"children\":[");
+        }
+        json.append("{}");
+        for (int level = 0; level < depth; level++) {
+            json.append("]}");
+        }
+        try {
+            JSONStreamReader.read(new ByteArrayInputStream(
+                json.toString().getBytes("UTF-8")),
+                Arrays.asList("children.importance"));
+            assertEquals("succeeds", outcome);
+        } catch (IOException e) {
+            assertEquals("fails", outcome);
+        }
+    }
+
+    @Given("^I create a local model from a \"(.*)\" file with a tree (\\d+) levels deep read without \"(.*)\"$")
+    public void I_create_a_local_model_with_a_deep_tree(String jsonModelFile,
+            int depth, String skipped) throws Exception {
+        // Replaces the tree by a chain that splits the petal length at
+        // growing thresholds: the shorter ones are setosa at each level,
+        // the longest are virginica at the bottom. The root keeps the
+        // distribution of the model, and the chain is written by hand, as
+        // json-simple writes nested values recursively.
+        JSONObject localModel = (JSONObject) JSONValue.parse(Utils.readFile(jsonModelFile));
+        JSONObject model = (JSONObject) ((JSONObject) localModel.get("object")).get("model");
+        JSONObject objectiveSummary = (JSONObject)
+            ((JSONObject) model.get("root")).get("objective_summary");
+        model.put("root", "ROOT");
+        String[] json = localModel.toJSONString().split("\"ROOT\"");
+
+        StringBuilder tree = new StringBuilder(json[0]);
+        for (int level = 0; level <= depth; level++) {
+            Object predicate = level == 0 ? Boolean.TRUE
+                : deepTreePredicate(">", 6.0 * (level - 1) / depth);
+            JSONObject node = deepTreeNode(level == depth ? "Iris-virginica"
+                : "Iris-setosa", predicate);
+            if (level == 0) {
+                node.put("objective_summary", objectiveSummary);
+            }
+            String nodeJson = node.toJSONString();
+            tree.append(level == depth ? nodeJson
+                : nodeJson.substring(0, nodeJson.length() - 1) + ",\"children\":[");
+        }
+        for (int level = depth; level > 0; level--) {
+            tree.append(',').append(deepTreeNode("Iris-setosa",
+                deepTreePredicate("<=", 6.0 * (level - 1) / depth)).toJSONString());
+            tree.append("]}");
+        }
+        tree.append(json[1]);
+
+        File file = File.createTempFile("deep_model", ".json");
+        try {
+            Files.write(file.toPath(), tree.toString().getBytes("UTF-8"));
+            context.localModel = LocalPredictiveModel.read(
+                new FileInputStream(file), Arrays.asList(skipped.split(",")));
+        } finally {
+            file.delete();
+        }
+        assertTrue("", context.localModel != null);
+    }
+
+    private JSONObject deepTreePredicate(String operator, double value) {
+        JSONObject predicate = new JSONObject();
+        predicate.put("operator", operator);
+        predicate.put("field", "000002");
+        predicate.put("value", value);
+        return predicate;
+    }
+
+    private JSONObject deepTreeNode(String output, Object predicate) {
+        JSONArray category = new JSONArray();
+        category.add(output);
+        category.add(1L);
+        JSONArray categories = new JSONArray();
+        categories.add(category);
+        JSONObject objectiveSummary = new JSONObject();
+        objectiveSummary.put("categories", categories);
+
+        JSONObject node = new JSONObject();
+        node.put("output", output);
+        node.put("count", 1L);
+        node.put("confidence", 0.20654);
+        node.put("objective_summary", objectiveSummary);
+        node.put("predicate", predicate);
+        return node;
+    }
+
     @Given("^I create a local model$")
     public void I_create_a_local_model() throws Exception {
     	context.localModel = new LocalPredictiveModel(context.model);
@@ -122,6 +264,666 @@ public class LocalModelsStepdefs {
         }
     }
 
+    @Given("^I disable the explanation of the local model predictions$")
+    public void I_disable_the_explanation_of_the_local_model_predictions() {
+        context.localModel.setExplain(false);
+    }
+
+    @Given("^I enable the explanation of the local model predictions$")
+    public void I_enable_the_explanation_of_the_local_model_predictions() {
+        context.localModel.setExplain(true);
+    }
+
+    @Then("^the path of a local prediction for \"(.*)\" shared by (\\d+) threads is \"(.*)\"$")
+    public void the_path_of_a_shared_local_prediction_is(String args, int threads,
+            final String path) throws Exception {
+        final Prediction p = context.localModel.predict(
+            (JSONObject) JSONValue.parse(args));
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Object>> paths = new ArrayList<Future<Object>>();
+            for (int i = 0; i < threads; i++) {
+                paths.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        start.await();
+                        return JSONValue.parse(JSONValue.toJSONString(p.getPath()));
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Object> built : paths) {
+                assertEquals(JSONValue.parse(path), built.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // the prediction itself is left as it was made
+        assertEquals(null, p.get("path"));
+    }
+
+    @Then("^the local prediction for \"(.*)\" includes the path \"(.*)\"$")
+    public void the_local_prediction_includes_the_path(String args, String path) throws Exception {
+        Prediction p = context.localModel.predict((JSONObject) JSONValue.parse(args));
+        assertEquals(JSONValue.parse(path), JSONValue.parse(
+            JSONValue.toJSONString(p.get("path"))));
+    }
+
+    @Then("^the path of the local prediction for \"(.*)\" is \"(.*)\"$")
+    public void the_path_of_the_local_prediction_for_is(String args, String path) throws Exception {
+        JSONObject inputObj = (JSONObject) JSONValue.parse(args);
+        Prediction p = context.localModel.predict(inputObj);
+        assertEquals(JSONValue.parse(path), JSONValue.parse(
+            JSONValue.toJSONString(p.getPath())));
+    }
+
+    @Given("^I score the \"(.*)\" file with the local model$")
+    public void I_score_the_file_with_the_local_model(String data) throws Exception {
+        final LocalPredictiveModel localModel = context.localModel;
+        final List<Prediction> predictions = new ArrayList<Prediction>();
+        CSVParser parser = new CSVParser(new FileReader(data),
+            CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build());
+        try {
+            RowScorer rowScorer = RowScorer.forHeader(localModel, parser);
+            rowScorer.score(parser, new RowScorer.Scorer() {
+                public Object score(JSONObject inputData) throws Exception {
+                    return localModel.predict(inputData);
+                }
+            }, new RowScorer.Handler() {
+                public void handle(CSVRecord record, Object result) {
+                    predictions.add((Prediction) result);
+                }
+            });
+            assertEquals(predictions.size(), rowScorer.getScoredRows());
+        } finally {
+            parser.close();
+        }
+        context.scoredPredictions = predictions;
+    }
+
+    @Then("^the number of scored rows is (\\d+)$")
+    public void the_number_of_scored_rows_is(int rows) {
+        assertEquals(rows, context.scoredPredictions.size());
+    }
+
+    @Then("^the local prediction of the scored row (\\d+) is \"(.*)\"$")
+    public void the_local_prediction_of_the_scored_row_is(int row, String pred) {
+        assertEquals(pred, context.scoredPredictions.get(row).getPrediction());
+    }
+
+    @Given("^I batch score the \"(.*)\" file with the local model in chunks of (\\d+) rows$")
+    public void I_batch_score_the_file_with_the_local_model(String data, int chunkSize) throws Exception {
+        LocalPredictiveModel localModel = context.localModel;
+        BatchScorer batchScorer = new BatchScorer(localModel,
+            BatchScorer.probabilityScorer(localModel, null));
+        batchScorer.setColumns(Arrays.asList(BatchScorer.PREDICTION,
+            BatchScorer.CONFIDENCE, BatchScorer.CLASS_PROBABILITIES));
+        batchScorer.setChunkSize(chunkSize);
+        batchScorer.setThreads(2);
+
+        File output = File.createTempFile("batch_scores", ".csv");
+        output.deleteOnExit();
+        batchScorer.score(new File(data), output);
+        context.batchScores = Files.readAllLines(output.toPath());
+    }
+
+    @Given("^I batch score the \"(.*)\" file with the local logistic regression in chunks of (\\d+) rows$")
+    public void I_batch_score_the_file_with_the_local_logistic_regression(String data, int chunkSize) throws Exception {
+        LocalLogisticRegression localLogisticRegression = context.localLogisticRegression;
+        BatchScorer batchScorer = new BatchScorer(localLogisticRegression,
+            BatchScorer.probabilityScorer(localLogisticRegression, null));
+        batchScorer.setColumns(Arrays.asList(BatchScorer.PREDICTION,
+            BatchScorer.PROBABILITY, BatchScorer.CLASS_PROBABILITIES));
+        batchScorer.setChunkSize(chunkSize);
+        batchScorer.setThreads(2);
+
+        File output = File.createTempFile("batch_scores", ".csv");
+        output.deleteOnExit();
+        batchScorer.score(new File(data), output);
+        context.batchScores = Files.readAllLines(output.toPath());
+    }
+
+    @Then("^the batch scores are the local logistic regression predictions of the \"(.*)\" file$")
+    public void the_batch_scores_are_the_local_logistic_regression_predictions(String data) throws Exception {
+        List<JSONObject> rows = readRows(data, CSVFormat.DEFAULT);
+        assertEquals(rows.size(), context.batchScores.size() - 1);
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> prediction = context.localLogisticRegression
+                .predict(rows.get(i), null, null, true);
+            String[] scores = context.batchScores.get(i + 1).split(",");
+            assertEquals(prediction.get("prediction"), scores[0]);
+            assertEquals(((Number) prediction.get("probability")).doubleValue(),
+                Double.parseDouble(scores[1]), 0.00001);
+        }
+    }
+
+    @Then("^the batch scores file has the headers \"(.*)\"$")
+    public void the_batch_scores_file_has_the_headers(String headers) {
+        assertEquals(headers, context.batchScores.get(0));
+    }
+
+    @Then("^the batch scores file has (\\d+) rows$")
+    public void the_batch_scores_file_has_rows(int rows) {
+        assertEquals(rows, context.batchScores.size() - 1);
+    }
+
+    @Then("^the batch score of the row (\\d+) is \"(.*)\"$")
+    public void the_batch_score_of_the_row_is(int row, String pred) {
+        assertEquals(pred, context.batchScores.get(row + 1).split(",")[0]);
+    }
+
+    @Given("^I cache the predictions of the local model in (\\d+) entries$")
+    public void I_cache_the_predictions_of_the_local_model(int entries) {
+        context.localModel.setPredictionCache(new PredictionCache(entries));
+    }
+
+    @Then("^the prediction cache has (\\d+) hits and (\\d+) misses$")
+    public void the_prediction_cache_has_hits_and_misses(int hits, int misses) {
+        PredictionCache cache = context.localModel.getPredictionCache();
+        assertEquals(hits, cache.getHits());
+        assertEquals(misses, cache.getMisses());
+        assertTrue(cache.size() <= cache.getMaxEntries());
+    }
+
+    @Given("^a prediction cache of (\\d+) entries and (\\d+) bytes with the admission filter$")
+    public void a_prediction_cache_with_the_admission_filter(int entries, long bytes) {
+        predictionCache = new PredictionCache(entries, bytes, true);
+    }
+
+    @Given("^I cache a prediction of (\\d+) characters for each of the keys \"(.*)\"$")
+    public void I_cache_a_prediction_for_each_of_the_keys(int length, String keys) {
+        for (String key : keys.split(",")) {
+            predictionCache.put(key, new String(new char[length]).replace('\0', 'x'));
+        }
+    }
+
+    @Given("^I look up the key \"(.*)\" in the prediction cache (\\d+) times$")
+    public void I_look_up_the_key_in_the_prediction_cache(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            predictionCache.get(key);
+        }
+    }
+
+    @Then("^the prediction cache has the keys \"(.*)\" and not \"(.*)\"$")
+    public void the_prediction_cache_has_the_keys(String cached, String evicted) {
+        for (String key : cached.split(",")) {
+            assertTrue("Missing " + key, predictionCache.get(key) != null);
+        }
+        for (String key : evicted.split(",")) {
+            assertTrue("Cached " + key, key.isEmpty() || predictionCache.get(key) == null);
+        }
+        assertTrue(predictionCache.getBytes() <= predictionCache.getMaxBytes()
+            || predictionCache.getMaxBytes() == 0);
+    }
+
+    @Then("^the prediction cache has (\\d+) evictions and (\\d+) rejections$")
+    public void the_prediction_cache_has_evictions_and_rejections(long evictions, long rejections) {
+        assertEquals(evictions, predictionCache.getEvictions());
+        assertEquals(rejections, predictionCache.getRejections());
+    }
+
+    @Then("^the cached local predictions of the \"(.*)\" file are the computed ones$")
+    public void the_cached_local_predictions_are_the_computed_ones(String data) throws Exception {
+        List<Prediction> cached = context.scoredPredictions;
+        PredictionCache cache = context.localModel.getPredictionCache();
+        context.localModel.setPredictionCache(null);
+        try {
+            I_score_the_file_with_the_local_model(data);
+        } finally {
+            context.localModel.setPredictionCache(cache);
+        }
+        assertEquals(context.scoredPredictions, cached);
+    }
+
+    @Given("^I evaluate the local model with the \"(.*)\" file in (\\d+) threads$")
+    public void I_evaluate_the_local_model_with_the_file(String data, int threads) throws Exception {
+        LocalEvaluator evaluator = new LocalEvaluator(context.localModel,
+            (MissingStrategy) null);
+        evaluator.setThreads(threads);
+        evaluator.setChunkSize(5);
+
+        context.evaluation = evaluator.evaluate(new File(data));
+    }
+
+    @Then("^the local predictions of the \"(.*)\" file are the same in (\\d+) threads$")
+    public void the_local_predictions_are_the_same_in_threads(String data, int threads) throws Exception {
+        final LocalPredictiveModel localModel = context.localModel;
+        final MissingStrategy[] strategies = MissingStrategy.values();
+        assertSameInThreads(readRows(data, CSVFormat.DEFAULT), strategies.length,
+            threads, new VariantScorer() {
+                public Object score(JSONObject inputData, int variant) throws Exception {
+                    return localModel.predict(inputData, strategies[variant]);
+                }
+            });
+    }
+
+    @Given("^I create a local ensemble from a \"(.*)\" file$")
+    public void I_create_a_local_ensemble_from_file(String jsonFile) throws Exception {
+        context.localEnsemble = readLocalEnsemble(jsonFile);
+    }
+
+    private LocalEnsemble readLocalEnsemble(String jsonFile) throws Exception {
+        // The ensemble's models are fetched through the API, so they are
+        // served by a mock API that holds the resources in the file
+        MockApiServer server = new MockApiServer();
+        server.load(new File(jsonFile));
+        server.start();
+        try {
+            JSONArray resources = (JSONArray) JSONValue.parse(Utils.readFile(jsonFile));
+            BigMLClient api = new BigMLClient(server.getUrl(), "user", "key", null);
+            return new LocalEnsemble(api, (JSONObject) resources.get(0));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Given("^I create a local logistic regression from a \"(.*)\" file$")
+    public void I_create_a_local_logistic_regression_from_file(String jsonFile) throws Exception {
+        context.localLogisticRegression = new LocalLogisticRegression(
+            (JSONObject) JSONValue.parse(Utils.readFile(jsonFile)));
+    }
+
+    @Given("^I create a local deepnet from a \"(.*)\" file$")
+    public void I_create_a_local_deepnet_from_file(String jsonFile) throws Exception {
+        context.localDeepnet = new LocalDeepnet(
+            (JSONObject) JSONValue.parse(Utils.readFile(jsonFile)));
+    }
+
+    @Given("^I create a local topic model from a \"(.*)\" file$")
+    public void I_create_a_local_topic_model_from_file(String jsonFile) throws Exception {
+        localTopicModel = new LocalTopicModel(
+            (JSONObject) JSONValue.parse(Utils.readFile(jsonFile)));
+    }
+
+    @Then("^the local ensemble predictions of the \"(.*)\" file are the same in (\\d+) threads$")
+    public void the_local_ensemble_predictions_are_the_same_in_threads(String data, int threads) throws Exception {
+        final LocalEnsemble localEnsemble = context.localEnsemble;
+        final PredictionMethod[] methods = { PredictionMethod.PLURALITY,
+            PredictionMethod.CONFIDENCE };
+        final MissingStrategy[] strategies = MissingStrategy.values();
+        assertSameInThreads(readRows(data, CSVFormat.DEFAULT),
+            methods.length * strategies.length, threads, new VariantScorer() {
+                public Object score(JSONObject inputData, int variant) throws Exception {
+                    return localEnsemble.predict(inputData,
+                        methods[variant % methods.length], null,
+                        strategies[variant / methods.length], null, null, null, true);
+                }
+            });
+    }
+
+    @Then("^the local logistic regression predictions of the \"(.*)\" file are the same in (\\d+) threads$")
+    public void the_local_logistic_regression_predictions_are_the_same_in_threads(String data, int threads) throws Exception {
+        final LocalLogisticRegression localLogisticRegression = context.localLogisticRegression;
+        assertSameInThreads(readRows(data, CSVFormat.DEFAULT), 1, threads,
+            new VariantScorer() {
+                public Object score(JSONObject inputData, int variant) throws Exception {
+                    return localLogisticRegression.predict(inputData, null, null, true);
+                }
+            });
+    }
+
+    @Then("^the local deepnet predictions of the \"(.*)\" file are the same in (\\d+) threads$")
+    public void the_local_deepnet_predictions_are_the_same_in_threads(String data, int threads) throws Exception {
+        final LocalDeepnet localDeepnet = context.localDeepnet;
+        assertSameInThreads(readRows(data, CSVFormat.DEFAULT), 1, threads,
+            new VariantScorer() {
+                public Object score(JSONObject inputData, int variant) throws Exception {
+                    return localDeepnet.predict(inputData, null, null, true);
+                }
+            });
+    }
+
+    @Then("^the local topic distributions of the \"(.*)\" file are the same in (\\d+) threads$")
+    public void the_local_topic_distributions_are_the_same_in_threads(String data, int threads) throws Exception {
+        final LocalTopicModel topicModel = localTopicModel;
+        assertSameInThreads(readRows(data, CSVFormat.TDF), 1, threads,
+            new VariantScorer() {
+                public Object score(JSONObject inputData, int variant) throws Exception {
+                    return topicModel.distribution(inputData);
+                }
+            });
+    }
+
+    /**
+     * Scores a row of input data in one of the variants of a test, like
+     * the missing strategy or the combination method.
+     */
+    private interface VariantScorer {
+        Object score(JSONObject inputData, int variant) throws Exception;
+    }
+
+    private List<JSONObject> readRows(String data, CSVFormat format) throws Exception {
+        List<JSONObject> rows = new ArrayList<JSONObject>();
+        CSVParser parser = new CSVParser(new FileReader(data),
+            format.builder().setHeader().setSkipHeaderRecord(true).build());
+        try {
+            for (CSVRecord record : parser) {
+                JSONObject inputData = new JSONObject();
+                inputData.putAll(record.toMap());
+                rows.add(inputData);
+            }
+        } finally {
+            parser.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Scores every row in every variant, first in this thread and then
+     * concurrently in the given number of threads, each starting at a
+     * different row, and checks that all the threads get the same results
+     * and leave the input data untouched.
+     */
+    private void assertSameInThreads(final List<JSONObject> rows,
+            final int variants, final int threads, final VariantScorer scorer)
+            throws Exception {
+        final List<Object> expected = new ArrayList<Object>();
+        for (int variant = 0; variant < variants; variant++) {
+            for (JSONObject inputData : rows) {
+                expected.add(scorer.score(inputData, variant));
+            }
+        }
+        final String original = rows.toString();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < threads; i++) {
+                final int offset = i;
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        int mismatches = 0;
+                        for (int j = 0; j < expected.size(); j++) {
+                            int index = (j + offset * rows.size() / threads) % expected.size();
+                            Object result = scorer.score(
+                                rows.get(index % rows.size()), index / rows.size());
+                            if (!expected.get(index).equals(result)) {
+                                mismatches++;
+                            }
+                        }
+                        return mismatches;
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(0, result.get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(original, rows.toString());
+    }
+
+    @Then("^the deferred values of a local model from a \"(.*)\" file (with|without) the medians of its nodes are the eager ones in (\\d+) threads$")
+    public void the_deferred_values_are_the_eager_ones(String jsonModelFile,
+            String medians, int threads) throws Exception {
+        final JSONObject model = (JSONObject) JSONValue.parse(Utils.readFile(jsonModelFile));
+        if ("without".equals(medians)) {
+            removeMedians((JSONObject) Utils.getJSONObject(model, "object.model.root"));
+        }
+
+        // the values the model used to compute while it was built
+        LocalPredictiveModel reference = new LocalPredictiveModel(model);
+        final JSONObject expected = new JSONObject();
+        eagerValues((JSONObject) Utils.getJSONObject(model, "object.model.root"),
+            new ArrayList<String>(), (Tree) reference.getRootTree(), expected);
+        JSONArray importance = new JSONArray();
+        for (Object item : (JSONArray) Utils.getJSONObject(model, "object.model.importance")) {
+            if (reference.fields.containsKey(((JSONArray) item).get(0))) {
+                importance.add(item);
+            }
+        }
+        expected.put("importance", importance);
+
+        // a new model whose values are first requested at once
+        final LocalPredictiveModel localModel = new LocalPredictiveModel(model);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<JSONObject>> results = new ArrayList<Future<JSONObject>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<JSONObject>() {
+                    public JSONObject call() throws Exception {
+                        start.await();
+                        JSONObject values = new JSONObject();
+                        deferredValues(localModel, (Tree) localModel.getRootTree(), values);
+                        values.put("importance", localModel.getFieldImportance());
+                        return values;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<JSONObject> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void removeMedians(JSONObject node) {
+        ((JSONObject) node.get("objective_summary")).remove("median");
+        JSONArray children = (JSONArray) node.get("children");
+        if (children != null) {
+            for (Object child : children) {
+                removeMedians((JSONObject) child);
+            }
+        }
+    }
+
+    /**
+     * Computes the impurity, the median and the ids path of each node of
+     * a model from its JSON, as the tree did when it was built. The
+     * medians missing in the JSON are the ones of the reference tree.
+     */
+    private void eagerValues(JSONObject node, List<String> ancestors,
+            Tree tree, JSONObject values) {
+        String id = String.valueOf(node.get("id"));
+        long count = ((Number) node.get("count")).longValue();
+        JSONObject summary = (JSONObject) node.get("objective_summary");
+        double impurity = 0.0;
+        Double median = null;
+        if (summary.get("categories") != null) {
+            double purity = 0.0;
+            for (Object item : (JSONArray) summary.get("categories")) {
+                int instances = ((Number) ((JSONArray) item).get(1)).intValue();
+                purity += Math.pow(instances / (float) count, 2);
+            }
+            impurity = 1.0 - purity;
+        } else {
+            median = summary.get("median") != null ?
+                ((Number) summary.get("median")).doubleValue() : tree.getMedian();
+        }
+
+        List<String> idsPath = new ArrayList<String>();
+        idsPath.add(id);
+        for (int i = ancestors.size() - 1; i >= 0; i--) {
+            idsPath.add(ancestors.get(i));
+        }
+        values.put(id, Arrays.asList(impurity, median, idsPath));
+
+        JSONArray children = (JSONArray) node.get("children");
+        if (children != null) {
+            ancestors.add(id);
+            for (int i = 0; i < children.size(); i++) {
+                eagerValues((JSONObject) children.get(i), ancestors,
+                    tree.getChildren().get(i), values);
+            }
+            ancestors.remove(ancestors.size() - 1);
+        }
+    }
+
+    private void deferredValues(LocalPredictiveModel localModel, Tree tree,
+            JSONObject values) {
+        values.put(tree.getId(), Arrays.asList(tree.getImpurity(),
+            tree.getMedian(), localModel.getIdsPath(tree.getId())));
+        for (Tree child : tree.getChildren()) {
+            deferredValues(localModel, child, values);
+        }
+    }
+
+    @Then("^the local evaluation has (\\d+) rows$")
+    public void the_local_evaluation_has_rows(int rows) {
+        assertEquals(rows, ((Number) context.evaluation.get("rows")).intValue());
+    }
+
+    @Then("^the local evaluation confusion matrix is \"(.*)\"$")
+    public void the_local_evaluation_confusion_matrix_is(String matrix) {
+        assertEquals(matrix, Utils.getJSONObject(context.evaluation,
+            "result.model.confusion_matrix").toString());
+    }
+
+    @Given("^I enable the in-memory instrumentation$")
+    public void I_enable_the_in_memory_instrumentation() {
+        context.instrumentation = new InMemoryInstrumentation();
+        Instrumentation.set(context.instrumentation);
+    }
+
+    @Then("^I disable the instrumentation$")
+    public void I_disable_the_instrumentation() {
+        Instrumentation.set(null);
+        assertTrue(!Instrumentation.get().isEnabled());
+    }
+
+    @Then("^the instrumentation has recorded (\\d+) \"(.*)\" predictions of \"(.*)\"$")
+    public void the_instrumentation_has_recorded_predictions(int count,
+            String kind, String modelId) {
+        InMemoryInstrumentation.Histogram predictions = context.instrumentation
+            .getHistogram(Instrumentation.PREDICT, "kind", kind, "model", modelId);
+        assertEquals(count, predictions.getCount());
+        assertEquals(count, context.instrumentation
+            .getHistogram(Instrumentation.FILTER_INPUT).getCount());
+        assertTrue(predictions.getMin() > 0);
+    }
+
+    @Then("^the instrumentation has recorded the load of the \"(.*)\" \"(.*)\"$")
+    public void the_instrumentation_has_recorded_the_load(String kind,
+            String modelId) {
+        assertEquals(1, context.instrumentation.getHistogram(
+            Instrumentation.MODEL_LOAD, "kind", kind, "model", modelId).getCount());
+    }
+
+    @Then("^the proportional predictions of the \"(.*)\" file without \"(.*)\" merge the leaves they reach$")
+    public void the_proportional_predictions_merge_the_leaves_they_reach(String data, String missingFields) throws Exception {
+        LocalPredictiveModel localModel = context.localModel;
+        Tree root = (Tree) localModel.getRootTree();
+        for (JSONObject inputData : readRows(data, CSVFormat.DEFAULT)) {
+            for (String field : missingFields.split(",")) {
+                inputData.remove(field);
+            }
+            Prediction prediction = localModel.predict(inputData,
+                MissingStrategy.PROPORTIONAL);
+
+            JSONObject filteredData = localModel.filterInputData(inputData);
+            Utils.cast(filteredData, localModel.fields);
+            JSONArray expected = Utils.convertDistributionMapToSortedArray(
+                mergeLeaves(root, filteredData, localModel.fields));
+            if (root.isRegression()) {
+                expected = Utils.mergeBins(expected, 32);
+            }
+            JSONArray distribution = (JSONArray) prediction.get("distribution");
+            assertEquals(expected.size(), distribution.size());
+            for (int i = 0; i < expected.size(); i++) {
+                JSONArray bin = (JSONArray) expected.get(i);
+                JSONArray actual = (JSONArray) distribution.get(i);
+                if (root.isRegression()) {
+                    assertEquals(((Number) bin.get(0)).doubleValue(),
+                        ((Number) actual.get(0)).doubleValue(), 0.00001);
+                } else {
+                    assertEquals(bin.get(0), actual.get(0));
+                }
+                assertEquals(((Number) bin.get(1)).longValue(),
+                    ((Number) actual.get(1)).longValue());
+            }
+        }
+    }
+
+    /**
+     * Merges the distributions of the leaves that the input data reaches,
+     * following both branches of a split when its field is missing, as
+     * the proportional strategy used to do for every prediction.
+     */
+    private Map<Object, Number> mergeLeaves(Tree node, JSONObject inputData,
+            JSONObject fields) {
+        List<Tree> children = node.getChildren();
+        if (children.isEmpty()) {
+            return Utils.convertDistributionArrayToMap(node.getDistribution());
+        }
+
+        String field = Tree.split(children);
+        String optype = (String) ((JSONObject) fields.get(field)).get("optype");
+        if (inputData.containsKey(field) || optype.equals("text")
+                || optype.equals("items")) {
+            for (Tree child : children) {
+                if (child.getPredicate().apply(inputData, fields)) {
+                    return mergeLeaves(child, inputData, fields);
+                }
+            }
+            return new HashMap<Object, Number>();
+        }
+        Map<Object, Number> distribution = new HashMap<Object, Number>();
+        for (Tree child : children) {
+            distribution = Utils.mergeDistributions(distribution,
+                mergeLeaves(child, inputData, fields));
+        }
+        return distribution;
+    }
+
+    @Given("^I compile the local model$")
+    public void I_compile_the_local_model() throws Exception {
+        context.localModel.compile();
+        assertTrue(context.localModel.getCompiledTree() != null);
+    }
+
+    @Then("^the (?:compiled )?local model predicts as the interpreted \"(.*)\" for the \"(.*)\" file$")
+    public void the_compiled_local_model_predicts_as_the_interpreted(String modelFile, String data) throws Exception {
+        final LocalPredictiveModel interpreted = new LocalPredictiveModel(
+            (JSONObject) JSONValue.parse(Utils.readFile(modelFile)));
+        final LocalPredictiveModel compiled = context.localModel;
+        CSVParser parser = new CSVParser(new FileReader(data),
+            CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).build());
+        try {
+            RowScorer rowScorer = RowScorer.forHeader(compiled, parser);
+            rowScorer.score(parser, new RowScorer.Scorer() {
+                public Object score(JSONObject inputData) throws Exception {
+                    Prediction expected = interpreted.predict(
+                        (JSONObject) inputData.clone());
+                    Prediction prediction = compiled.predict(inputData);
+                    assertEquals(expected.getPrediction(), prediction.getPrediction());
+                    assertEquals(expected.getConfidence(), prediction.getConfidence());
+                    assertEquals(expected.getPath(), prediction.getPath());
+                    return prediction;
+                }
+            }, null);
+            assertEquals(150, rowScorer.getScoredRows());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Given("^I compile the local ensemble$")
+    public void I_compile_the_local_ensemble() throws Exception {
+        context.localEnsemble.compile();
+    }
+
+    @Then("^the compiled local ensemble predicts as the interpreted \"(.*)\" for the \"(.*)\" file$")
+    public void the_compiled_local_ensemble_predicts_as_the_interpreted(String ensembleFile, String data) throws Exception {
+        LocalEnsemble interpreted = readLocalEnsemble(ensembleFile);
+        LocalEnsemble compiled = context.localEnsemble;
+        List<JSONObject> rows = readRows(data, CSVFormat.DEFAULT);
+        for (JSONObject inputData : rows) {
+            HashMap<String, Object> expected = interpreted.predict(
+                (JSONObject) inputData.clone(), PredictionMethod.PLURALITY, null,
+                MissingStrategy.LAST_PREDICTION, null, null, null, true);
+            HashMap<String, Object> prediction = compiled.predict(inputData,
+                PredictionMethod.PLURALITY, null, MissingStrategy.LAST_PREDICTION,
+                null, null, null, true);
+            assertTrue(prediction.get("prediction") != null);
+            assertEquals(expected, prediction);
+        }
+        assertEquals(150, rows.size());
+    }
+
     @Then("^the multiple local prediction for \"(.*)\" is \"(.*)\"$")
     public void the_multiple_local_prediction_for_is(String args, String pred) {
         try {
@@ -138,6 +940,18 @@ public class LocalModelsStepdefs {
         }
     }
 
+    @Then("^the date \"(.*)\" in the \"(.*)\" format is parsed as the pattern \"(.*)\" parses it$")
+    public void the_date_is_parsed_as_the_pattern(String date,
+            String formatName, String pattern) throws Exception {
+        Date expected = null;
+        try {
+            expected = new SimpleDateFormat(pattern).parse(date);
+        } catch (ParseException e) {
+            // the date doesn't match the pattern
+        }
+        assertEquals(expected, Chronos.parse(date, formatName));
+    }
+
     @Then("^\"(.*)\" field\'s name is changed to \"(.*)\"$")
     public void field_name_to_new_name(String fieldId, String newName) {
         JSONObject field = (JSONObject) Utils.getJSONObject(
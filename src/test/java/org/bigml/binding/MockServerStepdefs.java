@@ -0,0 +1,795 @@
+package org.bigml.binding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.HttpURLConnection;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import org.bigml.binding.mock.MockApiServer;
+import org.bigml.binding.resources.AbstractResource;
+import org.bigml.binding.resources.ResourceIterator;
+import org.bigml.binding.utils.AdaptiveRetryPolicy;
+import org.bigml.binding.utils.BulkResult;
+import org.bigml.binding.utils.CacheManager;
+import org.bigml.binding.utils.RequestCoalescer;
+import org.bigml.binding.utils.RetryPolicy;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+
+public class MockServerStepdefs {
+
+    // Logging
+    Logger logger = LoggerFactory.getLogger(MockServerStepdefs.class);
+
+    private MockApiServer server = null;
+    private BigMLClient api = null;
+    private File uploaded = null;
+    private JSONObject source = null;
+    private JSONArray models = null;
+    private JSONObject batchPrediction = null;
+    private Workflow workflow = null;
+    private BulkResult workflowResult = null;
+
+    @After("@mockserver")
+    public void afterScenario() {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    @Given("^I start a mock BigML API server with a processing time of (\\d+) ms$")
+    public void I_start_a_mock_BigML_API_server(int processingTime) throws Exception {
+        server = new MockApiServer();
+        server.setProcessingTime(processingTime);
+        server.start();
+        api = new BigMLClient(server.getUrl(), "user", "key", null);
+    }
+
+    @Given("^I stop the mock server$")
+    public void I_stop_the_mock_server() {
+        server.stop();
+        server = null;
+    }
+
+    @Given("^I upload the \"([^\"]*)\" file to the mock server$")
+    public void I_upload_the_file_to_the_mock_server(String fileName) {
+        uploaded = new File(fileName);
+        JSONObject resource = api.createSource(fileName, "mock source", null);
+        assertEquals(AbstractResource.HTTP_CREATED,
+            ((Number) resource.get("code")).intValue());
+        source = (JSONObject) resource.get("object");
+    }
+
+    @Then("^the mock source status code is (\\d+)$")
+    public void the_mock_source_status_code_is(int code) {
+        JSONObject status = (JSONObject) source.get("status");
+        assertEquals(code, ((Number) status.get("code")).intValue());
+    }
+
+    @Then("^I wait until the mock source is ready less than (\\d+) secs$")
+    public void I_wait_until_the_mock_source_is_ready(int secs) throws Exception {
+        String sourceId = (String) source.get("resource");
+        long start = System.currentTimeMillis();
+        while (!api.sourceIsReady(sourceId)) {
+            assertTrue(System.currentTimeMillis() - start < secs * 1000);
+            Thread.sleep(100);
+        }
+        source = server.get(sourceId);
+    }
+
+    @Then("^the mock source file name is \"([^\"]*)\"$")
+    public void the_mock_source_file_name_is(String fileName) {
+        assertEquals(fileName, source.get("file_name"));
+        assertEquals(uploaded.length(),
+            ((Number) source.get("size")).longValue());
+    }
+
+    @Given("^I create (\\d+) models from the mock source$")
+    public void I_create_models_from_the_mock_source(int count) {
+        JSONObject dataset = api.createDataset(
+            (String) source.get("resource"), null, 1, null);
+        assertEquals(AbstractResource.HTTP_CREATED,
+            ((Number) dataset.get("code")).intValue());
+
+        for (int i = 0; i < count; i++) {
+            JSONObject model = api.createModel(
+                (String) dataset.get("resource"), null, 1, null);
+            assertEquals(AbstractResource.HTTP_CREATED,
+            ((Number) model.get("code")).intValue());
+        }
+    }
+
+    @Then("^the mock server lists (\\d+) models with a limit of (\\d+)$")
+    public void the_mock_server_lists_models_with_a_limit_of(int count, int limit) {
+        JSONObject listing = api.listModels(";limit=" + limit);
+        assertEquals(AbstractResource.HTTP_OK,
+            ((Number) listing.get("code")).intValue());
+
+        JSONObject meta = (JSONObject) listing.get("meta");
+        assertEquals(count, ((Number) meta.get("total_count")).intValue());
+        models = (JSONArray) listing.get("objects");
+        assertEquals(Math.min(count, limit), models.size());
+    }
+
+    @Then("^the mock server lists (\\d+) models with the filter \"([^\"]*)\"$")
+    public void the_mock_server_lists_models_with_the_filter(int count, String filter) {
+        JSONObject listing = api.listModels(";" + filter);
+        assertEquals(count, ((JSONArray) listing.get("objects")).size());
+    }
+
+    @Then("^iterating over the mock models (\\d+) at a time while deleting them visits each of the (\\d+) models once$")
+    public void iterating_over_the_mock_models_while_deleting_them(int pageSize, int count) {
+        ResourceIterator iterator = api.iterateResources("model", null,
+            pageSize, Arrays.asList("resource", "name"));
+        Set<String> visited = new HashSet<String>();
+        try {
+            while (iterator.hasNext()) {
+                JSONObject model = iterator.next();
+                assertFalse(model.containsKey("created"));
+                String modelId = (String) model.get("resource");
+                assertTrue(visited.add(modelId));
+                assertEquals(AbstractResource.HTTP_NO_CONTENT,
+                    ((Number) api.deleteModel(modelId).get("code")).intValue());
+            }
+        } finally {
+            iterator.close();
+        }
+        assertEquals(count, visited.size());
+    }
+
+    @Given("^I update the first mock model with \"(.*)\"$")
+    public void I_update_the_first_mock_model_with(String changes) {
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        JSONObject resource = api.updateModel(modelId, changes);
+        assertEquals(AbstractResource.HTTP_ACCEPTED,
+            ((Number) resource.get("code")).intValue());
+    }
+
+    @Given("^I delete the first mock model$")
+    public void I_delete_the_first_mock_model() {
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        assertEquals(AbstractResource.HTTP_NO_CONTENT,
+            ((Number) api.deleteModel(modelId).get("code")).intValue());
+        assertEquals(AbstractResource.HTTP_NOT_FOUND,
+            ((Number) api.getModel(modelId).get("code")).intValue());
+    }
+
+    @Given("^the mock server throttles the next (\\d+) requests$")
+    public void the_mock_server_throttles_the_next_requests(int count) {
+        server.setRetryAfter(0);
+        server.failNext(count, 429);
+    }
+
+    @Given("^the mock client sends bulk requests one at a time retrying after (\\d+) ms$")
+    public void the_mock_client_sends_bulk_requests_one_at_a_time(int backoff) {
+        api.setRetryPolicy(new AdaptiveRetryPolicy(
+            AdaptiveRetryPolicy.DEFAULT_MAX_RATE,
+            AdaptiveRetryPolicy.DEFAULT_MAX_RETRIES, backoff, backoff,
+            AdaptiveRetryPolicy.DEFAULT_FAILURE_THRESHOLD,
+            AdaptiveRetryPolicy.DEFAULT_OPEN_TIME));
+        api.getBulkExecutor().setConcurrency(1);
+        api.getBulkExecutor().setBackoff(backoff);
+    }
+
+    @Given("^the mock server fails the next (\\d+) requests with code (\\d+)$")
+    public void the_mock_server_fails_the_next_requests(int count, int code) {
+        server.failNext(count, code);
+    }
+
+    @Then("^a retry policy lets requests through after the trial of its open circuit is interrupted$")
+    public void a_retry_policy_recovers_from_an_interrupted_trial() throws Exception {
+        // one request per second, and the circuit opens for 50 ms after a
+        // failure, so the trial waits for a token
+        final AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy(
+            1.0, 0, 1, 1, 1, 50);
+        final RetryPolicy.Request listModels = listModelsRequest();
+        assertEquals(500, policy.execute("model", "GET", listModels)
+            .getResponseCode());
+        assertTrue(policy.isCircuitOpen());
+        Thread.sleep(100);
+
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        Thread trial = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    policy.execute("model", "GET", listModels);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }
+        });
+        trial.start();
+        Thread.sleep(200);
+        trial.interrupt();
+        trial.join(10000);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof InterruptedException);
+
+        assertEquals(AbstractResource.HTTP_OK,
+            policy.execute("model", "GET", listModels).getResponseCode());
+        assertFalse(policy.isCircuitOpen());
+    }
+
+    @Then("^a retry policy returns the (\\d+) response when its circuit opens while retrying$")
+    public void a_retry_policy_returns_the_last_response(int code) throws Exception {
+        AdaptiveRetryPolicy policy = new AdaptiveRetryPolicy(
+            AdaptiveRetryPolicy.DEFAULT_MAX_RATE, 3, 10, 10, 1,
+            AdaptiveRetryPolicy.DEFAULT_OPEN_TIME);
+        server.resetCounts();
+        assertEquals(code, policy.execute("model", "GET", listModelsRequest())
+            .getResponseCode());
+        assertEquals(1, server.getRequestCount("GET"));
+        assertTrue(policy.isCircuitOpen());
+    }
+
+    private RetryPolicy.Request listModelsRequest() {
+        final String url = api.getBigMLUrl() + "model?username=user&api_key=key";
+        return new RetryPolicy.Request() {
+            public HttpURLConnection send() throws Exception {
+                return (HttpURLConnection) new URL(url).openConnection();
+            }
+        };
+    }
+
+    @Given("^the mock client sends requests without a retry policy$")
+    public void the_mock_client_sends_requests_without_a_retry_policy() {
+        api.setRetryPolicy(null);
+    }
+
+    @Then("^creating a dataset from the mock source (synchronously|asynchronously) fails with code (\\d+) in its result and its error$")
+    public void creating_a_dataset_from_the_mock_source_fails(String mode,
+            int code) {
+        server.failNext(1, code);
+        JSONObject dataset;
+        if ("asynchronously".equals(mode)) {
+            JSONObject args = new JSONObject();
+            args.put("source", source.get("resource"));
+            dataset = api.getAsyncClient().create("dataset", args).join();
+        } else {
+            dataset = api.createDataset(
+                (String) source.get("resource"), null, null, null);
+        }
+        assertEquals(code, ((Number) dataset.get("code")).intValue());
+        JSONObject status = (JSONObject)
+            ((JSONObject) dataset.get("error")).get("status");
+        assertEquals(code, ((Number) status.get("code")).intValue());
+    }
+
+    @Then("^deleting the mock models in bulk fails for (\\d+) of them after (\\d+) DELETE requests$")
+    public void deleting_the_mock_models_in_bulk(int failures, int requests) {
+        server.resetCounts();
+        BulkResult result = api.deleteAll(server.list("model"));
+        assertEquals(failures, result.getFailures().size());
+        assertEquals(requests, server.getRequestCount("DELETE"));
+    }
+
+    @Then("^the mock server answered (\\d+) requests with code (\\d+)$")
+    public void the_mock_server_answered_requests_with_code(int count, int code) {
+        assertEquals(count, server.getResponseCount(code));
+    }
+
+    @Given("^the mock server serves \"(.*)\" as the download of a batch prediction of the first mock model$")
+    public void the_mock_server_serves_the_download_of_a_batch_prediction(String content) {
+        JSONArray listing = (JSONArray) api.listModels("").get("objects");
+        String modelId = (String) ((JSONObject) listing.get(0)).get("resource");
+        String datasetId = (String) ((JSONObject) listing.get(0)).get("dataset");
+
+        batchPrediction = api.createBatchPrediction(
+            modelId, datasetId, null, null, null);
+        assertEquals(AbstractResource.HTTP_CREATED,
+            ((Number) batchPrediction.get("code")).intValue());
+        server.setDownload((String) batchPrediction.get("resource"),
+            content.replace("\\n", "\n"));
+    }
+
+    @Then("^the downloaded batch prediction is \"(.*)\"$")
+    public void the_downloaded_batch_prediction_is(String content) throws Exception {
+        File output = File.createTempFile("batch_prediction", ".csv");
+        output.deleteOnExit();
+        JSONObject download = api.downloadBatchPrediction(
+            (String) batchPrediction.get("resource"), output.getPath());
+        assertEquals(AbstractResource.HTTP_OK,
+            ((Number) download.get("code")).intValue());
+        assertEquals(content.replace("\\n", "\n"),
+            new String(Files.readAllBytes(output.toPath()), "UTF-8").trim());
+    }
+
+    @Given("^I run a workflow that creates a source from \"(.*)\", a dataset, (\\d+) models and a batch prediction per model$")
+    public void I_run_a_workflow(String fileName, int count) throws Exception {
+        File checkpoint = File.createTempFile("workflow", ".json");
+        checkpoint.delete();
+        checkpoint.deleteOnExit();
+
+        workflow = new Workflow(api);
+        workflow.setCheckpointFile(checkpoint);
+        workflow.setPollInterval(100);
+        workflow.addSource("source", fileName);
+        workflow.add("dataset", "dataset").ref("source", "source");
+        for (int i = 0; i < count; i++) {
+            workflow.add("model" + i, "model").ref("dataset", "dataset")
+                .arg("name", "model " + i);
+            workflow.add("batchprediction" + i, "batchprediction")
+                .ref("model", "model" + i).ref("dataset", "dataset");
+        }
+        workflowResult = workflow.run();
+    }
+
+    @Given("^I add an evaluation of the first model to the workflow and run it again$")
+    public void I_add_an_evaluation_and_run_the_workflow_again() throws Exception {
+        workflow.add("evaluation", "evaluation").ref("model", "model0")
+            .ref("dataset", "dataset");
+        workflowResult = workflow.run();
+    }
+
+    @Then("^the workflow finished (\\d+) steps$")
+    public void the_workflow_finished_steps(int count) {
+        assertTrue(workflowResult.isSuccessful());
+        assertEquals(count, workflowResult.getSucceeded());
+
+        JSONObject model = (JSONObject) workflowResult.getResult("model0").get("object");
+        assertEquals(workflowResult.getResult("dataset").get("resource"),
+            model.get("dataset"));
+    }
+
+    @Then("^the mock server received (\\d+) POST requests$")
+    public void the_mock_server_received_POST_requests(int count) {
+        assertEquals(count, server.getRequestCount("POST"));
+    }
+
+    @Then("^getting the first mock model in (\\d+) threads at once sends (\\d+) GET requests? answered with (\\d+)$")
+    public void getting_the_first_mock_model_in_threads_at_once(int threads,
+            int requests, int code) throws Exception {
+        final String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        // a client with an empty cache of its own
+        File storage = Files.createTempDirectory("bigml-cache").toFile();
+        final CacheManager cacheManager = new CacheManager(storage.getAbsolutePath());
+        final BigMLClient client = new BigMLClient(new BigMLSettings(
+            server.getUrl(), "user", "key", null, null, null), cacheManager);
+        RequestCoalescer coalescer = client.getRequestCoalescer();
+
+        server.resetCounts();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<JSONObject>> results = new ArrayList<Future<JSONObject>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<JSONObject>() {
+                    public JSONObject call() throws Exception {
+                        start.await();
+                        return client.getModel(modelId);
+                    }
+                }));
+            }
+            start.countDown();
+            List<JSONObject> answers = new ArrayList<JSONObject>();
+            for (Future<JSONObject> result : results) {
+                JSONObject model = result.get(30, TimeUnit.SECONDS);
+                assertEquals(code, ((Number) model.get("code")).intValue());
+                // each caller gets its own copy of the shared result
+                for (JSONObject answer : answers) {
+                    assertTrue(answer != model);
+                }
+                answers.add(model);
+            }
+        } finally {
+            executor.shutdownNow();
+            cacheManager.cleanCache();
+            storage.delete();
+        }
+        assertEquals(requests, server.getRequestCount("GET"));
+        assertEquals(requests, coalescer.getIssuedRequests());
+        assertEquals(threads - requests, coalescer.getCoalescedRequests());
+        assertEquals(0, coalescer.getInFlightRequests());
+    }
+
+    @Then("^getting the first mock model from (\\d+) clients sharing a cache in (\\d+) threads sends (\\d+) GET requests?$")
+    public void getting_the_first_mock_model_from_clients_sharing_a_cache(
+            int clients, int threads, int requests) throws Exception {
+        final String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        File storage = Files.createTempDirectory("bigml-cache").toFile();
+        final List<BigMLClient> sharing = new ArrayList<BigMLClient>();
+        for (int i = 0; i < clients; i++) {
+            // each client has its own manager of the same storage
+            sharing.add(new BigMLClient(new BigMLSettings(server.getUrl(),
+                "user", "key", null, null, null),
+                new CacheManager(storage.getAbsolutePath())));
+        }
+
+        CacheManager cacheManager = sharing.get(0).getCacheManager();
+        server.resetCounts();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<JSONObject>> results = new ArrayList<Future<JSONObject>>();
+            for (int i = 0; i < threads; i++) {
+                final BigMLClient client = sharing.get(i % clients);
+                results.add(executor.submit(new Callable<JSONObject>() {
+                    public JSONObject call() throws Exception {
+                        start.await();
+                        return client.getModel(modelId);
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<JSONObject> result : results) {
+                JSONObject model = result.get(30, TimeUnit.SECONDS);
+                assertEquals(AbstractResource.HTTP_OK,
+                    ((Number) model.get("code")).intValue());
+                assertEquals(modelId, model.get("resource"));
+            }
+        } finally {
+            executor.shutdownNow();
+            cacheManager.cleanCache();
+            storage.delete();
+        }
+        assertEquals(requests, server.getRequestCount("GET"));
+    }
+
+    @Then("^reading the mock models from a (compressed|plain) cache without a size limit records the access to them$")
+    public void reading_the_mock_models_records_the_access(String kind)
+            throws Exception {
+        File storage = Files.createTempDirectory("bigml-cache").toFile();
+        CacheManager cacheManager = new CacheManager(storage.getAbsolutePath(),
+            "compressed".equals(kind), 0);
+        BigMLClient client = new BigMLClient(new BigMLSettings(
+            server.getUrl(), "user", "key", null, null, null), cacheManager);
+        try {
+            for (Object model : models) {
+                client.getModel((String) ((JSONObject) model).get("resource"));
+            }
+            List<File> entries = cacheFiles(storage, ".json");
+            assertEquals(models.size(), entries.size());
+            long accessed = System.currentTimeMillis() - 10 * 60 * 1000;
+            for (File entry : entries) {
+                assertTrue(entry.setLastModified(accessed));
+            }
+            for (Object model : models) {
+                assertTrue(cacheManager.get(
+                    (String) ((JSONObject) model).get("resource"), null) != null);
+            }
+            for (File entry : entries) {
+                assertTrue(entry.lastModified() > accessed);
+            }
+        } finally {
+            cacheManager.cleanCache();
+            storage.delete();
+        }
+    }
+
+    @Then("^the cache entry of the first mock model is discarded when its gzip header is corrupt$")
+    public void the_cache_entry_with_a_corrupt_gzip_header_is_discarded()
+            throws Exception {
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        File storage = Files.createTempDirectory("bigml-cache").toFile();
+        CacheManager cacheManager = new CacheManager(storage.getAbsolutePath(),
+            true, 0);
+        BigMLClient client = new BigMLClient(new BigMLSettings(
+            server.getUrl(), "user", "key", null, null, null), cacheManager);
+        try {
+            client.getModel(modelId);
+            List<File> entries = cacheFiles(storage, ".json");
+            assertEquals(1, entries.size());
+            // the gzip magic followed by an unknown compression method
+            Files.write(entries.get(0).toPath(),
+                new byte[] {0x1f, (byte) 0x8b, 0x00, 0x00, 0x00, 0x00});
+            assertTrue(cacheManager.get(modelId, null) == null);
+            assertFalse(cacheManager.exists(modelId, null));
+
+            server.resetCounts();
+            JSONObject model = client.getModel(modelId);
+            assertEquals(AbstractResource.HTTP_OK,
+                ((Number) model.get("code")).intValue());
+            assertEquals(1, server.getRequestCount("GET"));
+            assertTrue(cacheManager.get(modelId, null) != null);
+        } finally {
+            cacheManager.cleanCache();
+            storage.delete();
+        }
+    }
+
+    @Then("^compacting the cache of the mock models deletes their lock files but the held one$")
+    public void compacting_the_cache_deletes_the_lock_files() throws Exception {
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        File storage = Files.createTempDirectory("bigml-cache").toFile();
+        CacheManager cacheManager = new CacheManager(storage.getAbsolutePath());
+        BigMLClient client = new BigMLClient(new BigMLSettings(
+            server.getUrl(), "user", "key", null, null, null), cacheManager);
+        try {
+            for (Object model : models) {
+                client.getModel((String) ((JSONObject) model).get("resource"));
+            }
+            assertEquals(models.size(), cacheFiles(storage, ".lock").size());
+
+            CacheManager.EntryLock held = cacheManager.lockEntry(modelId, null);
+            try {
+                assertEquals(models.size() - 1, cacheManager.compact());
+                assertEquals(1, cacheFiles(storage, ".lock").size());
+            } finally {
+                held.close();
+            }
+            assertEquals(1, cacheManager.compact());
+            assertEquals(0, cacheFiles(storage, ".lock").size());
+            assertEquals(models.size(), cacheFiles(storage, ".json").size());
+
+            // the lock of an entry is created again when it's needed
+            cacheManager.evict(modelId, null);
+            server.resetCounts();
+            client.getModel(modelId);
+            assertEquals(1, server.getRequestCount("GET"));
+            assertEquals(1, cacheFiles(storage, ".lock").size());
+        } finally {
+            cacheManager.cleanCache();
+            storage.delete();
+        }
+    }
+
+    private static List<File> cacheFiles(File storage, String suffix) {
+        List<File> cacheFiles = new ArrayList<File>();
+        for (File shard : storage.listFiles()) {
+            File[] files = shard.isDirectory() ? shard.listFiles() : new File[0];
+            for (File file : files) {
+                if (file.getName().endsWith(suffix)) {
+                    cacheFiles.add(file);
+                }
+            }
+        }
+        return cacheFiles;
+    }
+
+    @Given("^I create (\\d+) models asynchronously from the mock source$")
+    public void I_create_models_asynchronously_from_the_mock_source(int count) {
+        AsyncBigMLClient async = api.getAsyncClient();
+        JSONObject args = new JSONObject();
+        args.put("source", source.get("resource"));
+        JSONObject dataset = async.create("dataset", args).join();
+        assertEquals(AbstractResource.HTTP_CREATED,
+            ((Number) dataset.get("code")).intValue());
+
+        List<CompletableFuture<JSONObject>> futures =
+            new ArrayList<CompletableFuture<JSONObject>>();
+        for (int i = 0; i < count; i++) {
+            args = new JSONObject();
+            args.put("dataset", dataset.get("resource"));
+            futures.add(async.create("model", args));
+        }
+        for (CompletableFuture<JSONObject> future : futures) {
+            JSONObject model = future.join();
+            assertEquals(AbstractResource.HTTP_CREATED,
+                ((Number) model.get("code")).intValue());
+            assertEquals(dataset.get("resource"),
+                ((JSONObject) model.get("object")).get("dataset"));
+        }
+    }
+
+    @Then("^the mock server lists (\\d+) models asynchronously$")
+    public void the_mock_server_lists_models_asynchronously(int count) {
+        JSONObject listing = api.getAsyncClient().list("model", ";limit=100")
+            .join();
+        assertEquals(AbstractResource.HTTP_OK,
+            ((Number) listing.get("code")).intValue());
+        models = (JSONArray) listing.get("objects");
+        assertEquals(count, models.size());
+    }
+
+    @Then("^I get each mock model asynchronously (\\d+) times at once$")
+    public void I_get_each_mock_model_asynchronously(int times) {
+        AsyncBigMLClient async = api.getAsyncClient();
+        List<String> modelIds = new ArrayList<String>();
+        List<CompletableFuture<JSONObject>> futures =
+            new ArrayList<CompletableFuture<JSONObject>>();
+        for (int i = 0; i < times; i++) {
+            for (Object model : models) {
+                String modelId = (String) ((JSONObject) model).get("resource");
+                modelIds.add(modelId);
+                futures.add(async.get(modelId));
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            JSONObject model = futures.get(i).join();
+            assertEquals(AbstractResource.HTTP_OK,
+                ((Number) model.get("code")).intValue());
+            assertEquals(modelIds.get(i), model.get("resource"));
+        }
+    }
+
+    @Given("^I update the first mock model asynchronously with the name \"(.*)\"$")
+    public void I_update_the_first_mock_model_asynchronously(String name) {
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        JSONObject changes = new JSONObject();
+        changes.put("name", name);
+        JSONObject resource = api.getAsyncClient().update(modelId, changes)
+            .join();
+        assertEquals(AbstractResource.HTTP_ACCEPTED,
+            ((Number) resource.get("code")).intValue());
+        assertEquals(name, ((JSONObject) resource.get("object")).get("name"));
+    }
+
+    @Given("^I delete the first mock model asynchronously$")
+    public void I_delete_the_first_mock_model_asynchronously() {
+        AsyncBigMLClient async = api.getAsyncClient();
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+        assertEquals(AbstractResource.HTTP_NO_CONTENT,
+            ((Number) async.delete(modelId).join().get("code")).intValue());
+        assertEquals(AbstractResource.HTTP_NOT_FOUND,
+            ((Number) async.get(modelId).join().get("code")).intValue());
+    }
+
+    @Given("^the mock server answers after (\\d+) ms$")
+    public void the_mock_server_answers_after(int latency) {
+        server.setLatency(latency, latency);
+    }
+
+    @Then("^getting the first mock model asynchronously from a cache that reads in (\\d+) ms with a deadline of (\\d+) ms times out$")
+    public void getting_the_first_mock_model_from_a_slow_cache_times_out(
+            final int readTime, int deadline) throws Exception {
+        CacheManager slowCache = new CacheManager(
+            api.getCacheManager().getStorage()) {
+            public boolean exists(String resource, String queryString) {
+                try {
+                    Thread.sleep(readTime);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.exists(resource, queryString);
+            }
+        };
+        BigMLClient slowClient = new BigMLClient(new BigMLSettings(
+            server.getUrl(), "user", "key", null, null, null), slowCache);
+        String modelId = (String) ((JSONObject) models.get(0)).get("resource");
+
+        long start = System.nanoTime();
+        CompletableFuture<JSONObject> future = slowClient.getAsyncClient().get(
+            modelId, null, Duration.ofMillis(deadline));
+        try {
+            future.join();
+            fail("The request didn't time out");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertTrue((System.nanoTime() - start) / 1000000L < readTime);
+    }
+
+    @Then("^cancelling the asynchronous get of a mock model that isn't cached abandons its request$")
+    public void cancelling_the_asynchronous_get_abandons_its_request() throws Exception {
+        RecordingHttpClient httpClient = new RecordingHttpClient(
+            HttpClient.newHttpClient());
+        AsyncBigMLClient async = new AsyncBigMLClient(api, httpClient);
+        CompletableFuture<JSONObject> future = async.get(
+            "model/000000000000000000000000", null, null);
+        CompletableFuture<?> exchange = httpClient.exchanges.poll(5, TimeUnit.SECONDS);
+        assertTrue("The request wasn't sent", exchange != null);
+
+        future.cancel(true);
+        assertTrue(future.isCancelled());
+        // the HTTP client closes the connection of a cancelled exchange
+        // since Java 16, before it the response is read and discarded
+        assertTrue(exchange.isCancelled());
+    }
+
+    @Then("^listing the mock models asynchronously with a deadline of (\\d+) ms times out$")
+    public void listing_the_mock_models_asynchronously_times_out(int deadline) {
+        CompletableFuture<JSONObject> future = api.getAsyncClient().list(
+            "model", "", Duration.ofMillis(deadline));
+        try {
+            future.join();
+            fail("The request didn't time out");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException
+                || e.getCause() instanceof HttpTimeoutException);
+        }
+    }
+
+    /**
+     * Sends the requests with another client, keeping the futures of their
+     * exchanges
+     */
+    private static class RecordingHttpClient extends HttpClient {
+
+        private final HttpClient client;
+        private final BlockingQueue<CompletableFuture<?>> exchanges =
+            new LinkedBlockingQueue<CompletableFuture<?>>();
+
+        RecordingHttpClient(HttpClient client) {
+            this.client = client;
+        }
+
+        public Optional<CookieHandler> cookieHandler() {
+            return client.cookieHandler();
+        }
+
+        public Optional<Duration> connectTimeout() {
+            return client.connectTimeout();
+        }
+
+        public Redirect followRedirects() {
+            return client.followRedirects();
+        }
+
+        public Optional<ProxySelector> proxy() {
+            return client.proxy();
+        }
+
+        public SSLContext sslContext() {
+            return client.sslContext();
+        }
+
+        public SSLParameters sslParameters() {
+            return client.sslParameters();
+        }
+
+        public Optional<Authenticator> authenticator() {
+            return client.authenticator();
+        }
+
+        public Version version() {
+            return client.version();
+        }
+
+        public Optional<Executor> executor() {
+            return client.executor();
+        }
+
+        public <T> HttpResponse<T> send(HttpRequest request,
+                HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            return client.send(request, handler);
+        }
+
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+                HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            return sendAsync(request, handler, null);
+        }
+
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+                HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            CompletableFuture<HttpResponse<T>> exchange = client.sendAsync(
+                request, handler, pushPromiseHandler);
+            exchanges.add(exchange);
+            return exchange;
+        }
+    }
+
+}
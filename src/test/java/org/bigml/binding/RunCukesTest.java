@@ -50,6 +50,7 @@ import org.springframework.test.context.ContextConfiguration;
         "src/test/resources/test_local_timeseries.feature",
         "src/test/resources/test_local_topicmodel.feature",
         "src/test/resources/test_logisticregression.feature",
+        "src/test/resources/test_mock_server.feature",
         "src/test/resources/test_model.feature",
         "src/test/resources/test_multivote_prediction.feature",
         "src/test/resources/test_optiml_fusion.feature",
@@ -14,6 +14,20 @@ Feature: LocalCluster
         #| data/spam_4w.csv | 100   | {"Message": "mobile"} | {"distance": 0.0, "data": {"Message": "mobile", "Type": "spam"}}  |
 
 
+    Scenario Outline: Successfully getting the closest points in a cluster without the API
+        Given I create a local cluster from a "<cluster>" file
+        And I set <points> points on a grid in the cluster "<centroid>" with seed <seed>
+        Then the closest <number> points in the cluster "<centroid>" to "<reference>" are the ones found by a full scan
+
+        Examples:
+        | cluster                | points | centroid | seed | number | reference                                                                                   |
+        | data/iris_cluster.json | 500    | 000001   | 1    | 1      | {"sepal width": 3.0, "petal length": 4.0, "petal width": 1.0, "species": "Iris-versicolor"} |
+        | data/iris_cluster.json | 500    | 000001   | 1    | 25     | {"sepal width": 3.0, "petal length": 4.0, "petal width": 1.0, "species": "Iris-versicolor"} |
+        | data/iris_cluster.json | 500    | 000001   | 2    | 40     | {"sepal width": 2.5, "petal length": 3.5, "petal width": 1.5}                               |
+        | data/iris_cluster.json | 2000   | 000002   | 3    | 100    | {"sepal width": 3.2, "petal length": 5.1, "petal width": 2.3, "species": "Iris-setosa"}     |
+        | data/iris_cluster.json | 20     | 000000   | 4    | 50     | {"sepal width": 3.5, "petal length": 1.4, "petal width": 0.2, "species": "Iris-setosa"}     |
+
+
 	Scenario Outline: Successfully getting the closest centroid in a cluster
         Given I provision a dataset from "<data>" file
         And I create a cluster
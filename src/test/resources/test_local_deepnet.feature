@@ -88,3 +88,13 @@ Feature: LocalDeepnet
         | data  | time_1  | data_input  | objective    | prediction | params    |
         | data/iris.csv | 1000  | {}    | 000004   | Iris-versicolor  | {}  |
         | data/iris.csv | 1000  | {}    | 000004   | Iris-virginica  | {"default_numeric_value": "maximum"} |
+
+
+    Scenario Outline: Successfully sharing a local deepnet in a json file among threads:
+        Given I create a local deepnet from a "<model>" file
+        Then the local deepnet predictions of the "<data>" file are the same in <threads> threads
+
+        Examples:
+        | model                  | data                   | threads |
+        | data/iris_deepnet.json | data/iris.csv          | 4       |
+        | data/iris_deepnet.json | data/iris_missing2.csv | 8       |
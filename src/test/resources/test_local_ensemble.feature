@@ -34,3 +34,13 @@ Feature: LocalEnsemble
         | data/dates2.csv | 30     | {"time-1": "2001-01-05T23:04:04.693", "cat-0":"cat2"}  | 000002    | -0.23387    |
         | data/dates2.csv | 30     | {"time-1": "1969-W29-1T17:36:39Z", "cat-0":"cat1"}  | 000002    | -0.05469    |
         | data/dates2.csv | 30     | {"time-1": "Mon Jul 14 17:36 +0000 1969", "cat-0":"cat1"}  | 000002    | -0.05469    |
+
+
+    Scenario Outline: Successfully sharing a local ensemble in a json file among threads:
+        Given I create a local ensemble from a "<ensemble>" file
+        Then the local ensemble predictions of the "<data>" file are the same in <threads> threads
+
+        Examples:
+        | ensemble                | data                   | threads |
+        | data/iris_ensemble.json | data/iris.csv          | 4       |
+        | data/iris_ensemble.json | data/iris_missing2.csv | 8       |
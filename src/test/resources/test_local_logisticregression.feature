@@ -206,3 +206,24 @@ Feature: LocalLogisticRegression
         | data  | time_1  | data_input | prediction | params  |
         | data/iris.csv | 120 | {} | Iris-versicolor | {}  |
         | data/iris.csv | 120 | {} | Iris-virginica	| {"default_numeric_value": "maximum"}  |
+
+
+    Scenario Outline: Successfully sharing a local logistic regression in a json file among threads:
+        Given I create a local logistic regression from a "<model>" file
+        Then the local logistic regression predictions of the "<data>" file are the same in <threads> threads
+
+        Examples:
+        | model                              | data                   | threads |
+        | data/iris_logistic_regression.json | data/iris.csv          | 4       |
+        | data/iris_logistic_regression.json | data/iris_missing2.csv | 8       |
+
+
+    Scenario Outline: Successfully batch scoring a CSV file with a local logistic regression in a json file:
+        Given I create a local logistic regression from a "<model>" file
+        When I batch score the "<data>" file with the local logistic regression in chunks of <chunk> rows
+        Then the batch scores file has the headers "<headers>"
+        And the batch scores are the local logistic regression predictions of the "<data>" file
+
+        Examples:
+        | model                              | data          | chunk | headers                                                         |
+        | data/iris_logistic_regression.json | data/iris.csv | 7     | prediction,probability,Iris-setosa,Iris-versicolor,Iris-virginica |
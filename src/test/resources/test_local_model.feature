@@ -167,6 +167,20 @@ Feature: LocalModel
         | data/iris.csv | 30000	| {"petal length": 2} | 000004	| Iris-setosa	| confidence	|
 
 
+    Scenario Outline: Successfully creating predictions with operating points from a local model in a json file:
+        Given I create a local model from a "<model>" file
+        When I create a local prediction with model with operating point "<operating_point>" for "<data_input>"
+        Then the local model prediction is "<prediction>"
+
+        Examples:
+        | model                | data_input                            | prediction      | operating_point                                                               |
+        | data/iris_model.json | {"petal width": 4}                    | Iris-setosa     | {"kind": "probability", "threshold": 0.1, "positive_class": "Iris-setosa"}     |
+        | data/iris_model.json | {"petal width": 4}                    | Iris-versicolor | {"kind": "probability", "threshold": 0.9, "positive_class": "Iris-setosa"}     |
+        | data/iris_model.json | {"petal width": 4}                    | Iris-virginica  | {"kind": "probability", "threshold": 0.9, "positive_class": "Iris-versicolor"} |
+        | data/iris_model.json | {"petal length": 6, "petal width": 2} | Iris-virginica  | {"kind": "confidence", "threshold": 0.9, "positive_class": "Iris-setosa"}      |
+        | data/iris_model.json | {"petal length": 5}                   | Iris-versicolor | {"kind": "confidence", "threshold": 0.9, "positive_class": "Iris-virginica"}   |
+
+
     Scenario Outline: Successfully creating a prediction from a local model in a json file:
       Given I create a local model from a "<model>" file
       And the local prediction for "<data_input>" is "<prediction>"
@@ -177,6 +191,251 @@ Feature: LocalModel
       | data/iris_model.json | {"petal length": 0.5}  | Iris-setosa | 0.90594     |
 
 
+    Scenario Outline: Successfully creating a prediction without explanation from a local model in a json file:
+      Given I create a local model from a "<model>" file
+      And I disable the explanation of the local model predictions
+      Then the local prediction for "<data_input>" is "<prediction>"
+      And the path of the local prediction for "<data_input>" is "<path>"
+
+      Examples:
+      | model                | data_input                                   | prediction      | path |
+      | data/iris_model.json | {"petal length": 0.5}                        | Iris-setosa     | ["petal length <= 2.35"] |
+      | data/iris_model.json | {"petal length": 4.5, "petal width": 1.6}    | Iris-versicolor | ["petal length > 2.35", "petal width <= 1.75", "petal length <= 4.95", "petal width <= 1.65"] |
+
+
+    Scenario Outline: Successfully scoring a CSV file with a local model in a json file:
+      Given I create a local model from a "<model>" file
+      When I score the "<data>" file with the local model
+      Then the number of scored rows is <rows>
+      And the local prediction of the scored row <row> is "<prediction>"
+
+      Examples:
+      | model                | data          | rows | row | prediction      |
+      | data/iris_model.json | data/iris.csv | 150  | 0   | Iris-setosa     |
+      | data/iris_model.json | data/iris.csv | 150  | 50  | Iris-versicolor |
+      | data/iris_model.json | data/iris.csv | 150  | 100 | Iris-virginica  |
+
+
+    Scenario Outline: Successfully batch scoring a CSV file with a local model in a json file:
+      Given I enable the in-memory instrumentation
+      And I create a local model from a "<model>" file
+      When I batch score the "<data>" file with the local model in chunks of <chunk> rows
+      Then the batch scores file has the headers "<headers>"
+      And the batch scores file has <rows> rows
+      And the batch score of the row <row> is "<prediction>"
+      And the instrumentation has recorded <rows> "model" predictions of "<id>"
+      And I disable the instrumentation
+
+      Examples:
+      | model                | data          | chunk | headers                                                        | rows | row | prediction      | id                             |
+      | data/iris_model.json | data/iris.csv | 7     | prediction,confidence,Iris-setosa,Iris-versicolor,Iris-virginica | 150  | 0   | Iris-setosa     | model/53c872fb37203f7085000ddd |
+      | data/iris_model.json | data/iris.csv | 7     | prediction,confidence,Iris-setosa,Iris-versicolor,Iris-virginica | 150  | 149 | Iris-virginica  | model/53c872fb37203f7085000ddd |
+
+
+    Scenario Outline: Successfully evaluating a local model in a json file with a CSV file:
+      Given I create a local model from a "<model>" file
+      When I evaluate the local model with the "<data>" file in <threads> threads
+      Then the local evaluation has <rows> rows
+      And the local evaluation confusion matrix is "<matrix>"
+      And the measured "<measure>" is equals to <value>
+
+      Examples:
+      | model                | data                   | threads | rows | matrix                           | measure                      | value   |
+      | data/iris_model.json | data/iris.csv          | 2       | 150  | [[50,0,0],[0,50,0],[0,0,50]]     | average_phi                  | 1       |
+      | data/iris_model.json | data/iris_missing2.csv | 1       | 47   | [[0,16,0],[7,7,0],[0,0,17]]      | accuracy                     | 0.51064 |
+      | data/iris_model.json | data/iris_missing2.csv | 3       | 47   | [[0,16,0],[7,7,0],[0,0,17]]      | average_phi                  | 0.23777 |
+      | data/iris_model.json | data/iris_missing2.csv | 3       | 47   | [[0,16,0],[7,7,0],[0,0,17]]      | average_area_under_roc_curve | 0.75806 |
+
+
+    Scenario Outline: Successfully sharing a local model in a json file among threads:
+      Given I create a local model from a "<model>" file
+      Then the local predictions of the "<data>" file are the same in <threads> threads
+
+      Examples:
+      | model                | data                   | threads |
+      | data/iris_model.json | data/iris.csv          | 4       |
+      | data/iris_model.json | data/iris_missing2.csv | 8       |
+
+
+    Scenario Outline: Successfully caching the predictions of a local model in a json file:
+      Given I create a local model from a "<model>" file
+      And I cache the predictions of the local model in <entries> entries
+      When I score the "<data>" file with the local model
+      And I score the "<data>" file with the local model
+      Then the prediction cache has <hits> hits and <misses> misses
+      And the cached local predictions of the "<data>" file are the computed ones
+
+      Examples:
+      | model                | data          | entries | hits | misses |
+      | data/iris_model.json | data/iris.csv | 1000    | 157  | 143    |
+      | data/iris_model.json | data/iris.csv | 10      | 0    | 300    |
+
+
+    Scenario Outline: Successfully keeping the predictions that the admission filter of the cache rejects:
+      Given a prediction cache of <entries> entries and <bytes> bytes with the admission filter
+      And I cache a prediction of <length> characters for each of the keys "<keys>"
+      And I look up the key "<frequent>" in the prediction cache <times> times
+      And I look up the key "<key>" in the prediction cache <key_times> times
+      When I cache a prediction of <key_length> characters for each of the keys "<key>"
+      Then the prediction cache has the keys "<cached>" and not "<evicted>"
+      And the prediction cache has <evictions> evictions and <rejections> rejections
+
+      Examples:
+      | entries | bytes | keys | length | frequent | times | key | key_times | key_length | cached | evicted | evictions | rejections |
+      | 10      | 250   | a,b  | 10     | b        | 3     | a   | 0         | 50         | a      | b       | 1         | 0          |
+      | 2       | 0     | a,b  | 10     | b        | 3     | a   | 0         | 50         | a,b    |         | 0         | 0          |
+      | 10      | 250   | a,b  | 10     | b        | 3     | c   | 1         | 50         | a,b    | c       | 0         | 1          |
+      | 10      | 250   | a,b  | 10     | b        | 3     | c   | 5         | 50         | c      | a,b     | 2         | 0          |
+      | 2       | 0     | a,b  | 10     | b        | 3     | c   | 1         | 10         | b,c    | a       | 1         | 0          |
+
+
+    Scenario Outline: Successfully instrumenting the predictions of a local model in a json file:
+      Given I enable the in-memory instrumentation
+      And I create a local model from a "<model>" file
+      When I score the "<data>" file with the local model
+      Then the instrumentation has recorded <rows> "<kind>" predictions of "<id>"
+      And the instrumentation has recorded the load of the "<kind>" "<id>"
+      And I disable the instrumentation
+
+      Examples:
+      | model                | data          | rows | kind  | id                             |
+      | data/iris_model.json | data/iris.csv | 150  | model | model/53c872fb37203f7085000ddd |
+
+
+    Scenario Outline: Successfully merging the distributions of the leaves with the proportional missing strategy:
+      Given I create a local model from a "<model>" file
+      Then the proportional predictions of the "<data>" file without "<missing>" merge the leaves they reach
+
+      Examples:
+      | model                           | data          | missing                             |
+      | data/iris_model.json            | data/iris.csv | petal width                         |
+      | data/iris_model.json            | data/iris.csv | petal width,petal length            |
+      | data/iris_regression_model.json | data/iris.csv | petal width                         |
+      | data/iris_regression_model.json | data/iris.csv | species,sepal width                 |
+      | data/iris_regression_model.json | data/iris.csv | petal width,species,sepal width     |
+
+
+    Scenario Outline: Successfully computing the deferred values of the nodes of a local model in a json file:
+      Then the deferred values of a local model from a "<model>" file <medians> the medians of its nodes are the eager ones in <threads> threads
+
+      Examples:
+      | model                           | medians | threads |
+      | data/iris_model.json            | with    | 8       |
+      | data/iris_regression_model.json | with    | 8       |
+      | data/iris_regression_model.json | without | 8       |
+
+
+    Scenario Outline: Successfully sharing a cached prediction without explanation from a local model in a json file:
+      Given I create a local model from a "<model>" file
+      And I cache the predictions of the local model in 100 entries
+      And I disable the explanation of the local model predictions
+      Then the path of a local prediction for "<data_input>" shared by <threads> threads is "<path>"
+      When I enable the explanation of the local model predictions
+      Then the local prediction for "<data_input>" includes the path "<path>"
+
+      Examples:
+      | model                | data_input                                | threads | path |
+      | data/iris_model.json | {"petal length": 4.5, "petal width": 1.6} | 8       | ["petal length > 2.35", "petal width <= 1.75", "petal length <= 4.95", "petal width <= 1.65"] |
+
+
+    Scenario Outline: Successfully creating predictions from a compiled local model in a json file:
+      Given I create a local model from a "<model>" file
+      When I compile the local model
+      Then the local prediction for "<data_input>" is "<prediction>"
+      And the path of the local prediction for "<data_input>" is "<path>"
+      And the compiled local model predicts as the interpreted "<model>" for the "<data>" file
+
+      Examples:
+      | model                | data          | data_input                                | prediction      | path |
+      | data/iris_model.json | data/iris.csv | {"petal length": 4.5, "petal width": 1.6} | Iris-versicolor | ["petal length > 2.35", "petal width <= 1.75", "petal length <= 4.95", "petal width <= 1.65"] |
+
+
+    Scenario Outline: Successfully creating predictions from a compiled deep local model with missing-aware splits in a json file:
+      Given I create a local model from a "<model>" file
+      When I compile the local model
+      Then the compiled local model predicts as the interpreted "<model>" for the "<data>" file
+
+      Examples:
+      | model                        | data                         |
+      | data/iris_missing_model.json | data/iris.csv                |
+      | data/iris_missing_model.json | data/iris_missing_values.csv |
+
+
+    Scenario Outline: Successfully creating predictions from a compiled local boosted ensemble in a json file:
+      Given I create a local ensemble from a "<ensemble>" file
+      When I compile the local ensemble
+      Then the compiled local ensemble predicts as the interpreted "<ensemble>" for the "<data>" file
+
+      Examples:
+      | ensemble                        | data                         |
+      | data/iris_boosted_ensemble.json | data/iris.csv                |
+      | data/iris_boosted_ensemble.json | data/iris_missing_values.csv |
+
+
+    Scenario Outline: Successfully creating predictions from a local model in a json file read without some sections:
+      Given I create a local model from a "<model>" file without "<skipped>"
+      Then the local prediction for "<data_input>" is "<prediction>"
+      And the local model predicts as the interpreted "<model>" for the "<data>" file
+
+      Examples:
+      | model                | data          | skipped                                                                                   | data_input                                | prediction      |
+      | data/iris_model.json | data/iris.csv | object.model.importance,object.model.fields.*.summary,object.model.model_fields.*.summary | {"petal length": 4.5, "petal width": 1.6} | Iris-versicolor |
+
+
+    Scenario Outline: Successfully creating predictions from a local model in a json file read for predictions:
+      Given I create a local model for predictions from a "<model>" file
+      Then the local model predicts as the interpreted "<model>" for the "<data>" file
+
+      Examples:
+      | model                           | data          |
+      | data/iris_model.json            | data/iris.csv |
+      | data/iris_regression_model.json | data/iris.csv |
+
+
+    Scenario Outline: Successfully creating predictions from a local model with a deep tree read without some sections:
+      Given I create a local model from a "<model>" file with a tree <depth> levels deep read without "<skipped>"
+      Then the local prediction for "<data_input>" is "<prediction>"
+
+      Examples:
+      | model                | depth | skipped                 | data_input            | prediction     |
+      | data/iris_model.json | 1500  | object.model.importance | {"petal length": 7}   | Iris-virginica |
+      | data/iris_model.json | 1500  | object.model.importance | {"petal length": 1}   | Iris-setosa    |
+      | data/iris_model.json | 1500  | object.model.importance | {"petal length": 3.1} | Iris-setosa    |
+
+
+    Scenario Outline: Successfully limiting the depth of the json documents read:
+      Then reading a json document nested <depth> levels deep <outcome>
+
+      Examples:
+      | depth  | outcome  |
+      | 4999   | succeeds |
+      | 5000   | fails    |
+      | 500000 | fails    |
+
+
+    Scenario Outline: Successfully parsing dates with the datetime formats:
+      Then the date "<date>" in the "<format>" format is parsed as the pattern "<pattern>" parses it
+
+      Examples:
+      | date                          | format                           | pattern                     |
+      | 2020-02-03                    | date                             | yyyy-MM-dd                  |
+      | 2020-2-3                      | date                             | yyyy-MM-dd                  |
+      | 2020-02-03T04:05              | date                             | yyyy-MM-dd                  |
+      | 2/3/95                        | us-date                          | M/d/y                       |
+      | 2/3/50                        | us-date                          | M/d/y                       |
+      | 2/3/2050                      | us-date                          | M/d/y                       |
+      | 3/2/95                        | eu-date                          | d/M/y                       |
+      | 2020-02-03                    | eu-date                          | d/M/y                       |
+      | 25:61:61                      | hour-minute-second               | H:mm:ss                     |
+      | 2020-02-03T4:05:06.7          | date-hour-minute-second-fraction | yyyy-MM-dd'T'H:mm:ss.SSS    |
+      | 2020-02-03T4:05:06.78         | date-hour-minute-second-fraction | yyyy-MM-dd'T'H:mm:ss.SSS    |
+      | 2020-02-03T4:05:06.789+01:00  | date-time                        | yyyy-MM-dd'T'H:mm:ss.SSSXXX |
+      | Mon Feb 3 04:05:06 +0000 2020 | twitter-time                     | E MMM d H:m:s Z y           |
+      | Sun Feb 3 04:05:06 +0000 2020 | twitter-time                     | E MMM d H:m:s Z y           |
+      | 2/3/2020 4:05 PM              | us-date-clock-minute             | M/d/y h:m a                 |
+      | 2020-13-45 1:2:3              | mysql                            | yyy-MM-dd H:mm:ss           |
+
+
     Scenario Outline: Successfully creating a multiple prediction from a local model in a json file:
       Given I create a local model from a "<model>" file
       And the multiple local prediction for "<data_input>" is "<prediction>"
@@ -19,3 +19,13 @@ Feature: LocalTopicModel
         | data  | time_1  | time_2 | time_3 | options    |  data_input  | topic_distribution    |
         | data/spam.csv    | 20      | 20     | 30     | {"fields": {"000001": {"optype": "text", "term_analysis": {"case_sensitive": true, "stem_words": true, "use_stopwords": false, "language": "en"}}}}    |   {"Type": "ham", "Message": "Mobile call"}   | [0.51133, 0.00388, 0.00574, 0.00388, 0.00388, 0.00388, 0.00388, 0.00388, 0.00388, 0.00388, 0.00388, 0.44801]  |
         | data/spam.csv    | 20      | 20     | 30     | {"fields": {"000001": {"optype": "text", "term_analysis": {"case_sensitive": true, "stem_words": true, "use_stopwords": false, "language": "en"}}}}         | {"Type": "ham", "Message": "Go until jurong point, crazy.. Available only in bugis n great world la e buffet... Cine there got amore wat..."}    | [0.39188, 0.00643, 0.00264, 0.00643, 0.08112, 0.00264, 0.37352, 0.0115, 0.00707, 0.00327, 0.00264, 0.11086]   |
+
+
+    Scenario Outline: Successfully sharing a local topic model in a json file among threads:
+        Given I create a local topic model from a "<model>" file
+        Then the local topic distributions of the "<data>" file are the same in <threads> threads
+
+        Examples:
+        | model                      | data          | threads |
+        | data/spam_topic_model.json | data/spam.csv | 4       |
+        | data/spam_topic_model.json | data/spam.csv | 8       |
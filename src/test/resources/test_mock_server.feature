@@ -0,0 +1,204 @@
+@mockserver
+Feature: Mock BigML API server
+
+    Scenario Outline: Successfully creating, listing, updating and deleting resources in the mock server:
+        Given I start a mock BigML API server with a processing time of <time_1> ms
+        When I upload the "<data>" file to the mock server
+        Then the mock source status code is <queued>
+        And I wait until the mock source is ready less than <time_2> secs
+        And the mock source file name is "<file_name>"
+        And I create <count> models from the mock source
+        And the mock server lists <count> models with a limit of <limit>
+        And I update the first mock model with "<params>"
+        And the mock server lists 1 models with the filter "<filter>"
+        And I delete the first mock model
+        And the mock server lists <left> models with a limit of <limit>
+        And I stop the mock server
+
+        Examples:
+        | time_1 | data          | queued | time_2 | file_name | count | limit | params              | filter        | left |
+        | 2000   | data/iris.csv | 1      | 10     | iris.csv  | 3     | 2     | {"tags": ["mock"]}  | tags__in=mock | 2    |
+
+
+    Scenario Outline: Successfully iterating over the resources in the mock server while deleting them:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create <count> models from the mock source
+        Then iterating over the mock models <page_size> at a time while deleting them visits each of the <count> models once
+        And the mock server lists 0 models with a limit of 20
+        And I stop the mock server
+
+        Examples:
+        | data          | count | page_size |
+        | data/iris.csv | 25    | 4         |
+        | data/iris.csv | 10    | 20        |
+
+
+    Scenario Outline: Successfully retrying the requests throttled by the mock server:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When the mock server throttles the next <throttled> requests
+        And the mock server lists 0 models with a limit of 20
+        Then the mock server answered <throttled> requests with code 429
+        And I stop the mock server
+
+        Examples:
+        | throttled |
+        | 2         |
+
+
+    Scenario Outline: Successfully retrying the bulk requests throttled by the mock server only once:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create <count> models from the mock source
+        And the mock client sends bulk requests one at a time retrying after 10 ms
+        And the mock server throttles the next <throttled> requests
+        Then deleting the mock models in bulk fails for <failed> of them after <requests> DELETE requests
+        When the mock client sends requests without a retry policy
+        And I create <count> models from the mock source
+        And the mock server throttles the next <throttled> requests
+        Then deleting the mock models in bulk fails for 0 of them after <requests_2> DELETE requests
+        And I stop the mock server
+
+        Examples:
+        | data          | count | throttled | failed | requests | requests_2 |
+        | data/iris.csv | 3     | 3         | 0      | 6        | 6          |
+        | data/iris.csv | 3     | 5         | 1      | 7        | 9          |
+
+
+    Scenario Outline: Successfully reporting the code of the throttled requests in the mock server:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And the mock client sends requests without a retry policy
+        Then creating a dataset from the mock source synchronously fails with code <code> in its result and its error
+        And creating a dataset from the mock source asynchronously fails with code <code> in its result and its error
+        And I stop the mock server
+
+        Examples:
+        | data          | code |
+        | data/iris.csv | 429  |
+        | data/iris.csv | 503  |
+
+
+    Scenario Outline: Successfully reading and compacting the cache of the resources in the mock server:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create <count> models from the mock source
+        And the mock server lists <count> models with a limit of 20
+        Then reading the mock models from a <kind> cache without a size limit records the access to them
+        And the cache entry of the first mock model is discarded when its gzip header is corrupt
+        And compacting the cache of the mock models deletes their lock files but the held one
+        And I stop the mock server
+
+        Examples:
+        | data          | count | kind       |
+        | data/iris.csv | 3     | compressed |
+        | data/iris.csv | 2     | plain      |
+
+
+    Scenario Outline: Successfully downloading a file from the mock server:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create <count> models from the mock source
+        And the mock server serves "<content>" as the download of a batch prediction of the first mock model
+        Then the downloaded batch prediction is "<content>"
+        And I stop the mock server
+
+        Examples:
+        | data          | count | content           |
+        | data/iris.csv | 1     | species\nIris-setosa |
+
+
+    Scenario Outline: Successfully running and resuming a workflow in the mock server:
+        Given I start a mock BigML API server with a processing time of <time> ms
+        When I run a workflow that creates a source from "<data>", a dataset, <count> models and a batch prediction per model
+        Then the workflow finished <steps> steps
+        And the mock server received <steps> POST requests
+        When I add an evaluation of the first model to the workflow and run it again
+        Then the workflow finished <all_steps> steps
+        And the mock server received <all_steps> POST requests
+        And I stop the mock server
+
+        Examples:
+        | time | data          | count | steps | all_steps |
+        | 300  | data/iris.csv | 3     | 8     | 9         |
+
+
+    Scenario Outline: Successfully running a workflow whose creations are throttled by the mock server:
+        Given I start a mock BigML API server with a processing time of <time> ms
+        And the mock client sends requests without a retry policy
+        When the mock server fails the next <throttled> requests with code <code>
+        And I run a workflow that creates a source from "<data>", a dataset, <count> models and a batch prediction per model
+        Then the workflow finished <steps> steps
+        And the mock server received <posts> POST requests
+        And I stop the mock server
+
+        Examples:
+        | data          | time | count | throttled | code | steps | posts |
+        | data/iris.csv | 50   | 2     | 2         | 429  | 6     | 8     |
+        | data/iris.csv | 50   | 2     | 1         | 503  | 6     | 7     |
+
+
+    Scenario Outline: Successfully sending asynchronous requests to the mock server:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create <count> models asynchronously from the mock source
+        Then the mock server lists <count> models asynchronously
+        And I get each mock model asynchronously <times> times at once
+        And I update the first mock model asynchronously with the name "<name>"
+        When the mock server answers after <latency> ms
+        Then listing the mock models asynchronously with a deadline of <deadline> ms times out
+        And getting the first mock model asynchronously from a cache that reads in <latency> ms with a deadline of <deadline> ms times out
+        And cancelling the asynchronous get of a mock model that isn't cached abandons its request
+        When the mock server answers after 0 ms
+        And I delete the first mock model asynchronously
+        Then the mock server lists <left> models asynchronously
+        And I stop the mock server
+
+        Examples:
+        | data          | count | times | name        | latency | deadline | left |
+        | data/iris.csv | 3     | 20    | async model | 1000    | 200      | 2    |
+
+
+    Scenario Outline: Successfully sharing the concurrent gets of a resource in the mock server:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create 1 models from the mock source
+        And the mock server lists 1 models with a limit of 20
+        When the mock server answers after <latency> ms
+        Then getting the first mock model in <threads> threads at once sends 1 GET request answered with 200
+        When the mock server fails the next 1 requests with code <code>
+        Then getting the first mock model in <threads> threads at once sends 1 GET request answered with <code>
+        And getting the first mock model in <threads> threads at once sends 1 GET request answered with 200
+        And I stop the mock server
+
+        Examples:
+        | data          | latency | threads | code |
+        | data/iris.csv | 500     | 10      | 404  |
+
+
+    Scenario Outline: Successfully fetching a resource once for the clients sharing a cache:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When I upload the "<data>" file to the mock server
+        And I create <count> models from the mock source
+        And the mock server lists <count> models with a limit of 20
+        Then getting the first mock model from <clients> clients sharing a cache in <threads> threads sends 1 GET request
+        And I stop the mock server
+
+        Examples:
+        | data          | count | clients | threads |
+        | data/iris.csv | 2     | 3       | 12      |
+        | data/iris.csv | 1     | 1       | 8       |
+
+
+    Scenario Outline: Successfully closing the circuit of the retry policy after an interrupted or failed retry:
+        Given I start a mock BigML API server with a processing time of 0 ms
+        When the mock server fails the next 1 requests with code 500
+        Then a retry policy lets requests through after the trial of its open circuit is interrupted
+        When the mock server fails the next 1 requests with code <code>
+        Then a retry policy returns the <code> response when its circuit opens while retrying
+        And I stop the mock server
+
+        Examples:
+        | code |
+        | 503  |
+        | 502  |